@@ -0,0 +1,121 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
+import com.esri.android.ecologicalmarineunitexplorer.data.LevelOfDetail;
+import com.esri.android.ecologicalmarineunitexplorer.util.StartupTimeline;
+import com.esri.arcgisruntime.data.ServiceFeatureTable;
+import com.esri.arcgisruntime.layers.FeatureLayer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Measures the time from the splash screen to the main activity's
+ * first frame and compares it with building, on the main thread, the
+ * tables and depth layers the DataManager used to create up front.
+ * Needs a device with internet access, since the splash screen only
+ * starts its timeline when it can prewarm the services.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupTimeTest {
+
+  private static final String TAG = StartupTimeTest.class.getSimpleName();
+
+  private static final long FIRST_FRAME_TIMEOUT_MILLIS = 30000;
+
+  @Test
+  public void timeToFirstFrameAgainstEagerConstruction() throws Exception {
+    final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    final Context context = instrumentation.getTargetContext();
+
+    final Instrumentation.ActivityMonitor monitor = instrumentation.addMonitor(MainActivity.class.getName(), null, false);
+    final Intent intent = new Intent(context, SplashActivity.class);
+    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+    instrumentation.startActivitySync(intent);
+    final Activity main = instrumentation.waitForMonitorWithTimeout(monitor, FIRST_FRAME_TIMEOUT_MILLIS);
+    assertNotNull("Main activity didn't start", main);
+
+    final StartupTimeline timeline = DataManager.getDataManagerInstance(context.getApplicationContext()).getStartupTimeline();
+    assertNotNull("No startup timeline, is the device online?", timeline);
+    final long firstFrame = waitForFirstFrame(timeline);
+    assertTrue("First frame wasn't drawn", firstFrame >= 0);
+
+    // The runtime is already loaded, so this times construction alone
+    final long[] eagerMillis = new long[1];
+    instrumentation.runOnMainSync(new Runnable() {
+      @Override public void run() {
+        final long start = SystemClock.elapsedRealtime();
+        final List<Object> eager = new ArrayList<>();
+        eager.add(createTable(context, R.string.service_emu_mesh_cluster));
+        eager.add(createTable(context, R.string.service_emu_point_mesh));
+        eager.add(createTable(context, R.string.service_emu_summary));
+        for (int level = 0; level < LevelOfDetail.getLevelCount(); level++){
+          final FeatureLayer layer = new FeatureLayer(createTable(context, R.string.service_emu_by_depth));
+          layer.setMinScale(LevelOfDetail.getMinScale(level));
+          layer.setMaxScale(LevelOfDetail.getMaxScale(level));
+          eager.add(layer);
+        }
+        eagerMillis[0] = SystemClock.elapsedRealtime() - start;
+      }
+    });
+
+    Log.i(TAG, String.format(Locale.US,
+        "first frame after %d ms; eager construction would have added %d ms before it; %s",
+        firstFrame, eagerMillis[0], timeline));
+    main.finish();
+  }
+
+  private static ServiceFeatureTable createTable(final Context context, final int urlId){
+    final ServiceFeatureTable table = new ServiceFeatureTable(context.getString(urlId));
+    table.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+    return table;
+  }
+
+  private static long waitForFirstFrame(final StartupTimeline timeline) throws InterruptedException {
+    final long deadline = SystemClock.elapsedRealtime() + FIRST_FRAME_TIMEOUT_MILLIS;
+    long firstFrame = timeline.getElapsedMillis(StartupTimeline.FIRST_FRAME);
+    while (firstFrame < 0 && SystemClock.elapsedRealtime() < deadline){
+      Thread.sleep(50);
+      firstFrame = timeline.getElapsedMillis(StartupTimeline.FIRST_FRAME);
+    }
+    return firstFrame;
+  }
+}
@@ -29,9 +29,10 @@ import android.app.ProgressDialog;
 import android.app.SearchManager;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
+import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.os.Bundle;
+import android.provider.BaseColumns;
 import android.support.annotation.NonNull;
 import android.support.design.widget.BottomSheetBehavior;
 import android.support.design.widget.CoordinatorLayout;
@@ -41,29 +42,43 @@ import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentTransaction;
 import android.support.v4.view.MenuItemCompat;
+import android.support.v4.widget.SimpleCursorAdapter;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.SearchView;
 import android.support.v7.widget.Toolbar;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
+import android.widget.Toast;
 
 import com.esri.android.ecologicalmarineunitexplorer.bottomsheet.BottomSheetFragment;
 import com.esri.android.ecologicalmarineunitexplorer.bottomsheet.BottomSheetPresenter;
 import com.esri.android.ecologicalmarineunitexplorer.chartsummary.SummaryChartFragment;
 import com.esri.android.ecologicalmarineunitexplorer.chartsummary.SummaryChartPresenter;
+import com.esri.android.ecologicalmarineunitexplorer.comparison.ComparisonFragment;
+import com.esri.android.ecologicalmarineunitexplorer.comparison.ComparisonPresenter;
+import com.esri.android.ecologicalmarineunitexplorer.data.ComparisonSet;
 import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
 import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
 import com.esri.android.ecologicalmarineunitexplorer.map.MapFragment;
 import com.esri.android.ecologicalmarineunitexplorer.map.MapPresenter;
+import com.esri.android.ecologicalmarineunitexplorer.transect.TransectFragment;
+import com.esri.android.ecologicalmarineunitexplorer.transect.TransectPresenter;
 import com.esri.android.ecologicalmarineunitexplorer.util.ActivityUtils;
+import com.esri.android.ecologicalmarineunitexplorer.util.NetworkUtils;
+import com.esri.android.ecologicalmarineunitexplorer.util.StartupTimeline;
 import com.esri.android.ecologicalmarineunitexplorer.waterprofile.WaterProfileFragment;
 import com.esri.android.ecologicalmarineunitexplorer.waterprofile.WaterProfilePresenter;
 import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.Polyline;
+
+import java.util.List;
 
 /**
  * The single activity in the application that orchestrates fragments,
@@ -84,6 +99,8 @@ public class MainActivity extends AppCompatActivity
   private SummaryChartFragment mSummaryChartFragment = null;
   private SummaryChartPresenter mSummaryChartPresenter = null;
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   public MainActivity() {}
 
   /**
@@ -120,7 +137,7 @@ public class MainActivity extends AppCompatActivity
     }
 
     // Check for internet connectivity
-    if (!checkForInternetConnectivity()){
+    if (!NetworkUtils.checkForInternetConnectivity(this)){
       final ProgressDialog progressDialog = new ProgressDialog(this);
       progressDialog.setMessage(getString(R.string.internet_connectivity));
       progressDialog.setTitle(getString(R.string.wireless_problem));
@@ -140,9 +157,31 @@ public class MainActivity extends AppCompatActivity
       setUpMagFragment();
 
       setUpBottomSheetFragment();
+
+      final StartupTimeline timeline = mDataManager.getStartupTimeline();
+      if (timeline != null){
+        timeline.mark("main activity created");
+        markFirstFrame(timeline);
+      }
     }
   }
 
+  /**
+   * Record when the first frame is about to be drawn
+   * @param timeline - StartupTimeline begun by the splash screen
+   */
+  private void markFirstFrame(final StartupTimeline timeline){
+    final ViewTreeObserver observer = getWindow().getDecorView().getViewTreeObserver();
+    observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+      @Override public boolean onPreDraw() {
+        getWindow().getDecorView().getViewTreeObserver().removeOnPreDrawListener(this);
+        timeline.mark(StartupTimeline.FIRST_FRAME);
+        Log.i(TAG, timeline.toString());
+        return true;
+      }
+    });
+  }
+
   /**
    * Attach display logic to bottom sheet behavior.
    */
@@ -228,6 +267,22 @@ public class MainActivity extends AppCompatActivity
     searchView.setQueryHint(getString(R.string.query_hint));
     final SearchManager searchManager = (SearchManager) getSystemService(Context.SEARCH_SERVICE);
     searchView.setSearchableInfo(searchManager.getSearchableInfo(getComponentName()));
+    // Suggest bundled marine place names as the user types
+    final String[] suggestionColumns = {BaseColumns._ID, SearchManager.SUGGEST_COLUMN_TEXT_1};
+    final SimpleCursorAdapter suggestionAdapter = new SimpleCursorAdapter(this, android.R.layout.simple_list_item_1,
+        null, new String[]{SearchManager.SUGGEST_COLUMN_TEXT_1}, new int[]{android.R.id.text1}, 0);
+    searchView.setSuggestionsAdapter(suggestionAdapter);
+    searchView.setOnSuggestionListener(new SearchView.OnSuggestionListener() {
+      @Override public boolean onSuggestionSelect(final int position) {
+        return false;
+      }
+
+      @Override public boolean onSuggestionClick(final int position) {
+        final Cursor cursor = (Cursor) suggestionAdapter.getItem(position);
+        searchView.setQuery(cursor.getString(cursor.getColumnIndex(SearchManager.SUGGEST_COLUMN_TEXT_1)), true);
+        return true;
+      }
+    });
     searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
       @Override public boolean onQueryTextSubmit(final String query) {
         mMapPresenter.geocodeAddress(query);
@@ -236,7 +291,13 @@ public class MainActivity extends AppCompatActivity
       }
 
       @Override public boolean onQueryTextChange(final String newText) {
-        return false;
+        final MatrixCursor cursor = new MatrixCursor(suggestionColumns);
+        final List<String> names = mMapPresenter.suggestPlaces(newText);
+        for (int i = 0; i < names.size(); i++){
+          cursor.addRow(new Object[]{i, names.get(i)});
+        }
+        suggestionAdapter.changeCursor(cursor);
+        return true;
       }
     });
     return true;
@@ -251,20 +312,195 @@ public class MainActivity extends AppCompatActivity
   public boolean onPrepareOptionsMenu(final Menu menu) {
     final MenuItem profile = menu.findItem(R.id.action_profile);
     final MenuItem search = menu.findItem(R.id.action_search);
+    final MenuItem transect = menu.findItem(R.id.action_transect);
+    final MenuItem pin = menu.findItem(R.id.action_pin);
+    final MenuItem compare = menu.findItem(R.id.action_compare);
+    final boolean hasPins = mDataManager != null && mDataManager.getComparisonSet().size() > 0;
     final int state = mBottomSheetBehavior.getState();
     if ((state == BottomSheetBehavior.STATE_COLLAPSED) || (state == BottomSheetBehavior.STATE_EXPANDED)) {
       profile.setVisible(true);
       search.setVisible(false);
+      transect.setVisible(false);
+      pin.setVisible(true);
+      compare.setVisible(hasPins);
     }else if(mInMapState) {
       profile.setVisible(false);
       search.setVisible(true);
+      transect.setVisible(true);
+      pin.setVisible(false);
+      compare.setVisible(hasPins);
     }else{
       profile.setVisible(false);
       search.setVisible(false);
+      transect.setVisible(false);
+      pin.setVisible(false);
+      compare.setVisible(false);
     }
     return super.onPrepareOptionsMenu(menu);
   }
 
+  /**
+   * Start drawing a transect when the transect
+   * menu item is selected in the map view, or show
+   * the pinned water columns side by side.
+   * @param item MenuItem
+   * @return boolean
+   */
+  @Override
+  public boolean onOptionsItemSelected(final MenuItem item) {
+    if (item.getItemId() == R.id.action_transect && mMapPresenter != null){
+      mMapPresenter.startTransect();
+      return true;
+    }
+    if (item.getItemId() == R.id.action_compare){
+      showComparison();
+      return true;
+    }
+    return super.onOptionsItemSelected(item);
+  }
+
+  /**
+   * Pin the water column shown in the bottom sheet for comparison
+   */
+  private void pinWaterColumn(){
+    if (mWaterColumn == null){
+      return;
+    }
+    if (mDataManager.getComparisonSet().pin(mWaterColumn)){
+      Toast.makeText(this, R.string.comparison_pinned, Toast.LENGTH_SHORT).show();
+    }else if (mDataManager.getComparisonSet().size() >= ComparisonSet.MAX_PINNED){
+      Toast.makeText(this, getString(R.string.comparison_full, ComparisonSet.MAX_PINNED), Toast.LENGTH_SHORT).show();
+    }
+    invalidateOptionsMenu();
+  }
+
+  /**
+   * Show the pinned water columns side by side
+   */
+  private void showComparison() {
+    mBottomSheetBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
+
+    setUpComparisonToolbar();
+
+    final FrameLayout layout = (FrameLayout) findViewById(R.id.chartContainer);
+    if (layout != null){
+      layout.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+          ViewGroup.LayoutParams.MATCH_PARENT));
+      layout.requestLayout();
+    }
+
+    final ComparisonFragment comparisonFragment = ComparisonFragment.newInstance();
+    new ComparisonPresenter(comparisonFragment, mDataManager);
+
+    final FragmentManager fm = getSupportFragmentManager();
+    final FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
+    final Fragment f  =  fm.findFragmentById(R.id.chartContainer);
+    if (f == null){
+      transaction.addToBackStack(getString(R.string.fragment_comparison));
+    }
+    transaction.replace(R.id.chartContainer, comparisonFragment);
+    transaction.commit();
+
+    mFab.setVisibility(View.INVISIBLE);
+    mInMapState = false;
+    invalidateOptionsMenu();
+  }
+
+  /**
+   * Customize toolbar for comparison view
+   */
+  private void setUpComparisonToolbar(){
+    final Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
+    if (toolbar != null){
+      setSupportActionBar(toolbar);
+      if (getSupportActionBar() != null){
+        getSupportActionBar().setTitle(R.string.comparison);
+      }
+      toolbar.setNavigationIcon(R.drawable.ic_arrow_back_white_24px);
+
+      toolbar.setNavigationOnClickListener(new View.OnClickListener() {
+        @Override public void onClick(final View v) {
+          returnFromComparison();
+        }
+      });
+    }
+  }
+
+  /**
+   * Logic for returning from the comparison to the map
+   */
+  private void returnFromComparison(){
+    removeChartContainer();
+    shrinkChartContainer();
+    mFab.setVisibility(View.INVISIBLE);
+    setUpMapToolbar();
+    invalidateOptionsMenu();
+  }
+
+  /**
+   * Show the depth versus distance section for a transect
+   * @param line - Polyline drawn in the map
+   */
+  public void showTransect(final Polyline line) {
+    mBottomSheetBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
+
+    setUpTransectToolbar();
+
+    final FrameLayout layout = (FrameLayout) findViewById(R.id.chartContainer);
+    if (layout != null){
+      layout.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+          ViewGroup.LayoutParams.MATCH_PARENT));
+      layout.requestLayout();
+    }
+
+    final TransectFragment transectFragment = TransectFragment.newInstance();
+    new TransectPresenter(line, transectFragment, mDataManager);
+
+    final FragmentManager fm = getSupportFragmentManager();
+    final FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
+    final Fragment f  =  fm.findFragmentById(R.id.chartContainer);
+    if (f == null){
+      transaction.addToBackStack(getString(R.string.fragment_transect));
+    }
+    transaction.replace(R.id.chartContainer, transectFragment);
+    transaction.commit();
+
+    mFab.setVisibility(View.INVISIBLE);
+    mInMapState = false;
+    invalidateOptionsMenu();
+  }
+
+  /**
+   * Customize toolbar for transect view
+   */
+  private void setUpTransectToolbar(){
+    final Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
+    if (toolbar != null){
+      setSupportActionBar(toolbar);
+      if (getSupportActionBar() != null){
+        getSupportActionBar().setTitle(R.string.transect);
+      }
+      toolbar.setNavigationIcon(R.drawable.ic_arrow_back_white_24px);
+
+      toolbar.setNavigationOnClickListener(new View.OnClickListener() {
+        @Override public void onClick(final View v) {
+          returnFromTransect();
+        }
+      });
+    }
+  }
+
+  /**
+   * Logic for returning from the transect section to the map
+   */
+  private void returnFromTransect(){
+    removeChartContainer();
+    shrinkChartContainer();
+    mFab.setVisibility(View.INVISIBLE);
+    setUpMapToolbar();
+    invalidateOptionsMenu();
+  }
+
   /**
    * Show the view with the water column profiles
    * @param point - Point representing clicked geo location
@@ -411,7 +647,13 @@ public class MainActivity extends AppCompatActivity
 
       toolbar.setOnMenuItemClickListener(new Toolbar.OnMenuItemClickListener() {
         @Override public boolean onMenuItemClick(final MenuItem item) {
-          showWaterColumnProfile(mWaterColumn.getLocation());
+          if (item.getItemId() == R.id.action_pin){
+            pinWaterColumn();
+          }else if (item.getItemId() == R.id.action_compare){
+            showComparison();
+          }else if (item.getItemId() == R.id.action_profile){
+            showWaterColumnProfile(mWaterColumn.getLocation());
+          }
           return false;
         }
       });
@@ -472,6 +714,11 @@ public class MainActivity extends AppCompatActivity
 
     mBottomSheetPresenter.setWaterColumn(mWaterColumn);
 
+    // Get the DETAILS charts of every EMU ready while the summary is read
+    if (mWaterColumn != null){
+      mDataManager.prepareEmuDetails(mWaterColumn);
+    }
+
     // Set up the summary toolbar
     setUpBottomSheetToolbar();
   }
@@ -536,17 +783,6 @@ public class MainActivity extends AppCompatActivity
       showSummaryDetail(emuName);
   }
 
-  /**
-   * Get the state of the network info
-   * @return - boolean, false if network state is unavailable
-   * and true if device is connected to a network.
-   */
-  private boolean checkForInternetConnectivity(){
-    final ConnectivityManager connManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-    final NetworkInfo wifi = connManager.getActiveNetworkInfo();
-    return  wifi != null && wifi.isConnected();
-  }
-
   /**
    * Show a message at the bottom of the screen prompting user to action
    */
@@ -587,6 +823,10 @@ public class MainActivity extends AppCompatActivity
 
       if (fragmentName.equalsIgnoreCase(getString(R.string.fragment_detail_chart))){
         returnToSummary();
+      }else if (fragmentName.equalsIgnoreCase(getString(R.string.fragment_transect))){
+        returnFromTransect();
+      }else if (fragmentName.equalsIgnoreCase(getString(R.string.fragment_comparison))){
+        returnFromComparison();
       }else if (fragmentName.equalsIgnoreCase(getString(R.string.fragment_summary))){
         if (mBottomSheetBehavior.getState() == BottomSheetBehavior.STATE_COLLAPSED){
           mBottomSheetBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
@@ -28,14 +28,83 @@ package com.esri.android.ecologicalmarineunitexplorer;
 import android.content.Intent;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 
+import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
+import com.esri.android.ecologicalmarineunitexplorer.data.ServiceApi;
+import com.esri.android.ecologicalmarineunitexplorer.data.StartupPrewarmer;
+import com.esri.android.ecologicalmarineunitexplorer.util.NetworkUtils;
+import com.esri.android.ecologicalmarineunitexplorer.util.StartupTimeline;
+import com.esri.arcgisruntime.layers.FeatureLayer;
+
+/**
+ * Starts the loads the user is likely to need first, the summary
+ * statistics, the locator, the gazetteer and the polygons for the
+ * depth shown when the map opens, then starts the MainActivity straight away.  The
+ * DataManager is a singleton, so the loads carry on in the background
+ * and the MainActivity's requests for the same data wait on them.
+ */
 public class SplashActivity extends AppCompatActivity {
+
+  private static final String TAG = SplashActivity.class.getSimpleName();
+
+  // The depth cached when the map first opens, see MapPresenter
+  private static final int INITIAL_DEPTH = 10;
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
 
+    // Without a connection there's nothing to load, the
+    // MainActivity tells the user what's wrong.
+    if (NetworkUtils.checkForInternetConnectivity(this)){
+      prewarm();
+    }
+
     Intent intent = new Intent(this, MainActivity.class);
     startActivity(intent);
     finish();
   }
+
+  private void prewarm(){
+    final StartupTimeline timeline = new StartupTimeline();
+    final DataManager dataManager = DataManager.getDataManagerInstance(getApplicationContext());
+    dataManager.setStartupTimeline(timeline);
+    timeline.mark("data manager created");
+
+    new StartupPrewarmer(timeline)
+        .add("summary statistics", new StartupPrewarmer.Task() {
+          @Override public void run(final Runnable done) {
+            dataManager.queryEmuSummaryStatistics(new ServiceApi.StatCallback() {
+              @Override public void onStatsLoaded(final boolean successFlag) {
+                done.run();
+              }
+            });
+          }
+        })
+        .add("locator", new StartupPrewarmer.Task() {
+          @Override public void run(final Runnable done) {
+            dataManager.loadLocator(done);
+          }
+        })
+        .add("gazetteer", new StartupPrewarmer.Task() {
+          @Override public void run(final Runnable done) {
+            dataManager.loadGazetteer(done);
+          }
+        })
+        .add("depth " + INITIAL_DEPTH + " polygons", new StartupPrewarmer.Task() {
+          @Override public void run(final Runnable done) {
+            dataManager.queryEmuByDepth(INITIAL_DEPTH, new ServiceApi.EMUByDepthCallback() {
+              @Override public void onPolygonsRetrieved(final FeatureLayer layer) {
+                done.run();
+              }
+            });
+          }
+        })
+        .start(new StartupPrewarmer.Listener() {
+          @Override public void onPrewarmComplete(final StartupTimeline startupTimeline, final boolean allReady) {
+            Log.i(TAG, "Warm up complete " + startupTimeline);
+          }
+        });
+  }
 }
@@ -27,7 +27,6 @@ package com.esri.android.ecologicalmarineunitexplorer.bottomsheet;
 import android.content.Context;
 import android.graphics.Color;
 import android.graphics.drawable.GradientDrawable;
-import android.graphics.drawable.StateListDrawable;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -155,63 +154,19 @@ public class BottomSheetFragment extends Fragment implements BottomSheetContract
    * @param waterColumn - WaterColumn data object
    */
   private void showWaterColumnButtons(final WaterColumn waterColumn){
-    mButtonContainer.removeAllViews();
-
-    // Each button will be added to layout with a layout_weight
-    // relative to the ratio of the EUMObservation to
-    // the depth of the water column
-    final Set<EMUObservation> emuObservationSet = waterColumn.getEmuSet();
-    final float depth = waterColumn.getDepth();
     final TextView tv = (TextView) mRoot.findViewById(R.id.txtBottom);
     tv.setText(getString(R.string.water_column_depth, waterColumn.getDepth()));
 
-    int buttonId = 0;
-    for (final EMUObservation observation: emuObservationSet){
-      final float relativeSize = observation.getThickness() / depth * 100;
-      final Button button = new Button(getContext());
-      final LinearLayout.LayoutParams  layoutParams  =  new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
-          0, relativeSize);
-      button.setLayoutParams(layoutParams);
-      // Enable the button background to be change color based on its state (pressed, selected, or enabled)
-      button.setBackground(buildStateList(observation.getEmu().getName()));
-
-      button.setId(buttonId);
-      button.setOnClickListener(new View.OnClickListener() {
-        @Override public void onClick(final View v) {
-          if (mSelectedButton != null){
-            mSelectedButton.setSelected(false);
-          }
-          button.setSelected(true);
-          mSelectedButton = button;
-          scrollToSummary(v.getId());
+    WaterColumnBar.show(getContext(), mButtonContainer, waterColumn, new WaterColumnBar.OnSegmentClickListener() {
+      @Override public void onSegmentClick(final int index, final Button button) {
+        if (mSelectedButton != null){
+          mSelectedButton.setSelected(false);
         }
-      });
-      mButtonContainer.addView(button);
-      buttonId = buttonId + 1;
-    }
-  }
-  /**
-   * Build a stateful drawable for a given EMU
-   * @param emuName String representing name
-   * @return StateListDrawable responsive to selected, pressed, and enabled states
-   */
-  private static StateListDrawable buildStateList(final int emuName){
-    final StateListDrawable stateListDrawable = new StateListDrawable();
-
-    final GradientDrawable defaultShape = new GradientDrawable();
-    final int color = Color.parseColor(EmuHelper.getColorForEMUCluster( emuName));
-    defaultShape.setColor(color);
-
-    final GradientDrawable selectedPressShape = new GradientDrawable();
-    selectedPressShape.setColor(color);
-    selectedPressShape.setStroke(5,Color.parseColor("#f4f442"));
-
-    stateListDrawable.addState(new int[] { android.R.attr.state_pressed}, selectedPressShape);
-    stateListDrawable.addState(new int[] { android.R.attr.state_selected}, selectedPressShape);
-    stateListDrawable.addState(new int[] { android.R.attr.state_enabled}, defaultShape);
-
-
-    return stateListDrawable;
+        button.setSelected(true);
+        mSelectedButton = button;
+        scrollToSummary(index);
+      }
+    });
   }
 
   /**
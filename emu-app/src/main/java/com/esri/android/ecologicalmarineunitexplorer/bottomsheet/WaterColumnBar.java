@@ -0,0 +1,123 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.bottomsheet;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.StateListDrawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.LinearLayout;
+
+import com.esri.android.ecologicalmarineunitexplorer.data.EMUObservation;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.android.ecologicalmarineunitexplorer.util.EmuHelper;
+
+/**
+ * Fills a vertical LinearLayout with one colored segment per EMU in a
+ * water column, each sized by its share of the column's depth.  Used by
+ * the bottom sheet and the comparison view.
+ */
+public final class WaterColumnBar {
+
+  /**
+   * Notified when a segment is tapped
+   */
+  public interface OnSegmentClickListener {
+    void onSegmentClick(int index, Button segment);
+  }
+
+  private WaterColumnBar(){}
+
+  /**
+   * Replace the contents of the container with a segment for each EMU
+   * @param context - Context
+   * @param container - LinearLayout with vertical orientation
+   * @param waterColumn - WaterColumn to draw
+   * @param listener - OnSegmentClickListener, may be null if segments aren't clickable
+   */
+  public static void show(@NonNull final Context context, @NonNull final LinearLayout container,
+      @NonNull final WaterColumn waterColumn, @Nullable final OnSegmentClickListener listener){
+    container.removeAllViews();
+
+    // Each button will be added to layout with a layout_weight
+    // relative to the ratio of the EUMObservation to
+    // the depth of the water column
+    final float depth = waterColumn.getDepth();
+    int buttonId = 0;
+    for (final EMUObservation observation: waterColumn.getEmuSet()){
+      final float relativeSize = observation.getThickness() / depth * 100;
+      final Button button = new Button(context);
+      final LinearLayout.LayoutParams  layoutParams  =  new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+          0, relativeSize);
+      button.setLayoutParams(layoutParams);
+      // Enable the button background to be change color based on its state (pressed, selected, or enabled)
+      button.setBackground(buildStateList(observation.getEmu().getName()));
+
+      button.setId(buttonId);
+      if (listener != null){
+        final int index = buttonId;
+        button.setOnClickListener(new View.OnClickListener() {
+          @Override public void onClick(final View v) {
+            listener.onSegmentClick(index, button);
+          }
+        });
+      }else{
+        button.setClickable(false);
+      }
+      container.addView(button);
+      buttonId = buttonId + 1;
+    }
+  }
+
+  /**
+   * Build a stateful drawable for a given EMU
+   * @param emuName String representing name
+   * @return StateListDrawable responsive to selected, pressed, and enabled states
+   */
+  private static StateListDrawable buildStateList(final int emuName){
+    final StateListDrawable stateListDrawable = new StateListDrawable();
+
+    final GradientDrawable defaultShape = new GradientDrawable();
+    final int color = Color.parseColor(EmuHelper.getColorForEMUCluster( emuName));
+    defaultShape.setColor(color);
+
+    final GradientDrawable selectedPressShape = new GradientDrawable();
+    selectedPressShape.setColor(color);
+    selectedPressShape.setStroke(5,Color.parseColor("#f4f442"));
+
+    stateListDrawable.addState(new int[] { android.R.attr.state_pressed}, selectedPressShape);
+    stateListDrawable.addState(new int[] { android.R.attr.state_selected}, selectedPressShape);
+    stateListDrawable.addState(new int[] { android.R.attr.state_enabled}, defaultShape);
+
+
+    return stateListDrawable;
+  }
+}
@@ -26,8 +26,7 @@ package com.esri.android.ecologicalmarineunitexplorer.chartsummary;
 
 import com.esri.android.ecologicalmarineunitexplorer.BasePresenter;
 import com.esri.android.ecologicalmarineunitexplorer.BaseView;
-import com.esri.android.ecologicalmarineunitexplorer.data.EMUStat;
-import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.android.ecologicalmarineunitexplorer.data.EmuDetail;
 import com.github.mikephil.charting.data.CombinedData;
 
 import java.util.List;
@@ -83,11 +82,10 @@ public interface SummaryChartContract {
       void setNitrateText(double nitrateText);
 
     /**
-     * Display a progress bar with given message and title
+     * Show an inline loading indicator that leaves the view usable
      * @param message - String
-     * @param title - String
      */
-      void showProgressBar(String message, String title);
+    void showProgressBar(String message);
 
     /**
      * Hide the progress bar
@@ -102,13 +100,17 @@ public interface SummaryChartContract {
   }
 
   interface Presenter extends BasePresenter {
+
+    /**
+     * Stop waiting for whatever is loading and ignore its results
+     */
+    void cancelLoading();
+
     /**
      * Provision data for charts
-     * @param stat - EMUStat
-     * @param waterColumn - WaterColumn
-     * @param emuName - int representing EMU name
+     * @param detail - EmuDetail, null if there is no data for the EMU
      */
-      void prepareDataForCharts(EMUStat stat, WaterColumn waterColumn, int emuName);
+      void prepareDataForCharts(EmuDetail detail);
 
     /**
      * Retrieve chart data for given EMU
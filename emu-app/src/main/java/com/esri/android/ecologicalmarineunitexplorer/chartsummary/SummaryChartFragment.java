@@ -24,7 +24,6 @@
 
 package com.esri.android.ecologicalmarineunitexplorer.chartsummary;
 
-import android.app.ProgressDialog;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.os.Bundle;
@@ -37,6 +36,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.esri.android.ecologicalmarineunitexplorer.R;
+import com.esri.android.ecologicalmarineunitexplorer.util.LoadingBar;
 import com.github.mikephil.charting.charts.Chart;
 import com.github.mikephil.charting.charts.CombinedChart;
 import com.github.mikephil.charting.components.Description;
@@ -56,7 +56,7 @@ public class SummaryChartFragment extends Fragment implements SummaryChartContra
 
   private View mRoot = null;
   private SummaryChartContract.Presenter mPresenter = null;
-  private ProgressDialog mProgressDialog = null;
+  private LoadingBar mLoadingBar = null;
   private String mUnits = null;
 
   public static SummaryChartFragment newInstance(){
@@ -76,6 +76,11 @@ public class SummaryChartFragment extends Fragment implements SummaryChartContra
       final Bundle savedInstance){
     super.onCreateView(layoutInflater, container, savedInstance);
     mRoot = layoutInflater.inflate(R.layout.summary_charts, container,false);
+    mLoadingBar = new LoadingBar(mRoot.findViewById(R.id.loadingBar), new View.OnClickListener() {
+      @Override public void onClick(final View v) {
+        mPresenter.cancelLoading();
+      }
+    });
     mPresenter.start();
     return mRoot;
   }
@@ -242,24 +247,22 @@ public class SummaryChartFragment extends Fragment implements SummaryChartContra
     return id;
   }
   /**
-   * Display progress bar with given message and title
+   * Show the inline loading indicator with given message
    * @param message - String representing message to display
-   * @param title - String progress window title
    */
-  @Override public void showProgressBar(final String message, final String title) {
-    if (mProgressDialog == null){
-      mProgressDialog = new ProgressDialog(getActivity());
+  @Override public void showProgressBar(final String message) {
+    if (mLoadingBar != null){
+      mLoadingBar.show(message);
     }
-    mProgressDialog.setTitle(title);
-    mProgressDialog.setMessage(message);
-    mProgressDialog.show();
   }
 
   /**
-   * Hide progress bar
+   * Hide the loading indicator
    */
   @Override public void hideProgressBar() {
-    mProgressDialog.dismiss();
+    if (mLoadingBar != null){
+      mLoadingBar.hide();
+    }
   }
 
   /**
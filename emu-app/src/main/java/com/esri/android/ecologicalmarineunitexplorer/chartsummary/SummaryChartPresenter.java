@@ -26,11 +26,12 @@ package com.esri.android.ecologicalmarineunitexplorer.chartsummary;
 
 import android.graphics.Color;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
 import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
-import com.esri.android.ecologicalmarineunitexplorer.data.EMUObservation;
-import com.esri.android.ecologicalmarineunitexplorer.data.EMUStat;
+import com.esri.android.ecologicalmarineunitexplorer.data.EmuDetail;
+import com.esri.android.ecologicalmarineunitexplorer.data.LatestRequest;
 import com.esri.android.ecologicalmarineunitexplorer.data.ServiceApi;
 import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
 import com.github.mikephil.charting.charts.ScatterChart;
@@ -47,8 +48,6 @@ import com.github.mikephil.charting.data.ScatterDataSet;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.google.common.base.Preconditions.checkNotNull;
-
 /**
  * This is the concrete implementation of the Presenter defined in the SummaryChartContract.
  * It encapsulates business logic and drives the behavior of the View.
@@ -60,6 +59,7 @@ public class SummaryChartPresenter implements SummaryChartContract.Presenter {
   DataManager mDataManager;
   List<CombinedData> mDataList = null;
   int currentEmuName = 0;
+  private final LatestRequest mRequest = new LatestRequest();
 
   private final String TEMPERATURE = "TEMPERATURE";
   private final String SALINITY = "SALINITY";
@@ -80,82 +80,79 @@ public class SummaryChartPresenter implements SummaryChartContract.Presenter {
    * retrieving chart data for an EMU
    */
   @Override public void start() {
-    mView.showProgressBar("Building charts...", "Preparing Detail View");
+    mView.showProgressBar("Building charts...");
     getDetailForSummary(currentEmuName);
   }
 
   /**
-   * Retrieve and provision chart data for given EMU
+   * Retrieve and provision chart data for given EMU.  The chart
+   * details are usually prepared while the bottom sheet is shown,
+   * otherwise the summary statistics are loaded first.
    * @param emuName - int representing EMU name
    */
   @Override public void getDetailForSummary(final int emuName) {
-    EMUStat stat = mDataManager.getStatForEmu(emuName);
+    final int request = mRequest.start();
     final WaterColumn currentWaterColumn  = mDataManager.getCurrentWaterColumn();
-    if (stat == null){
+    final EmuDetail detail = mDataManager.getEmuDetail(currentWaterColumn, emuName);
+    if (detail == null){
       mDataManager.queryEmuSummaryStatistics(new ServiceApi.StatCallback() {
         @Override public void onStatsLoaded(boolean successFlag) {
+          // Ignore statistics for a cancelled request or an EMU no longer shown
+          if (!mRequest.finish(request)){
+            return;
+          }
           if (successFlag){
-            // Get the EMU statistic for this EMU.  The EMU statistic
-            // contains the stats for all locations with this EMU
-            EMUStat emuStat =  mDataManager.getStatForEmu(emuName);
-
-            // Prep the data for the charts
-            prepareDataForCharts(emuStat, currentWaterColumn, emuName);
+            // The EMU statistic contains the stats for all locations with this EMU
+            prepareDataForCharts(mDataManager.getEmuDetail(currentWaterColumn, emuName));
           }else{
+            mView.hideProgressBar();
             mView.showMessage("There was a problem getting details for the EMU");
           }
         }
       });
     }else{
-      prepareDataForCharts(stat, currentWaterColumn, emuName);
+      // Details are already built so the charts can be drawn straight away
+      mRequest.finish(request);
+      prepareDataForCharts(detail);
     }
   }
 
+  /**
+   * Stop waiting for the summary statistics
+   */
+  @Override public void cancelLoading() {
+    mRequest.cancel();
+    mView.hideProgressBar();
+  }
+
   @Override public void setEmuName(int emuName) {
     currentEmuName = emuName;
   }
 
   /**
    * Prepare data for displaying in charts
-   * @param stat - EMUStat
-   * @param waterColumn - WaterColumn
-   * @param emuName - int representing EMU name
+   * @param detail - EmuDetail, null if the EMU has no statistics at this location
    */
-  @Override public void prepareDataForCharts(@NonNull EMUStat stat, @NonNull WaterColumn waterColumn, int emuName) {
-    checkNotNull(stat);
-    checkNotNull(waterColumn);
-
-    // Get the EMUs specific to this location from the water column
-    List<EMUObservation> list = waterColumn.getEMUObservations(emuName);
-    // The observation list should contain at least one EMUObservation!!
-    // Grab the first one for now..
-    if (list.size() > 0){
-      EMUObservation observation = list.get(0);
-
+  @Override public void prepareDataForCharts(@Nullable EmuDetail detail) {
+    if (detail != null){
       List<CombinedData> dataList = new ArrayList<>();
 
-      dataList.add(0, buildTempData(observation, stat));
-      dataList.add(1, buildSalinityData(observation,stat));
-      dataList.add(2, buildOxygenData(observation,stat));
-      dataList.add(3, buildNitrateData(observation,stat));
-      dataList.add(4, buildPhosphateData(observation,stat));
-      dataList.add(5, buildSilicateData(observation,stat));
+      dataList.add(0, buildCandleData(detail.getCandle(EmuDetail.TEMPERATURE), TEMPERATURE));
+      dataList.add(1, buildCandleData(detail.getCandle(EmuDetail.SALINITY), SALINITY));
+      dataList.add(2, buildCandleData(detail.getCandle(EmuDetail.OXYGEN), OXYGEN));
+      dataList.add(3, buildCandleData(detail.getCandle(EmuDetail.NITRATE), NITRATE));
+      dataList.add(4, buildCandleData(detail.getCandle(EmuDetail.PHOSPHATE), PHOSPHATE));
+      dataList.add(5, buildCandleData(detail.getCandle(EmuDetail.SILICATE), SILICATE));
       dataList.add(6, buildDummyDataForLegend());
 
       mDataList = dataList;
-      double tempOfCurrentEMu = observation.getTemperature() != null ? observation.getTemperature(): 0d;
-      double salinityOfcurrentEMu = observation.getSalinity() != null ? observation.getSalinity() : 0d;
-      double oxygenOfCurrentEmu = observation.getOxygen() != null ? observation.getOxygen() : 0d;
-      double phosphateOfCurrentEmu = observation.getPhosphate() != null ? observation.getPhosphate(): 0d;
-      double silicateOfCurrentEmu = observation.getSilicate() != null ? observation.getSilicate() : 0d;
-      double nitrateOfCurrentEmu = observation.getNitrate() != null ? observation.getNitrate() : 0d;
 
-      mView.setTemperatureText(tempOfCurrentEMu);
-      mView.setSalinityText(salinityOfcurrentEMu);
-      mView.setOxygenText(oxygenOfCurrentEmu);
-      mView.setPhosphateText(phosphateOfCurrentEmu);
-      mView.setSilicateText(silicateOfCurrentEmu);
-      mView.setNitrateText(nitrateOfCurrentEmu);
+      mView.setTemperatureText(detail.getLocationValue(EmuDetail.TEMPERATURE));
+      mView.setSalinityText(detail.getLocationValue(EmuDetail.SALINITY));
+      mView.setOxygenText(detail.getLocationValue(EmuDetail.OXYGEN));
+      mView.setPhosphateText(detail.getLocationValue(EmuDetail.PHOSPHATE));
+      mView.setSilicateText(detail.getLocationValue(EmuDetail.SILICATE));
+      mView.setNitrateText(detail.getLocationValue(EmuDetail.NITRATE));
 
       mView.showChartData(mDataList);
       mView.hideProgressBar();
@@ -188,154 +185,27 @@ public class SummaryChartPresenter implements SummaryChartContract.Presenter {
   }
 
   /**
-   * Build a CombinedData object containing temperature data
-   * @param observation - EMUObservation
-   * @param stat - EMUStat
-   * @return - CombinedData
-   */
-  private CombinedData buildTempData(EMUObservation observation, EMUStat stat){
-    CombinedData combinedData = new CombinedData();
-    if (stat.getTemp_max() == null || stat.getTemp_min() == null || stat.getTemp_mean() == null || observation.getTemperature() == null){
-      return combinedData;
-    }
-    float xIndex = 1.5f;
-    float close = (float) stat.getTemp_min().doubleValue();
-    float open = (float) stat.getTemp_max().doubleValue();
-    float shadowH = (float)mDataManager.getMaxTemperatureFromSummary().doubleValue();   // 30.33f; // Greatest max temp from summary table
-    float shadowL = (float) mDataManager.getMinTemperatureFromSummary().doubleValue();  // -2.05f; // Lowest min temp from summary table
-
-    float averageTemp = (float)observation.getTemperature().doubleValue();
-    Log.i("SummaryChartPresenter", "Temperature: Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ averageTemp);
-
-    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, TEMPERATURE ));
-    ScatterData sdata = generateScatterData(averageTemp, TEMPERATURE);
-    combinedData.setData(sdata);
-    return  combinedData;
-  }
-
-  /**
-   * Build a CombinedData object containing salinity data
-   * @param observation - EMUObservation
-   * @param stat - EMUStat
-   * @return - CombinedData
-   */
-  private CombinedData buildSalinityData(EMUObservation observation, EMUStat stat){
-    CombinedData combinedData = new CombinedData();
-    if (stat.getSalinity_max() == null || stat.getSalinity_min() == null || stat.getSalinity_mean() == null || observation.getSalinity() == null){
-      return combinedData;
-    }
-    float xIndex = 1.5f;
-    float close = (float) stat.getSalinity_min().doubleValue();
-    float open = (float) stat.getSalinity_max().doubleValue();
-    float shadowH = (float)mDataManager.getMaxSalinityFromSummary().doubleValue();
-    float shadowL = (float) mDataManager.getMinSalinityFromSummary().doubleValue();
-
-    float avgSalinity = (float)observation.getSalinity().doubleValue();
-    Log.i("SummaryChartPreseter", "Salinity: Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ avgSalinity);
-
-    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, SALINITY ));
-    combinedData.setData(generateScatterData(avgSalinity, SALINITY));
-    return  combinedData;
-  }
-
-  /**
-   * Build a CombinedData object containing oxygen data
-   * @param observation - EMUObservation
-   * @param stat - EMUStat
-   * @return - CombinedData
-   */
-  private CombinedData buildOxygenData(EMUObservation observation, EMUStat stat){
-
-    CombinedData combinedData = new CombinedData();
-    if (stat.getDisso2_max() == null || stat.getDisso2_min() == null || stat.getDisso2_mean() == null || observation.getOxygen() == null){
-      return combinedData;
-    }
-    float xIndex = 1.5f;
-    float close = (float) stat.getDisso2_min().doubleValue();
-    float open = (float) stat.getDisso2_max().doubleValue();
-    float shadowH = (float)mDataManager.getMaxOxygenFromSummary().doubleValue();
-    float shadowL = (float) mDataManager.getMinOxygenFromSummary().doubleValue();
-
-    float averageOx = (float)observation.getOxygen().doubleValue();
-    Log.i("SummaryChartPreseter", "Oxygen: Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ averageOx);
-
-    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, OXYGEN ));
-    combinedData.setData(generateScatterData(averageOx, OXYGEN));
-    return  combinedData;
-  }
-
-  /**
-   * Build a CombinedData object containing phosphate data
-   * @param observation - EMUObservation
-   * @param stat - EMUStat
-   * @return - CombinedData
-   */
-  private CombinedData buildPhosphateData(EMUObservation observation, EMUStat stat){
-    CombinedData combinedData = new CombinedData();
-    if (stat.getPhosphate_max() == null || stat.getPhosphate_min() == null || stat.getPhosphate_mean() == null || observation.getPhosphate() == null){
-      return combinedData;
-    }
-    float xIndex = 1.5f;
-    float close = (float) stat.getPhosphate_min().doubleValue();
-    float open = (float) stat.getPhosphate_max().doubleValue();
-    float shadowH = (float)mDataManager.getMaxPhosphateFromSummary().doubleValue();
-    float shadowL = (float) mDataManager.getMinPhosphateFromSummary().doubleValue();
-
-    float averagePhos = (float)observation.getPhosphate().doubleValue();
-    Log.i("SummaryChartPreseter", "Phosphate: Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ averagePhos);
-
-    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, PHOSPHATE ));
-    combinedData.setData(generateScatterData(averagePhos, PHOSPHATE));
-    return  combinedData;
-  }
-
-  /**
-   * Build a CombinedData object containing silicate data
-   * @param observation - EMUObservation
-   * @param stat - EMUStat
-   * @return - CombinedData
-   */
-  private CombinedData buildSilicateData(EMUObservation observation, EMUStat stat){
-    CombinedData combinedData = new CombinedData();
-    if (stat.getSilicate_max() == null || stat.getSilicate_min() == null || stat.getSilicate_mean() == null || observation.getSilicate() == null){
-      return combinedData;
-    }
-    float xIndex = 1.5f;
-    float close = (float) stat.getSilicate_min().doubleValue();
-    float open = (float) stat.getSilicate_max().doubleValue();
-    float shadowH = (float)mDataManager.getMaxSilicateFromSummary().doubleValue();
-    float shadowL = (float) mDataManager.getMinSilicateFromSummary().doubleValue();
-
-    float averageSil = (float)observation.getSilicate().doubleValue();
-    Log.i("SummaryChartPreseter", "Silicate: Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ averageSil);
-
-    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, SILICATE ));
-    combinedData.setData(generateScatterData(averageSil, SILICATE));
-    return  combinedData;
-  }
-
-  /**
-   * Build a CombinedData object containing nitrate data
-   * @param observation - EMUObservation
-   * @param stat - EMUStat
-   * @return - CombinedData
+   * Build a CombinedData object for one property
+   * @param candle - Candle, null if the property has no data
+   * @param seriesName - String
+   * @return - CombinedData, empty if there's no candle
    */
-  private CombinedData buildNitrateData(EMUObservation observation, EMUStat stat){
+  private CombinedData buildCandleData(@Nullable EmuDetail.Candle candle, String seriesName){
     CombinedData combinedData = new CombinedData();
-    if (stat.getNitrate_min() == null || stat.getNitrate_max() == null || stat.getNitrate_mean() == null || observation.getNitrate() == null){
+    if (candle == null){
       return combinedData;
     }
     float xIndex = 1.5f;
-    float close = (float) stat.getNitrate_min().doubleValue();
-    float open = (float) stat.getNitrate_max().doubleValue();
-    float shadowH = (float)mDataManager.getMaxNitrateFromSummary().doubleValue();
-    float shadowL = (float) mDataManager.getMinNitrateFromSummary().doubleValue();
+    float close = candle.getEmuLow();
+    float open = candle.getEmuHigh();
+    float shadowH = candle.getOceanHigh(); // Greatest max from summary table
+    float shadowL = candle.getOceanLow();  // Lowest min from summary table
 
-    float averageN = (float)observation.getNitrate().doubleValue();
-    Log.i("SummaryChartPreseter", "Nitrate: Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ averageN);
+    float average = candle.getLocationValue();
+    Log.i("SummaryChartPresenter", seriesName + ": Ocean high = " + shadowH + " ocean low = "+ shadowL + " emu min = " + close + " emu max = "+ open + " emu mean for location = "+ average);
 
-    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, NITRATE ));
-    combinedData.setData(generateScatterData(averageN, NITRATE));
+    combinedData.setData(generateCandleData(xIndex, shadowH, shadowL, open, close, seriesName));
+    combinedData.setData(generateScatterData(average, seriesName));
     return combinedData;
   }
 
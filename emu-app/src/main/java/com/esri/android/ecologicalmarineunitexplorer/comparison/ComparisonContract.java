@@ -0,0 +1,99 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.comparison;
+
+import com.esri.android.ecologicalmarineunitexplorer.BasePresenter;
+import com.esri.android.ecologicalmarineunitexplorer.BaseView;
+import com.esri.android.ecologicalmarineunitexplorer.data.PinnedColumn;
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.util.List;
+
+/**
+ * This is the contract between the Presenter and View
+ * components of the MVP pattern. It defines methods to
+ * display the water columns of pinned locations side by side.
+ */
+public interface ComparisonContract {
+  interface View extends BaseView<Presenter> {
+
+    /**
+     * Show a single pinned column as soon as it's available
+     * @param index - int position of the pin
+     * @param column - PinnedColumn
+     */
+    void showColumn(int index, PinnedColumn column);
+
+    /**
+     * Redraw every pinned column, scaled to the deepest one
+     * @param columns - List<PinnedColumn> in pin order
+     */
+    void showColumns(List<PinnedColumn> columns);
+
+    /**
+     * Show summary text for the comparison
+     * @param columnCount - int representing number of pinned columns
+     * @param maxDepth - int representing depth of deepest column in meters
+     */
+    void showComparisonSummary(int columnCount, int maxDepth);
+
+    /**
+     * Show a message
+     * @param message - String
+     */
+    void showMessage(String message);
+
+    /**
+     * Show an inline loading indicator that leaves the view usable
+     * @param message - String
+     */
+    void showProgressBar(String message);
+
+    /**
+     * Hide the progress bar
+     */
+    void hideProgressBar();
+  }
+
+  interface Presenter extends BasePresenter {
+
+    /**
+     * Stop waiting for whatever is loading and ignore its results
+     */
+    void cancelLoading();
+
+    /**
+     * Retrieve the water columns and profiles of every pinned location
+     */
+    void loadComparison();
+
+    /**
+     * Remove a location from the comparison
+     * @param location - Point that was pinned
+     */
+    void unpin(Point location);
+  }
+}
@@ -0,0 +1,205 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.comparison;
+
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v4.app.Fragment;
+import android.util.SparseArray;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.esri.android.ecologicalmarineunitexplorer.R;
+import com.esri.android.ecologicalmarineunitexplorer.bottomsheet.WaterColumnBar;
+import com.esri.android.ecologicalmarineunitexplorer.data.PinnedColumn;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.android.ecologicalmarineunitexplorer.util.LoadingBar;
+
+import java.util.List;
+
+/**
+ * This fragment shows the EMU layers of pinned water columns side by
+ * side, each drawn to the same depth scale.  A long press on a column
+ * removes it from the comparison.
+ * It's the View in the MVP pattern and the concrete implementation
+ * of the ComparisonContract.View interface.
+ */
+public class ComparisonFragment extends Fragment implements ComparisonContract.View {
+
+  private ComparisonContract.Presenter mPresenter = null;
+  private LoadingBar mLoadingBar = null;
+  private LinearLayout mColumnLayout = null;
+  private TextView mTxtSummary = null;
+  private final SparseArray<PinnedColumn> mColumns = new SparseArray<>();
+
+  public static ComparisonFragment newInstance() {
+    return new ComparisonFragment();
+  }
+
+  /**
+   * Inflate the comparison view
+   * @param layoutInflater LayoutInflater
+   * @param container ViewGroup
+   * @param savedInstance Bundle
+   * @return View
+   */
+  @Override
+  @Nullable
+  public View onCreateView(final LayoutInflater layoutInflater, final ViewGroup container,
+      final Bundle savedInstance){
+    super.onCreateView(layoutInflater, container, savedInstance);
+    final View view = layoutInflater.inflate(R.layout.comparison, container, false);
+    mColumnLayout = (LinearLayout) view.findViewById(R.id.comparisonColumns);
+    mTxtSummary = (TextView) view.findViewById(R.id.txtComparisonSummary);
+    mLoadingBar = new LoadingBar(view.findViewById(R.id.loadingBar), new View.OnClickListener() {
+      @Override public void onClick(final View v) {
+        mPresenter.cancelLoading();
+      }
+    });
+    return view;
+  }
+
+  @Override
+  public void onResume(){
+    super.onResume();
+    mPresenter.start();
+  }
+
+  /**
+   * Add a column and redraw the comparison
+   * @param index - int position of the pin
+   * @param column - PinnedColumn
+   */
+  @Override public void showColumn(final int index, final PinnedColumn column) {
+    mColumns.put(index, column);
+    drawColumns();
+  }
+
+  /**
+   * Replace every column and redraw the comparison
+   * @param columns - List<PinnedColumn> in pin order
+   */
+  @Override public void showColumns(final List<PinnedColumn> columns) {
+    mColumns.clear();
+    for (int i = 0; i < columns.size(); i++){
+      mColumns.put(i, columns.get(i));
+    }
+    drawColumns();
+  }
+
+  /**
+   * Show the number of pinned columns and depth of the deepest
+   * @param columnCount - int
+   * @param maxDepth - int representing meters
+   */
+  @Override public void showComparisonSummary(final int columnCount, final int maxDepth) {
+    mTxtSummary.setText(getString(R.string.comparison_summary, columnCount, maxDepth));
+  }
+
+  @Override public void showMessage(final String message) {
+    Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+  }
+
+  @Override public void showProgressBar(final String message) {
+    if (mLoadingBar != null){
+      mLoadingBar.show(message);
+    }
+  }
+
+  @Override public void hideProgressBar() {
+    if (mLoadingBar != null){
+      mLoadingBar.hide();
+    }
+  }
+
+  @Override public void setPresenter(final ComparisonContract.Presenter presenter) {
+    mPresenter = presenter;
+  }
+
+  /**
+   * Draw a bar for each column with its height relative
+   * to the deepest column, labelled with its depth.
+   */
+  private void drawColumns(){
+    if (mColumnLayout == null){
+      return;
+    }
+    mColumnLayout.removeAllViews();
+    int maxDepth = 0;
+    for (int i = 0; i < mColumns.size(); i++){
+      final WaterColumn waterColumn = mColumns.valueAt(i).getWaterColumn();
+      if (waterColumn != null){
+        maxDepth = Math.max(maxDepth, waterColumn.getDepth());
+      }
+    }
+    final int margin = getResources().getDimensionPixelSize(R.dimen.comparison_column_margin);
+    for (int i = 0; i < mColumns.size(); i++){
+      final PinnedColumn column = mColumns.valueAt(i);
+      final WaterColumn waterColumn = column.getWaterColumn();
+
+      final LinearLayout cell = new LinearLayout(getContext());
+      cell.setOrientation(LinearLayout.VERTICAL);
+      final LinearLayout.LayoutParams cellParams = new LinearLayout.LayoutParams(0,
+          ViewGroup.LayoutParams.MATCH_PARENT, 1);
+      cellParams.setMargins(margin, 0, margin, 0);
+      cell.setLayoutParams(cellParams);
+
+      final TextView label = new TextView(getContext());
+      label.setGravity(Gravity.CENTER_HORIZONTAL);
+      cell.addView(label);
+
+      if (waterColumn != null && maxDepth > 0){
+        label.setText(getString(R.string.water_column_depth, waterColumn.getDepth()));
+        // The bar and the empty space below it share the cell by depth
+        final LinearLayout bar = new LinearLayout(getContext());
+        bar.setOrientation(LinearLayout.VERTICAL);
+        bar.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 0,
+            waterColumn.getDepth()));
+        WaterColumnBar.show(getContext(), bar, waterColumn, null);
+        cell.addView(bar);
+        final View spacer = new View(getContext());
+        spacer.setLayoutParams(new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 0,
+            maxDepth - waterColumn.getDepth()));
+        cell.addView(spacer);
+      }else{
+        label.setText(R.string.comparison_no_data);
+      }
+
+      cell.setOnLongClickListener(new View.OnLongClickListener() {
+        @Override public boolean onLongClick(final View v) {
+          mPresenter.unpin(column.getLocation());
+          return true;
+        }
+      });
+      mColumnLayout.addView(cell);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.comparison;
+
+import android.support.annotation.NonNull;
+
+import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
+import com.esri.android.ecologicalmarineunitexplorer.data.LatestRequest;
+import com.esri.android.ecologicalmarineunitexplorer.data.PinnedColumn;
+import com.esri.android.ecologicalmarineunitexplorer.data.ServiceApi;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * This is the concrete implementation of the Presenter defined in the ComparisonContract.
+ * It encapsulates business logic and drives the behavior of the View.
+ */
+public class ComparisonPresenter implements ComparisonContract.Presenter {
+
+  private final ComparisonContract.View mView;
+  private final DataManager mDataManager;
+  private boolean mLoaded = false;
+  private final LatestRequest mRequest = new LatestRequest();
+
+  public ComparisonPresenter(@NonNull final ComparisonContract.View view, @NonNull final DataManager dataManager){
+    mView = checkNotNull(view);
+    mDataManager = checkNotNull(dataManager);
+    mView.setPresenter(this);
+  }
+
+  /**
+   * Start by retrieving the pinned columns.
+   * This is only done once.
+   */
+  @Override public void start() {
+    if (!mLoaded){
+      mLoaded = true;
+      loadComparison();
+    }
+  }
+
+  /**
+   * Retrieve every pinned column and add each to the
+   * view as it arrives, redrawing them to a common
+   * scale once they're all in.
+   */
+  @Override public void loadComparison() {
+    if (mDataManager.getComparisonSet().size() == 0){
+      mView.showMessage("Pin locations from the ocean summary to compare them");
+      mView.showComparisonSummary(0, 0);
+      return;
+    }
+    final int request = mRequest.start();
+    mView.showProgressBar("Fetching pinned water columns...");
+    mDataManager.queryForComparison(new ServiceApi.ComparisonCallback() {
+      @Override public void onColumnLoaded(final int index, final PinnedColumn column) {
+        if (!mRequest.isCurrent(request)){
+          return;
+        }
+        // Show columns as they arrive rather than waiting for the slowest one
+        mView.hideProgressBar();
+        mView.showColumn(index, column);
+      }
+
+      @Override public void onComparisonComplete(final List<PinnedColumn> columns) {
+        if (!mRequest.finish(request)){
+          return;
+        }
+        mView.hideProgressBar();
+        int missing = 0;
+        for (final PinnedColumn column : columns){
+          if (column.getWaterColumn() == null){
+            missing = missing + 1;
+          }
+        }
+        if (missing > 0){
+          mView.showMessage("No EMU data found for " + missing + " pinned location(s)");
+        }
+        mView.showColumns(columns);
+        mView.showComparisonSummary(columns.size(), getMaxDepth(columns));
+      }
+    });
+  }
+
+  /**
+   * Stop waiting for pinned columns, keeping those already shown.
+   * Fetches already running still complete and are cached.
+   */
+  @Override public void cancelLoading() {
+    mRequest.cancel();
+    mView.hideProgressBar();
+  }
+
+  /**
+   * Remove a location from the comparison and redraw
+   * the remaining columns.
+   * @param location - Point that was pinned
+   */
+  @Override public void unpin(@NonNull final Point location) {
+    mDataManager.getComparisonSet().unpin(location);
+    final List<PinnedColumn> columns = mDataManager.getComparisonSet().getColumns();
+    mView.showColumns(columns);
+    mView.showComparisonSummary(columns.size(), getMaxDepth(columns));
+  }
+
+  /**
+   * Return the depth of the deepest column
+   * @param columns - List<PinnedColumn>
+   * @return int representing meters, 0 if no column has data
+   */
+  static int getMaxDepth(@NonNull final List<PinnedColumn> columns){
+    int maxDepth = 0;
+    for (final PinnedColumn column : columns){
+      final WaterColumn waterColumn = column.getWaterColumn();
+      if (waterColumn != null){
+        maxDepth = Math.max(maxDepth, waterColumn.getDepth());
+      }
+    }
+    return maxDepth;
+  }
+}
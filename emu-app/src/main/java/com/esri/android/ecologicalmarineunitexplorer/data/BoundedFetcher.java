@@ -0,0 +1,156 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Fetches a batch of keys in parallel without letting more than a
+ * fixed number of requests run at once.  When a fetch finishes the
+ * next waiting key is started, so a slow key only holds up its own slot.
+ * @param <K> the type of key
+ * @param <V> the type of value fetched for each key
+ */
+public class BoundedFetcher<K, V> {
+
+  /**
+   * Fetches the value for a single key
+   */
+  public interface Fetch<K, V> {
+    void fetch(K key, Callback<V> callback);
+  }
+
+  /**
+   * Receives a fetched value.  Null indicates the fetch failed.
+   * Must be called exactly once.
+   */
+  public interface Callback<V> {
+    void onResult(@Nullable V value);
+  }
+
+  /**
+   * Notified as each key is fetched and once the whole batch is done
+   */
+  public interface Listener<K, V> {
+    void onFetched(K key, @Nullable V value);
+    void onAllFetched();
+  }
+
+  private final Fetch<K, V> mFetch;
+
+  private final int mMaxConcurrent;
+
+  public BoundedFetcher(@NonNull final Fetch<K, V> fetch, final int maxConcurrent){
+    if (maxConcurrent <= 0){
+      throw new IllegalArgumentException("At least one fetch must be allowed to run");
+    }
+    mFetch = fetch;
+    mMaxConcurrent = maxConcurrent;
+  }
+
+  /**
+   * Fetch every key.  The listener may be called on whichever thread
+   * completes a fetch.
+   * @param keys - Collection<K> to fetch, in the order they should start
+   * @param listener - Listener notified of each result
+   */
+  public void fetchAll(@NonNull final Collection<K> keys, @NonNull final Listener<K, V> listener){
+    final Batch batch = new Batch(keys, listener);
+    if (keys.isEmpty()){
+      listener.onAllFetched();
+      return;
+    }
+    for (int i = 0; i < mMaxConcurrent; i++){
+      batch.startNext();
+    }
+  }
+
+  /**
+   * The state of one call to fetchAll
+   */
+  private class Batch {
+    private final Deque<K> mWaiting;
+    private final Listener<K, V> mListener;
+    private int mRemaining;
+
+    Batch(final Collection<K> keys, final Listener<K, V> listener){
+      mWaiting = new ArrayDeque<>(keys);
+      mListener = listener;
+      mRemaining = keys.size();
+    }
+
+    void startNext(){
+      final K key;
+      synchronized (this){
+        key = mWaiting.poll();
+      }
+      if (key == null){
+        return;
+      }
+      final boolean[] called = { false };
+      try {
+        mFetch.fetch(key, new Callback<V>() {
+          @Override public void onResult(@Nullable final V value) {
+            synchronized (called){
+              if (called[0]){
+                return;
+              }
+              called[0] = true;
+            }
+            finished(key, value);
+          }
+        });
+      } catch (final RuntimeException e){
+        synchronized (called){
+          if (called[0]){
+            throw e;
+          }
+          called[0] = true;
+        }
+        finished(key, null);
+      }
+    }
+
+    private void finished(final K key, final V value){
+      mListener.onFetched(key, value);
+      final boolean done;
+      synchronized (this){
+        mRemaining--;
+        done = mRemaining == 0;
+      }
+      if (done){
+        mListener.onAllFetched();
+      }else{
+        startNext();
+      }
+    }
+  }
+}
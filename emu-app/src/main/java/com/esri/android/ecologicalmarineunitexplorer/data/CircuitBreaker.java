@@ -0,0 +1,281 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Guards one service endpoint.  After a run of consecutive failures
+ * the breaker opens and requests are refused straight away, rather
+ * than each waiting out a timeout, so callers can fall back to what
+ * they have cached.  Once the open interval has passed a single probe
+ * request is let through: its success closes the breaker and its
+ * failure opens it again for another interval.
+ *
+ * Every change of state is kept, with the time since the breaker was
+ * created, and reported to the Listener for logging.
+ */
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  /**
+   * Tells the caller the breaker is open.  Thrown, or handed to a
+   * callback, in place of making the request.
+   */
+  public static class OpenException extends IOException {
+    public OpenException(final String message){
+      super(message);
+    }
+  }
+
+  /**
+   * Notified after each change of state, on the thread that caused it
+   */
+  public interface Listener {
+    void onStateChanged(CircuitBreaker breaker, Transition transition);
+  }
+
+  /**
+   * Source of the current time, replaceable in tests
+   */
+  public interface Clock {
+    long nowMillis();
+  }
+
+  /**
+   * A change of state and when it happened
+   */
+  public static class Transition {
+    private final State mFrom;
+    private final State mTo;
+    private final long mElapsedMillis;
+
+    Transition(@NonNull final State from, @NonNull final State to, final long elapsedMillis){
+      mFrom = from;
+      mTo = to;
+      mElapsedMillis = elapsedMillis;
+    }
+
+    @NonNull public State getFrom() {
+      return mFrom;
+    }
+
+    @NonNull public State getTo() {
+      return mTo;
+    }
+
+    public long getElapsedMillis() {
+      return mElapsedMillis;
+    }
+  }
+
+  private static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override public long nowMillis() {
+      return System.nanoTime() / 1000000;
+    }
+  };
+
+  // Transitions kept for describe, oldest dropped first
+  private static final int MAX_TRANSITIONS = 32;
+
+  private final String mName;
+  private final int mFailureThreshold;
+  private final long mOpenMillis;
+  private final Clock mClock;
+  private final long mCreatedMillis;
+  private final List<Transition> mTransitions = new ArrayList<>();
+  private Listener mListener = null;
+
+  private State mState = State.CLOSED;
+  private int mConsecutiveFailures = 0;
+  private long mOpenedMillis = 0;
+  // When the probe let through while half open was started, or -1
+  private long mProbeMillis = -1;
+  private int mRefused = 0;
+  private int mTrips = 0;
+
+  /**
+   * @param name - String naming the endpoint in logs
+   * @param failureThreshold - int, consecutive failures that open the breaker
+   * @param openMillis - long, how long requests are refused before a probe
+   */
+  public CircuitBreaker(@NonNull final String name, final int failureThreshold, final long openMillis){
+    this(name, failureThreshold, openMillis, SYSTEM_CLOCK);
+  }
+
+  CircuitBreaker(@NonNull final String name, final int failureThreshold, final long openMillis, @NonNull final Clock clock){
+    if (failureThreshold < 1 || openMillis < 0){
+      throw new IllegalArgumentException("Threshold must be positive and the open interval not negative");
+    }
+    mName = name;
+    mFailureThreshold = failureThreshold;
+    mOpenMillis = openMillis;
+    mClock = clock;
+    mCreatedMillis = clock.nowMillis();
+  }
+
+  @NonNull public String getName() {
+    return mName;
+  }
+
+  public synchronized void setListener(@Nullable final Listener listener){
+    mListener = listener;
+  }
+
+  /**
+   * Ask whether a request may be made now.  A caller given true must
+   * report the outcome with recordSuccess or recordFailure.
+   * @return boolean, false if the request should not be made
+   */
+  public boolean allowRequest(){
+    final Transition transition;
+    synchronized (this){
+      final long now = mClock.nowMillis();
+      switch (mState){
+        case CLOSED:
+          return true;
+        case OPEN:
+          if (now - mOpenedMillis < mOpenMillis){
+            mRefused++;
+            return false;
+          }
+          transition = moveTo(State.HALF_OPEN, now);
+          mProbeMillis = now;
+          break;
+        default:
+          // A probe that never reported back doesn't hold the breaker half open forever
+          if (mProbeMillis >= 0 && now - mProbeMillis < mOpenMillis){
+            mRefused++;
+            return false;
+          }
+          mProbeMillis = now;
+          return true;
+      }
+    }
+    notifyListener(transition);
+    return true;
+  }
+
+  /**
+   * Report that a request succeeded
+   */
+  public void recordSuccess(){
+    final Transition transition;
+    synchronized (this){
+      mConsecutiveFailures = 0;
+      if (mState == State.CLOSED){
+        return;
+      }
+      mProbeMillis = -1;
+      transition = moveTo(State.CLOSED, mClock.nowMillis());
+    }
+    notifyListener(transition);
+  }
+
+  /**
+   * Report that a request failed
+   */
+  public void recordFailure(){
+    final Transition transition;
+    synchronized (this){
+      mConsecutiveFailures++;
+      if (mState == State.OPEN || (mState == State.CLOSED && mConsecutiveFailures < mFailureThreshold)){
+        return;
+      }
+      final long now = mClock.nowMillis();
+      mOpenedMillis = now;
+      mProbeMillis = -1;
+      mTrips++;
+      transition = moveTo(State.OPEN, now);
+    }
+    notifyListener(transition);
+  }
+
+  @NonNull public synchronized State getState() {
+    return mState;
+  }
+
+  /**
+   * Return true unless requests are being let through normally
+   * @return boolean
+   */
+  public synchronized boolean isTripped(){
+    return mState != State.CLOSED;
+  }
+
+  /**
+   * Return the changes of state, oldest first
+   * @return List<Transition>
+   */
+  @NonNull public synchronized List<Transition> getTransitions(){
+    return Collections.unmodifiableList(new ArrayList<>(mTransitions));
+  }
+
+  /**
+   * Describe the breaker's state and history, suitable for logging
+   * @return String
+   */
+  @NonNull public synchronized String describe(){
+    final StringBuilder builder = new StringBuilder(String.format(Locale.US,
+        "%s: %s, %d consecutive failures, opened %d times, %d requests refused",
+        mName, mState.name().toLowerCase(Locale.US), mConsecutiveFailures, mTrips, mRefused));
+    if (!mTransitions.isEmpty()){
+      final Transition last = mTransitions.get(mTransitions.size() - 1);
+      builder.append(String.format(Locale.US, ", last change %s to %s at %d ms",
+          last.getFrom().name().toLowerCase(Locale.US), last.getTo().name().toLowerCase(Locale.US), last.getElapsedMillis()));
+    }
+    return builder.toString();
+  }
+
+  // Must hold the lock
+  private Transition moveTo(final State state, final long now){
+    final Transition transition = new Transition(mState, state, now - mCreatedMillis);
+    mState = state;
+    if (mTransitions.size() == MAX_TRANSITIONS){
+      mTransitions.remove(0);
+    }
+    mTransitions.add(transition);
+    return transition;
+  }
+
+  private void notifyListener(final Transition transition){
+    final Listener listener;
+    synchronized (this){
+      listener = mListener;
+    }
+    if (listener != null){
+      listener.onStateChanged(this, transition);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The EmuDetail of every EMU in a water column, built together so
+ * each DETAILS button in the bottom sheet can open its charts without
+ * further work.  Like EmuSummary it's an immutable snapshot that can
+ * be shared between threads.
+ */
+public final class ColumnDetails {
+
+  private final WaterColumn mColumn;
+  private final Map<Integer, EmuDetail> mDetails;
+
+  private ColumnDetails(final WaterColumn column, final Map<Integer, EmuDetail> details){
+    mColumn = column;
+    mDetails = Collections.unmodifiableMap(details);
+  }
+
+  /**
+   * Build the details for a column.  Where an EMU appears more than
+   * once its first observation in the column is used, and EMUs
+   * without statistics are left out.
+   * @param column - WaterColumn
+   * @param summary - EmuSummary
+   * @return ColumnDetails
+   */
+  @NonNull public static ColumnDetails build(@NonNull final WaterColumn column, @NonNull final EmuSummary summary){
+    final Map<Integer, EmuDetail> details = new HashMap<>();
+    for (final EMUObservation observation : column.getEmuSet()){
+      final int emuName = observation.getEmu().getName();
+      if (details.containsKey(emuName)){
+        continue;
+      }
+      final EMUStat stat = summary.getStat(emuName);
+      if (stat != null){
+        details.put(emuName, EmuDetail.create(observation, stat, summary));
+      }
+    }
+    return new ColumnDetails(column, details);
+  }
+
+  /**
+   * Return true if these are the details of the column
+   * @param column - WaterColumn
+   * @return boolean
+   */
+  public boolean isFor(@Nullable final WaterColumn column){
+    return mColumn == column;
+  }
+
+  /**
+   * Return the detail for an EMU in the column
+   * @param emuName - int representing an EMU name
+   * @return EmuDetail or null if the EMU isn't in the column or has no statistics
+   */
+  @Nullable public EmuDetail getDetail(final int emuName){
+    return mDetails.get(emuName);
+  }
+
+  /**
+   * Return the number of EMUs with details
+   * @return int
+   */
+  public int size(){
+    return mDetails.size();
+  }
+}
@@ -0,0 +1,112 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Groups EMU observations into water columns by location.  Each
+ * observation's location is packed into a ColumnKey and looked up
+ * in an open addressing table of primitive longs, so grouping is a
+ * single pass with no boxing and no reliance on Point equality.
+ * Observations are then placed straight into one array per column,
+ * which is sorted and handed to the column without being copied.
+ */
+public final class ColumnGrouper {
+
+  private ColumnGrouper(){}
+
+  /**
+   * Create a WaterColumn for each distinct location in the observations.
+   * Locations within ColumnKey precision of each other share a column,
+   * and like WaterColumn.addObservation only the first observation
+   * with a given top is kept.
+   * @param observations - Collection<EMUObservation>, each with a location
+   * @return List<WaterColumn> in the order their locations first appear
+   */
+  @NonNull public static List<WaterColumn> group(@NonNull final Collection<EMUObservation> observations){
+    final int n = observations.size();
+    final EMUObservation[] items = observations.toArray(new EMUObservation[n]);
+
+    // Assign each observation the index of its column
+    final int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(n * 2));
+    final int mask = (1 << bits) - 1;
+    final long[] tableKeys = new long[1 << bits];
+    // Column index + 1, 0 for an empty slot
+    final int[] tableColumns = new int[1 << bits];
+    final int[] columnOf = new int[n];
+    final int[] sizes = new int[n];
+    int columns = 0;
+    for (int i = 0; i < n; i++){
+      final Point location = items[i].getLocation();
+      final long key = ColumnKey.of(location.getX(), location.getY());
+      int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+      while (tableColumns[slot] != 0 && tableKeys[slot] != key){
+        slot = (slot + 1) & mask;
+      }
+      if (tableColumns[slot] == 0){
+        tableKeys[slot] = key;
+        tableColumns[slot] = ++columns;
+      }
+      final int column = tableColumns[slot] - 1;
+      columnOf[i] = column;
+      sizes[column]++;
+    }
+
+    // Place each observation straight into its column's array
+    final EMUObservation[][] grouped = new EMUObservation[columns][];
+    final int[] filled = new int[columns];
+    for (int c = 0; c < columns; c++){
+      grouped[c] = new EMUObservation[sizes[c]];
+    }
+    for (int i = 0; i < n; i++){
+      final int column = columnOf[i];
+      grouped[column][filled[column]++] = items[i];
+    }
+
+    final List<WaterColumn> waterColumns = new ArrayList<>(columns);
+    for (int c = 0; c < columns; c++){
+      final EMUObservation[] column = grouped[c];
+      // Stable, so the first of any observations with the same top stays first
+      Arrays.sort(column);
+      int distinct = column.length > 0 ? 1 : 0;
+      for (int i = 1; i < column.length; i++){
+        if (column[i].compareTo(column[distinct - 1]) != 0){
+          column[distinct++] = column[i];
+        }
+      }
+      waterColumns.add(new WaterColumn(column[0].getLocation(), column, distinct));
+    }
+    return waterColumns;
+  }
+}
@@ -0,0 +1,69 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+/**
+ * Packs a water column location into a single long so columns can be
+ * keyed without relying on Point equality.  Longitude and latitude are
+ * rounded to 1e-5 degrees, about a metre, and keys order by longitude,
+ * then latitude.
+ */
+public final class ColumnKey {
+
+  private static final double KEY_SCALE = 100000;
+
+  private ColumnKey(){}
+
+  /**
+   * Return the key for a location
+   * @param longitude - double in decimal degrees
+   * @param latitude - double in decimal degrees
+   * @return long
+   */
+  public static long of(final double longitude, final double latitude){
+    final long x = Math.round((Math.max(-180, Math.min(180, longitude)) + 180) * KEY_SCALE);
+    final long y = Math.round((Math.max(-90, Math.min(90, latitude)) + 90) * KEY_SCALE);
+    return x << 32 | y;
+  }
+
+  /**
+   * Return the longitude a key was made from, to the key's precision
+   * @param key - long
+   * @return double
+   */
+  public static double longitudeOf(final long key){
+    return (key >>> 32) / KEY_SCALE - 180;
+  }
+
+  /**
+   * Return the latitude a key was made from, to the key's precision
+   * @param key - long
+   * @return double
+   */
+  public static double latitudeOf(final long key){
+    return (key & 0xFFFFFFFFL) / KEY_SCALE - 90;
+  }
+}
@@ -0,0 +1,201 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the most recently selected water columns together with their
+ * depth profiles, keyed by ColumnKey.  The profile is fetched as soon
+ * as a column is added, before the user asks for it, so opening the
+ * profile usually finds it ready or already on its way.  Requests for
+ * a profile that's still being fetched wait for that fetch rather
+ * than starting another one.
+ */
+public class ColumnPrefetcher {
+
+  /**
+   * Fetches the profile at a location.  The callback is given
+   * null if the fetch failed.
+   */
+  public interface ProfileSource {
+    void fetch(Point location, BoundedFetcher.Callback<DepthProfile> callback);
+  }
+
+  /**
+   * The column and profile held for one key
+   */
+  private static class Held {
+    private final WaterColumn mColumn;
+    private DepthProfile mProfile;
+    // Callbacks waiting for the profile, null when no fetch is running
+    private List<BoundedFetcher.Callback<DepthProfile>> mWaiting;
+
+    Held(final WaterColumn column){
+      mColumn = column;
+    }
+  }
+
+  private final ProfileSource mSource;
+
+  private final Map<Long, Held> mEntries;
+
+  public ColumnPrefetcher(@NonNull final ProfileSource source, final int capacity){
+    mSource = source;
+    mEntries = new LinkedHashMap<Long, Held>(capacity, 0.75f, true){
+      @Override protected boolean removeEldestEntry(final Map.Entry<Long, Held> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Hold the column and start fetching its profile unless it's
+   * already held or being fetched.
+   * @param column - WaterColumn with a location
+   */
+  public void prefetch(@NonNull final WaterColumn column){
+    final Point location = column.getLocation();
+    final long key = ColumnKey.of(location.getX(), location.getY());
+    final Held held;
+    synchronized (this){
+      final Held existing = mEntries.get(key);
+      if (existing != null && (existing.mProfile != null || existing.mWaiting != null)){
+        return;
+      }
+      held = new Held(column);
+      held.mWaiting = new ArrayList<>();
+      mEntries.put(key, held);
+    }
+    mSource.fetch(location, new BoundedFetcher.Callback<DepthProfile>() {
+      @Override public void onResult(@Nullable final DepthProfile profile) {
+        complete(held, profile);
+      }
+    });
+  }
+
+  /**
+   * Return the column held for a location
+   * @param location - Point
+   * @return WaterColumn or null if none is held
+   */
+  @Nullable public synchronized WaterColumn getColumn(@NonNull final Point location){
+    final Held held = mEntries.get(ColumnKey.of(location.getX(), location.getY()));
+    return held != null ? held.mColumn : null;
+  }
+
+  /**
+   * Return the held column closest to the center of the bounds,
+   * used when the service can't be asked for the exact one
+   * @param xmin - double minimum longitude
+   * @param ymin - double minimum latitude
+   * @param xmax - double maximum longitude
+   * @param ymax - double maximum latitude
+   * @return WaterColumn or null if none is held within the bounds
+   */
+  @Nullable public synchronized WaterColumn findColumn(final double xmin, final double ymin, final double xmax,
+      final double ymax){
+    final double centerX = (xmin + xmax) / 2;
+    final double centerY = (ymin + ymax) / 2;
+    WaterColumn closest = null;
+    double closestDistance = Double.MAX_VALUE;
+    for (final Held held : mEntries.values()){
+      final Point location = held.mColumn.getLocation();
+      if (location.getX() < xmin || location.getX() > xmax || location.getY() < ymin || location.getY() > ymax){
+        continue;
+      }
+      final double dx = location.getX() - centerX;
+      final double dy = location.getY() - centerY;
+      final double distance = dx * dx + dy * dy;
+      if (distance < closestDistance){
+        closestDistance = distance;
+        closest = held.mColumn;
+      }
+    }
+    return closest;
+  }
+
+  /**
+   * Hand the profile for a location to the callback if it's held, or
+   * once the fetch already running for it finishes.  The callback is
+   * given null if that fetch failed.
+   * @param location - Point
+   * @param callback - Callback given the profile, on the calling thread
+   *                 if it's held or the thread finishing the fetch if not
+   * @return boolean, false if there's no profile or fetch for the
+   * location and the callback won't be called
+   */
+  public boolean getProfile(@NonNull final Point location, @NonNull final BoundedFetcher.Callback<DepthProfile> callback){
+    final DepthProfile profile;
+    synchronized (this){
+      final Held held = mEntries.get(ColumnKey.of(location.getX(), location.getY()));
+      if (held == null){
+        return false;
+      }
+      if (held.mProfile == null){
+        if (held.mWaiting == null){
+          return false;
+        }
+        held.mWaiting.add(callback);
+        return true;
+      }
+      profile = held.mProfile;
+    }
+    callback.onResult(profile);
+    return true;
+  }
+
+  /**
+   * Return the number of columns held
+   * @return int
+   */
+  public synchronized int size(){
+    return mEntries.size();
+  }
+
+  private void complete(final Held held, final DepthProfile profile){
+    final List<BoundedFetcher.Callback<DepthProfile>> callbacks;
+    synchronized (this){
+      // Failed and empty profiles aren't kept so the next request fetches again
+      if (profile != null && profile.measurementCount() > 0){
+        held.mProfile = profile;
+      }
+      callbacks = held.mWaiting;
+      held.mWaiting = null;
+    }
+    for (final BoundedFetcher.Callback<DepthProfile> callback : callbacks){
+      callback.onResult(profile);
+    }
+  }
+}
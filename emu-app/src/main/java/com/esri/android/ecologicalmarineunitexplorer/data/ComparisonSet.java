@@ -0,0 +1,237 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The locations an analyst has pinned to compare side by side.  Up to
+ * MAX_PINNED locations can be pinned.  Fetched columns and profiles are
+ * kept in a small LRU map keyed by column key, so unpinning and pinning a
+ * location again, or reopening the comparison, doesn't fetch it twice.
+ * Missing data for every pin is fetched in parallel with at most
+ * maxConcurrent requests in flight.  Safe to use from any thread.
+ */
+public class ComparisonSet {
+
+  /**
+   * Fetches the water column and profile for a pinned location
+   */
+  public interface ColumnSource {
+    /**
+     * @param location - Point that was pinned
+     * @param known - PinnedColumn holding whatever is already known about the location
+     * @param callback - Callback receiving the completed PinnedColumn, or null on failure
+     */
+    void fetch(Point location, PinnedColumn known, BoundedFetcher.Callback<PinnedColumn> callback);
+  }
+
+  /**
+   * Notified as pinned columns become available
+   */
+  public interface Listener {
+    /**
+     * @param index - int position of the pin
+     * @param column - PinnedColumn, possibly incomplete if fetching failed
+     */
+    void onColumnLoaded(int index, PinnedColumn column);
+
+    /**
+     * @param columns - List<PinnedColumn> in pin order
+     */
+    void onComparisonLoaded(List<PinnedColumn> columns);
+  }
+
+  public static final int MAX_PINNED = 8;
+
+  private final Map<Long, Point> mPinned = new LinkedHashMap<>();
+
+  private final Map<Long, PinnedColumn> mColumns;
+
+  private final BoundedFetcher<Long, PinnedColumn> mFetcher;
+
+  /**
+   * @param source - ColumnSource fetching missing data
+   * @param maxConcurrent - int limit on fetches in flight
+   * @param capacity - int number of columns kept, at least MAX_PINNED
+   */
+  public ComparisonSet(@NonNull final ColumnSource source, final int maxConcurrent, final int capacity){
+    if (capacity < MAX_PINNED){
+      throw new IllegalArgumentException("Capacity must hold every pinned column");
+    }
+    mColumns = new LinkedHashMap<Long, PinnedColumn>(capacity, 0.75f, true){
+      @Override protected boolean removeEldestEntry(final Map.Entry<Long, PinnedColumn> eldest) {
+        return size() > capacity;
+      }
+    };
+    mFetcher = new BoundedFetcher<>(new BoundedFetcher.Fetch<Long, PinnedColumn>() {
+      @Override public void fetch(final Long key, final BoundedFetcher.Callback<PinnedColumn> callback) {
+        final Point location;
+        final PinnedColumn known;
+        synchronized (ComparisonSet.this){
+          location = mPinned.get(key);
+          known = mColumns.get(key);
+        }
+        if (location == null){
+          // Unpinned while waiting for a slot
+          callback.onResult(known);
+          return;
+        }
+        source.fetch(location, known != null ? known : new PinnedColumn(location, null, null), callback);
+      }
+    }, maxConcurrent);
+  }
+
+  /**
+   * Pin a water column's location.  The column is remembered so only its
+   * profile has to be fetched for the comparison.
+   * @param waterColumn - WaterColumn with its location set
+   * @return boolean, false if the location is already pinned or MAX_PINNED has been reached
+   */
+  public synchronized boolean pin(@NonNull final WaterColumn waterColumn){
+    final Point location = waterColumn.getLocation();
+    final long key = ColumnKey.of(location.getX(), location.getY());
+    if (mPinned.containsKey(key) || mPinned.size() >= MAX_PINNED){
+      return false;
+    }
+    mPinned.put(key, location);
+    final PinnedColumn known = mColumns.get(key);
+    if (known == null || known.getWaterColumn() == null){
+      mColumns.put(key, new PinnedColumn(location, waterColumn, known != null ? known.getProfile() : null));
+    }
+    return true;
+  }
+
+  /**
+   * Remove a pin.  Its data stays in the LRU map.
+   * @param location - Point
+   * @return boolean, true if the location was pinned
+   */
+  public synchronized boolean unpin(@NonNull final Point location){
+    return mPinned.remove(ColumnKey.of(location.getX(), location.getY())) != null;
+  }
+
+  /**
+   * Remove every pin
+   */
+  public synchronized void clear(){
+    mPinned.clear();
+  }
+
+  public synchronized boolean isPinned(@NonNull final Point location){
+    return mPinned.containsKey(ColumnKey.of(location.getX(), location.getY()));
+  }
+
+  public synchronized int size(){
+    return mPinned.size();
+  }
+
+  /**
+   * Return the pinned locations in the order they were pinned
+   * @return List<Point>
+   */
+  @NonNull public synchronized List<Point> getPinned(){
+    return Collections.unmodifiableList(new ArrayList<>(mPinned.values()));
+  }
+
+  /**
+   * Return what's known about every pinned location without fetching anything
+   * @return List<PinnedColumn> in pin order
+   */
+  @NonNull public synchronized List<PinnedColumn> getColumns(){
+    final List<PinnedColumn> columns = new ArrayList<>();
+    for (final Map.Entry<Long, Point> entry : mPinned.entrySet()){
+      final PinnedColumn column = mColumns.get(entry.getKey());
+      columns.add(column != null ? column : new PinnedColumn(entry.getValue(), null, null));
+    }
+    return columns;
+  }
+
+  /**
+   * Make sure every pinned location has its water column and profile.
+   * Complete columns are reported straight away and the rest as they
+   * arrive.  Listener methods may be called on a fetching thread.
+   * @param listener - Listener
+   */
+  public void load(@NonNull final Listener listener){
+    final List<Long> keys;
+    final List<Long> missing = new ArrayList<>();
+    final List<PinnedColumn> ready = new ArrayList<>();
+    synchronized (this){
+      keys = new ArrayList<>(mPinned.keySet());
+      for (final Long key : keys){
+        final PinnedColumn column = mColumns.get(key);
+        if (column != null && column.isComplete()){
+          ready.add(column);
+        }else{
+          missing.add(key);
+          ready.add(null);
+        }
+      }
+    }
+    for (int i = 0; i < ready.size(); i++){
+      if (ready.get(i) != null){
+        listener.onColumnLoaded(i, ready.get(i));
+      }
+    }
+    mFetcher.fetchAll(missing, new BoundedFetcher.Listener<Long, PinnedColumn>() {
+      @Override public void onFetched(final Long key, @Nullable final PinnedColumn value) {
+        final PinnedColumn column;
+        synchronized (ComparisonSet.this){
+          if (value != null){
+            mColumns.put(key, value);
+          }
+          column = value != null ? value : mColumns.get(key);
+        }
+        if (column != null){
+          listener.onColumnLoaded(keys.indexOf(key), column);
+        }
+      }
+
+      @Override public void onAllFetched() {
+        final List<PinnedColumn> columns = new ArrayList<>();
+        synchronized (ComparisonSet.this){
+          for (final Long key : keys){
+            final PinnedColumn column = mColumns.get(key);
+            if (column != null){
+              columns.add(column);
+            }
+          }
+        }
+        listener.onComparisonLoaded(columns);
+      }
+    });
+  }
+}
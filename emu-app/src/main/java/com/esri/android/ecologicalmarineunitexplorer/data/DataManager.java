@@ -25,15 +25,19 @@
 package com.esri.android.ecologicalmarineunitexplorer.data;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
-import android.util.SparseArray;
 
 import com.esri.android.ecologicalmarineunitexplorer.R;
+import com.esri.android.ecologicalmarineunitexplorer.util.StartupTimeline;
 import com.esri.arcgisruntime.concurrent.ListenableFuture;
 import com.esri.arcgisruntime.data.Feature;
 import com.esri.arcgisruntime.data.FeatureQueryResult;
+import com.esri.arcgisruntime.data.Field;
 import com.esri.arcgisruntime.data.QueryParameters;
 import com.esri.arcgisruntime.data.ServiceFeatureTable;
 import com.esri.arcgisruntime.geometry.AngularUnit;
@@ -43,100 +47,460 @@ import com.esri.arcgisruntime.geometry.GeodeticCurveType;
 import com.esri.arcgisruntime.geometry.GeodeticDistanceResult;
 import com.esri.arcgisruntime.geometry.Geometry;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
+import com.esri.arcgisruntime.geometry.ImmutablePart;
 import com.esri.arcgisruntime.geometry.LinearUnit;
 import com.esri.arcgisruntime.geometry.LinearUnitId;
 import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.Polyline;
 import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeParameters;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeResult;
 import com.esri.arcgisruntime.tasks.geocode.LocatorTask;
-import com.google.common.base.Function;
-import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimaps;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
  * The DataManager is a singleton responsible for managing how the application retrieves
  * data from services.  It encapsulates logic for handling ServiceFeatureTables, FeatureLayers,
  * geocoding.  It performs Model-related functions in the MVP pattern.
+ *
+ * Threading: public methods may be called from any thread.  Query results
+ * are processed on whichever thread the ArcGIS Runtime completes them, or
+ * on the protocol buffer or prefetch executor for mesh queries read as protocol buffers, and
+ * every ServiceApi callback is then delivered through the callback executor,
+ * which runs it on the main thread.  State read by the UI is either an
+ * immutable snapshot published through a volatile field (the summary
+ * statistics, the current water column and its chart details) or guarded
+ * by a lock (depth cells, waiting callbacks, prefetched columns, the
+ * locator, the gazetteer and station store).
  */
 
 public class DataManager {
-  private final ServiceFeatureTable mMeshClusterTable;
+  // Tables are created on first use rather than while the app starts
+  private final LazyHolder<ServiceFeatureTable> mMeshClusterTable = new LazyHolder<ServiceFeatureTable>() {
+    @Override protected ServiceFeatureTable create() {
+      final ServiceFeatureTable table = new ServiceFeatureTable(mContext.getString(R.string.service_emu_mesh_cluster));
+      // Populated with only the fields each query needs, holding just the last page
+      table.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+      return table;
+    }
+  };
+
+  private final LazyHolder<ServiceFeatureTable> mMeshPointTable = new LazyHolder<ServiceFeatureTable>() {
+    @Override protected ServiceFeatureTable create() {
+      final ServiceFeatureTable table = new ServiceFeatureTable(mContext.getString(R.string.service_emu_point_mesh));
+      table.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+      return table;
+    }
+  };
+
+  private final LazyHolder<ServiceFeatureTable> mSummaryStats = new LazyHolder<ServiceFeatureTable>() {
+    @Override protected ServiceFeatureTable create() {
+      final ServiceFeatureTable table = new ServiceFeatureTable(mContext.getString(R.string.service_emu_summary));
+      table.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+      return table;
+    }
+  };
+
+  private volatile LocatorTask mLocatorTask = null;
+
+  private boolean mLocatorLoading = false;
+
+  private final List<Runnable> mPendingLocatorTasks = new ArrayList<>();
+
+  private final Runnable mLocatorLoadedListener = new Runnable() {
+    @Override public void run() {
+      final List<Runnable> tasks;
+      synchronized (mPendingLocatorTasks){
+        tasks = new ArrayList<>(mPendingLocatorTasks);
+        mPendingLocatorTasks.clear();
+        mLocatorLoading = false;
+      }
+      for (final Runnable task : tasks){
+        task.run();
+      }
+    }
+  };
 
-  private final ServiceFeatureTable mMeshPointTable;
+  // Results for the spatial reference of the latest search, replaced
+  // as a whole when a search asks for another one
+  private GeocodeCache<GeocodeResult> mGeocodeCache = null;
 
-  private final ServiceFeatureTable mSummaryStats;
+  private SpatialReference mGeocodeSpatialReference = null;
 
-  private LocatorTask mLocatorTask = null;
+  private final Object mGeocodeLock = new Object();
+
+  // Read once on the prefetch executor, null until then
+  private volatile Gazetteer mGazetteer = null;
+
+  private boolean mGazetteerRequested = false;
+
+  private StationProfileStore mStationProfiles = null;
+
+  // Station profiles waiting to be written by the prefetch executor, which
+  // serializes rewrites of the store.  Guarded by itself.
+  private final List<StationProfileStore.StationEntry> mPendingStations = new ArrayList<>();
 
   private final Context mContext;
 
-  private final ServiceFeatureTable mEmuByDepthTable;
+  // One layer, each with its own table, for each LevelOfDetail, coarsest first
+  private final List<LazyHolder<FeatureLayer>> mEmuByDepthLayers = new ArrayList<>();
 
-  private final FeatureLayer mEmuByDepthLayer;
+  // Depth and visibility shown by the depth layers, given to each as it's created.
+  // Guarded by mEmuByDepthLayers.
+  private int mEmuByDepthDepth = 0;
+  private boolean mEmuByDepthVisible = true;
 
   private static DataManager instance = null;
 
-  private WaterColumn mCurrentWaterColumn = null;
+  private volatile WaterColumn mCurrentWaterColumn = null;
+
+  // True when the current water column came from the cache because the service failed
+  private volatile boolean mCurrentWaterColumnStale = false;
+
+  // Chart details for the EMUs of the latest column prepared
+  private volatile ColumnDetails mColumnDetails = null;
+
+  // The latest location summary, only its result becomes the current water column
+  private final LatestRequest mLocationQueries = new LatestRequest();
+
+  // Locations pinned for comparison and the columns fetched for them
+  private final ComparisonSet mComparisonSet = new ComparisonSet(new ComparisonSet.ColumnSource() {
+    @Override public void fetch(final Point location, final PinnedColumn known, final BoundedFetcher.Callback<PinnedColumn> callback) {
+      fetchPinnedColumn(location, known, callback);
+    }
+  }, COMPARISON_FETCHES, COMPARISON_CACHE_SIZE);
+
+  // Depth and grid cell combinations downloaded, see depthCellKey
+  private final DownloadTracker mDepthCells = new DownloadTracker();
+
+  private final FeatureDecoder<EMUObservation> mObservationDecoder = new FeatureDecoder<EMUObservation>() {
+    @Override public EMUObservation decode(final Map<String, Object> attributes) {
+      return createEMUObservation(attributes);
+    }
+  };
+
+  private final PbfFeatureReader.RowDecoder<EMUObservation> mObservationRows = new PbfFeatureReader.RowDecoder<EMUObservation>() {
+    @Override public EMUObservation decode(final PbfFeatureReader.Row row) {
+      return createEMUObservation(row);
+    }
+  };
+
+  private static final PbfFeatureReader.RowDecoder<Measurement> MEASUREMENT_ROWS = new PbfFeatureReader.RowDecoder<Measurement>() {
+    @Override public Measurement decode(final PbfFeatureReader.Row row) {
+      return createMeasurement(row);
+    }
+  };
+
+  // Mesh queries ask for protocol buffers unless the service can't provide them
+  private final boolean mPbfMeshQueries;
+
+  // Whether each layer URL answers queries as protocol buffers, read from
+  // its supportedQueryFormats the first time it's queried
+  private final Map<String, Boolean> mPbfSupport = Collections.synchronizedMap(new HashMap<String, Boolean>());
+
+  // Protocol buffer queries block while downloading, so they run here
+  private final ExecutorService mPbfExecutor = Executors.newFixedThreadPool(PBF_QUERY_THREADS);
+
+  // Profiles and chart details prepared before they're asked for, at background
+  // priority so they don't compete with the work the user is waiting on
+  private final ExecutorService mPrefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override public Thread newThread(@NonNull final Runnable runnable) {
+      return new Thread(new Runnable() {
+        @Override public void run() {
+          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+          runnable.run();
+        }
+      }, "prefetch");
+    }
+  });
+
+  // Waits out retry backoff and hedge delays for mesh queries
+  private final ScheduledExecutorService mRequestTimer = Executors.newSingleThreadScheduledExecutor();
+
+  private final RequestExecutor mRequests = new RequestExecutor(mRequestTimer, new Random());
+
+  // Retry and hedging policy for each kind of mesh query.  Taps and profiles
+  // are hedged since the user is waiting on them, transects are large enough
+  // that a duplicate would cost more than it saves.
+  private final RequestExecutor.Operation mColumnQueries =
+      new RequestExecutor.Operation("column", 3, 250, 2000, true, 1500);
+
+  private final RequestExecutor.Operation mComparisonQueries =
+      new RequestExecutor.Operation("comparison", 3, 250, 2000, false, 0);
+
+  private final RequestExecutor.Operation mTransectQueries =
+      new RequestExecutor.Operation("transect", 3, 500, 4000, false, 0);
+
+  private final RequestExecutor.Operation mProfileQueries =
+      new RequestExecutor.Operation("profile", 3, 250, 2000, true, 1500);
+
+  private final RequestExecutor.Operation mPrefetchQueries =
+      new RequestExecutor.Operation("profile prefetch", 2, 1000, 4000, false, 0);
+
+  // Logs each breaker's change of state and adds it to the startup
+  // timeline, so services failing while the app starts show up there
+  private final CircuitBreaker.Listener mBreakerListener = new CircuitBreaker.Listener() {
+    @Override public void onStateChanged(final CircuitBreaker breaker, final CircuitBreaker.Transition transition) {
+      Log.w(TAG, breaker.describe());
+      final StartupTimeline timeline = getStartupTimeline();
+      if (timeline != null){
+        timeline.mark(String.format(Locale.US, "%s %s to %s", breaker.getName(),
+            transition.getFrom().name().toLowerCase(Locale.US), transition.getTo().name().toLowerCase(Locale.US)));
+      }
+    }
+  };
+
+  // One breaker for each service, so requests to one that's down
+  // fail straight away and cached results can be used instead
+  private final CircuitBreaker mMeshClusterBreaker = createBreaker("mesh cluster service");
+
+  private final CircuitBreaker mMeshPointBreaker = createBreaker("mesh point service");
+
+  private final CircuitBreaker mSummaryBreaker = createBreaker("summary table service");
 
-  private final Collection<Integer> mCachedLayers = new HashSet<>();
+  private final CircuitBreaker mDepthBreaker = createBreaker("EMU by depth service");
 
-  private final SparseArray summary_table = new SparseArray<>();
+  private final CircuitBreaker mGeocodeBreaker = createBreaker("geocode service");
 
-  private static Double MAX_NITRATE = null;
-  private static Double MAX_OXYGEN = null;
-  private static Double MAX_PHOSPHATE = null;
-  private static Double MAX_SALINITY = null;
-  private static Double MAX_SILICATE = null;
-  private static Double MAX_TEMPATURE = null;
+  // The latest selected columns and their profiles, fetched as soon as each column is found
+  private final ColumnPrefetcher mColumnPrefetcher = new ColumnPrefetcher(new ColumnPrefetcher.ProfileSource() {
+    @Override public void fetch(final Point location, final BoundedFetcher.Callback<DepthProfile> callback) {
+      final DepthProfile stored = findStationProfile(location);
+      if (stored != null){
+        callback.onResult(stored);
+        return;
+      }
+      fetchProfile(location, new WaterProfile(), mPrefetchExecutor, mPrefetchQueries, callback);
+    }
+  }, PREFETCHED_COLUMNS);
+
+  // Every field read by createEMUObservation, for the bottom sheet
+  private final FieldProjection mColumnSummaryFields;
+
+  // Just the layers of each column, for views that only draw them
+  private final FieldProjection mColumnPreviewFields;
+
+  // Sorts mesh cluster features by column and depth, so a column's
+  // layers are never split between pages out of order
+  private final List<String> mColumnOrder;
+
+  private final static List<String> NO_ORDER = Collections.emptyList();
+
+  private final static FieldProjection PROFILE_FIELDS = new FieldProjection("profile",
+      Arrays.asList("Cluster37", "UnitTop", "temp", "salinity", "dissO2", "silicate", "nitrate", "phosphate"), false);
+
+  private final static FieldProjection STATS_FIELDS = new FieldProjection("summary statistics", statFields(), false);
+
+  // Estimated bytes fetched and saved by each projection
+  private final ProjectionLedger mTransfers = new ProjectionLedger();
+
+  private static final FeatureDecoder<Measurement> MEASUREMENT_DECODER = new FeatureDecoder<Measurement>() {
+    @Override public Measurement decode(final Map<String, Object> attributes) {
+      return createMeasurement(attributes);
+    }
+  };
+
+  // Replaced as a whole once the summary statistics have been read
+  private volatile EmuSummary mSummary = null;
+
+  // Callbacks waiting on the summary statistics query underway
+  private final List<ServiceApi.StatCallback> mPendingStatCallbacks = new ArrayList<>();
 
-  private static Double MIN_NITRATE = null;
-  private static Double MIN_OXYGEN = null;
-  private static Double MIN_PHOSPHATE = null;
-  private static Double MIN_SALINITY = null;
-  private static Double MIN_SILICATE = null;
-  private static Double MIN_TEMPATURE = null;
+  private StartupTimeline mStartupTimeline = null;
+
+  // Runs ServiceApi callbacks on the main thread, straight away
+  // if the caller is already on it
+  private final Executor mCallbackExecutor = new Executor() {
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    @Override public void execute(@NonNull final Runnable command) {
+      if (Looper.myLooper() == Looper.getMainLooper()){
+        command.run();
+      }else{
+        mHandler.post(command);
+      }
+    }
+  };
 
   private final static String TAG = DataManager.class.getSimpleName();
 
+  private final static int GEOCODE_CACHE_SIZE = 32;
 
-  private DataManager(final Context applicationContext){
+  // Half the width, in meters on the ground, of the corridor searched along
+  // a transect.  Slightly more than half the spacing of the point mesh.
+  private final static double TRANSECT_HALF_WIDTH = 15000;
+
+  private final static int TRANSECT_BATCH_SIZE = 25;
+
+  // Features requested per page.  A service whose maximum record count
+  // is lower returns fewer, and says there are more, so paging carries on.
+  private final static int MESH_PAGE_SIZE = 1000;
+  private final static int POLYGON_PAGE_SIZE = 250;
+  private final static int MAX_PAGES = 200;
+
+  // Depth polygons are cached in 30 degree cells
+  private final static WorldGrid DEPTH_GRID = new WorldGrid(30);
+
+  private final static double METERS_PER_DEGREE = 111320;
+
+  // Pinned columns fetched at once, each needing a column and a profile query
+  private final static int COMPARISON_FETCHES = 3;
+
+  private final static int COMPARISON_CACHE_SIZE = 2 * ComparisonSet.MAX_PINNED;
+
+  // Half the width, in degrees, of the area searched around a pinned location
+  private final static double PIN_SEARCH_DEGREES = 0.3;
+
+  // Enough for the queries of a comparison to run at once
+  private final static int PBF_QUERY_THREADS = 4;
+
+  // Recently selected columns whose profiles are kept
+  private final static int PREFETCHED_COLUMNS = 8;
+
+  // Consecutive failures that open a service's breaker, and how long it stays open
+  private final static int BREAKER_FAILURES = 3;
+  private final static long BREAKER_OPEN_MILLIS = 30000;
+
+  // Typical encoded sizes, in bytes, used to estimate transfers
+  private final static int POINT_GEOMETRY_BYTES = 44;
+  private final static int NUMBER_VALUE_BYTES = 20;
+  private final static int INTEGER_VALUE_BYTES = 11;
+  private final static int MAX_TEXT_VALUE_BYTES = 100;
+
+  private final static String STATION_PROFILE_FILE = "station_profiles.bin";
+
+  private final static String STATION_PLACE_TYPE = "station";
+
+  // Water columns within this many degrees of a gazetteer station are stored
+  private final static double STATION_RADIUS = 0.5;
+
+  // Stored profiles are keyed on the exact column location
+  private final static double STATION_MATCH_TOLERANCE = 0.0001;
+
+  /**
+   * A page of decoded features and whether the service has more
+   */
+  private static class Page<T> {
+    private final List<T> mItems;
+    private final boolean mMore;
+
+    Page(final List<T> items, final boolean more){
+      mItems = items;
+      mMore = more;
+    }
+  }
+
+  /**
+   * Converts the attributes of a queried feature into a model object
+   */
+  private interface FeatureDecoder<T> {
+    T decode(Map<String, Object> attributes);
+  }
+
+  /**
+   * Receives the water column found by queryForClosestColumn
+   */
+  private interface ColumnCallback {
+    /**
+     * @param column - WaterColumn or null if none was found or could be fetched
+     * @param stale - boolean, true if the service failed and the column was held from earlier
+     */
+    void onColumnFound(WaterColumn column, boolean stale);
+  }
 
-    mContext = applicationContext;
 
-    final ServiceFeatureTable mClusterPolygonTable = new ServiceFeatureTable(
-        mContext.getString(R.string.service_emu_polygon));
+  private DataManager(final Context applicationContext){
 
-    mMeshClusterTable = new ServiceFeatureTable(mContext.getString(R.string.service_emu_mesh_cluster));
+    mContext = applicationContext;
 
-    mMeshPointTable = new ServiceFeatureTable(mContext.getString(R.string.service_emu_point_mesh));
+    mPbfMeshQueries = mContext.getResources().getBoolean(R.bool.pbf_mesh_queries);
+
+    final String emuNumber = mContext.getString(R.string.emu_number);
+    final String thickness = mContext.getString(R.string.thickness);
+    final String pointX = mContext.getString(R.string.point_x);
+    final String pointY = mContext.getString(R.string.point_y);
+    mColumnPreviewFields = new FieldProjection("column preview",
+        Arrays.asList(emuNumber, "UnitTop", thickness, pointX, pointY), false);
+    mColumnOrder = Arrays.asList(pointX, pointY, "UnitTop");
+    mColumnSummaryFields = new FieldProjection("column summary",
+        Arrays.asList(emuNumber, mContext.getString(R.string.name_emu), mContext.getString(R.string.geo_base),
+            mContext.getString(R.string.geo_features), "UnitTop", thickness, pointX, pointY,
+            "temp", "salinity", "dissO2", "phosphate", "silicate", "nitrate"), false);
+
+    for (int level = 0; level < LevelOfDetail.getLevelCount(); level++){
+      mEmuByDepthLayers.add(createEmuByDepthHolder(level));
+    }
+  }
 
-    mSummaryStats = new ServiceFeatureTable(mContext.getString((R.string.service_emu_summary)));
+  /**
+   * Create the breaker for a service, reporting each change of state
+   * @param name - String naming the service
+   * @return CircuitBreaker
+   */
+  private CircuitBreaker createBreaker(final String name){
+    final CircuitBreaker breaker = new CircuitBreaker(name, BREAKER_FAILURES, BREAKER_OPEN_MILLIS);
+    breaker.setListener(mBreakerListener);
+    return breaker;
+  }
 
-    mEmuByDepthTable = new ServiceFeatureTable(mContext.getString(R.string.service_emu_by_depth));
-    mEmuByDepthTable.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
-    mEmuByDepthLayer = new FeatureLayer(mEmuByDepthTable);
+  /**
+   * Return a holder creating the layer and table for a level of detail
+   * on first use.  Each level of detail draws only within its own scale
+   * range, so the map swaps between them as the user zooms.
+   * @param level - int representing the LevelOfDetail
+   * @return LazyHolder<FeatureLayer>
+   */
+  private LazyHolder<FeatureLayer> createEmuByDepthHolder(final int level){
+    return new LazyHolder<FeatureLayer>() {
+      @Override protected FeatureLayer create() {
+        final ServiceFeatureTable table = new ServiceFeatureTable(mContext.getString(R.string.service_emu_by_depth));
+        table.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
+        final FeatureLayer layer = new FeatureLayer(table);
+        layer.setMinScale(LevelOfDetail.getMinScale(level));
+        layer.setMaxScale(LevelOfDetail.getMaxScale(level));
+        synchronized (mEmuByDepthLayers){
+          if (mEmuByDepthDepth > 0){
+            layer.setDefinitionExpression("Depth = " + mEmuByDepthDepth);
+          }
+          layer.setVisible(mEmuByDepthVisible);
+        }
+        return layer;
+      }
+    };
   }
   /**
    * A singleton that provides access to data services
    * @param applicationContext - Context
    */
-  public static DataManager getDataManagerInstance(final Context applicationContext){
+  public static synchronized DataManager getDataManagerInstance(final Context applicationContext){
     if (DataManager.instance == null){
       DataManager.instance = new DataManager(applicationContext);
     }
@@ -144,15 +508,213 @@ public class DataManager {
   }
 
   /**
-   * Query for water column data at the given geometry
+   * Run a ServiceApi callback through the callback executor
+   * @param callback - Runnable invoking the callback
+   */
+  private void deliver(final Runnable callback){
+    mCallbackExecutor.execute(callback);
+  }
+
+  private void deliverProfile(final DepthProfile profile, final ServiceApi.ColumnProfileCallback callback){
+    deliver(new Runnable() {
+      @Override public void run() {
+        callback.onProfileLoaded(profile);
+      }
+    });
+  }
+
+  /**
+   * Query for water column data at the given geometry.  If the service
+   * fails, or its breaker is open, a column held from an earlier query
+   * within the envelope is used and isCurrentWaterColumnStale returns true.
    * @param envelope - represents a buffered geometry around selected point in map
    * @param callback - SummaryCallback used when query is completed
    */
   public void queryForEmuAtLocation(final Envelope envelope, final ServiceApi.SummaryCallback callback){
-    final QueryParameters queryParameters = new QueryParameters();
-    queryParameters.setGeometry(envelope);
-    final ListenableFuture<FeatureQueryResult> futureResult = mMeshClusterTable.queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
-    processQueryForEmuAtLocation(envelope, futureResult, callback);
+    final int request = mLocationQueries.start();
+    queryForClosestColumn(envelope, mColumnSummaryFields, mColumnQueries, new ColumnCallback() {
+      @Override public void onColumnFound(final WaterColumn column, final boolean stale) {
+        // A slow response for an earlier location mustn't replace a newer one
+        if (mLocationQueries.finish(request)){
+          mCurrentWaterColumn = column;
+          mCurrentWaterColumnStale = stale;
+          // The profile is likely to be opened next
+          if (column != null){
+            mColumnPrefetcher.prefetch(column);
+          }
+        }
+        callback.onWaterColumnsLoaded(column);
+      }
+    });
+  }
+
+  /**
+   * Query for the water column closest to the center of the envelope
+   * @param envelope - Envelope to search
+   * @param projection - FieldProjection naming the fields the caller uses
+   * @param operation - RequestExecutor.Operation the query belongs to
+   * @param callback - ColumnCallback used when query is completed, given null
+   *                 if no column was found or the query failed with none held
+   */
+  private void queryForClosestColumn(final Envelope envelope, final FieldProjection projection,
+      final RequestExecutor.Operation operation, final ColumnCallback callback){
+    final Collection<EMUObservation> emuObservations = new ArrayList<>();
+    new PagedLoader<>(meshPages(mMeshClusterTable.get(), mMeshClusterBreaker, envelope, projection, NO_ORDER,
+        mObservationDecoder, mObservationRows, mPbfExecutor, operation), MESH_PAGE_SIZE, MAX_PAGES,
+        new PagedLoader.Listener<EMUObservation>() {
+          @Override public void onPage(final List<EMUObservation> items, final int pageIndex) {
+            emuObservations.addAll(items);
+          }
+
+          @Override public void onComplete(final int totalCount) {
+            processQueryForEmuAtLocation(envelope, emuObservations, new ServiceApi.SummaryCallback() {
+              @Override public void onWaterColumnsLoaded(final WaterColumn column) {
+                callback.onColumnFound(column, false);
+              }
+            });
+          }
+
+          @Override public void onError(final Exception e, final int loadedCount) {
+            String additionalInfo = getAdditionalInfo(e);
+            if (additionalInfo!=null){
+              Log.e(TAG, "No measurements found for location due to error " +  e.getMessage() + " Additional info: " + additionalInfo);
+            }else{
+              Log.e(TAG, "No measurements found for location due to error " +  e.getMessage());
+            }
+            // Serve a column held from earlier rather than nothing
+            final Envelope bounds = GeometryEngine.project(envelope, SpatialReferences.getWgs84()).getExtent();
+            final WaterColumn held = mColumnPrefetcher.findColumn(bounds.getXMin(), bounds.getYMin(),
+                bounds.getXMax(), bounds.getYMax());
+            if (held != null){
+              Log.i(TAG, "Using a water column held from earlier for the location");
+            }
+            deliver(new Runnable() {
+              @Override public void run() {
+                callback.onColumnFound(held, held != null);
+              }
+            });
+          }
+        }).start();
+  }
+
+  /**
+   * Query for every water column along a line in a single request to the
+   * mesh cluster service.  The columns of each page are handed to the
+   * callback in batches as the page arrives, ordered within the page by
+   * their distance from the start of the line, so a section view can
+   * start drawing before every page has been fetched.  Features are
+   * ordered by location and depth, so a column's layers are together
+   * and only the last column of a page can continue on the next one;
+   * it's held back until then.  The corridor searched is a geodetic
+   * buffer of the line, the same width on the ground at any latitude.
+   * @param line - Polyline drawn in the map
+   * @param callback - TransectCallback used as columns become available
+   */
+  public void queryForEmuAlongTransect(final Polyline line, final ServiceApi.TransectCallback callback){
+    final Polyline geographicLine = (Polyline) GeometryEngine.project(line, SpatialReferences.getWgs84());
+    final ImmutablePart part = geographicLine.getParts().get(0);
+    final double[] x = new double[part.getPointCount()];
+    final double[] y = new double[part.getPointCount()];
+    for (int i = 0; i < x.length; i++){
+      x[i] = part.getPoint(i).getX();
+      y[i] = part.getPoint(i).getY();
+    }
+    final Transect transect = new Transect(x, y);
+
+    // Observations of the column the last page ended in, pages arrive one at a time
+    final List<EMUObservation> partial = new ArrayList<>();
+    final AtomicInteger delivered = new AtomicInteger(0);
+    // A geodetic buffer keeps the corridor the same width on the ground at any latitude
+    final Geometry corridor = GeometryEngine.bufferGeodetic(line, TRANSECT_HALF_WIDTH, new LinearUnit(LinearUnitId.METERS),
+        Double.NaN, GeodeticCurveType.GEODESIC);
+    // The section view only draws the layers of each column
+    new PagedLoader<>(meshPages(mMeshClusterTable.get(), mMeshClusterBreaker, corridor, mColumnPreviewFields, mColumnOrder,
+        mObservationDecoder, mObservationRows, mPbfExecutor, mTransectQueries),
+        MESH_PAGE_SIZE, MAX_PAGES, new PagedLoader.Listener<EMUObservation>() {
+          @Override public void onPage(final List<EMUObservation> items, final int pageIndex) {
+            final List<EMUObservation> observations;
+            synchronized (partial){
+              observations = new ArrayList<>(partial);
+              partial.clear();
+              observations.addAll(items);
+              if (observations.isEmpty()){
+                return;
+              }
+              final Point last = observations.get(observations.size() - 1).getLocation();
+              final long lastKey = ColumnKey.of(last.getX(), last.getY());
+              final Iterator<EMUObservation> iterator = observations.iterator();
+              while (iterator.hasNext()){
+                final EMUObservation observation = iterator.next();
+                final Point location = observation.getLocation();
+                if (ColumnKey.of(location.getX(), location.getY()) == lastKey){
+                  partial.add(observation);
+                  iterator.remove();
+                }
+              }
+            }
+            delivered.addAndGet(deliverTransectColumns(transect, observations, callback));
+          }
+
+          @Override public void onComplete(final int totalCount) {
+            finish(true);
+          }
+
+          @Override public void onError(final Exception e, final int loadedCount) {
+            String additionalInfo = getAdditionalInfo(e);
+            if (additionalInfo!=null){
+              Log.e(TAG, "Transect stopped after " + loadedCount + " observations due to error " +  e.getMessage() + " Additional info: " + additionalInfo);
+            }else{
+              Log.e(TAG, "Transect stopped after " + loadedCount + " observations due to error " +  e.getMessage());
+            }
+            // Columns already delivered stay in the section, the one
+            // held back may be missing layers so it's dropped
+            finish(false);
+          }
+
+          private void finish(final boolean complete){
+            final List<EMUObservation> observations = new ArrayList<>();
+            synchronized (partial){
+              if (complete){
+                observations.addAll(partial);
+              }
+              partial.clear();
+            }
+            final int columnCount = delivered.addAndGet(deliverTransectColumns(transect, observations, callback));
+            deliver(new Runnable() {
+              @Override public void run() {
+                callback.onTransectComplete(columnCount, transect.getLength());
+              }
+            });
+          }
+        }).start();
+  }
+
+  /**
+   * Group the observations into water columns ordered by distance along
+   * the transect and hand them to the callback in batches.
+   * @param transect - Transect drawn by the user
+   * @param emuObservations - Collection<EMUObservation> found along the transect
+   * @param callback - TransectCallback
+   * @return int number of columns delivered
+   */
+  private int deliverTransectColumns(final Transect transect, final Collection<EMUObservation> emuObservations,
+      final ServiceApi.TransectCallback callback){
+    final List<WaterColumn> columns = new ArrayList<>();
+    for (final WaterColumn column : ColumnGrouper.group(emuObservations)){
+      final Point location = column.getLocation();
+      column.setDistanceFrom(transect.distanceAlong(location.getX(), location.getY()));
+      columns.add(column);
+    }
+    Collections.sort(columns);
+    for (int start = 0; start < columns.size(); start += TRANSECT_BATCH_SIZE){
+      final List<WaterColumn> batch = new ArrayList<>(columns.subList(start, Math.min(columns.size(), start + TRANSECT_BATCH_SIZE)));
+      deliver(new Runnable() {
+        @Override public void run() {
+          callback.onColumnsLoaded(batch, transect.getLength());
+        }
+      });
+    }
+    return columns.size();
   }
 
   /**
@@ -161,21 +723,54 @@ public class DataManager {
    * @param callback - The StatCallback called when query is completed
    */
   public void queryEmuSummaryStatistics(final ServiceApi.StatCallback callback){
-    if (summary_table.size() > 0){
-      callback.onStatsLoaded(true);
+    final EmuSummary summary = mSummary;
+    if (summary != null && summary.size() > 0){
+      deliver(new Runnable() {
+        @Override public void run() {
+          callback.onStatsLoaded(true);
+        }
+      });
     }else{
-      mSummaryStats.setFeatureRequestMode(ServiceFeatureTable.FeatureRequestMode.MANUAL_CACHE);
-      mSummaryStats.loadAsync();
-      mSummaryStats.addDoneLoadingListener(new Runnable() {
+      // A query may already be running, e.g. started during start up
+      synchronized (mPendingStatCallbacks){
+        mPendingStatCallbacks.add(callback);
+        if (mPendingStatCallbacks.size() > 1){
+          return;
+        }
+      }
+      final ServiceApi.StatCallback notifyWaiting = new ServiceApi.StatCallback() {
+        @Override public void onStatsLoaded(final boolean successFlag) {
+          final List<ServiceApi.StatCallback> callbacks;
+          synchronized (mPendingStatCallbacks){
+            callbacks = new ArrayList<>(mPendingStatCallbacks);
+            mPendingStatCallbacks.clear();
+          }
+          deliver(new Runnable() {
+            @Override public void run() {
+              for (final ServiceApi.StatCallback waiting : callbacks){
+                waiting.onStatsLoaded(successFlag);
+              }
+            }
+          });
+        }
+      };
+      if (!mSummaryBreaker.allowRequest()){
+        Log.i(TAG, mSummaryBreaker.getName() + " is unavailable, not querying for EMU statistics");
+        notifyWaiting.onStatsLoaded(false);
+        return;
+      }
+      final ServiceFeatureTable summaryStats = mSummaryStats.get();
+      summaryStats.loadAsync();
+      summaryStats.addDoneLoadingListener(new Runnable() {
         @Override public void run() {
+          summaryStats.removeDoneLoadingListener(this);
           final QueryParameters queryParameters = new QueryParameters();
           // Get all the rows in the table
           queryParameters.setWhereClause("1 = 1");
-          final Collection<String> outFields = new ArrayList<String>();
-          // Get all the fields in the table
-          outFields.add("*");
-          final ListenableFuture<FeatureQueryResult> futureResult = mSummaryStats.populateFromServiceAsync(queryParameters,true,outFields);
-          processQueryForEmuStats(futureResult, callback);
+          queryParameters.setReturnGeometry(STATS_FIELDS.returnsGeometry());
+          final ListenableFuture<FeatureQueryResult> futureResult =
+              summaryStats.populateFromServiceAsync(queryParameters, true, STATS_FIELDS.getOutFields());
+          processQueryForEmuStats(futureResult, notifyWaiting);
         }
       });
     }
@@ -183,174 +778,1072 @@ public class DataManager {
 
   /**
    * Query for data for a specific ocean location from the mesh point table.
+   * Profiles already fetched, or being fetched, for a recently selected
+   * column are used instead of starting another query.
    * @param point - a point representing the location of a specific water column
    * @param callback - The ColumnProfileCallback called when query is completed.
    */
   public void queryForEmuColumnProfile(final Point point, final ServiceApi.ColumnProfileCallback callback){
-    final QueryParameters queryParameters = new QueryParameters();
-    queryParameters.setGeometry(point);
-    final ListenableFuture<FeatureQueryResult> futureResult = mMeshPointTable.queryFeaturesAsync(queryParameters, ServiceFeatureTable.QueryFeatureFields.LOAD_ALL);
+    // Regular stations are read from the local store without a request
+    final DepthProfile stored = findStationProfile(point);
+    if (stored != null){
+      Log.i(TAG, "Profile read from station store");
+      deliverProfile(stored, callback);
+      return;
+    }
+
+    final boolean prefetched = mColumnPrefetcher.getProfile(point, new BoundedFetcher.Callback<DepthProfile>() {
+      @Override public void onResult(@Nullable final DepthProfile profile) {
+        if (profile != null){
+          deliverProfile(profile, callback);
+        }else{
+          // The fetch started ahead of time failed, so try once more
+          fetchProfileForCallback(point, callback);
+        }
+      }
+    });
+    if (!prefetched){
+      fetchProfileForCallback(point, callback);
+    }
+  }
+
+  /**
+   * Read the profile at a location from the mesh point table now
+   * @param point - Point of the water column
+   * @param callback - ColumnProfileCallback given whatever was read
+   */
+  private void fetchProfileForCallback(final Point point, final ServiceApi.ColumnProfileCallback callback){
     final WaterProfile profile = new WaterProfile();
-    processQueryForEmuColumnProfile(futureResult, callback, profile);
+    fetchProfile(point, profile, mPbfExecutor, mProfileQueries, new BoundedFetcher.Callback<DepthProfile>() {
+      @Override public void onResult(@Nullable final DepthProfile depthProfile) {
+        // Whatever was read before a failure is still shown
+        deliverProfile(profile, callback);
+      }
+    });
   }
 
   /**
-   * Query for a location by name
+   * Return the stored profile for a regular station at the location
+   * @param point - Point
+   * @return DepthProfile or null if the location isn't a stored station
+   */
+  @Nullable private DepthProfile findStationProfile(final Point point){
+    final StationProfileStore stations = getStationProfiles();
+    return stations != null ? stations.find(point.getX(), point.getY(), STATION_MATCH_TOLERANCE) : null;
+  }
+
+  /**
+   * Read the profile at a location from the mesh point table
+   * @param point - Point of the water column
+   * @param profile - WaterProfile the measurements are added to as they're read
+   * @param executor - Executor running protocol buffer queries
+   * @param operation - RequestExecutor.Operation the queries belong to
+   * @param callback - Callback given the profile, or null if the query failed
+   */
+  private void fetchProfile(final Point point, final WaterProfile profile, final Executor executor,
+      final RequestExecutor.Operation operation, final BoundedFetcher.Callback<DepthProfile> callback){
+    new PagedLoader<>(meshPages(mMeshPointTable.get(), mMeshPointBreaker, point, PROFILE_FIELDS, NO_ORDER, MEASUREMENT_DECODER,
+        MEASUREMENT_ROWS, executor, operation),
+        MESH_PAGE_SIZE, MAX_PAGES,
+        new PagedLoader.Listener<Measurement>() {
+          @Override public void onPage(final List<Measurement> items, final int pageIndex) {
+            for (final Measurement measurement : items){
+              profile.addMeasurement(measurement);
+            }
+          }
+
+          @Override public void onComplete(final int totalCount) {
+            callback.onResult(profile);
+            saveIfStation(point, profile);
+          }
+
+          @Override public void onError(final Exception e, final int loadedCount) {
+            String additionalInfo = getAdditionalInfo(e);
+            if (additionalInfo!=null){
+              Log.e(TAG, "No measurements found for water column profile due to error " +  e.getMessage() + " Additional info: " + additionalInfo);
+            }else{
+              Log.e(TAG, "No measurements found for water column profile due to error " +  e.getMessage());
+            }
+            callback.onResult(null);
+          }
+        }).start();
+  }
+
+  /**
+   * Return a page source that populates the table with features intersecting
+   * the geometry, one page at a time, decoding each page as it arrives so
+   * the features themselves can be released.  Only the fields in the
+   * projection are requested.  Pages are read as protocol buffers when
+   * the service supports them.
+   * @param table - ServiceFeatureTable to query, in manual cache mode
+   * @param breaker - CircuitBreaker guarding the table's service
+   * @param geometry - Geometry to search
+   * @param projection - FieldProjection naming the fields the decoder needs
+   * @param orderByFields - List<String> of fields the features are sorted on, may be empty
+   * @param decoder - FeatureDecoder converting each feature
+   * @param rowDecoder - RowDecoder converting each feature read as protocol buffers
+   * @param executor - Executor running protocol buffer queries
+   * @param operation - RequestExecutor.Operation deciding how each page is retried and hedged
+   * @return PagedLoader.PageSource
+   */
+  private <T> PagedLoader.PageSource<T> meshPages(final ServiceFeatureTable table, final CircuitBreaker breaker,
+      final Geometry geometry, final FieldProjection projection, final List<String> orderByFields, final FeatureDecoder<T> decoder,
+      final PbfFeatureReader.RowDecoder<T> rowDecoder, final Executor executor, final RequestExecutor.Operation operation){
+    return new PagedLoader.PageSource<T>() {
+      @Override public void fetch(final int offset, final int count, final PagedLoader.PageCallback<T> pageCallback) {
+        if (!breaker.allowRequest()){
+          pageCallback.onError(new CircuitBreaker.OpenException(breaker.getName() + " is unavailable"));
+          return;
+        }
+        mRequests.execute(operation, new RequestExecutor.Request<Page<T>>() {
+          @Override public RequestExecutor.Cancellable start(final RequestExecutor.Callback<Page<T>> callback) {
+            final PagedLoader.PageCallback<T> copyCallback = new PagedLoader.PageCallback<T>() {
+              @Override public void onPage(final List<T> items, final boolean more) {
+                callback.onResult(new Page<>(items, more));
+              }
+
+              @Override public void onError(final Exception e) {
+                callback.onError(e);
+              }
+            };
+            if (mPbfMeshQueries && !Boolean.FALSE.equals(mPbfSupport.get(table.getUri()))){
+              return fetchPbfMeshPage(table, geometry, projection, orderByFields, decoder, rowDecoder, executor,
+                  offset, count, copyCallback);
+            }
+            return fetchMeshPage(table, geometry, projection, orderByFields, decoder, offset, count, copyCallback);
+          }
+        }, new RequestExecutor.Callback<Page<T>>() {
+          @Override public void onResult(final Page<T> page) {
+            breaker.recordSuccess();
+            pageCallback.onPage(page.mItems, page.mMore);
+          }
+
+          @Override public void onError(final Exception e) {
+            Log.e(TAG, "Mesh query failed, giving up. " + operation.describe());
+            breaker.recordFailure();
+            pageCallback.onError(e);
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Fetch a page of features through the runtime, which parses the JSON
+   * response into Features.  Each page clears the table's cache, so it
+   * holds only the last page fetched and never mixes the features of
+   * queries with different projections; a page's features are decoded
+   * from its own query result.
+   * @param table - ServiceFeatureTable to query, in manual cache mode
+   * @param geometry - Geometry to search
+   * @param projection - FieldProjection naming the fields the decoder needs
+   * @param orderByFields - List<String> of fields the features are sorted on, may be empty
+   * @param decoder - FeatureDecoder converting each feature
+   * @param offset - int index of the first feature
+   * @param count - int maximum number of features
+   * @param pageCallback - PageCallback given the decoded page
+   * @return RequestExecutor.Cancellable cancelling the query
+   */
+  private <T> RequestExecutor.Cancellable fetchMeshPage(final ServiceFeatureTable table, final Geometry geometry,
+      final FieldProjection projection, final List<String> orderByFields, final FeatureDecoder<T> decoder,
+      final int offset, final int count, final PagedLoader.PageCallback<T> pageCallback){
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    final AtomicReference<ListenableFuture<FeatureQueryResult>> query = new AtomicReference<>();
+    // The table's schema is needed to estimate what the projection saves
+    table.loadAsync();
+    table.addDoneLoadingListener(new Runnable() {
+      @Override public void run() {
+        table.removeDoneLoadingListener(this);
+        if (cancelled.get()){
+          return;
+        }
+        final QueryParameters queryParameters = new QueryParameters();
+        queryParameters.setGeometry(geometry);
+        queryParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+        // Locations are read from the x and y fields
+        queryParameters.setReturnGeometry(projection.returnsGeometry());
+        queryParameters.setResultOffset(offset);
+        queryParameters.setMaxFeatures(count);
+        for (final String field : orderByFields){
+          queryParameters.getOrderByFields().add(new QueryParameters.OrderBy(field, QueryParameters.SortOrder.ASCENDING));
+        }
+        try{
+          final ListenableFuture<FeatureQueryResult> futureResult =
+              table.populateFromServiceAsync(queryParameters, true, projection.getOutFields());
+          query.set(futureResult);
+          if (cancelled.get()){
+            futureResult.cancel(true);
+          }
+          futureResult.addDoneListener(new Runnable() {
+            @Override public void run() {
+              final List<T> items = new ArrayList<>();
+              boolean more = false;
+              try {
+                final FeatureQueryResult fqr = futureResult.get();
+                if (fqr != null){
+                  final Iterator<Feature> iterator = fqr.iterator();
+                  while (iterator.hasNext()){
+                    items.add(decoder.decode(iterator.next().getAttributes()));
+                  }
+                  more = hasMore(fqr, items.size(), count);
+                }
+              } catch (final Exception e) {
+                pageCallback.onError(e);
+                return;
+              }
+              recordTransfer(table, projection, items.size(), POINT_GEOMETRY_BYTES);
+              pageCallback.onPage(items, more);
+            }
+          });
+        } catch (final Exception e) {
+          pageCallback.onError(e);
+        }
+      }
+    });
+    return new RequestExecutor.Cancellable() {
+      @Override public void cancel() {
+        cancelled.set(true);
+        final ListenableFuture<FeatureQueryResult> futureResult = query.get();
+        if (futureResult != null){
+          futureResult.cancel(true);
+        }
+      }
+    };
+  }
+
+  /**
+   * Fetch a page of features as protocol buffers, decoding them as they
+   * download without creating Features or attribute maps.  The layer's
+   * description is read first, once, to see whether it supports them.
+   * A layer that doesn't, by its description or by answering that the
+   * format is invalid, is queried through the runtime instead and isn't
+   * asked again.  Any other failure, including one while decoding, is
+   * reported to the callback for the RequestExecutor to retry.
+   * @param table - ServiceFeatureTable to query
+   * @param geometry - Geometry to search
+   * @param projection - FieldProjection naming the fields the decoders need
+   * @param orderByFields - List<String> of fields the features are sorted on, may be empty
+   * @param decoder - FeatureDecoder used if the page is fetched through the runtime
+   * @param rowDecoder - RowDecoder converting each feature
+   * @param executor - Executor the blocking query runs on
+   * @param offset - int index of the first feature
+   * @param count - int maximum number of features
+   * @param pageCallback - PageCallback given the decoded page
+   * @return RequestExecutor.Cancellable cancelling the query
+   */
+  private <T> RequestExecutor.Cancellable fetchPbfMeshPage(final ServiceFeatureTable table, final Geometry geometry,
+      final FieldProjection projection, final List<String> orderByFields, final FeatureDecoder<T> decoder,
+      final PbfFeatureReader.RowDecoder<T> rowDecoder, final Executor executor, final int offset, final int count,
+      final PagedLoader.PageCallback<T> pageCallback){
+    final String url = table.getUri();
+    final String geometryJson = geometry.toJson();
+    final String geometryType = esriGeometryType(geometry);
+    final PbfQuery query = new PbfQuery(url);
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    // The runtime query made if the layer doesn't support protocol buffers
+    final AtomicReference<RequestExecutor.Cancellable> fallback = new AtomicReference<>();
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        if (cancelled.get()){
+          return;
+        }
+        final List<T> items = new ArrayList<>();
+        final PbfQuery.Result result;
+        try {
+          Boolean supported = mPbfSupport.get(url);
+          if (supported == null){
+            supported = query.supportsPbf();
+            mPbfSupport.put(url, supported);
+          }
+          if (!supported){
+            Log.i(TAG, "Protocol buffers not listed by " + url + ", using JSON");
+            fallback.set(fetchMeshPage(table, geometry, projection, orderByFields, decoder, offset, count, pageCallback));
+            return;
+          }
+          result = query.fetch(geometryJson, geometryType, projection.getOutFields(), orderByFields, offset, count,
+              rowDecoder, items);
+          Log.i(TAG, projection.getName() + ": " + items.size() + " features read as protocol buffers in "
+              + result.getByteCount() + " bytes");
+        } catch (final PbfQuery.UnsupportedFormatException e) {
+          Log.i(TAG, "Protocol buffers not available from " + url + ", using JSON. " + e.getMessage());
+          mPbfSupport.put(url, false);
+          fallback.set(fetchMeshPage(table, geometry, projection, orderByFields, decoder, offset, count, pageCallback));
+          return;
+        } catch (final IOException e) {
+          if (!cancelled.get()){
+            // The RequestExecutor retries, with protocol buffers again
+            Log.e(TAG, "Protocol buffer query failed " + e.getMessage());
+            pageCallback.onError(e);
+          }
+          return;
+        } catch (final RuntimeException e) {
+          // A response or row the decoders couldn't handle still
+          // has to end the attempt, or the page waits forever
+          Log.e(TAG, "Protocol buffer page couldn't be decoded " + e.getMessage());
+          pageCallback.onError(e);
+          return;
+        }
+        pageCallback.onPage(items, result.exceededTransferLimit());
+      }
+    });
+    return new RequestExecutor.Cancellable() {
+      @Override public void cancel() {
+        cancelled.set(true);
+        query.cancel();
+        final RequestExecutor.Cancellable runtimeQuery = fallback.get();
+        if (runtimeQuery != null){
+          runtimeQuery.cancel();
+        }
+      }
+    };
+  }
+
+  /**
+   * Return true if a query may have more features after the ones it returned
+   * @param result - FeatureQueryResult of the query
+   * @param returned - int number of features returned
+   * @param requested - int number of features asked for
+   * @return boolean
+   */
+  private static boolean hasMore(final FeatureQueryResult result, final int returned, final int requested){
+    // A full page is followed up in case the service doesn't set the flag
+    return result.isTransferLimitExceeded() || returned >= requested;
+  }
+
+  /**
+   * Return the REST API name of a geometry's type
+   * @param geometry - Geometry
+   * @return String
+   */
+  private static String esriGeometryType(final Geometry geometry){
+    switch (geometry.getGeometryType()){
+      case POINT:
+        return "esriGeometryPoint";
+      case ENVELOPE:
+        return "esriGeometryEnvelope";
+      case POLYLINE:
+        return "esriGeometryPolyline";
+      case MULTIPOINT:
+        return "esriGeometryMultipoint";
+      default:
+        return "esriGeometryPolygon";
+    }
+  }
+
+  /**
+   * Add features fetched with a projection to the transfer totals and
+   * log the estimated bytes saved for that kind of query
+   * @param table - ServiceFeatureTable, loaded, the features came from
+   * @param projection - FieldProjection used to fetch them
+   * @param featureCount - int
+   * @param geometryBytes - int, typical encoded size of the table's geometry
+   */
+  private void recordTransfer(final ServiceFeatureTable table, final FieldProjection projection, final int featureCount,
+      final int geometryBytes){
+    if (featureCount == 0){
+      return;
+    }
+    final Map<String, Integer> widths = new HashMap<>();
+    for (final Field field : table.getFields()){
+      widths.put(field.getName(), estimateValueBytes(field));
+    }
+    mTransfers.record(projection.getName(), featureCount, projection.estimateFeatureBytes(widths, geometryBytes),
+        FieldProjection.estimateAllFieldsBytes(widths, geometryBytes));
+    Log.i(TAG, mTransfers.describe(projection.getName()));
+  }
+
+  /**
+   * Estimate the typical encoded size of a field's values
+   * @param field - Field from the table's schema
+   * @return int representing bytes
+   */
+  private static int estimateValueBytes(final Field field){
+    switch (field.getFieldType()){
+      case TEXT:
+        // Quoted, and usually much shorter than the declared length
+        return Math.min(field.getLength(), MAX_TEXT_VALUE_BYTES) + 2;
+      case SHORT:
+      case INTEGER:
+      case OID:
+        return INTEGER_VALUE_BYTES;
+      default:
+        return NUMBER_VALUE_BYTES;
+    }
+  }
+
+  /**
+   * Return the summary statistics fields read by createEMUStat
+   * @return List<String>
+   */
+  private static List<String> statFields(){
+    final List<String> fields = new ArrayList<>();
+    fields.add("Cluster37");
+    for (final String property : Arrays.asList("temp", "salinity", "dissO2", "phosphate", "silicate", "nitrate")){
+      fields.add("MIN_" + property);
+      fields.add("MAX_" + property);
+      fields.add("MEAN_" + property);
+    }
+    return fields;
+  }
+
+  /**
+   * Return the locations pinned for comparison
+   * @return ComparisonSet
+   */
+  public ComparisonSet getComparisonSet(){
+    return mComparisonSet;
+  }
+
+  /**
+   * Make sure every pinned location has its water column and profile,
+   * fetching missing ones in parallel.  Columns already known are
+   * reported first.
+   * @param callback - ComparisonCallback notified as each column is ready
+   */
+  public void queryForComparison(final ServiceApi.ComparisonCallback callback){
+    mComparisonSet.load(new ComparisonSet.Listener() {
+      @Override public void onColumnLoaded(final int index, final PinnedColumn column) {
+        deliver(new Runnable() {
+          @Override public void run() {
+            callback.onColumnLoaded(index, column);
+          }
+        });
+      }
+
+      @Override public void onComparisonLoaded(final List<PinnedColumn> columns) {
+        deliver(new Runnable() {
+          @Override public void run() {
+            callback.onComparisonComplete(columns);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Fetch whatever is missing for a pinned location, querying for
+   * the water column and the profile at the same time.
+   * @param location - Point in WGS84 that was pinned
+   * @param known - PinnedColumn holding what's already known
+   * @param callback - receives the completed PinnedColumn, or null if nothing could be fetched
+   */
+  private void fetchPinnedColumn(final Point location, final PinnedColumn known, final BoundedFetcher.Callback<PinnedColumn> callback){
+    // A column selected in the map recently is already held with its profile
+    final AtomicReference<WaterColumn> column = new AtomicReference<>(known.getWaterColumn() != null ? known.getWaterColumn()
+        : mColumnPrefetcher.getColumn(location));
+    final AtomicReference<DepthProfile> profile = new AtomicReference<>(known.getProfile());
+    final AtomicInteger outstanding = new AtomicInteger((column.get() == null ? 1 : 0) + (profile.get() == null ? 1 : 0));
+    final Runnable finish = new Runnable() {
+      @Override public void run() {
+        if (outstanding.decrementAndGet() == 0){
+          final boolean found = column.get() != null || profile.get() != null;
+          callback.onResult(found ? new PinnedColumn(location, column.get(), profile.get()) : null);
+        }
+      }
+    };
+    if (outstanding.get() == 0){
+      callback.onResult(known);
+      return;
+    }
+    if (column.get() == null){
+      final Envelope envelope = new Envelope(location.getX() - PIN_SEARCH_DEGREES, location.getY() - PIN_SEARCH_DEGREES,
+          location.getX() + PIN_SEARCH_DEGREES, location.getY() + PIN_SEARCH_DEGREES, SpatialReferences.getWgs84());
+      // The comparison only draws the layers of each column
+      queryForClosestColumn(envelope, mColumnPreviewFields, mComparisonQueries, new ColumnCallback() {
+        @Override public void onColumnFound(final WaterColumn waterColumn, final boolean stale) {
+          column.set(waterColumn);
+          finish.run();
+        }
+      });
+    }
+    if (profile.get() == null){
+      queryForEmuColumnProfile(location, new ServiceApi.ColumnProfileCallback() {
+        @Override public void onProfileLoaded(final DepthProfile depthProfile) {
+          // An empty profile usually means the query failed, so try again next time
+          if (depthProfile != null && depthProfile.measurementCount() > 0){
+            profile.set(depthProfile);
+          }
+          finish.run();
+        }
+      });
+    }
+  }
+
+  /**
+   * Query for a location by name.  Results are cached by normalized
+   * query text and identical searches already underway share one request.
    * @param location - a location name or address
    * @param sr - the desired spatial reference for the geocoded result
    * @param callback - The GeocodingCallback to be called upon completion of the geocoding task
    */
   public void queryForAddress(@NonNull final String location, @NonNull final SpatialReference sr, final ServiceApi.GeocodingCallback callback){
+    final GeocodeCache<GeocodeResult> cache;
+    synchronized (mGeocodeLock){
+      // Cached results are only valid for the spatial reference they were projected to
+      if (mGeocodeCache == null || !mGeocodeSpatialReference.equals(sr)){
+        mGeocodeCache = new GeocodeCache<>(new GeocodeCache.Locator<GeocodeResult>() {
+          @Override public void geocode(final String query, final GeocodeCache.Callback<GeocodeResult> callback) {
+            geocodeWithLocatorTask(query, sr, callback);
+          }
+        }, GEOCODE_CACHE_SIZE);
+        mGeocodeSpatialReference = sr;
+      }
+      cache = mGeocodeCache;
+    }
+    cache.find(location, new GeocodeCache.Callback<GeocodeResult>() {
+      @Override public void onResults(final List<GeocodeResult> results) {
+        if (results != null){
+          Log.i(TAG,  results.size() + " geocoding results returned.");
+        }
+        deliver(new Runnable() {
+          @Override public void run() {
+            callback.onGeocodeResult(results);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Return the bundled gazetteer of marine place names and research
+   * stations.  It's never read on the calling thread: the first call
+   * starts reading it in the background and returns null, as does
+   * every call until the read has finished.
+   * @return Gazetteer or null if it hasn't been read or couldn't be
+   */
+  @Nullable public Gazetteer getGazetteer(){
+    final Gazetteer gazetteer = mGazetteer;
+    if (gazetteer == null){
+      loadGazetteer(null);
+    }
+    return gazetteer;
+  }
+
+  /**
+   * Read the bundled gazetteer on the prefetch executor, if it
+   * hasn't been read already, ahead of the first search.
+   * @param callback - Runnable called on the prefetch executor once
+   *                 reading has finished, successfully or not, or null
+   */
+  public void loadGazetteer(@Nullable final Runnable callback){
+    final boolean read;
+    synchronized (this){
+      read = !mGazetteerRequested;
+      mGazetteerRequested = true;
+    }
+    if (!read && callback == null){
+      return;
+    }
+    // Queued behind the read, if it's still to finish
+    mPrefetchExecutor.execute(new Runnable() {
+      @Override public void run() {
+        if (read){
+          try {
+            final InputStream inputStream = mContext.getResources().openRawResource(R.raw.marine_gazetteer);
+            mGazetteer = Gazetteer.read(new InputStreamReader(inputStream, "UTF-8"));
+            Log.i(TAG, mGazetteer.size() + " places read from gazetteer");
+          } catch (final IOException e) {
+            Log.e(TAG, "Unable to read gazetteer " + e.getMessage());
+          }
+        }
+        if (callback != null){
+          callback.run();
+        }
+      }
+    });
+  }
+
+  /**
+   * Return the store of profiles for regular stations, mapping
+   * the file on first use.
+   * @return StationProfileStore or null if no profiles have been stored
+   */
+  @Nullable private synchronized StationProfileStore getStationProfiles(){
+    if (mStationProfiles == null){
+      final File file = new File(mContext.getFilesDir(), STATION_PROFILE_FILE);
+      if (file.exists()){
+        try {
+          mStationProfiles = StationProfileStore.open(file);
+          Log.i(TAG, mStationProfiles.size() + " station profiles mapped");
+        } catch (final IOException e) {
+          Log.e(TAG, "Discarding unreadable station profile store " + e.getMessage());
+          file.delete();
+        }
+      }
+    }
+    return mStationProfiles;
+  }
+
+  /**
+   * If the water column is one of the research stations in the
+   * gazetteer, once it has been read, add its profile to the station store so the next
+   * visit doesn't need the service.  The store is rewritten on the
+   * prefetch executor and swapped in when complete, once for all the
+   * stations saved while an earlier rewrite was queued.
+   * @param point - Point location of the water column
+   * @param profile - WaterProfile downloaded for the location
+   */
+  private void saveIfStation(final Point point, final WaterProfile profile){
+    final Gazetteer gazetteer = getGazetteer();
+    if (profile.measurementCount() == 0 || gazetteer == null){
+      return;
+    }
+    boolean nearStation = false;
+    for (final Gazetteer.Place place : gazetteer.getPlacesOfType(STATION_PLACE_TYPE)){
+      if (Math.abs(place.getLongitude() - point.getX()) <= STATION_RADIUS &&
+          Math.abs(place.getLatitude() - point.getY()) <= STATION_RADIUS){
+        nearStation = true;
+        break;
+      }
+    }
+    if (!nearStation){
+      return;
+    }
+    synchronized (mPendingStations){
+      mPendingStations.add(new StationProfileStore.StationEntry(point.getX(), point.getY(), profile));
+      if (mPendingStations.size() > 1){
+        // Written by the rewrite already queued
+        return;
+      }
+    }
+    mPrefetchExecutor.execute(new Runnable() {
+      @Override public void run() {
+        final List<StationProfileStore.StationEntry> pending;
+        synchronized (mPendingStations){
+          pending = new ArrayList<>(mPendingStations);
+          mPendingStations.clear();
+        }
+        final StationProfileStore existing = getStationProfiles();
+        final List<StationProfileStore.StationEntry> added = new ArrayList<>();
+        for (final StationProfileStore.StationEntry station : pending){
+          if ((existing == null || existing.find(station.getLongitude(), station.getLatitude(),
+              STATION_MATCH_TOLERANCE) == null) && !contains(added, station)){
+            added.add(station);
+          }
+        }
+        if (added.isEmpty()){
+          return;
+        }
+        final List<StationProfileStore.StationEntry> entries = new ArrayList<>();
+        if (existing != null){
+          entries.addAll(existing.readAll());
+        }
+        entries.addAll(added);
+        final File file = new File(mContext.getFilesDir(), STATION_PROFILE_FILE);
+        try {
+          StationProfileStore.write(file, entries);
+          final StationProfileStore updated = StationProfileStore.open(file);
+          synchronized (DataManager.this){
+            mStationProfiles = updated;
+          }
+          Log.i(TAG, "Saved " + added.size() + " station profiles, " + updated.size() + " stations stored");
+        } catch (final IOException e) {
+          Log.e(TAG, "Unable to save station profile " + e.getMessage());
+        }
+      }
+    });
+  }
+
+  private static boolean contains(final List<StationProfileStore.StationEntry> entries,
+      final StationProfileStore.StationEntry station){
+    for (final StationProfileStore.StationEntry entry : entries){
+      if (Math.abs(entry.getLongitude() - station.getLongitude()) <= STATION_MATCH_TOLERANCE &&
+          Math.abs(entry.getLatitude() - station.getLatitude()) <= STATION_MATCH_TOLERANCE){
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Geocode the location with the LocatorTask once it has loaded
+   * @param location - a location name or address
+   * @param sr - SpatialReference the results are projected to
+   * @param callback - GeocodeCache.Callback notified with the results or null on failure
+   */
+  private void geocodeWithLocatorTask(final String location, final SpatialReference sr,
+      final GeocodeCache.Callback<GeocodeResult> callback){
     // Create Locator parameters from single line address string
     final GeocodeParameters geoParameters = new GeocodeParameters();
     geoParameters.setOutputSpatialReference(sr);
     geoParameters.setMaxResults(2);
-    if (mLocatorTask == null){
-      mLocatorTask = new LocatorTask(mContext.getString(R.string.geocode_url));
+    // Searches made before are answered by the cache while the service is down
+    if (!mGeocodeBreaker.allowRequest()){
+      Log.i(TAG, mGeocodeBreaker.getName() + " is unavailable");
+      callback.onResults(null);
+      return;
     }
-    mLocatorTask.addDoneLoadingListener(new Runnable() {
+    whenLocatorLoaded(new Runnable() {
       @Override public void run() {
-
         if (mLocatorTask.getLoadStatus() == LoadStatus.LOADED){
           final ListenableFuture<List<GeocodeResult>> futureResults = mLocatorTask.geocodeAsync(location, geoParameters);
           futureResults.addDoneListener(new Runnable() {
             @Override public void run() {
+              final List<GeocodeResult> results;
               try{
-                final List<GeocodeResult> geocodeResults = futureResults.get();
-                Log.i(TAG,  geocodeResults.size() + " geocoding results returned.");
-                callback.onGeocodeResult(geocodeResults);
+                results = futureResults.get();
               }catch ( final Exception e){
-                callback.onGeocodeResult(null  );
+                mGeocodeBreaker.recordFailure();
+                callback.onResults(null);
+                return;
               }
+              mGeocodeBreaker.recordSuccess();
+              callback.onResults(results);
             }
           });
         }else{
-          callback.onGeocodeResult(null);
           Log.i(TAG, "Locator Task failed to load: " + mLocatorTask.getLoadStatus().name());
+          mGeocodeBreaker.recordFailure();
+          callback.onResults(null);
+        }
+      }
+    });
+  }
+
+  /**
+   * Run the task once the LocatorTask has finished loading.  The LocatorTask
+   * is created and loaded on first use, and a single done loading listener
+   * is registered per load attempt no matter how many searches are waiting.
+   * A locator that failed to load is retried on the next search.
+   * @param task - Runnable to run after loading completes, successfully or not
+   */
+  private void whenLocatorLoaded(final Runnable task){
+    boolean runNow = false;
+    boolean startLoading = false;
+    synchronized (mPendingLocatorTasks){
+      if (mLocatorTask == null){
+        mLocatorTask = new LocatorTask(mContext.getString(R.string.geocode_url));
+      }
+      if (mLocatorTask.getLoadStatus() == LoadStatus.LOADED){
+        runNow = true;
+      }else{
+        mPendingLocatorTasks.add(task);
+        if (!mLocatorLoading){
+          mLocatorLoading = true;
+          startLoading = true;
         }
       }
-    });
+    }
+    if (runNow){
+      task.run();
+    }else if (startLoading){
+      mLocatorTask.removeDoneLoadingListener(mLocatorLoadedListener);
+      mLocatorTask.addDoneLoadingListener(mLocatorLoadedListener);
+      if (mLocatorTask.getLoadStatus() == LoadStatus.FAILED_TO_LOAD){
+        mLocatorTask.retryLoadAsync();
+      }else{
+        mLocatorTask.loadAsync();
+      }
+    }
+  }
+
+  /**
+   * Create and load the LocatorTask ahead of the first search
+   * @param callback - Runnable called once loading has finished, successfully or not
+   */
+  public void loadLocator(@NonNull final Runnable callback){
+    whenLocatorLoaded(callback);
+  }
+
+  /**
+   * Keep the timeline recorded while the app started so later
+   * milestones, like the map being ready, can be added to it
+   * @param timeline - StartupTimeline
+   */
+  public synchronized void setStartupTimeline(@Nullable final StartupTimeline timeline){
+    mStartupTimeline = timeline;
+  }
 
-    mLocatorTask.loadAsync();
+  /**
+   * Return the timeline recorded while the app started
+   * @return StartupTimeline or null if the app didn't start through the splash screen
+   */
+  @Nullable public synchronized StartupTimeline getStartupTimeline(){
+    return mStartupTimeline;
+  }
 
+  /**
+   * Describe the state and history of the breaker guarding each service
+   * @return List<String>, one description for each service
+   */
+  @NonNull public List<String> getBreakerSummaries(){
+    return Arrays.asList(mMeshClusterBreaker.describe(), mMeshPointBreaker.describe(), mSummaryBreaker.describe(),
+        mDepthBreaker.describe(), mGeocodeBreaker.describe());
   }
 
   /**
-   * Retrieve polygons from cache or download from service
+   * Show the polygons for a depth within the visible extent, downloading
+   * only the grid cells that haven't been retrieved for that depth and
+   * the level of detail used at the map scale.
    * @param depth Integer representing a particular depth index
+   * @param extent Envelope of the visible map area, or null for the whole world
+   * @param scale double representing the current map scale
    * @param callback ServiceApi.EMUByDepthCallback
    */
-  public void manageEmuPolygonsByDepth(final Integer depth, final ServiceApi.EMUByDepthCallback callback){
-    mEmuByDepthLayer.setVisible(false);
+  public void manageEmuPolygonsByDepth(final Integer depth, @Nullable final Envelope extent, final double scale, final ServiceApi.EMUByDepthCallback callback){
     // If depth level is 1, don't download, just default to TiledLayer
     if (depth == 1) {
+      setEmuByDepthLayersVisible(false);
       return;
     }
-
-    if (mCachedLayers.contains(depth)){
-      mEmuByDepthLayer.setVisible(true);
-      Log.i(TAG, "EMU polygons downloaded already for depth " + depth);
-      mEmuByDepthLayer.setDefinitionExpression(" Depth = " + depth);
-    }else{
-      Log.i(TAG, "Downloading EMU polygons for for depth " + depth);
-      queryEmuByDepth(depth, callback);
-    }
+    // Cells already downloaded draw straight away, the rest
+    // appear as their pages arrive.
+    setEmuByDepthExpression(depth);
+    setEmuByDepthLayersVisible(true);
+    queryEmuByDepth(depth, extent, LevelOfDetail.forScale(scale), callback);
   }
+
   /**
-   * Query for EMU polygons by depth level
+   * Query for EMU polygons by depth level for the whole world
+   * at the coarsest level of detail
    * @param depth - Integer representing a depth interval
    * @param callback - ServiceApi.EMUByDepthCallback - function called on completion of async retrieval
    */
   public void queryEmuByDepth (final Integer depth, final ServiceApi.EMUByDepthCallback callback){
-    final QueryParameters queryParameters = generateEmuByDepthQueryParameters(depth);
-    try{
-      mEmuByDepthLayer.setDefinitionExpression(null);
-      // Return all the output fields
-      final List<String> outFields = Collections.singletonList("*");
+    setEmuByDepthExpression(depth);
+    queryEmuByDepth(depth, null, 0, callback);
+  }
 
-      final ListenableFuture<FeatureQueryResult> results =
-          mEmuByDepthTable.populateFromServiceAsync(queryParameters,false, outFields);
-      results.addDoneListener(new Runnable() {
-        @Override public void run() {
-          try {
-            final FeatureQueryResult fqr = results.get();
-            if (fqr.iterator().hasNext()){
-              Log.i(TAG, "FeatureQueryResult found...");
-              // Cache the depth level so we don't download
-              // the same data again
-              mCachedLayers.add(depth);
-
-              // Set the definition expression to show only the depth of interest
-              Log.i(TAG, "Setting definition expression for depth " + depth);
-              mEmuByDepthLayer.setDefinitionExpression("Depth = " + depth);
-
-              // Notify caller
-              callback.onPolygonsRetrieved(mEmuByDepthLayer);
-            }else{
-              Log.i(TAG, "No data for layer " + depth);
-              callback.onPolygonsRetrieved(null);
-            }
-          } catch (final Exception e) {
-            Log.e(TAG, "Error querying EMU by depth " + e.getMessage());
-            callback.onPolygonsRetrieved(null);
-          }
+  // Levels not shown yet pick the depth up when they're created
+  private void setEmuByDepthExpression(final int depth){
+    synchronized (mEmuByDepthLayers){
+      mEmuByDepthDepth = depth;
+      for (final LazyHolder<FeatureLayer> holder : mEmuByDepthLayers){
+        if (holder.isCreated()){
+          holder.get().setDefinitionExpression("Depth = " + depth);
         }
-      });
-    } catch (final Exception e) {
-      String additionalInfo = getAdditionalInfo(e);
-      if (additionalInfo!=null){
-        Log.e(TAG, "Error query emu by depth :" +  e.getMessage() + " Additional info: " + additionalInfo);
-      }else{
-        Log.e(TAG, "Error query emu by depth :" +  e.getMessage());
       }
     }
   }
 
-  /**
-   * Prepare the query parameters to query the service
-   * by depth
-   * @param depth - Integer representing depth level
-   * @return QueryParameters
-   */
-  private static QueryParameters generateEmuByDepthQueryParameters(final int depth){
-    final QueryParameters queryParameters = new QueryParameters();
-    queryParameters.setWhereClause(" Depth = " + depth);
-    return queryParameters;
+  private void setEmuByDepthLayersVisible(final boolean visible){
+    synchronized (mEmuByDepthLayers){
+      mEmuByDepthVisible = visible;
+      for (final LazyHolder<FeatureLayer> holder : mEmuByDepthLayers){
+        if (holder.isCreated()){
+          holder.get().setVisible(visible);
+        }
+      }
+    }
   }
 
   /**
-   * Retrieve measurements from queried features
-   * @param futureResult - ListenableFuture<FeatureQueryResult>
-   * @param callback - ServiceApi.ColumnProfileCallback callback
-   * @param profile - WaterProfile
+   * Query for EMU polygons by depth level in the grid cells covering the
+   * extent.  Missing cells are merged into rectangular blocks and each
+   * block is downloaded page by page into the level's cache.  The callback
+   * is notified once, when the first page arrives or, if every cell is
+   * already cached, straight away.  It's given the level's layer, which is
+   * created by the first query at its scale and needs adding to the map.
+   * @param depth - Integer representing a depth interval
+   * @param extent - Envelope to load, or null for the whole world
+   * @param level - int representing the LevelOfDetail to load
+   * @param callback - ServiceApi.EMUByDepthCallback
    */
-  private void processQueryForEmuColumnProfile(final ListenableFuture<FeatureQueryResult> futureResult, final ServiceApi.ColumnProfileCallback callback, final WaterProfile profile) {
-    futureResult.addDoneListener(new Runnable() {
-      @Override public void run() {
-        try {
-          Map<String,Object> map;
-
-          final FeatureQueryResult fqr = futureResult.get();
-          if (fqr != null){
-            final Iterator<Feature> iterator = fqr.iterator();
-            while (iterator.hasNext()){
-              final Feature feature = iterator.next();
-              map =  feature.getAttributes();
-              final Measurement measurement = createMeasurement(map);
-              profile.addMeasurement(measurement);
-            }
+  private void queryEmuByDepth(final Integer depth, @Nullable final Envelope extent, final int level, final ServiceApi.EMUByDepthCallback callback){
+    final FeatureLayer layer = mEmuByDepthLayers.get(level).get();
+    final List<Integer> keys = new ArrayList<>();
+    for (final Integer cell : cellsForExtent(extent)){
+      keys.add(depthCellKey(depth, level, cell));
+    }
+    // Cells downloaded already, or being downloaded by
+    // another request, aren't claimed
+    final Set<Integer> missingCells = new TreeSet<>();
+    for (final Integer key : mDepthCells.claim(keys)){
+      missingCells.add(key % DEPTH_GRID.getCellCount());
+    }
+    if (missingCells.isEmpty()){
+      Log.i(TAG, "EMU polygons downloaded already for depth " + depth);
+      deliver(new Runnable() {
+        @Override public void run() {
+          callback.onPolygonsRetrieved(layer);
+        }
+      });
+      return;
+    }
+    Log.i(TAG, "Downloading EMU polygons for depth " + depth + " at level " + level + " in " + missingCells.size() + " cells");
+
+    final List<WorldGrid.Block> blocks = DEPTH_GRID.blocksFor(missingCells);
+    // Blocks load at the same time and may finish on different threads
+    final AtomicInteger outstanding = new AtomicInteger(blocks.size());
+    final AtomicBoolean notified = new AtomicBoolean(false);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    for (final WorldGrid.Block block : blocks){
+      final List<Integer> blockKeys = new ArrayList<>();
+      for (final Integer cell : block.getCells()){
+        blockKeys.add(depthCellKey(depth, level, cell));
+      }
+      final double[] bounds = block.getBounds();
+      final Envelope blockExtent = new Envelope(bounds[0], bounds[1], bounds[2], bounds[3], SpatialReferences.getWgs84());
+
+      new PagedLoader<>(depthPages(depth, level, blockExtent), POLYGON_PAGE_SIZE, MAX_PAGES, new PagedLoader.Listener<Feature>() {
+        @Override public void onPage(final List<Feature> items, final int pageIndex) {
+          if (notified.compareAndSet(false, true)){
+            deliver(new Runnable() {
+              @Override public void run() {
+                callback.onPolygonsRetrieved(layer);
+              }
+            });
           }
-        } catch (final Exception e) {
+        }
+
+        @Override public void onComplete(final int totalCount) {
+          Log.i(TAG, totalCount + " EMU polygons retrieved for depth " + depth + " at level " + level);
+          // Cache the cells so we don't download
+          // the same data again
+          mDepthCells.complete(blockKeys);
+          finish();
+        }
+
+        @Override public void onError(final Exception e, final int loadedCount) {
           String additionalInfo = getAdditionalInfo(e);
           if (additionalInfo!=null){
-            Log.e(TAG, "No measurements found for water column profile due to error " +  e.getMessage() + " Additional info: " + additionalInfo);
+            Log.e(TAG, "Error query emu by depth :" +  e.getMessage() + " Additional info: " + additionalInfo);
           }else{
-            Log.e(TAG, "No measurements found for water column profile due to error " +  e.getMessage());
+            Log.e(TAG, "Error query emu by depth :" +  e.getMessage());
           }
+          // Pages already drawn stay visible but the cells aren't
+          // cached, so the next visit downloads them again.  That
+          // includes a block cut short by the page limit.
+          mDepthCells.release(blockKeys);
+          failed.set(true);
+          finish();
         }
-        callback.onProfileLoaded(profile);
+
+        private void finish(){
+          if (outstanding.decrementAndGet() == 0 && notified.compareAndSet(false, true)){
+            // Nothing was found.  Open ocean or land with no polygons
+            // isn't an error, so only report failed downloads.
+            final FeatureLayer result = failed.get() ? null : layer;
+            deliver(new Runnable() {
+              @Override public void run() {
+                callback.onPolygonsRetrieved(result);
+              }
+            });
+          }
+        }
+      }).start();
+    }
+  }
+
+  /**
+   * Return a page source populating a level of detail's cache with
+   * polygons for the depth that intersect the extent
+   * @param depth - int representing the depth level
+   * @param level - int representing the LevelOfDetail
+   * @param extent - Envelope to search
+   * @return PagedLoader.PageSource
+   */
+  private PagedLoader.PageSource<Feature> depthPages(final int depth, final int level, final Envelope extent){
+    // The layer draws with the service's renderer and filters on Depth,
+    // so every field is kept along with the geometry
+    final List<String> outFields = Collections.singletonList("*");
+    final ServiceFeatureTable table = (ServiceFeatureTable) mEmuByDepthLayers.get(level).get().getFeatureTable();
+    return new PagedLoader.PageSource<Feature>() {
+      @Override public void fetch(final int offset, final int count, final PagedLoader.PageCallback<Feature> pageCallback) {
+        // Polygons downloaded already stay in the layer while the service is down
+        if (!mDepthBreaker.allowRequest()){
+          pageCallback.onError(new CircuitBreaker.OpenException(mDepthBreaker.getName() + " is unavailable"));
+          return;
+        }
+        // The table's spatial reference is needed to express
+        // the generalization tolerance in its units
+        table.loadAsync();
+        table.addDoneLoadingListener(new Runnable() {
+          @Override public void run() {
+            table.removeDoneLoadingListener(this);
+            final QueryParameters queryParameters = generateEmuByDepthQueryParameters(depth, extent,
+                toMapUnits(LevelOfDetail.getToleranceMeters(level), table.getSpatialReference()));
+            queryParameters.setResultOffset(offset);
+            queryParameters.setMaxFeatures(count);
+            try{
+              final ListenableFuture<FeatureQueryResult> results =
+                  table.populateFromServiceAsync(queryParameters, false, outFields);
+              results.addDoneListener(new Runnable() {
+                @Override public void run() {
+                  final List<Feature> features = new ArrayList<>();
+                  final boolean more;
+                  try {
+                    final FeatureQueryResult fqr = results.get();
+                    final Iterator<Feature> iterator = fqr.iterator();
+                    while (iterator.hasNext()){
+                      features.add(iterator.next());
+                    }
+                    more = hasMore(fqr, features.size(), count);
+                  } catch (final Exception e) {
+                    mDepthBreaker.recordFailure();
+                    pageCallback.onError(e);
+                    return;
+                  }
+                  mDepthBreaker.recordSuccess();
+                  pageCallback.onPage(features, more);
+                }
+              });
+            } catch (final Exception e) {
+              mDepthBreaker.recordFailure();
+              pageCallback.onError(e);
+            }
+          }
+        });
       }
-    });
+    };
+  }
+
+  /**
+   * Convert a distance in meters to the units of a spatial reference,
+   * approximating degrees at the equator for geographic references
+   * @param meters - double
+   * @param sr - SpatialReference, may be null if unknown
+   * @return double
+   */
+  private static double toMapUnits(final double meters, @Nullable final SpatialReference sr){
+    if (sr != null && sr.isGeographic()){
+      return meters / METERS_PER_DEGREE;
+    }
+    return meters;
+  }
+
+  /**
+   * Return the grid cells covering the extent
+   * @param extent - Envelope in any spatial reference, or null for the whole world
+   * @return Set<Integer>
+   */
+  private static Set<Integer> cellsForExtent(@Nullable final Envelope extent){
+    if (extent == null){
+      return DEPTH_GRID.allCells();
+    }
+    final Envelope geographic = (Envelope) GeometryEngine.project(extent, SpatialReferences.getWgs84());
+    return DEPTH_GRID.cellsIntersecting(geographic.getXMin(), geographic.getYMin(), geographic.getXMax(), geographic.getYMax());
+  }
+
+  /**
+   * Combine a depth, level of detail and grid cell into a single cache key
+   * @param depth - int representing the depth level
+   * @param level - int representing the LevelOfDetail
+   * @param cell - int representing the grid cell
+   * @return Integer
+   */
+  private static Integer depthCellKey(final int depth, final int level, final int cell){
+    return (depth * LevelOfDetail.getLevelCount() + level) * DEPTH_GRID.getCellCount() + cell;
+  }
+
+  /**
+   * Prepare the query parameters to query the service
+   * by depth within an extent
+   * @param depth - Integer representing depth level
+   * @param extent - Envelope to search
+   * @param maxAllowableOffset - double generalization tolerance in the
+   *                           table's units, 0 for full resolution
+   * @return QueryParameters
+   */
+  private static QueryParameters generateEmuByDepthQueryParameters(final int depth, final Envelope extent, final double maxAllowableOffset){
+    final QueryParameters queryParameters = new QueryParameters();
+    queryParameters.setWhereClause(" Depth = " + depth);
+    queryParameters.setGeometry(extent);
+    queryParameters.setSpatialRelationship(QueryParameters.SpatialRelationship.INTERSECTS);
+    if (maxAllowableOffset > 0){
+      queryParameters.setMaxAllowableOffset(maxAllowableOffset);
+    }
+    return queryParameters;
   }
 
   /**
@@ -426,75 +1919,44 @@ public class DataManager {
   }
 
   /**
-   * Process the listenable future by creating a WaterColumn for
-   * any returned data.
-   * @param envelope - an Envelope representing the search area
-   * @param futureResult - a ListenableFuture<FeatureQueryResult> to process
-   * @param callback  - a SummaryCallback called when query processing is complete
+   * Build up a Measurement from a feature read as protocol buffers,
+   * treating missing values the same way as createMeasurement
+   * @param row - PbfFeatureReader.Row
+   * @return Measurement
    */
-  private void processQueryForEmuAtLocation(final Envelope envelope, final ListenableFuture<FeatureQueryResult> futureResult, final ServiceApi.SummaryCallback callback){
+  private static Measurement createMeasurement(final PbfFeatureReader.Row row) {
+    final Measurement m = new Measurement();
+    m.setEmu((int) row.getNumber("Cluster37", 0));
+    m.setDepth(row.getNumber("UnitTop", 0));
+    m.setDissolvedOxygen(row.getNumber("dissO2", 0));
+    m.setSalinity(row.getNumber("salinity", 0));
+    m.setTemperature(row.getNumber("temp", 0));
+    m.setSilicate(row.getNumber("silicate", 0));
+    m.setNitrate(row.getNumber("nitrate", 0));
+    m.setPhosphate(row.getNumber("phosphate", 0));
+    return m;
+  }
 
-    futureResult.addDoneListener(new Runnable() {
+  /**
+   * Create a WaterColumn for each location in the observations
+   * and keep the one closest to the search area.
+   * @param envelope - an Envelope representing the search area
+   * @param emuObservations - Collection<EMUObservation> found in the search area
+   * @param callback  - a SummaryCallback called when processing is complete
+   */
+  private void processQueryForEmuAtLocation(final Envelope envelope, final Collection<EMUObservation> emuObservations,
+      final ServiceApi.SummaryCallback callback){
+    // Now we have a list with zero or more EMUObservations
+    // 1.  Group them into a WaterColumn for each location
+    // 2.  Determine the closest WaterColumn to the envelope.
+    // If there is more than one water column, we only care about the
+    // one closest to the point clicked in the map.
+    final WaterColumn closest = findClosestWaterColumn(envelope, ColumnGrouper.group(emuObservations));
+
+    // Processing is complete, notify the callback
+    deliver(new Runnable() {
       @Override public void run() {
-        try{
-          final FeatureQueryResult fqr = futureResult.get();
-
-          final Map<Geometry,WaterColumn> pointWaterColumnMap = new HashMap<Geometry, WaterColumn>();
-
-          if (fqr != null){
-
-            final Collection<EMUObservation> emuObservations = new ArrayList<EMUObservation>();
-            final Iterator<Feature> iterator = fqr.iterator();
-            while (iterator.hasNext()){
-              final Feature feature = iterator.next();
-              final Map<String,Object> map = feature.getAttributes();
-              final EMUObservation observation = createEMUObservation(map);
-              emuObservations.add(observation);
-            }
-            // Now we have a list with zero or more EMUObservations
-            // 1.  Create a map of WaterColumn keyed on location
-            // 2.  Determine the closest WaterColumn to the envelope.
-
-            final ImmutableSet<EMUObservation> immutableSet = ImmutableSet.copyOf(emuObservations);
-            final Function<EMUObservation, Point> locationFunction = new Function<EMUObservation, Point>() {
-              @Nullable @Override public Point apply(final EMUObservation observation) {
-                return observation.getLocation();
-              }
-            };
-            final ImmutableListMultimap< Point, EMUObservation> observationsByLocation = Multimaps.index(immutableSet, locationFunction);
-            final ImmutableMap<Point,Collection<EMUObservation>> map = observationsByLocation.asMap();
-            final Set<Point> keys = map.keySet();
-            final Iterator<Point> pointIterator = keys.iterator();
-            while (pointIterator.hasNext()){
-              final Point p = pointIterator.next();
-              final WaterColumn waterColumn = new WaterColumn();
-              waterColumn.setLocation(p);
-              final Collection<EMUObservation> observations = map.get(p);
-              for (final EMUObservation o : observations){
-                waterColumn.addObservation(o);
-              }
-              pointWaterColumnMap.put(p, waterColumn);
-            }
-
-            // If there is more than one water column, we only care about the
-            // one closest to the point clicked in the map.
-            mCurrentWaterColumn = findClosestWaterColumn(envelope, pointWaterColumnMap);
-          }else{
-            mCurrentWaterColumn = null;
-          }
-
-          // Processing is complete, notify the callback
-          callback.onWaterColumnsLoaded(mCurrentWaterColumn);
-
-
-        }catch (final Exception e){
-          String additionalInfo = getAdditionalInfo(e);
-          if (additionalInfo!=null){
-            Log.e(TAG, "No measurements found for location due to error " +  e.getMessage() + " Additional info: " + additionalInfo);
-          }else{
-            Log.e(TAG, "No measurements found for location due to error " +  e.getMessage());
-          }
-        }
+        callback.onWaterColumnsLoaded(closest);
       }
     });
   }
@@ -505,11 +1967,8 @@ public class DataManager {
    * @return EMUStat (Nullable)
    */
   public EMUStat getStatForEmu(final int emuName){
-    EMUStat stat = null;
-    if (summary_table.size() > 0){
-      stat = (EMUStat) summary_table.get(emuName);
-    }
-    return stat;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getStat(emuName) : null;
   }
 
   /**
@@ -517,20 +1976,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMaxTemperatureFromSummary(){
-    if (DataManager.MAX_TEMPATURE == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++){
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MAX_TEMPATURE == null){
-          DataManager.MAX_TEMPATURE = stat.getTemp_max();
-        }else{
-          if (stat.getTemp_max() > DataManager.MAX_TEMPATURE){
-            DataManager.MAX_TEMPATURE = stat.getTemp_max();
-          }
-        }
-      }
-    }
-    return DataManager.MAX_TEMPATURE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMaxTemperature() : null;
   }
 
   /**
@@ -538,20 +1985,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMinTemperatureFromSummary(){
-    if (DataManager.MIN_TEMPATURE == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++){
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MIN_TEMPATURE == null){
-          DataManager.MIN_TEMPATURE = stat.getTemp_min();
-        }else{
-          if (stat.getTemp_min() < DataManager.MIN_TEMPATURE){
-            DataManager.MIN_TEMPATURE = stat.getTemp_min();
-          }
-        }
-      }
-    }
-    return DataManager.MIN_TEMPATURE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMinTemperature() : null;
   }
 
   /**
@@ -559,20 +1994,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMaxSalinityFromSummary(){
-    if (DataManager.MAX_SALINITY == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MAX_SALINITY == null){
-          DataManager.MAX_SALINITY = stat.getSalinity_max();
-        }else{
-          if (stat.getSalinity_max() > DataManager.MAX_SALINITY){
-            DataManager.MAX_SALINITY = stat.getSalinity_max();
-          }
-        }
-      }
-    }
-    return DataManager.MAX_SALINITY;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMaxSalinity() : null;
   }
 
   /**
@@ -580,20 +2003,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMinSalinityFromSummary(){
-    if (DataManager.MIN_SALINITY == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MIN_SALINITY == null){
-          DataManager.MIN_SALINITY = stat.getSalinity_min();
-        }else{
-          if (stat.getSalinity_min() < DataManager.MIN_SALINITY){
-            DataManager.MIN_SALINITY = stat.getSalinity_min();
-          }
-        }
-      }
-    }
-    return DataManager.MIN_SALINITY;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMinSalinity() : null;
   }
 
   /**
@@ -601,20 +2012,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMaxOxygenFromSummary(){
-    if (DataManager.MAX_OXYGEN == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MAX_OXYGEN == null){
-          DataManager.MAX_OXYGEN = stat.getDisso2_max();
-        }else{
-          if (stat.getDisso2_max() > DataManager.MAX_OXYGEN){
-            DataManager.MAX_OXYGEN = stat.getDisso2_max();
-          }
-        }
-      }
-    }
-    return DataManager.MAX_OXYGEN;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMaxOxygen() : null;
   }
 
   /**
@@ -622,20 +2021,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMinOxygenFromSummary(){
-    if (DataManager.MIN_OXYGEN == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MIN_OXYGEN == null){
-          DataManager.MIN_OXYGEN = stat.getDisso2_min();
-        }else{
-          if (stat.getDisso2_min() < DataManager.MIN_OXYGEN){
-            DataManager.MIN_OXYGEN = stat.getDisso2_min();
-          }
-        }
-      }
-    }
-    return DataManager.MIN_OXYGEN;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMinOxygen() : null;
   }
 
   /**
@@ -643,20 +2030,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMaxPhosphateFromSummary(){
-    if (DataManager.MAX_PHOSPHATE == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MAX_PHOSPHATE == null) {
-          DataManager.MAX_PHOSPHATE = stat.getPhosphate_max();
-        } else {
-          if (stat.getPhosphate_max() > DataManager.MAX_PHOSPHATE) {
-            DataManager.MAX_PHOSPHATE = stat.getPhosphate_max();
-          }
-        }
-      }
-    }
-    return DataManager.MAX_PHOSPHATE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMaxPhosphate() : null;
   }
 
   /**
@@ -664,20 +2039,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMinPhosphateFromSummary(){
-    if (DataManager.MIN_PHOSPHATE == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MIN_PHOSPHATE == null){
-          DataManager.MIN_PHOSPHATE = stat.getPhosphate_min();
-        }else{
-          if (stat.getPhosphate_min() < DataManager.MIN_PHOSPHATE){
-            DataManager.MIN_PHOSPHATE = stat.getPhosphate_min();
-          }
-        }
-      }
-    }
-    return DataManager.MIN_PHOSPHATE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMinPhosphate() : null;
   }
 
   /**
@@ -685,20 +2048,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMaxNitrateFromSummary(){
-    if (DataManager.MAX_NITRATE == null) {
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MAX_NITRATE == null){
-          DataManager.MAX_NITRATE = stat.getNitrate_max();
-        }else {
-          if (stat.getNitrate_max() > DataManager.MAX_NITRATE) {
-            DataManager.MAX_NITRATE = stat.getNitrate_max();
-          }
-        }
-      }
-    }
-    return DataManager.MAX_NITRATE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMaxNitrate() : null;
   }
 
   /**
@@ -706,20 +2057,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMinNitrateFromSummary(){
-    if (DataManager.MIN_NITRATE == null ){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MIN_NITRATE == null){
-          DataManager.MIN_NITRATE = stat.getNitrate_min();
-        }else{
-          if (stat.getNitrate_min() < DataManager.MIN_NITRATE){
-            DataManager.MIN_NITRATE = stat.getNitrate_min();
-          }
-        }
-      }
-    }
-    return DataManager.MIN_NITRATE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMinNitrate() : null;
   }
 
   /**
@@ -727,20 +2066,8 @@ public class DataManager {
    * @return Double
    */
   public Double getMaxSilicateFromSummary(){
-    if (DataManager.MAX_SILICATE == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MAX_SILICATE == null){
-          DataManager.MAX_SILICATE = stat.getSilicate_max();
-        }else{
-          if (stat.getSilicate_max() > DataManager.MAX_SILICATE){
-            DataManager.MAX_SILICATE = stat.getSilicate_max();
-          }
-        }
-      }
-    }
-    return DataManager.MAX_SILICATE;
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMaxSilicate() : null;
   }
 
   /**
@@ -748,21 +2075,58 @@ public class DataManager {
    * @return Double
    */
   public Double getMinSilicateFromSummary(){
-    if (DataManager.MIN_SILICATE == null){
-      final int x = summary_table.size();
-      for (int i =0; i < x; i++) {
-        final EMUStat stat = (EMUStat) summary_table.valueAt(i);
-        if (DataManager.MIN_SILICATE == null){
-          DataManager.MIN_SILICATE = stat.getSilicate_min();
-        }else{
-          if (stat.getSilicate_min() < DataManager.MIN_SILICATE){
-            DataManager.MIN_SILICATE = stat.getSilicate_min();
-          }
+    final EmuSummary summary = mSummary;
+    return summary != null ? summary.getMinSilicate() : null;
+  }
+
+  /**
+   * Build the chart details of every EMU in the column on a background
+   * thread, loading the summary statistics first if they haven't been.
+   * Call when the column is shown so its details are ready before
+   * they're asked for.
+   * @param column - WaterColumn shown in the bottom sheet
+   */
+  public void prepareEmuDetails(@NonNull final WaterColumn column){
+    if (mColumnDetails != null && mColumnDetails.isFor(column)){
+      return;
+    }
+    queryEmuSummaryStatistics(new ServiceApi.StatCallback() {
+      @Override public void onStatsLoaded(final boolean successFlag) {
+        if (!successFlag){
+          return;
         }
+        mPrefetchExecutor.execute(new Runnable() {
+          @Override public void run() {
+            final EmuSummary summary = mSummary;
+            if (summary != null){
+              mColumnDetails = ColumnDetails.build(column, summary);
+            }
+          }
+        });
       }
-    }
-    return DataManager.MIN_SILICATE;
+    });
+  }
 
+  /**
+   * Return the chart details for an EMU in a column, built now if they
+   * weren't prepared ahead of time
+   * @param column - WaterColumn containing the EMU
+   * @param emuName - int representing an EMU name
+   * @return EmuDetail or null if the summary statistics aren't loaded,
+   * or the EMU isn't in the column or has no statistics
+   */
+  @Nullable public EmuDetail getEmuDetail(@NonNull final WaterColumn column, final int emuName){
+    final ColumnDetails details = mColumnDetails;
+    if (details != null && details.isFor(column)){
+      return details.getDetail(emuName);
+    }
+    final EmuSummary summary = mSummary;
+    if (summary == null){
+      return null;
+    }
+    final List<EMUObservation> observations = column.getEMUObservations(emuName);
+    final EMUStat stat = summary.getStat(emuName);
+    return observations.isEmpty() || stat == null ? null : EmuDetail.create(observations.get(0), stat, summary);
   }
 
   /**
@@ -773,6 +2137,16 @@ public class DataManager {
     return mCurrentWaterColumn;
   }
 
+  /**
+   * Return true if the current water column was held from an earlier
+   * query because the service couldn't be reached, so it may be out of date
+   * @return boolean
+   */
+  public boolean isCurrentWaterColumnStale(){
+    return mCurrentWaterColumnStale;
+  }
+
+
   /**
    * Parse returned data and create EMUStat items for each returned row
    * @param futureResult - a ListenableFuture<FeatureQueryResult> to process
@@ -785,17 +2159,22 @@ public class DataManager {
       @Override public void run() {
         try {
           final FeatureQueryResult fqr = futureResult.get();
+          final List<EMUStat> stats = new ArrayList<>();
           if (fqr != null){
             final Iterator<Feature> iterator = fqr.iterator();
             while (iterator.hasNext()){
               final Feature feature = iterator.next();
               final Map<String,Object> map = feature.getAttributes();
-              final EMUStat stat = createEMUStat(map);
-              summary_table.put(stat.getEmu_name(), stat);
+              stats.add(createEMUStat(map));
             }
           }
+          // Readers see the whole table or none of it
+          mSummary = new EmuSummary(stats);
+          recordTransfer(mSummaryStats.get(), STATS_FIELDS, stats.size(), 0);
+          mSummaryBreaker.recordSuccess();
           callback.onStatsLoaded(true);
         } catch (final Exception e) {
+          mSummaryBreaker.recordFailure();
           callback.onStatsLoaded(false);
           String additionalInfo = getAdditionalInfo(e);
           if (additionalInfo!=null){
@@ -826,18 +2205,7 @@ public class DataManager {
     emu.setName(emuNumber);
 
     // Get physical and nutrient summaries
-    final String summaries = extractValueFromMap(mContext.getString(R.string.name_emu),map);
-
-    // Get the physical and nutrient summaries
-    final String [] results = summaries.split(",");
-    if (results.length == 7){
-
-      emu.setPhysicalSummary(results[0].trim() + ", " + results[1].trim() + ", " + results[2].trim());
-      emu.setNutrientSummary(results[3].trim() + ", " + results[4].trim() + ", " + results[5].trim() + ", " + results[6].trim());
-    }else{
-      emu.setPhysicalSummary("not found");
-      emu.setNutrientSummary("not found");
-    }
+    setSummaries(emu, extractValueFromMap(mContext.getString(R.string.name_emu),map));
 
     // Set geomorphology base for emu
     final String geoBase = extractValueFromMap(mContext.getString(R.string.geo_base),map);
@@ -893,6 +2261,52 @@ public class DataManager {
     return observation;
   }
 
+  /**
+   * Create an EMUObservation from a feature read as protocol buffers
+   * @param row - PbfFeatureReader.Row
+   * @return an EMUObservation for the row
+   */
+  private EMUObservation createEMUObservation(final PbfFeatureReader.Row row){
+    final EMUObservation observation = new EMUObservation();
+
+    final EMU emu = new EMU();
+    observation.setEmu(emu);
+    emu.setName((int) row.getNumber(mContext.getString(R.string.emu_number), 0));
+    setSummaries(emu, row.getText(mContext.getString(R.string.name_emu)));
+    emu.setGeomorphologyBase(row.getText(mContext.getString(R.string.geo_base)));
+    emu.setGeomorphologyFeatures(row.getText(mContext.getString(R.string.geo_features)));
+
+    observation.setTop((int) row.getNumber("UnitTop", 0));
+    observation.setLocation(new Point(row.getNumber(mContext.getString(R.string.point_x), 0),
+        row.getNumber(mContext.getString(R.string.point_y), 0)));
+    observation.setThickness((int) row.getNumber(mContext.getString(R.string.thickness), 0));
+
+    observation.setTemperature(row.getDouble("temp"));
+    observation.setSalinity(row.getDouble("salinity"));
+    observation.setOxygen(row.getDouble("dissO2"));
+    observation.setPhosphate(row.getDouble("phosphate"));
+    observation.setSilicate(row.getDouble("silicate"));
+    observation.setNitrate(row.getDouble("nitrate"));
+
+    return observation;
+  }
+
+  /**
+   * Split an EMU name into its physical and nutrient summaries
+   * @param emu - EMU to update
+   * @param name - String of seven comma separated descriptions
+   */
+  private static void setSummaries(final EMU emu, final String name){
+    final String [] results = name.split(",");
+    if (results.length == 7){
+      emu.setPhysicalSummary(results[0].trim() + ", " + results[1].trim() + ", " + results[2].trim());
+      emu.setNutrientSummary(results[3].trim() + ", " + results[4].trim() + ", " + results[5].trim() + ", " + results[6].trim());
+    }else{
+      emu.setPhysicalSummary("not found");
+      emu.setNutrientSummary("not found");
+    }
+  }
+
   /**
    * Create an EMUStat object from given a map of key value pairs
    * @param map Map<String,Object></String,Object>
@@ -1002,27 +2416,22 @@ public class DataManager {
   /**
    * Find the closest WaterColumn to the center of the given Envelope
    * @param envelope - Envelope
-   * @param waterColumnMap - Map<Geometry,WaterColumn> map of WaterColumn values keyed by Geometry objects.
+   * @param waterColumns - List<WaterColumn>, one for each location found
    * @return WaterColumn
    */
   private static WaterColumn findClosestWaterColumn(final Envelope envelope,
-      final Map<Geometry, WaterColumn> waterColumnMap){
+      final List<WaterColumn> waterColumns){
     WaterColumn closestWaterColumn = null;
-    if (waterColumnMap.size() == 1){
-      final WaterColumn[] columns = waterColumnMap.values().toArray(new WaterColumn[1]);
-      closestWaterColumn = columns[0];
+    if (waterColumns.size() == 1){
+      closestWaterColumn = waterColumns.get(0);
     }
-    if (waterColumnMap.size() > 1){
+    if (waterColumns.size() > 1){
       final Point center = envelope.getCenter();
       final LinearUnit linearUnit = new LinearUnit(LinearUnitId.METERS);
       final AngularUnit angularUnit = new AngularUnit(AngularUnitId.DEGREES);
-      final Set<Geometry> geometries = waterColumnMap.keySet();
-      final Iterator<Geometry> iterator = geometries.iterator();
       final List<WaterColumn> waterColumnList = new ArrayList<>();
-      while (iterator.hasNext()){
-        final Geometry geo = iterator.next();
-        final WaterColumn waterColumn = waterColumnMap.get(geo);
-        final Point point = (Point) geo;
+      for (final WaterColumn waterColumn : waterColumns){
+        final Point point = waterColumn.getLocation();
         final Point waterColumnPoint = new Point(point.getX(), point.getY(), center.getSpatialReference());
         final GeodeticDistanceResult geodeticDistanceResult = GeometryEngine.distanceGeodetic(center, waterColumnPoint, linearUnit, angularUnit, GeodeticCurveType.GEODESIC);
         final double calculatedDistance = geodeticDistanceResult.getDistance();
@@ -0,0 +1,50 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import java.util.Map;
+
+/**
+ * Measurements of each physical property by depth at a single location,
+ * whether downloaded from the point mesh service or read from a local store.
+ */
+public interface DepthProfile {
+
+  /**
+   * Return the measurements for a given property, keyed and
+   * ordered by increasing depth.  Depths without a value for
+   * the property are left out.
+   * @param property - one of the property names accepted by Measurement.getValueForProperty
+   * @return Map<Double,Double>
+   */
+  Map<Double,Double> getMeasurementsForProperty(String property);
+
+  /**
+   * Return measurement count
+   * @return int representing count of measurements
+   */
+  int measurementCount();
+}
@@ -0,0 +1,92 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps track of which pieces of data, identified by integer keys,
+ * have been downloaded and which are being downloaded, so concurrent
+ * requests covering the same piece download it only once.  Safe to
+ * use from any thread.
+ */
+public class DownloadTracker {
+
+  private final Set<Integer> mDownloaded = new HashSet<>();
+
+  private final Set<Integer> mPending = new HashSet<>();
+
+  /**
+   * Claim the keys that are neither downloaded nor being downloaded.
+   * The caller must pass every claimed key to either complete or release.
+   * @param keys - Collection<Integer> wanted by the caller
+   * @return Set<Integer> of keys the caller should download, in ascending order
+   */
+  @NonNull public synchronized Set<Integer> claim(@NonNull final Collection<Integer> keys){
+    final Set<Integer> claimed = new TreeSet<>();
+    for (final Integer key : keys){
+      if (!mDownloaded.contains(key) && mPending.add(key)){
+        claimed.add(key);
+      }
+    }
+    return claimed;
+  }
+
+  /**
+   * Record that claimed keys have been downloaded
+   * @param keys - Collection<Integer>
+   */
+  public synchronized void complete(@NonNull final Collection<Integer> keys){
+    for (final Integer key : keys){
+      if (mPending.remove(key)){
+        mDownloaded.add(key);
+      }
+    }
+  }
+
+  /**
+   * Give up claimed keys after a failed download so a
+   * later request can try again
+   * @param keys - Collection<Integer>
+   */
+  public synchronized void release(@NonNull final Collection<Integer> keys){
+    mPending.removeAll(keys);
+  }
+
+  /**
+   * Return whether a key has been downloaded
+   * @param key - Integer
+   * @return boolean
+   */
+  public synchronized boolean isDownloaded(@NonNull final Integer key){
+    return mDownloaded.contains(key);
+  }
+}
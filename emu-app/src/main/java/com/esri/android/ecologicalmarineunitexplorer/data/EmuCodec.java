@@ -0,0 +1,512 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact, versioned binary form of water columns, water profiles
+ * and EMU statistics, suitable for disk caches and exports.
+ *
+ * Every payload starts with the bytes 'E' 'M' 'U', a format version,
+ * a payload type and the value encoding used.  Integers are written as
+ * unsigned or zigzag varints.  Chemistry values are written either
+ * quantized to 0.001 as varints or as float32, and a bit mask in front
+ * of each record marks which nullable values are present.  The EMUs
+ * referenced by observations are written once in a dictionary and
+ * observations refer to them by index.
+ *
+ * Not encoded: WaterColumn.distanceFrom, which is recalculated
+ * for each search, and the spatial reference of locations, which
+ * are always WGS84 longitude and latitude.
+ */
+public final class EmuCodec {
+
+  /**
+   * How chemistry and depth values are written
+   */
+  public enum ValueEncoding {
+    // Rounded to 0.001 and written as a zigzag varint
+    QUANTIZED,
+    // Written as a 4 byte IEEE float
+    FLOAT32
+  }
+
+  public static final int VERSION = 1;
+
+  // Quantized values are stored as value * QUANTIZED_SCALE, a resolution of 0.001
+  public static final double QUANTIZED_SCALE = 1000;
+
+  // Locations are stored as degrees * LOCATION_SCALE, a resolution of about 10 cm
+  public static final double LOCATION_SCALE = 1000000;
+
+  private static final byte[] MAGIC = { 'E', 'M', 'U' };
+
+  private static final int TYPE_WATER_COLUMNS = 1;
+  private static final int TYPE_WATER_PROFILE = 2;
+  private static final int TYPE_EMU_STATS = 3;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ValueEncoding mEncoding;
+
+  public EmuCodec(@NonNull final ValueEncoding encoding){
+    mEncoding = encoding;
+  }
+
+  /**
+   * Encode water columns and their observations
+   * @param columns - Collection<WaterColumn>
+   * @return byte[]
+   */
+  @NonNull public byte[] encodeWaterColumns(@NonNull final Collection<WaterColumn> columns){
+    final Output out = header(TYPE_WATER_COLUMNS);
+
+    // EMU dictionary, in order of first use
+    final Map<Integer, Integer> emuIndex = new HashMap<>();
+    final List<EMU> emus = new ArrayList<>();
+    for (final WaterColumn column : columns){
+      for (final EMUObservation observation : column.getEmuSet()){
+        final EMU emu = observation.getEmu();
+        if (!emuIndex.containsKey(emu.getName())){
+          emuIndex.put(emu.getName(), emus.size());
+          emus.add(emu);
+        }
+      }
+    }
+    out.writeVarint(emus.size());
+    for (final EMU emu : emus){
+      out.writeVarint(emu.getName());
+      out.writeString(emu.getPhysicalSummary());
+      out.writeString(emu.getNutrientSummary());
+      out.writeString(emu.getGeomorphologyBase());
+      out.writeString(emu.getGeomorphologyFeatures());
+    }
+
+    out.writeVarint(columns.size());
+    for (final WaterColumn column : columns){
+      final Point location = column.getLocation();
+      out.writeVarint(location != null ? 1 : 0);
+      if (location != null){
+        out.writeSignedVarint(Math.round(location.getX() * LOCATION_SCALE));
+        out.writeSignedVarint(Math.round(location.getY() * LOCATION_SCALE));
+      }
+      final Set<EMUObservation> observations = column.getEmuSet();
+      out.writeVarint(observations.size());
+      for (final EMUObservation observation : observations){
+        out.writeVarint(emuIndex.get(observation.getEmu().getName()));
+        out.writeSignedVarint(observation.getTop());
+        out.writeSignedVarint(observation.getThickness());
+        writeValues(out, observation.getTemperature(), observation.getSalinity(), observation.getOxygen(),
+            observation.getPhosphate(), observation.getSilicate(), observation.getNitrate());
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode water columns.  Observations share their column's location.
+   * @param bytes - byte[] produced by encodeWaterColumns
+   * @return List<WaterColumn>
+   * @throws IOException if the bytes aren't a supported water column payload
+   */
+  @NonNull public static List<WaterColumn> decodeWaterColumns(@NonNull final byte[] bytes) throws IOException {
+    final Input in = new Input(bytes);
+    final ValueEncoding encoding = readHeader(in, TYPE_WATER_COLUMNS);
+
+    final EMU[] emus = new EMU[in.readCount()];
+    for (int i = 0; i < emus.length; i++){
+      final EMU emu = new EMU();
+      emu.setName(in.readVarint());
+      emu.setPhysicalSummary(in.readString());
+      emu.setNutrientSummary(in.readString());
+      emu.setGeomorphologyBase(in.readString());
+      emu.setGeomorphologyFeatures(in.readString());
+      emus[i] = emu;
+    }
+
+    final int columnCount = in.readCount();
+    final List<WaterColumn> columns = new ArrayList<>(columnCount);
+    for (int c = 0; c < columnCount; c++){
+      final WaterColumn column = new WaterColumn();
+      Point location = null;
+      if ((in.readVarint() & 1) != 0){
+        final double x = in.readSignedVarint() / LOCATION_SCALE;
+        final double y = in.readSignedVarint() / LOCATION_SCALE;
+        location = new Point(x, y);
+      }
+      column.setLocation(location);
+      final int observationCount = in.readCount();
+      for (int o = 0; o < observationCount; o++){
+        final int index = in.readVarint();
+        if (index >= emus.length){
+          throw new IOException("EMU index " + index + " is outside the dictionary");
+        }
+        final EMUObservation observation = new EMUObservation();
+        observation.setEmu(emus[index]);
+        observation.setLocation(location);
+        observation.setTop((int) in.readSignedVarint());
+        observation.setThickness((int) in.readSignedVarint());
+        final Double[] values = readValues(in, encoding, 6);
+        observation.setTemperature(values[0]);
+        observation.setSalinity(values[1]);
+        observation.setOxygen(values[2]);
+        observation.setPhosphate(values[3]);
+        observation.setSilicate(values[4]);
+        observation.setNitrate(values[5]);
+        column.addObservation(observation);
+      }
+      columns.add(column);
+    }
+    return columns;
+  }
+
+  /**
+   * Encode the measurements in a water profile
+   * @param profile - WaterProfile
+   * @return byte[]
+   */
+  @NonNull public byte[] encodeWaterProfile(@NonNull final WaterProfile profile){
+    final Output out = header(TYPE_WATER_PROFILE);
+    final Collection<Measurement> measurements = profile.getMeasurements();
+    out.writeVarint(measurements.size());
+    for (final Measurement measurement : measurements){
+      out.writeVarint(measurement.getEmu());
+      writeValues(out, measurement.getDepth(), measurement.getTemperature(), measurement.getSalinity(),
+          measurement.getDissolvedOxygen(), measurement.getSilicate(), measurement.getPhosphate(), measurement.getNitrate());
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode a water profile
+   * @param bytes - byte[] produced by encodeWaterProfile
+   * @return WaterProfile
+   * @throws IOException if the bytes aren't a supported water profile payload
+   */
+  @NonNull public static WaterProfile decodeWaterProfile(@NonNull final byte[] bytes) throws IOException {
+    final Input in = new Input(bytes);
+    final ValueEncoding encoding = readHeader(in, TYPE_WATER_PROFILE);
+    final WaterProfile profile = new WaterProfile();
+    final int count = in.readCount();
+    for (int i = 0; i < count; i++){
+      final Measurement measurement = new Measurement();
+      measurement.setEmu(in.readVarint());
+      final Double[] values = readValues(in, encoding, 7);
+      if (values[0] == null){
+        throw new IOException("Measurement " + i + " has no depth");
+      }
+      measurement.setDepth(values[0]);
+      measurement.setTemperature(values[1]);
+      measurement.setSalinity(values[2]);
+      measurement.setDissolvedOxygen(values[3]);
+      measurement.setSilicate(values[4]);
+      measurement.setPhosphate(values[5]);
+      measurement.setNitrate(values[6]);
+      profile.addMeasurement(measurement);
+    }
+    return profile;
+  }
+
+  /**
+   * Encode EMU summary statistics
+   * @param stats - Collection<EMUStat>
+   * @return byte[]
+   */
+  @NonNull public byte[] encodeEmuStats(@NonNull final Collection<EMUStat> stats){
+    final Output out = header(TYPE_EMU_STATS);
+    out.writeVarint(stats.size());
+    for (final EMUStat stat : stats){
+      out.writeVarint(stat.getEmu_name());
+      writeValues(out,
+          stat.getTemp_min(), stat.getTemp_max(), stat.getTemp_mean(),
+          stat.getSalinity_min(), stat.getSalinity_max(), stat.getSalinity_mean(),
+          stat.getDisso2_min(), stat.getDisso2_max(), stat.getDisso2_mean(),
+          stat.getPhosphate_min(), stat.getPhosphate_max(), stat.getPhosphate_mean(),
+          stat.getSilicate_min(), stat.getSilicate_max(), stat.getSilicate_mean(),
+          stat.getNitrate_min(), stat.getNitrate_max(), stat.getNitrate_mean());
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode EMU summary statistics
+   * @param bytes - byte[] produced by encodeEmuStats
+   * @return List<EMUStat>
+   * @throws IOException if the bytes aren't a supported statistics payload
+   */
+  @NonNull public static List<EMUStat> decodeEmuStats(@NonNull final byte[] bytes) throws IOException {
+    final Input in = new Input(bytes);
+    final ValueEncoding encoding = readHeader(in, TYPE_EMU_STATS);
+    final int count = in.readCount();
+    final List<EMUStat> stats = new ArrayList<>(count);
+    for (int i = 0; i < count; i++){
+      final EMUStat stat = new EMUStat();
+      stat.setEmu_name(in.readVarint());
+      final Double[] v = readValues(in, encoding, 18);
+      stat.setTemp_min(v[0]);
+      stat.setTemp_max(v[1]);
+      stat.setTemp_mean(v[2]);
+      stat.setSalinity_min(v[3]);
+      stat.setSalinity_max(v[4]);
+      stat.setSalinity_mean(v[5]);
+      stat.setDisso2_min(v[6]);
+      stat.setDisso2_max(v[7]);
+      stat.setDisso2_mean(v[8]);
+      stat.setPhosphate_min(v[9]);
+      stat.setPhosphate_max(v[10]);
+      stat.setPhosphate_mean(v[11]);
+      stat.setSilicate_min(v[12]);
+      stat.setSilicate_max(v[13]);
+      stat.setSilicate_mean(v[14]);
+      stat.setNitrate_min(v[15]);
+      stat.setNitrate_max(v[16]);
+      stat.setNitrate_mean(v[17]);
+      stats.add(stat);
+    }
+    return stats;
+  }
+
+  private Output header(final int type){
+    final Output out = new Output();
+    out.writeBytes(MAGIC);
+    out.writeVarint(VERSION);
+    out.writeVarint(type);
+    out.writeVarint(mEncoding.ordinal());
+    return out;
+  }
+
+  private static ValueEncoding readHeader(final Input in, final int expectedType) throws IOException {
+    for (final byte b : MAGIC){
+      if (in.readByte() != b){
+        throw new IOException("Not an EMU payload");
+      }
+    }
+    final int version = in.readVarint();
+    if (version < 1 || version > VERSION){
+      throw new IOException("Unsupported EMU payload version " + version);
+    }
+    final int type = in.readVarint();
+    if (type != expectedType){
+      throw new IOException("Expected payload type " + expectedType + " but found " + type);
+    }
+    final int encoding = in.readVarint();
+    if (encoding >= ValueEncoding.values().length){
+      throw new IOException("Unknown value encoding " + encoding);
+    }
+    return ValueEncoding.values()[encoding];
+  }
+
+  /**
+   * Write a presence mask followed by the non null values
+   */
+  private void writeValues(final Output out, final Double... values){
+    int mask = 0;
+    for (int i = 0; i < values.length; i++){
+      if (values[i] != null){
+        mask |= 1 << i;
+      }
+    }
+    out.writeVarint(mask);
+    for (final Double value : values){
+      if (value == null){
+        continue;
+      }
+      if (mEncoding == ValueEncoding.QUANTIZED){
+        out.writeSignedVarint(Math.round(value * QUANTIZED_SCALE));
+      }else{
+        out.writeInt(Float.floatToIntBits(value.floatValue()));
+      }
+    }
+  }
+
+  private static Double[] readValues(final Input in, final ValueEncoding encoding, final int count) throws IOException {
+    final int mask = in.readVarint();
+    final Double[] values = new Double[count];
+    for (int i = 0; i < count; i++){
+      if ((mask & (1 << i)) == 0){
+        continue;
+      }
+      if (encoding == ValueEncoding.QUANTIZED){
+        values[i] = in.readSignedVarint() / QUANTIZED_SCALE;
+      }else{
+        values[i] = (double) Float.intBitsToFloat(in.readInt());
+      }
+    }
+    return values;
+  }
+
+  /**
+   * A growable byte buffer with varint support
+   */
+  private static final class Output {
+    private byte[] mBuffer = new byte[256];
+    private int mSize = 0;
+
+    private void ensure(final int extra){
+      if (mSize + extra > mBuffer.length){
+        mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + extra));
+      }
+    }
+
+    void writeByte(final int b){
+      ensure(1);
+      mBuffer[mSize++] = (byte) b;
+    }
+
+    void writeBytes(final byte[] bytes){
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+      mSize += bytes.length;
+    }
+
+    void writeVarint(final long value){
+      long v = value;
+      while ((v & ~0x7FL) != 0){
+        writeByte((int) ((v & 0x7F) | 0x80));
+        v >>>= 7;
+      }
+      writeByte((int) v);
+    }
+
+    void writeSignedVarint(final long value){
+      writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void writeInt(final int value){
+      writeByte(value >>> 24);
+      writeByte(value >>> 16);
+      writeByte(value >>> 8);
+      writeByte(value);
+    }
+
+    /**
+     * Write a length prefixed UTF-8 string.  A length of 0 means
+     * null and other lengths are one more than the byte count.
+     */
+    void writeString(@Nullable final String value){
+      if (value == null){
+        writeVarint(0);
+        return;
+      }
+      final byte[] bytes = value.getBytes(UTF_8);
+      writeVarint(bytes.length + 1);
+      writeBytes(bytes);
+    }
+
+    byte[] toByteArray(){
+      return Arrays.copyOf(mBuffer, mSize);
+    }
+  }
+
+  /**
+   * Reads values written by Output, failing
+   * cleanly on truncated or corrupt input
+   */
+  private static final class Input {
+    private final byte[] mBytes;
+    private int mPosition = 0;
+
+    Input(final byte[] bytes){
+      mBytes = bytes;
+    }
+
+    byte readByte() throws IOException {
+      if (mPosition >= mBytes.length){
+        throw new IOException("Unexpected end of EMU payload");
+      }
+      return mBytes[mPosition++];
+    }
+
+    long readLong() throws IOException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7){
+        final byte b = readByte();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0){
+          return result;
+        }
+      }
+      throw new IOException("Malformed varint");
+    }
+
+    int readVarint() throws IOException {
+      final long value = readLong();
+      if (value < 0 || value > Integer.MAX_VALUE){
+        throw new IOException("Varint out of range");
+      }
+      return (int) value;
+    }
+
+    /**
+     * Read a count and check it could fit in the remaining bytes,
+     * so corrupt input can't trigger a huge allocation
+     */
+    int readCount() throws IOException {
+      final int count = readVarint();
+      if (count > mBytes.length - mPosition){
+        throw new IOException("Count " + count + " exceeds payload size");
+      }
+      return count;
+    }
+
+    long readSignedVarint() throws IOException {
+      final long value = readLong();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readInt() throws IOException {
+      return (readByte() & 0xFF) << 24 | (readByte() & 0xFF) << 16 | (readByte() & 0xFF) << 8 | (readByte() & 0xFF);
+    }
+
+    @Nullable String readString() throws IOException {
+      final int length = readVarint();
+      if (length == 0){
+        return null;
+      }
+      final int byteCount = length - 1;
+      if (byteCount > mBytes.length - mPosition){
+        throw new IOException("String exceeds payload size");
+      }
+      final String value = new String(mBytes, mPosition, byteCount, UTF_8);
+      mPosition += byteCount;
+      return value;
+    }
+  }
+}
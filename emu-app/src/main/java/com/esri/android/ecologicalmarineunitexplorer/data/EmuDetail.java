@@ -0,0 +1,165 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * The values drawn in the candlestick charts for one EMU at one
+ * location.  For each property the candle spans the EMU's range
+ * across the ocean, its shadow spans the range of every EMU and the
+ * marker shows the value observed at the location.  A detail is
+ * immutable, so it can be built on a background thread and
+ * handed to the UI as is.
+ */
+public final class EmuDetail {
+
+  // Properties in the order the charts are shown
+  public static final int TEMPERATURE = 0;
+  public static final int SALINITY = 1;
+  public static final int OXYGEN = 2;
+  public static final int NITRATE = 3;
+  public static final int PHOSPHATE = 4;
+  public static final int SILICATE = 5;
+  public static final int PROPERTY_COUNT = 6;
+
+  /**
+   * The values drawn for a single property
+   */
+  public static final class Candle {
+    private final float mOceanLow;
+    private final float mOceanHigh;
+    private final float mEmuLow;
+    private final float mEmuHigh;
+    private final float mLocationValue;
+
+    Candle(final float oceanLow, final float oceanHigh, final float emuLow, final float emuHigh, final float locationValue){
+      mOceanLow = oceanLow;
+      mOceanHigh = oceanHigh;
+      mEmuLow = emuLow;
+      mEmuHigh = emuHigh;
+      mLocationValue = locationValue;
+    }
+
+    public float getOceanLow() {
+      return mOceanLow;
+    }
+
+    public float getOceanHigh() {
+      return mOceanHigh;
+    }
+
+    public float getEmuLow() {
+      return mEmuLow;
+    }
+
+    public float getEmuHigh() {
+      return mEmuHigh;
+    }
+
+    public float getLocationValue() {
+      return mLocationValue;
+    }
+  }
+
+  private final int mEmuName;
+  private final Candle[] mCandles;
+  private final double[] mLocationValues;
+
+  private EmuDetail(final int emuName, final Candle[] candles, final double[] locationValues){
+    mEmuName = emuName;
+    mCandles = candles;
+    mLocationValues = locationValues;
+  }
+
+  /**
+   * Build the detail for an EMU observed at a location
+   * @param observation - EMUObservation at the location
+   * @param stat - EMUStat for the observation's EMU
+   * @param summary - EmuSummary providing the range of every EMU
+   * @return EmuDetail
+   */
+  @NonNull public static EmuDetail create(@NonNull final EMUObservation observation, @NonNull final EMUStat stat,
+      @NonNull final EmuSummary summary){
+    final Candle[] candles = new Candle[PROPERTY_COUNT];
+    final double[] values = new double[PROPERTY_COUNT];
+    candles[TEMPERATURE] = candle(summary.getMinTemperature(), summary.getMaxTemperature(),
+        stat.getTemp_min(), stat.getTemp_max(), stat.getTemp_mean(), observation.getTemperature());
+    candles[SALINITY] = candle(summary.getMinSalinity(), summary.getMaxSalinity(),
+        stat.getSalinity_min(), stat.getSalinity_max(), stat.getSalinity_mean(), observation.getSalinity());
+    candles[OXYGEN] = candle(summary.getMinOxygen(), summary.getMaxOxygen(),
+        stat.getDisso2_min(), stat.getDisso2_max(), stat.getDisso2_mean(), observation.getOxygen());
+    candles[NITRATE] = candle(summary.getMinNitrate(), summary.getMaxNitrate(),
+        stat.getNitrate_min(), stat.getNitrate_max(), stat.getNitrate_mean(), observation.getNitrate());
+    candles[PHOSPHATE] = candle(summary.getMinPhosphate(), summary.getMaxPhosphate(),
+        stat.getPhosphate_min(), stat.getPhosphate_max(), stat.getPhosphate_mean(), observation.getPhosphate());
+    candles[SILICATE] = candle(summary.getMinSilicate(), summary.getMaxSilicate(),
+        stat.getSilicate_min(), stat.getSilicate_max(), stat.getSilicate_mean(), observation.getSilicate());
+    values[TEMPERATURE] = valueOf(observation.getTemperature());
+    values[SALINITY] = valueOf(observation.getSalinity());
+    values[OXYGEN] = valueOf(observation.getOxygen());
+    values[NITRATE] = valueOf(observation.getNitrate());
+    values[PHOSPHATE] = valueOf(observation.getPhosphate());
+    values[SILICATE] = valueOf(observation.getSilicate());
+    return new EmuDetail(stat.getEmu_name(), candles, values);
+  }
+
+  public int getEmuName() {
+    return mEmuName;
+  }
+
+  /**
+   * Return the candle for a property
+   * @param property - int, one of the property constants
+   * @return Candle or null if the location or EMU has no value for the property
+   */
+  @Nullable public Candle getCandle(final int property){
+    return mCandles[property];
+  }
+
+  /**
+   * Return the value observed at the location for a property
+   * @param property - int, one of the property constants
+   * @return double, 0 if there's no value
+   */
+  public double getLocationValue(final int property){
+    return mLocationValues[property];
+  }
+
+  private static Candle candle(final Double oceanLow, final Double oceanHigh, final Double emuLow, final Double emuHigh,
+      final Double emuMean, final Double locationValue){
+    if (oceanLow == null || oceanHigh == null || emuLow == null || emuHigh == null || emuMean == null || locationValue == null){
+      return null;
+    }
+    return new Candle(oceanLow.floatValue(), oceanHigh.floatValue(), emuLow.floatValue(), emuHigh.floatValue(),
+        locationValue.floatValue());
+  }
+
+  private static double valueOf(final Double value){
+    return value != null ? value : 0d;
+  }
+}
@@ -0,0 +1,179 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the EMU summary statistics table along
+ * with the overall range of each property, computed once when the
+ * snapshot is built.  A snapshot can be shared between threads
+ * without locking provided the EMUStats it holds aren't modified
+ * after it has been built.
+ */
+public final class EmuSummary {
+
+  private final Map<Integer, EMUStat> mStats;
+
+  private final Double mMinTemperature;
+  private final Double mMaxTemperature;
+  private final Double mMinSalinity;
+  private final Double mMaxSalinity;
+  private final Double mMinOxygen;
+  private final Double mMaxOxygen;
+  private final Double mMinPhosphate;
+  private final Double mMaxPhosphate;
+  private final Double mMinSilicate;
+  private final Double mMaxSilicate;
+  private final Double mMinNitrate;
+  private final Double mMaxNitrate;
+
+  /**
+   * @param stats - Collection<EMUStat>, one per EMU
+   */
+  public EmuSummary(@NonNull final Collection<EMUStat> stats){
+    final Map<Integer, EMUStat> byEmu = new HashMap<>();
+    Double minTemperature = null, maxTemperature = null;
+    Double minSalinity = null, maxSalinity = null;
+    Double minOxygen = null, maxOxygen = null;
+    Double minPhosphate = null, maxPhosphate = null;
+    Double minSilicate = null, maxSilicate = null;
+    Double minNitrate = null, maxNitrate = null;
+    for (final EMUStat stat : stats){
+      byEmu.put(stat.getEmu_name(), stat);
+      minTemperature = min(minTemperature, stat.getTemp_min());
+      maxTemperature = max(maxTemperature, stat.getTemp_max());
+      minSalinity = min(minSalinity, stat.getSalinity_min());
+      maxSalinity = max(maxSalinity, stat.getSalinity_max());
+      minOxygen = min(minOxygen, stat.getDisso2_min());
+      maxOxygen = max(maxOxygen, stat.getDisso2_max());
+      minPhosphate = min(minPhosphate, stat.getPhosphate_min());
+      maxPhosphate = max(maxPhosphate, stat.getPhosphate_max());
+      minSilicate = min(minSilicate, stat.getSilicate_min());
+      maxSilicate = max(maxSilicate, stat.getSilicate_max());
+      minNitrate = min(minNitrate, stat.getNitrate_min());
+      maxNitrate = max(maxNitrate, stat.getNitrate_max());
+    }
+    mStats = Collections.unmodifiableMap(byEmu);
+    mMinTemperature = minTemperature;
+    mMaxTemperature = maxTemperature;
+    mMinSalinity = minSalinity;
+    mMaxSalinity = maxSalinity;
+    mMinOxygen = minOxygen;
+    mMaxOxygen = maxOxygen;
+    mMinPhosphate = minPhosphate;
+    mMaxPhosphate = maxPhosphate;
+    mMinSilicate = minSilicate;
+    mMaxSilicate = maxSilicate;
+    mMinNitrate = minNitrate;
+    mMaxNitrate = maxNitrate;
+  }
+
+  /**
+   * Return the statistics for an EMU
+   * @param emuName - int representing an EMU name
+   * @return EMUStat or null if the EMU has no statistics
+   */
+  @Nullable public EMUStat getStat(final int emuName){
+    return mStats.get(emuName);
+  }
+
+  /**
+   * Return the number of EMUs with statistics
+   * @return int
+   */
+  public int size(){
+    return mStats.size();
+  }
+
+  public Double getMinTemperature() {
+    return mMinTemperature;
+  }
+
+  public Double getMaxTemperature() {
+    return mMaxTemperature;
+  }
+
+  public Double getMinSalinity() {
+    return mMinSalinity;
+  }
+
+  public Double getMaxSalinity() {
+    return mMaxSalinity;
+  }
+
+  public Double getMinOxygen() {
+    return mMinOxygen;
+  }
+
+  public Double getMaxOxygen() {
+    return mMaxOxygen;
+  }
+
+  public Double getMinPhosphate() {
+    return mMinPhosphate;
+  }
+
+  public Double getMaxPhosphate() {
+    return mMaxPhosphate;
+  }
+
+  public Double getMinSilicate() {
+    return mMinSilicate;
+  }
+
+  public Double getMaxSilicate() {
+    return mMaxSilicate;
+  }
+
+  public Double getMinNitrate() {
+    return mMinNitrate;
+  }
+
+  public Double getMaxNitrate() {
+    return mMaxNitrate;
+  }
+
+  // Missing values don't take part in the range
+  private static Double min(final Double current, final Double value){
+    if (value == null){
+      return current;
+    }
+    return current == null || value < current ? value : current;
+  }
+
+  private static Double max(final Double current, final Double value){
+    if (value == null){
+      return current;
+    }
+    return current == null || value > current ? value : current;
+  }
+}
@@ -0,0 +1,117 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields, and whether the geometry, a query asks the service
+ * for.  Each use of the mesh and summary services has its own
+ * projection so only the attributes that use decodes are sent.
+ */
+public final class FieldProjection {
+
+  // Quotes around the field name, the colon and the separating comma
+  private final static int ATTRIBUTE_OVERHEAD = 4;
+
+  private final String mName;
+  private final List<String> mOutFields;
+  private final boolean mReturnGeometry;
+
+  /**
+   * @param name - String naming the use, e.g. "column summary"
+   * @param outFields - Collection<String> of field names to return
+   * @param returnGeometry - boolean, false if the geometry isn't used
+   */
+  public FieldProjection(@NonNull final String name, @NonNull final Collection<String> outFields, final boolean returnGeometry){
+    mName = name;
+    mOutFields = Collections.unmodifiableList(new ArrayList<>(outFields));
+    mReturnGeometry = returnGeometry;
+  }
+
+  @NonNull public String getName() {
+    return mName;
+  }
+
+  @NonNull public List<String> getOutFields() {
+    return mOutFields;
+  }
+
+  public boolean returnsGeometry() {
+    return mReturnGeometry;
+  }
+
+  /**
+   * Estimate the encoded size of one feature returned with this projection.
+   * Fields missing from the schema aren't counted.
+   * @param valueWidths - Map<String,Integer> of the typical encoded value width of every field in the table
+   * @param geometryBytes - int, the typical encoded size of a feature's geometry
+   * @return int representing bytes
+   */
+  public int estimateFeatureBytes(@NonNull final Map<String, Integer> valueWidths, final int geometryBytes){
+    int bytes = mReturnGeometry ? geometryBytes : 0;
+    for (final String field : mOutFields){
+      final Integer width = valueWidths.get(field);
+      if (width != null){
+        bytes = bytes + attributeBytes(field, width);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Estimate the encoded size of one feature returned with every
+   * field and its geometry, i.e. without a projection
+   * @param valueWidths - Map<String,Integer> of the typical encoded value width of every field in the table
+   * @param geometryBytes - int, the typical encoded size of a feature's geometry
+   * @return int representing bytes
+   */
+  public static int estimateAllFieldsBytes(@NonNull final Map<String, Integer> valueWidths, final int geometryBytes){
+    int bytes = geometryBytes;
+    for (final Map.Entry<String, Integer> entry : valueWidths.entrySet()){
+      bytes = bytes + attributeBytes(entry.getKey(), entry.getValue());
+    }
+    return bytes;
+  }
+
+  private static int attributeBytes(final String field, final int valueWidth){
+    return field.length() + valueWidth + ATTRIBUTE_OVERHEAD;
+  }
+
+  @Override public String toString() {
+    return "FieldProjection{" +
+        "name=" + mName +
+        ", outFields=" + mOutFields +
+        ", returnGeometry=" + mReturnGeometry +
+        '}';
+  }
+}
@@ -0,0 +1,289 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory index of marine place names (seas, gulfs, straits)
+ * and research stations bundled with the app.  Every word of a
+ * name, and every alias, is a key in a sorted array so prefix
+ * lookups are a binary search followed by a short scan.
+ *
+ * The bundled file has one place per line in the form
+ * name|latitude|longitude|type|alias;alias
+ * Lines starting with # are ignored.
+ */
+public class Gazetteer {
+
+  /**
+   * A named location in WGS84 coordinates
+   */
+  public static class Place {
+    private final String mName;
+    private final double mLatitude;
+    private final double mLongitude;
+    private final String mType;
+    private final String mNormalizedName;
+
+    public Place(@NonNull final String name, final double latitude, final double longitude, @NonNull final String type){
+      mName = name;
+      mLatitude = latitude;
+      mLongitude = longitude;
+      mType = type;
+      mNormalizedName = normalize(name);
+    }
+
+    @NonNull public String getName() {
+      return mName;
+    }
+
+    public double getLatitude() {
+      return mLatitude;
+    }
+
+    public double getLongitude() {
+      return mLongitude;
+    }
+
+    @NonNull public String getType() {
+      return mType;
+    }
+
+    @Override public String toString() {
+      return "Place{" +
+          "name=" + mName +
+          ", latitude=" + mLatitude +
+          ", longitude=" + mLongitude +
+          ", type=" + mType +
+          '}';
+    }
+  }
+
+  // Words that don't make useful prefixes on their own
+  private static final Set<String> STOP_WORDS = new LinkedHashSet<>(Arrays.asList("of", "the", "de", "el"));
+
+  private final String[] mKeys;
+  private final Place[] mPlacesByKey;
+  private final Map<String, Place> mPlacesByName = new HashMap<>();
+  private final List<Place> mPlaces;
+
+  private Gazetteer(final List<Place> places, final List<List<String>> aliases){
+    mPlaces = Collections.unmodifiableList(new ArrayList<>(places));
+    final List<String> keys = new ArrayList<>();
+    final List<Place> keyPlaces = new ArrayList<>();
+    for (int i = 0; i < places.size(); i++){
+      final Place place = places.get(i);
+      final String name = place.mNormalizedName;
+      mPlacesByName.put(name, place);
+      addKeys(name, place, keys, keyPlaces);
+      for (final String alias : aliases.get(i)){
+        final String normalizedAlias = normalize(alias);
+        if (!mPlacesByName.containsKey(normalizedAlias)){
+          mPlacesByName.put(normalizedAlias, place);
+        }
+        addKeys(normalizedAlias, place, keys, keyPlaces);
+      }
+    }
+    final Integer[] order = new Integer[keys.size()];
+    for (int i = 0; i < order.length; i++){
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare(final Integer a, final Integer b) {
+        return keys.get(a).compareTo(keys.get(b));
+      }
+    });
+    mKeys = new String[order.length];
+    mPlacesByKey = new Place[order.length];
+    for (int i = 0; i < order.length; i++){
+      mKeys[i] = keys.get(order[i]);
+      mPlacesByKey[i] = keyPlaces.get(order[i]);
+    }
+  }
+
+  /**
+   * Build a gazetteer from the bundled text format
+   * @param reader - Reader over the gazetteer file
+   * @return Gazetteer
+   * @throws IOException if the reader can't be read
+   */
+  public static Gazetteer read(@NonNull final Reader reader) throws IOException {
+    final List<Place> places = new ArrayList<>();
+    final List<List<String>> aliases = new ArrayList<>();
+    final BufferedReader bufferedReader = new BufferedReader(reader);
+    try {
+      String line;
+      while ((line = bufferedReader.readLine()) != null){
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")){
+          continue;
+        }
+        final String[] parts = line.split("\\|");
+        if (parts.length < 4){
+          continue;
+        }
+        try {
+          places.add(new Place(parts[0].trim(), Double.parseDouble(parts[1].trim()),
+              Double.parseDouble(parts[2].trim()), parts[3].trim()));
+        } catch (final NumberFormatException e){
+          continue;
+        }
+        final List<String> placeAliases = new ArrayList<>();
+        if (parts.length > 4){
+          for (final String alias : parts[4].split(";")){
+            if (!alias.trim().isEmpty()){
+              placeAliases.add(alias.trim());
+            }
+          }
+        }
+        aliases.add(placeAliases);
+      }
+    } finally {
+      bufferedReader.close();
+    }
+    return new Gazetteer(places, aliases);
+  }
+
+  /**
+   * Return the place whose name or alias matches the query, ignoring
+   * case, punctuation and extra whitespace.
+   * @param query - String
+   * @return Place or null if there's no exact match
+   */
+  @Nullable public Place find(@NonNull final String query){
+    return mPlacesByName.get(normalize(query));
+  }
+
+  /**
+   * Return up to limit places with a name, alias or word in
+   * either beginning with the prefix.  Places whose name begins
+   * with the prefix are listed first.
+   * @param prefix - String typed by the user
+   * @param limit - maximum number of places to return
+   * @return List<Place>, empty if nothing matches
+   */
+  @NonNull public List<Place> suggest(@NonNull final String prefix, final int limit){
+    final String key = normalize(prefix);
+    if (key.isEmpty() || limit <= 0){
+      return Collections.emptyList();
+    }
+    final Set<Place> leading = new LinkedHashSet<>();
+    final Set<Place> others = new LinkedHashSet<>();
+    for (int i = lowerBound(key); i < mKeys.length && mKeys[i].startsWith(key); i++){
+      final Place place = mPlacesByKey[i];
+      if (place.mNormalizedName.startsWith(key)){
+        leading.add(place);
+      }else{
+        others.add(place);
+      }
+    }
+    final List<Place> results = new ArrayList<>(leading);
+    for (final Place place : others){
+      if (!leading.contains(place)){
+        results.add(place);
+      }
+    }
+    return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+  }
+
+  /**
+   * Return the number of places in the gazetteer
+   * @return int
+   */
+  public int size(){
+    return mPlaces.size();
+  }
+
+  /**
+   * Return every place of the given type, e.g. "station"
+   * @param type - String
+   * @return List<Place>, in file order
+   */
+  @NonNull public List<Place> getPlacesOfType(@NonNull final String type){
+    final List<Place> places = new ArrayList<>();
+    for (final Place place : mPlaces){
+      if (place.getType().equals(type)){
+        places.add(place);
+      }
+    }
+    return places;
+  }
+
+  /**
+   * Lower case the text, replace punctuation with spaces
+   * and collapse whitespace.
+   * @param text - String
+   * @return String
+   */
+  static String normalize(@NonNull final String text){
+    return text.toLowerCase(Locale.US).replaceAll("[^a-z0-9]+", " ").trim();
+  }
+
+  private static void addKeys(final String name, final Place place, final List<String> keys, final List<Place> keyPlaces){
+    keys.add(name);
+    keyPlaces.add(place);
+    int start = name.indexOf(' ');
+    while (start >= 0){
+      final String suffix = name.substring(start + 1);
+      final int end = suffix.indexOf(' ');
+      final String word = end < 0 ? suffix : suffix.substring(0, end);
+      if (!STOP_WORDS.contains(word)){
+        keys.add(suffix);
+        keyPlaces.add(place);
+      }
+      start = name.indexOf(' ', start + 1);
+    }
+  }
+
+  private int lowerBound(final String key){
+    int low = 0;
+    int high = mKeys.length;
+    while (low < high){
+      final int mid = (low + high) >>> 1;
+      if (mKeys[mid].compareTo(key) < 0){
+        low = mid + 1;
+      }else{
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
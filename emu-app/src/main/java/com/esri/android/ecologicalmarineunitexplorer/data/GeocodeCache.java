@@ -0,0 +1,152 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A small LRU cache of geocoding results keyed on a normalized
+ * version of the search text.  Concurrent requests for the same
+ * normalized query share a single call to the underlying Locator.
+ * @param <T> the type of result returned by the Locator
+ */
+public class GeocodeCache<T> {
+
+  /**
+   * Anything capable of turning a search string into results.
+   */
+  public interface Locator<T> {
+    void geocode(String query, Callback<T> callback);
+  }
+
+  /**
+   * Receives results for a query.  A null list
+   * indicates the query failed.
+   */
+  public interface Callback<T> {
+    void onResults(List<T> results);
+  }
+
+  private final Locator<T> mLocator;
+
+  private final Map<String, List<T>> mResults;
+
+  private final Map<String, List<Callback<T>>> mInFlight = new HashMap<>();
+
+  public GeocodeCache(@NonNull final Locator<T> locator, final int capacity){
+    mLocator = locator;
+    mResults = new LinkedHashMap<String, List<T>>(capacity, 0.75f, true){
+      @Override protected boolean removeEldestEntry(final Map.Entry<String, List<T>> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Return cached results for the query or ask the Locator for them.
+   * If an identical query is already running, the callback is queued
+   * and notified when that query completes.
+   * @param query - String entered by the user
+   * @param callback - Callback notified with the results
+   */
+  public void find(@NonNull final String query, @NonNull final Callback<T> callback){
+    final String key = normalize(query);
+    final List<T> cached;
+    synchronized (this){
+      cached = mResults.get(key);
+      if (cached == null){
+        final List<Callback<T>> waiting = mInFlight.get(key);
+        if (waiting != null){
+          waiting.add(callback);
+          return;
+        }
+        final List<Callback<T>> callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        mInFlight.put(key, callbacks);
+      }
+    }
+    if (cached != null){
+      callback.onResults(cached);
+      return;
+    }
+    mLocator.geocode(query, new Callback<T>() {
+      @Override public void onResults(final List<T> results) {
+        complete(key, results);
+      }
+    });
+  }
+
+  /**
+   * Remove all cached results.  Queries already
+   * running are not affected.
+   */
+  public synchronized void clear(){
+    mResults.clear();
+  }
+
+  /**
+   * Return the number of cached queries
+   * @return int
+   */
+  public synchronized int size(){
+    return mResults.size();
+  }
+
+  /**
+   * Lower case the query and collapse any runs
+   * of whitespace so "  Gulf of  Maine" and "gulf of maine"
+   * share a cache entry.
+   * @param query - String
+   * @return String
+   */
+  public static String normalize(@NonNull final String query){
+    return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.US);
+  }
+
+  private void complete(final String key, final List<T> results){
+    final List<T> shared = results == null ? null : Collections.unmodifiableList(new ArrayList<>(results));
+    final List<Callback<T>> callbacks;
+    synchronized (this){
+      // Failures aren't cached so the next search tries again
+      if (shared != null){
+        mResults.put(key, shared);
+      }
+      callbacks = mInFlight.remove(key);
+    }
+    if (callbacks != null){
+      for (final Callback<T> callback : callbacks){
+        callback.onResults(shared);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+/**
+ * Tracks the most recent request of one kind, such as the location
+ * summary for the last place tapped, so a presenter can ignore results
+ * for requests the user has since replaced or cancelled.  Every call
+ * to start supersedes the requests before it.
+ */
+public class LatestRequest {
+
+  private int mLatest = 0;
+  private boolean mPending = false;
+
+  /**
+   * Begin a new request, superseding any still running
+   * @return int identifying the request
+   */
+  public synchronized int start(){
+    mLatest = mLatest + 1;
+    mPending = true;
+    return mLatest;
+  }
+
+  /**
+   * Mark a request as done if it's still the latest one
+   * @param request - int returned by start
+   * @return boolean, true if the result should be used and
+   * false if the request was superseded or cancelled
+   */
+  public synchronized boolean finish(final int request){
+    if (request != mLatest || !mPending){
+      return false;
+    }
+    mPending = false;
+    return true;
+  }
+
+  /**
+   * Return true if the request is the latest one and hasn't
+   * finished or been cancelled.  Use this for requests that
+   * deliver results in several parts.
+   * @param request - int returned by start
+   * @return boolean
+   */
+  public synchronized boolean isCurrent(final int request){
+    return request == mLatest && mPending;
+  }
+
+  /**
+   * Ignore the results of whatever request is running
+   */
+  public synchronized void cancel(){
+    mPending = false;
+  }
+
+  /**
+   * Return true if the latest request is still running
+   * @return boolean
+   */
+  public synchronized boolean isPending(){
+    return mPending;
+  }
+}
@@ -0,0 +1,73 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+/**
+ * Holds a value that is expensive to create and may never be needed.
+ * The value is created by the first call to get, on whichever thread
+ * makes it, and every later call returns the same instance.
+ * Concurrent first calls create the value only once.
+ * @param <T> the type of value held
+ */
+public abstract class LazyHolder<T> {
+
+  private volatile T mValue = null;
+
+  /**
+   * Create the value.  Called at most once.
+   * @return T, must not be null
+   */
+  protected abstract T create();
+
+  /**
+   * Return the value, creating it on first use
+   * @return T
+   */
+  public T get(){
+    T value = mValue;
+    if (value == null){
+      synchronized (this){
+        value = mValue;
+        if (value == null){
+          value = create();
+          if (value == null){
+            throw new IllegalStateException("LazyHolder can't hold null");
+          }
+          mValue = value;
+        }
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Return whether the value has been created
+   * @return boolean
+   */
+  public boolean isCreated(){
+    return mValue != null;
+  }
+}
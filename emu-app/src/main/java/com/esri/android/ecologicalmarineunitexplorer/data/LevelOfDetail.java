@@ -0,0 +1,96 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+/**
+ * Levels of detail used to draw EMU polygons.  Level 0 is the coarsest
+ * and is drawn when the whole ocean is in view; the last level is drawn
+ * at full resolution.  Each level has a range of map scales and the
+ * generalization tolerance used when its polygons are requested, which
+ * is roughly the ground size of a pixel at the level's largest scale.
+ */
+public final class LevelOfDetail {
+
+  // Scale at which each level stops being drawn as the user zooms in.
+  // The last level is drawn at every larger scale.
+  private static final double[] MAX_SCALES = { 40000000, 8000000, 0 };
+
+  private static final double[] TOLERANCE_METERS = { 10000, 2000, 0 };
+
+  private LevelOfDetail(){}
+
+  public static int getLevelCount(){
+    return MAX_SCALES.length;
+  }
+
+  /**
+   * Return the level to draw at the given map scale.  An unknown
+   * scale (0 or NaN) gets the coarsest level.
+   * @param scale - double, e.g. 25000000 for 1:25,000,000
+   * @return int
+   */
+  public static int forScale(final double scale){
+    if (!(scale > 0)){
+      return 0;
+    }
+    for (int level = 0; level < MAX_SCALES.length - 1; level++){
+      if (scale >= MAX_SCALES[level]){
+        return level;
+      }
+    }
+    return MAX_SCALES.length - 1;
+  }
+
+  /**
+   * Return the smallest scale (most zoomed out) at which the level is
+   * drawn, or 0 if there's no limit.  Matches Layer.setMinScale.
+   * @param level - int
+   * @return double
+   */
+  public static double getMinScale(final int level){
+    return level == 0 ? 0 : MAX_SCALES[level - 1];
+  }
+
+  /**
+   * Return the largest scale (most zoomed in) at which the level is
+   * drawn, or 0 if there's no limit.  Matches Layer.setMaxScale.
+   * @param level - int
+   * @return double
+   */
+  public static double getMaxScale(final int level){
+    return MAX_SCALES[level];
+  }
+
+  /**
+   * Return the maximum distance, in meters, a generalized polygon
+   * edge may stray from the original.  0 means full resolution.
+   * @param level - int
+   * @return double
+   */
+  public static double getToleranceMeters(final int level){
+    return TOLERANCE_METERS[level];
+  }
+}
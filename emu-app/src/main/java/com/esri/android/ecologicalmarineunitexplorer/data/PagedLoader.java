@@ -0,0 +1,168 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Retrieves a large query result one page at a time using offset and
+ * count (the resultOffset/resultRecordCount parameters of a feature
+ * service query).  Each page is handed to the listener as soon as it
+ * arrives and isn't retained, so memory stays bounded by the page size.
+ * Pages are requested one after another, each starting after the items
+ * already loaded, until the source says there are no more.  A service
+ * may return fewer items than were asked for, when its maxRecordCount
+ * is lower than the page size, so a short page doesn't end the result
+ * by itself.
+ * @param <T> the type of item in each page
+ */
+public class PagedLoader<T> {
+
+  /**
+   * Reported to the listener's onError when the page limit is reached
+   * while the source still has more items, so a partial result isn't
+   * mistaken for a complete one
+   */
+  public static class TruncatedException extends IOException {
+    public TruncatedException(final String message){
+      super(message);
+    }
+  }
+
+  /**
+   * Fetches a single page of items
+   */
+  public interface PageSource<T> {
+    void fetch(int offset, int count, PageCallback<T> callback);
+  }
+
+  /**
+   * Receives a single page from a PageSource
+   */
+  public interface PageCallback<T> {
+    /**
+     * @param items - List<T> in the page
+     * @param more - boolean, true if the source has items after these,
+     *             e.g. the query's exceededTransferLimit
+     */
+    void onPage(List<T> items, boolean more);
+    void onError(Exception e);
+  }
+
+  /**
+   * Receives pages as they arrive and is told when
+   * all pages have been loaded or loading failed.
+   */
+  public interface Listener<T> {
+    void onPage(List<T> items, int pageIndex);
+    void onComplete(int totalCount);
+    void onError(Exception e, int loadedCount);
+  }
+
+  private final PageSource<T> mSource;
+  private final int mPageSize;
+  private final int mMaxPages;
+  private final Listener<T> mListener;
+  private volatile boolean mCancelled = false;
+  // Pages arrive one at a time but not necessarily on the same thread
+  private volatile int mLoadedCount = 0;
+
+  /**
+   * @param source - PageSource used to fetch each page
+   * @param pageSize - number of items requested per page, the service may return fewer
+   * @param maxPages - upper limit on pages requested, guarding against a
+   *                 service that ignores the offset; reaching it while there
+   *                 are more items is reported as a TruncatedException
+   * @param listener - Listener notified of each page
+   */
+  public PagedLoader(@NonNull final PageSource<T> source, final int pageSize, final int maxPages, @NonNull final Listener<T> listener){
+    if (pageSize <= 0 || maxPages <= 0){
+      throw new IllegalArgumentException("Page size and page limit must be positive");
+    }
+    mSource = source;
+    mPageSize = pageSize;
+    mMaxPages = maxPages;
+    mListener = listener;
+  }
+
+  /**
+   * Request the first page
+   */
+  public void start(){
+    fetch(0, 0);
+  }
+
+  /**
+   * Stop requesting pages.  A page already requested
+   * is dropped when it arrives and no further callbacks are made.
+   */
+  public void cancel(){
+    mCancelled = true;
+  }
+
+  /**
+   * Return true if cancel has been called
+   * @return boolean
+   */
+  public boolean isCancelled(){
+    return mCancelled;
+  }
+
+  private void fetch(final int pageIndex, final int offset){
+    if (mCancelled){
+      return;
+    }
+    mSource.fetch(offset, mPageSize, new PageCallback<T>() {
+      @Override public void onPage(final List<T> items, final boolean more) {
+        if (mCancelled){
+          return;
+        }
+        mLoadedCount = mLoadedCount + items.size();
+        if (!items.isEmpty()){
+          mListener.onPage(items, pageIndex);
+        }
+        // An empty page can't move the offset on, whatever the source says
+        if (!more || items.isEmpty()){
+          mListener.onComplete(mLoadedCount);
+        }else if (pageIndex + 1 >= mMaxPages){
+          mListener.onError(new TruncatedException("Stopped after " + mMaxPages + " pages with more items to load"),
+              mLoadedCount);
+        }else{
+          fetch(pageIndex + 1, offset + items.size());
+        }
+      }
+
+      @Override public void onError(final Exception e) {
+        if (!mCancelled){
+          mListener.onError(e, mLoadedCount);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,291 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a feature service query response in the protocol buffer
+ * (f=pbf) format, FeatureCollectionPBuffer, as it's read from the
+ * stream.  Each feature's attributes are written into a single
+ * reusable Row of primitive values and handed to a RowDecoder, so no
+ * Feature or attribute map is created for each result.  Geometry and
+ * the other parts of the response the app doesn't use are skipped.
+ */
+public final class PbfFeatureReader {
+
+  // FeatureCollectionPBuffer
+  private static final int COLLECTION_QUERY_RESULT = 2;
+  // QueryResult
+  private static final int QUERY_FEATURE_RESULT = 1;
+  // FeatureResult
+  private static final int RESULT_EXCEEDED_TRANSFER_LIMIT = 9;
+  private static final int RESULT_FIELDS = 13;
+  private static final int RESULT_FEATURES = 15;
+  // Field
+  private static final int FIELD_NAME = 1;
+  // Feature
+  private static final int FEATURE_ATTRIBUTES = 1;
+  // Value
+  private static final int VALUE_STRING = 1;
+  private static final int VALUE_FLOAT = 2;
+  private static final int VALUE_DOUBLE = 3;
+  private static final int VALUE_SINT = 4;
+  private static final int VALUE_UINT = 5;
+  private static final int VALUE_INT64 = 6;
+  private static final int VALUE_UINT64 = 7;
+  private static final int VALUE_SINT64 = 8;
+  private static final int VALUE_BOOL = 9;
+
+  private PbfFeatureReader(){}
+
+  /**
+   * Builds a model object from the attributes of one feature.
+   * Decoders are shared between queries and shouldn't keep state.
+   */
+  public interface RowDecoder<T> {
+    T decode(Row row);
+  }
+
+  /**
+   * The attributes of the feature being decoded, looked up by field name.
+   * A row is reused for every feature in a response.
+   */
+  public static final class Row {
+    private final Map<String, Integer> mColumns = new HashMap<>();
+    private final double[] mNumbers;
+    private final String[] mTexts;
+    private final boolean[] mPresent;
+
+    Row(final List<String> fieldNames){
+      for (int i = 0; i < fieldNames.size(); i++){
+        mColumns.put(fieldNames.get(i), i);
+      }
+      mNumbers = new double[fieldNames.size()];
+      mTexts = new String[fieldNames.size()];
+      mPresent = new boolean[fieldNames.size()];
+    }
+
+    /**
+     * Return true if the field was returned and has a value for this feature
+     * @param field - String field name
+     * @return boolean
+     */
+    public boolean has(@NonNull final String field){
+      final Integer column = mColumns.get(field);
+      return column != null && mPresent[column];
+    }
+
+    /**
+     * Return a numeric attribute
+     * @param field - String field name
+     * @param fallback - double returned if the value is missing or not a number
+     * @return double
+     */
+    public double getNumber(@NonNull final String field, final double fallback){
+      final Integer column = mColumns.get(field);
+      if (column == null || !mPresent[column] || mTexts[column] != null){
+        return fallback;
+      }
+      return mNumbers[column];
+    }
+
+    /**
+     * Return a numeric attribute, boxed
+     * @param field - String field name
+     * @return Double or null if the value is missing or not a number
+     */
+    @Nullable public Double getDouble(@NonNull final String field){
+      final Integer column = mColumns.get(field);
+      if (column == null || !mPresent[column] || mTexts[column] != null){
+        return null;
+      }
+      return mNumbers[column];
+    }
+
+    /**
+     * Return a text attribute
+     * @param field - String field name
+     * @return String, empty if the value is missing or not text
+     */
+    @NonNull public String getText(@NonNull final String field){
+      final Integer column = mColumns.get(field);
+      if (column == null || !mPresent[column] || mTexts[column] == null){
+        return "";
+      }
+      return mTexts[column];
+    }
+
+    private void clear(){
+      Arrays.fill(mPresent, false);
+      Arrays.fill(mTexts, null);
+    }
+  }
+
+  /**
+   * Decode every feature in a query response
+   * @param input - InputStream positioned at the start of the response
+   * @param decoder - RowDecoder creating a model object for each feature
+   * @param items - List<T> the decoded objects are added to
+   * @return boolean, true if the service had more features than it returned
+   * @throws IOException if the stream can't be read or isn't a feature result
+   */
+  public static <T> boolean read(@NonNull final InputStream input, @NonNull final RowDecoder<T> decoder,
+      @NonNull final List<T> items) throws IOException {
+    final PbfReader reader = new PbfReader(input);
+    boolean exceeded = false;
+    boolean found = false;
+    while (reader.nextField()){
+      if (reader.getFieldNumber() != COLLECTION_QUERY_RESULT){
+        reader.skipField();
+        continue;
+      }
+      final long collection = reader.beginMessage();
+      while (reader.nextField()){
+        if (reader.getFieldNumber() != QUERY_FEATURE_RESULT){
+          reader.skipField();
+          continue;
+        }
+        found = true;
+        final long queryResult = reader.beginMessage();
+        exceeded = readFeatureResult(reader, decoder, items) || exceeded;
+        reader.endMessage(queryResult);
+      }
+      reader.endMessage(collection);
+    }
+    if (!found){
+      throw new IOException("Response holds no feature result");
+    }
+    return exceeded;
+  }
+
+  private static <T> boolean readFeatureResult(final PbfReader reader, final RowDecoder<T> decoder,
+      final List<T> items) throws IOException {
+    boolean exceeded = false;
+    final List<String> fieldNames = new ArrayList<>();
+    Row row = null;
+    while (reader.nextField()){
+      switch (reader.getFieldNumber()){
+        case RESULT_EXCEEDED_TRANSFER_LIMIT:
+          exceeded = reader.readBool();
+          break;
+        case RESULT_FIELDS:
+          if (row != null){
+            throw new IOException("Field definitions follow features");
+          }
+          fieldNames.add(readFieldName(reader));
+          break;
+        case RESULT_FEATURES:
+          if (row == null){
+            row = new Row(fieldNames);
+          }
+          readFeature(reader, row);
+          items.add(decoder.decode(row));
+          break;
+        default:
+          reader.skipField();
+      }
+    }
+    return exceeded;
+  }
+
+  private static String readFieldName(final PbfReader reader) throws IOException {
+    String name = "";
+    final long field = reader.beginMessage();
+    while (reader.nextField()){
+      if (reader.getFieldNumber() == FIELD_NAME){
+        name = reader.readString();
+      }else{
+        reader.skipField();
+      }
+    }
+    reader.endMessage(field);
+    return name;
+  }
+
+  private static void readFeature(final PbfReader reader, final Row row) throws IOException {
+    row.clear();
+    int column = 0;
+    final long feature = reader.beginMessage();
+    while (reader.nextField()){
+      if (reader.getFieldNumber() != FEATURE_ATTRIBUTES){
+        // Geometry, centroid and envelope aren't used
+        reader.skipField();
+        continue;
+      }
+      if (column >= row.mPresent.length){
+        throw new IOException("Feature has more attributes than fields");
+      }
+      final long value = reader.beginMessage();
+      // An empty value is a null attribute
+      while (reader.nextField()){
+        readValue(reader, row, column);
+      }
+      reader.endMessage(value);
+      column++;
+    }
+    reader.endMessage(feature);
+  }
+
+  private static void readValue(final PbfReader reader, final Row row, final int column) throws IOException {
+    switch (reader.getFieldNumber()){
+      case VALUE_STRING:
+        row.mTexts[column] = reader.readString();
+        break;
+      case VALUE_FLOAT:
+        row.mNumbers[column] = reader.readFloat();
+        break;
+      case VALUE_DOUBLE:
+        row.mNumbers[column] = reader.readDouble();
+        break;
+      case VALUE_SINT:
+      case VALUE_SINT64:
+        row.mNumbers[column] = reader.readZigZag();
+        break;
+      case VALUE_UINT:
+      case VALUE_INT64:
+      case VALUE_UINT64:
+        row.mNumbers[column] = reader.readVarint();
+        break;
+      case VALUE_BOOL:
+        row.mNumbers[column] = reader.readBool() ? 1 : 0;
+        break;
+      default:
+        reader.skipField();
+        return;
+    }
+    row.mPresent[column] = true;
+  }
+}
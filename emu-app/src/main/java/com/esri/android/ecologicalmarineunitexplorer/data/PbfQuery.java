@@ -0,0 +1,364 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Queries a feature service layer over its REST endpoint asking for
+ * the protocol buffer format and decodes the response while it
+ * downloads.  Requests are POSTed so large search geometries, such
+ * as a buffered transect, aren't limited by the length of a URL.
+ * Calls block, so they must not be made on the main thread.
+ *
+ * ArcGIS reports most errors as JSON with an HTTP status of 200.  Only
+ * an answer saying the format isn't supported is an
+ * UnsupportedFormatException; any other error, such as a timeout on
+ * the server, is a plain IOException worth retrying.
+ */
+public class PbfQuery {
+
+  /**
+   * Thrown when the service answers that it doesn't support f=pbf,
+   * or answers a query with features in another format
+   */
+  public static class UnsupportedFormatException extends IOException {
+    public UnsupportedFormatException(final String message){
+      super(message);
+    }
+  }
+
+  /**
+   * What a fetch downloaded, beyond the features themselves
+   */
+  public static final class Result {
+    private final long mByteCount;
+    private final boolean mExceededTransferLimit;
+
+    Result(final long byteCount, final boolean exceededTransferLimit){
+      mByteCount = byteCount;
+      mExceededTransferLimit = exceededTransferLimit;
+    }
+
+    /**
+     * @return long number of bytes downloaded
+     */
+    public long getByteCount() {
+      return mByteCount;
+    }
+
+    /**
+     * @return boolean, true if the service had more features than it returned
+     */
+    public boolean exceededTransferLimit() {
+      return mExceededTransferLimit;
+    }
+  }
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  // Parts of a JSON error, {"error":{"code":400,"message":"Invalid format"}}
+  private static final Pattern ERROR = Pattern.compile("\"error\"\\s*:\\s*\\{");
+  private static final Pattern ERROR_CODE = Pattern.compile("\"code\"\\s*:\\s*(\\d+)");
+  private static final Pattern ERROR_MESSAGE = Pattern.compile("\"message\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+  private static final Pattern QUERY_FORMATS = Pattern.compile("\"supportedQueryFormats\"\\s*:\\s*\"([^\"]*)\"");
+
+  private static final int CONNECT_TIMEOUT_MS = 15000;
+  private static final int READ_TIMEOUT_MS = 30000;
+
+  private final String mLayerUrl;
+
+  private volatile HttpURLConnection mConnection = null;
+  private volatile boolean mCancelled = false;
+
+  /**
+   * @param layerUrl - String URL of the layer, e.g. .../MapServer/0
+   */
+  public PbfQuery(@NonNull final String layerUrl){
+    mLayerUrl = layerUrl.endsWith("/") ? layerUrl.substring(0, layerUrl.length() - 1) : layerUrl;
+  }
+
+  /**
+   * Ask the layer whether it answers queries as protocol buffers,
+   * from the supportedQueryFormats in its description
+   * @return boolean, true if the layer lists PBF
+   * @throws IOException if the description can't be read or the service reports an error
+   */
+  public boolean supportsPbf() throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(mLayerUrl + "?f=json").openConnection();
+    mConnection = connection;
+    try {
+      if (mCancelled){
+        throw new IOException("Query cancelled");
+      }
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      connection.setReadTimeout(READ_TIMEOUT_MS);
+      final int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK){
+        throw new IOException("Layer description failed with HTTP status " + status);
+      }
+      final String json = readText(connection);
+      if (ERROR.matcher(json).find()){
+        throw new IOException("Layer description failed: " + describeError(json));
+      }
+      final Matcher formats = QUERY_FORMATS.matcher(json);
+      return formats.find() && formats.group(1).toLowerCase(Locale.US).contains("pbf");
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Query for one page of features intersecting a geometry, in the
+   * service's own order
+   * @param geometryJson - String, the search geometry as ArcGIS JSON including its spatial reference
+   * @param geometryType - String, e.g. esriGeometryEnvelope
+   * @param outFields - List<String> of fields to return
+   * @param offset - int index of the first feature to return
+   * @param count - int maximum number of features to return
+   * @param decoder - RowDecoder creating a model object for each feature
+   * @param items - List<T> the decoded objects are added to
+   * @return Result with the bytes downloaded and whether there are more features
+   * @throws UnsupportedFormatException if the service doesn't answer in protocol buffers
+   * @throws IOException if the request fails, the service reports an error or the
+   *                     response can't be decoded
+   */
+  public <T> Result fetch(@NonNull final String geometryJson, @NonNull final String geometryType,
+      @NonNull final List<String> outFields, final int offset, final int count,
+      @NonNull final PbfFeatureReader.RowDecoder<T> decoder, @NonNull final List<T> items) throws IOException {
+    return fetch(geometryJson, geometryType, outFields, Collections.<String>emptyList(), offset, count, decoder, items);
+  }
+
+  /**
+   * Query for one page of features intersecting a geometry
+   * @param geometryJson - String, the search geometry as ArcGIS JSON including its spatial reference
+   * @param geometryType - String, e.g. esriGeometryEnvelope
+   * @param outFields - List<String> of fields to return
+   * @param orderByFields - List<String> of fields the features are sorted on, ascending,
+   *                      so pages split the result consistently
+   * @param offset - int index of the first feature to return
+   * @param count - int maximum number of features to return
+   * @param decoder - RowDecoder creating a model object for each feature
+   * @param items - List<T> the decoded objects are added to
+   * @return Result with the bytes downloaded and whether there are more features
+   * @throws UnsupportedFormatException if the service doesn't answer in protocol buffers
+   * @throws IOException if the request fails, the service reports an error or the
+   *                     response can't be decoded
+   */
+  public <T> Result fetch(@NonNull final String geometryJson, @NonNull final String geometryType,
+      @NonNull final List<String> outFields, @NonNull final List<String> orderByFields, final int offset, final int count,
+      @NonNull final PbfFeatureReader.RowDecoder<T> decoder, @NonNull final List<T> items) throws IOException {
+    final byte[] body = buildQuery(geometryJson, geometryType, outFields, orderByFields, offset, count).getBytes(UTF_8);
+    final HttpURLConnection connection = (HttpURLConnection) new URL(mLayerUrl + "/query").openConnection();
+    mConnection = connection;
+    try {
+      if (mCancelled){
+        throw new IOException("Query cancelled");
+      }
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      connection.setReadTimeout(READ_TIMEOUT_MS);
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+      connection.setFixedLengthStreamingMode(body.length);
+      final OutputStream output = connection.getOutputStream();
+      try {
+        output.write(body);
+      } finally {
+        output.close();
+      }
+      final int status = connection.getResponseCode();
+      if (status != HttpURLConnection.HTTP_OK){
+        throw new IOException("Query failed with HTTP status " + status);
+      }
+      // Errors, and services without pbf support, answer in JSON
+      final String contentType = connection.getContentType();
+      if (contentType == null || !contentType.contains("protobuf")){
+        final String json = readText(connection);
+        if (!ERROR.matcher(json).find()){
+          throw new UnsupportedFormatException("Expected protocol buffers but received " + contentType);
+        }
+        if (isFormatError(json)){
+          throw new UnsupportedFormatException("Protocol buffers not supported: " + describeError(json));
+        }
+        throw new IOException("Query failed: " + describeError(json));
+      }
+      final CountingInputStream input = new CountingInputStream(new BufferedInputStream(connection.getInputStream()));
+      final boolean exceeded;
+      try {
+        exceeded = PbfFeatureReader.read(input, decoder, items);
+      } finally {
+        input.close();
+      }
+      return new Result(input.getCount(), exceeded);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Abort the fetch underway, which then fails with an IOException,
+   * and any fetch started afterwards.  May be called from any thread.
+   */
+  public void cancel(){
+    mCancelled = true;
+    final HttpURLConnection connection = mConnection;
+    if (connection != null){
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Return true if a JSON error says the requested format isn't supported
+   * @param json - String containing an error
+   * @return boolean
+   */
+  static boolean isFormatError(final String json){
+    final Matcher code = ERROR_CODE.matcher(json);
+    final Matcher message = ERROR_MESSAGE.matcher(json);
+    return code.find() && "400".equals(code.group(1)) &&
+        message.find() && message.group(1).toLowerCase(Locale.US).contains("format");
+  }
+
+  /**
+   * Describe a JSON error, e.g. "400 Invalid format"
+   * @param json - String containing an error
+   * @return String
+   */
+  static String describeError(final String json){
+    final Matcher code = ERROR_CODE.matcher(json);
+    final Matcher message = ERROR_MESSAGE.matcher(json);
+    return (code.find() ? code.group(1) : "unknown code") + " " + (message.find() ? message.group(1) : "");
+  }
+
+  private static String readText(final HttpURLConnection connection) throws IOException {
+    final InputStream input = connection.getInputStream();
+    try {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[4096];
+      int read;
+      while ((read = input.read(buffer)) > 0){
+        bytes.write(buffer, 0, read);
+      }
+      return new String(bytes.toByteArray(), UTF_8);
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Build the form encoded body of a query request
+   * @param geometryJson - String
+   * @param geometryType - String
+   * @param outFields - List<String>
+   * @param orderByFields - List<String>, may be empty
+   * @param offset - int
+   * @param count - int
+   * @return String
+   */
+  static String buildQuery(final String geometryJson, final String geometryType, final List<String> outFields,
+      final List<String> orderByFields, final int offset, final int count){
+    final StringBuilder fields = new StringBuilder();
+    for (final String field : outFields){
+      fields.append(fields.length() > 0 ? "," : "").append(field);
+    }
+    final StringBuilder order = new StringBuilder();
+    for (final String field : orderByFields){
+      order.append(order.length() > 0 ? "," : "").append(field).append(" ASC");
+    }
+    return "f=pbf" +
+        "&where=" + encode("1=1") +
+        "&geometry=" + encode(geometryJson) +
+        "&geometryType=" + encode(geometryType) +
+        "&spatialRel=esriSpatialRelIntersects" +
+        "&outFields=" + encode(fields.toString()) +
+        "&returnGeometry=false" +
+        (order.length() > 0 ? "&orderByFields=" + encode(order.toString()) : "") +
+        "&resultOffset=" + offset +
+        "&resultRecordCount=" + count;
+  }
+
+  private static String encode(final String value){
+    try {
+      return URLEncoder.encode(value, "UTF-8");
+    } catch (final UnsupportedEncodingException e) {
+      // UTF-8 is always supported
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Counts the bytes read through it
+   */
+  private static class CountingInputStream extends InputStream {
+    private final InputStream mInput;
+    private long mCount = 0;
+
+    CountingInputStream(final InputStream input){
+      mInput = input;
+    }
+
+    @Override public int read() throws IOException {
+      final int b = mInput.read();
+      if (b >= 0){
+        mCount++;
+      }
+      return b;
+    }
+
+    @Override public int read(@NonNull final byte[] buffer, final int offset, final int length) throws IOException {
+      final int read = mInput.read(buffer, offset, length);
+      if (read > 0){
+        mCount = mCount + read;
+      }
+      return read;
+    }
+
+    @Override public void close() throws IOException {
+      mInput.close();
+    }
+
+    long getCount(){
+      return mCount;
+    }
+  }
+}
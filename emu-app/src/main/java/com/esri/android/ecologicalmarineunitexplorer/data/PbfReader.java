@@ -0,0 +1,270 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads protocol buffer wire format from a stream one field at a time,
+ * without a generated schema.  Nested messages are read in place by
+ * limiting the reader to the message's length, so a response is
+ * decoded as it arrives rather than after it has been buffered.
+ */
+public class PbfReader {
+
+  public static final int VARINT = 0;
+  public static final int FIXED64 = 1;
+  public static final int LENGTH_DELIMITED = 2;
+  public static final int FIXED32 = 5;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final InputStream mInput;
+  private final byte[] mBuffer = new byte[BUFFER_SIZE];
+  private int mBufferPosition = 0;
+  private int mBufferLength = 0;
+
+  // Bytes consumed from the stream so far
+  private long mPosition = 0;
+
+  // Position at which the message being read ends
+  private long mLimit = Long.MAX_VALUE;
+
+  private int mTag = 0;
+
+  public PbfReader(@NonNull final InputStream input){
+    mInput = input;
+  }
+
+  /**
+   * Move to the next field of the current message
+   * @return boolean, false at the end of the message or stream
+   * @throws IOException if the stream can't be read
+   */
+  public boolean nextField() throws IOException {
+    if (mPosition >= mLimit){
+      return false;
+    }
+    if (mLimit == Long.MAX_VALUE && !fill()){
+      return false;
+    }
+    mTag = (int) readVarint();
+    return true;
+  }
+
+  public int getFieldNumber(){
+    return mTag >>> 3;
+  }
+
+  public int getWireType(){
+    return mTag & 7;
+  }
+
+  /**
+   * Read a varint, used for int32, int64, uint32, uint64, bool and enums
+   * @return long
+   * @throws IOException if the stream ends or the varint is malformed
+   */
+  public long readVarint() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7){
+      final int b = readByte();
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0){
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  /**
+   * Read a zigzag encoded varint, used for sint32 and sint64
+   * @return long
+   * @throws IOException if the stream ends
+   */
+  public long readZigZag() throws IOException {
+    final long value = readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public double readDouble() throws IOException {
+    return Double.longBitsToDouble(readFixed64());
+  }
+
+  public float readFloat() throws IOException {
+    return Float.intBitsToFloat(readFixed32());
+  }
+
+  public boolean readBool() throws IOException {
+    return readVarint() != 0;
+  }
+
+  /**
+   * Read a length delimited UTF-8 string
+   * @return String
+   * @throws IOException if the stream ends
+   */
+  @NonNull public String readString() throws IOException {
+    final int length = readLength();
+    if (length <= mBufferLength - mBufferPosition){
+      // Decode straight from the buffer when the string is already there
+      final String value = new String(mBuffer, mBufferPosition, length, UTF_8);
+      mBufferPosition = mBufferPosition + length;
+      mPosition = mPosition + length;
+      return value;
+    }
+    final byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++){
+      bytes[i] = (byte) readByte();
+    }
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * Start reading the embedded message in the current field.  Fields
+   * are then read from the embedded message until endMessage is called.
+   * @return long to pass to endMessage
+   * @throws IOException if the message is longer than its container
+   */
+  public long beginMessage() throws IOException {
+    final int length = readLength();
+    final long end = mPosition + length;
+    if (end > mLimit){
+      throw new IOException("Message runs past the end of its container");
+    }
+    final long outer = mLimit;
+    mLimit = end;
+    return outer;
+  }
+
+  /**
+   * Skip whatever is left of the embedded message and
+   * go back to reading its container
+   * @param outerLimit - long returned by beginMessage
+   * @throws IOException if the stream ends
+   */
+  public void endMessage(final long outerLimit) throws IOException {
+    skipBytes(mLimit - mPosition);
+    mLimit = outerLimit;
+  }
+
+  /**
+   * Skip the value of the current field
+   * @throws IOException if the stream ends or the wire type is unknown
+   */
+  public void skipField() throws IOException {
+    switch (getWireType()){
+      case VARINT:
+        readVarint();
+        break;
+      case FIXED64:
+        skipBytes(8);
+        break;
+      case LENGTH_DELIMITED:
+        skipBytes(readLength());
+        break;
+      case FIXED32:
+        skipBytes(4);
+        break;
+      default:
+        throw new IOException("Unsupported wire type " + getWireType());
+    }
+  }
+
+  /**
+   * Return the number of bytes read from the stream
+   * @return long
+   */
+  public long getPosition(){
+    return mPosition;
+  }
+
+  private int readLength() throws IOException {
+    final long length = readVarint();
+    if (length < 0 || length > Integer.MAX_VALUE){
+      throw new IOException("Invalid length " + length);
+    }
+    return (int) length;
+  }
+
+  private long readFixed64() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 8){
+      value |= (long) readByte() << shift;
+    }
+    return value;
+  }
+
+  private int readFixed32() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 8){
+      value |= readByte() << shift;
+    }
+    return value;
+  }
+
+  private int readByte() throws IOException {
+    if (mPosition >= mLimit || !fill()){
+      throw new EOFException("Unexpected end of message");
+    }
+    mPosition++;
+    return mBuffer[mBufferPosition++] & 0xff;
+  }
+
+  private void skipBytes(final long count) throws IOException {
+    long remaining = count;
+    while (remaining > 0){
+      if (!fill()){
+        throw new EOFException("Unexpected end of message");
+      }
+      final int skipped = (int) Math.min(remaining, mBufferLength - mBufferPosition);
+      mBufferPosition = mBufferPosition + skipped;
+      mPosition = mPosition + skipped;
+      remaining = remaining - skipped;
+    }
+  }
+
+  // Make sure at least one byte is buffered, returning false at the end of the stream
+  private boolean fill() throws IOException {
+    if (mBufferPosition < mBufferLength){
+      return true;
+    }
+    final int read = mInput.read(mBuffer, 0, mBuffer.length);
+    if (read <= 0){
+      return false;
+    }
+    mBufferPosition = 0;
+    mBufferLength = read;
+    return true;
+  }
+}
@@ -0,0 +1,77 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+/**
+ * A location pinned for comparison along with the water column and
+ * depth profile found there.  Either may be missing until it has
+ * been fetched or if fetching it failed.
+ */
+public class PinnedColumn {
+
+  private final Point mLocation;
+  private final WaterColumn mWaterColumn;
+  private final DepthProfile mProfile;
+
+  public PinnedColumn(@NonNull final Point location, @Nullable final WaterColumn waterColumn, @Nullable final DepthProfile profile){
+    mLocation = location;
+    mWaterColumn = waterColumn;
+    mProfile = profile;
+  }
+
+  @NonNull public Point getLocation() {
+    return mLocation;
+  }
+
+  @Nullable public WaterColumn getWaterColumn() {
+    return mWaterColumn;
+  }
+
+  @Nullable public DepthProfile getProfile() {
+    return mProfile;
+  }
+
+  /**
+   * Return true if both the water column and profile are present
+   * @return boolean
+   */
+  public boolean isComplete(){
+    return mWaterColumn != null && mProfile != null;
+  }
+
+  /**
+   * Return the column key of the location
+   * @return long, see ColumnKey
+   */
+  public long getKey(){
+    return ColumnKey.of(mLocation.getX(), mLocation.getY());
+  }
+}
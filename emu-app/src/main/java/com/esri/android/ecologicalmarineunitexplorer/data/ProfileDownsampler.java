@@ -0,0 +1,114 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Picks a representative subset of an ordered series using the
+ * largest-triangle-three-buckets algorithm.  The first and last points
+ * are always kept.  The points in between are split into equal buckets
+ * and from each bucket the point forming the largest triangle with the
+ * previously kept point and the average of the next bucket is kept, so
+ * peaks and sharp changes such as a thermocline survive downsampling.
+ */
+public final class ProfileDownsampler {
+
+  private ProfileDownsampler(){}
+
+  /**
+   * Return the indices of the points to keep
+   * @param x - double[] ordered values, e.g. depth
+   * @param y - double[] measured values, same length as x
+   * @param threshold - int maximum number of points to keep
+   * @return int[] ascending indices into x and y, every index if the
+   * series already fits within the threshold
+   */
+  @NonNull public static int[] select(@NonNull final double[] x, @NonNull final double[] y, final int threshold){
+    if (x.length != y.length){
+      throw new IllegalArgumentException("Series lengths differ");
+    }
+    final int count = x.length;
+    if (threshold >= count || count < 3){
+      return all(count);
+    }
+    // Anything under three points can't keep both ends and a bucket
+    if (threshold < 3){
+      return count == 0 ? new int[0] : new int[]{ 0, count - 1 };
+    }
+
+    final int[] selected = new int[threshold];
+    final double bucketSize = (double) (count - 2) / (threshold - 2);
+    int kept = 0;
+    selected[0] = 0;
+
+    for (int bucket = 0; bucket < threshold - 2; bucket++){
+      // Average of the next bucket, or the last point for the final bucket
+      final int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+      final int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+      double averageX = 0;
+      double averageY = 0;
+      if (nextStart >= count - 1 || nextStart >= nextEnd){
+        averageX = x[count - 1];
+        averageY = y[count - 1];
+      }else{
+        for (int i = nextStart; i < nextEnd; i++){
+          averageX += x[i];
+          averageY += y[i];
+        }
+        averageX /= nextEnd - nextStart;
+        averageY /= nextEnd - nextStart;
+      }
+
+      final int start = (int) Math.floor(bucket * bucketSize) + 1;
+      final int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+      final double keptX = x[selected[kept]];
+      final double keptY = y[selected[kept]];
+      double maxArea = -1;
+      int maxIndex = start;
+      for (int i = start; i < end && i < count - 1; i++){
+        // Twice the triangle's area is enough to compare sizes
+        final double area = Math.abs((keptX - averageX) * (y[i] - keptY) - (keptX - x[i]) * (averageY - keptY));
+        if (area > maxArea){
+          maxArea = area;
+          maxIndex = i;
+        }
+      }
+      kept = kept + 1;
+      selected[kept] = maxIndex;
+    }
+    selected[threshold - 1] = count - 1;
+    return selected;
+  }
+
+  private static int[] all(final int count){
+    final int[] indices = new int[count];
+    for (int i = 0; i < count; i++){
+      indices[i] = i;
+    }
+    return indices;
+  }
+}
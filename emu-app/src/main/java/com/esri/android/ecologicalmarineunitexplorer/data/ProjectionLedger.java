@@ -0,0 +1,92 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Running totals of the features fetched by each kind of query,
+ * the bytes estimated to have been transferred and the bytes saved
+ * by asking for fewer fields than the whole feature.
+ */
+public class ProjectionLedger {
+
+  private static class Totals {
+    long mFeatures = 0;
+    long mBytesFetched = 0;
+    long mBytesSaved = 0;
+  }
+
+  private final Map<String, Totals> mTotals = new HashMap<>();
+
+  /**
+   * Add a page of results to the totals for a kind of query
+   * @param queryType - String, usually the FieldProjection name
+   * @param features - int, the number of features returned
+   * @param featureBytes - int, the estimated size of each feature as fetched
+   * @param baselineBytes - int, the estimated size of each feature with every field and its geometry
+   */
+  public synchronized void record(@NonNull final String queryType, final int features, final int featureBytes,
+      final int baselineBytes){
+    Totals totals = mTotals.get(queryType);
+    if (totals == null){
+      totals = new Totals();
+      mTotals.put(queryType, totals);
+    }
+    totals.mFeatures = totals.mFeatures + features;
+    totals.mBytesFetched = totals.mBytesFetched + (long) features * featureBytes;
+    totals.mBytesSaved = totals.mBytesSaved + (long) features * Math.max(0, baselineBytes - featureBytes);
+  }
+
+  public synchronized long getFeatureCount(@NonNull final String queryType){
+    final Totals totals = mTotals.get(queryType);
+    return totals != null ? totals.mFeatures : 0;
+  }
+
+  public synchronized long getBytesFetched(@NonNull final String queryType){
+    final Totals totals = mTotals.get(queryType);
+    return totals != null ? totals.mBytesFetched : 0;
+  }
+
+  public synchronized long getBytesSaved(@NonNull final String queryType){
+    final Totals totals = mTotals.get(queryType);
+    return totals != null ? totals.mBytesSaved : 0;
+  }
+
+  /**
+   * Describe the totals for a kind of query, suitable for logging
+   * @param queryType - String
+   * @return String
+   */
+  @NonNull public String describe(@NonNull final String queryType){
+    return String.format(Locale.US, "%s: %d features, ~%.1f KB fetched, ~%.1f KB saved by projection",
+        queryType, getFeatureCount(queryType), getBytesFetched(queryType) / 1024d, getBytesSaved(queryType) / 1024d);
+  }
+}
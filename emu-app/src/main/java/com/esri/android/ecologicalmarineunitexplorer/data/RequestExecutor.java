@@ -0,0 +1,407 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs requests that may fail or stall, retrying failures after a
+ * jittered exponential backoff and, for operations that allow it,
+ * hedging a slow request by starting a duplicate once it has taken
+ * longer than most requests of its kind.  Whichever copy answers
+ * first is used and the other is cancelled.
+ *
+ * Backoff uses "full jitter": before retry n the delay is a random
+ * time between zero and min(maxBackoff, baseBackoff * 2^(n-1)), so
+ * clients that failed together don't all retry together.
+ */
+public class RequestExecutor {
+
+  /**
+   * Starts one copy of a request
+   */
+  public interface Request<T> {
+    /**
+     * @param callback - Callback given the result or error, exactly once
+     *                 unless the returned Cancellable is cancelled first
+     * @return Cancellable stopping this copy
+     */
+    Cancellable start(Callback<T> callback);
+  }
+
+  /**
+   * Receives the result of a request
+   */
+  public interface Callback<T> {
+    void onResult(T result);
+    void onError(Exception e);
+  }
+
+  /**
+   * Stops a request that's underway
+   */
+  public interface Cancellable {
+    void cancel();
+  }
+
+  /**
+   * How one kind of request is retried and hedged, along with
+   * the recent latencies of its successful requests
+   */
+  public static class Operation {
+
+    // Latencies kept to estimate the 95th percentile
+    private static final int LATENCY_WINDOW = 50;
+
+    // Until this many are seen the default hedge delay is used
+    private static final int MIN_LATENCY_SAMPLES = 10;
+
+    private final String mName;
+    private final int mMaxAttempts;
+    private final long mBaseBackoffMillis;
+    private final long mMaxBackoffMillis;
+    private final boolean mHedged;
+    private final long mDefaultHedgeMillis;
+    private final long[] mLatencies = new long[LATENCY_WINDOW];
+    private int mLatencyCount = 0;
+    private int mRetries = 0;
+    private int mHedges = 0;
+    private int mHedgeWins = 0;
+
+    /**
+     * @param name - String used in logs
+     * @param maxAttempts - int, attempts made before giving up, at least 1
+     * @param baseBackoffMillis - long, upper bound of the first retry's delay
+     * @param maxBackoffMillis - long, upper bound of any retry's delay
+     * @param hedged - boolean, true to start a duplicate of a slow request
+     * @param defaultHedgeMillis - long, how long to wait before hedging
+     *                           until enough latencies have been seen
+     */
+    public Operation(@NonNull final String name, final int maxAttempts, final long baseBackoffMillis,
+        final long maxBackoffMillis, final boolean hedged, final long defaultHedgeMillis){
+      if (maxAttempts < 1 || baseBackoffMillis < 0 || maxBackoffMillis < baseBackoffMillis){
+        throw new IllegalArgumentException("Attempts must be positive and backoff bounds ordered");
+      }
+      mName = name;
+      mMaxAttempts = maxAttempts;
+      mBaseBackoffMillis = baseBackoffMillis;
+      mMaxBackoffMillis = maxBackoffMillis;
+      mHedged = hedged;
+      mDefaultHedgeMillis = defaultHedgeMillis;
+    }
+
+    @NonNull public String getName() {
+      return mName;
+    }
+
+    public int getMaxAttempts() {
+      return mMaxAttempts;
+    }
+
+    public boolean isHedged() {
+      return mHedged;
+    }
+
+    /**
+     * Return how long a request may run before it's hedged: the 95th
+     * percentile of recent latencies once enough have been seen
+     * @return long milliseconds
+     */
+    public synchronized long getHedgeDelayMillis(){
+      final int samples = Math.min(mLatencyCount, LATENCY_WINDOW);
+      if (samples < MIN_LATENCY_SAMPLES){
+        return mDefaultHedgeMillis;
+      }
+      final long[] sorted = Arrays.copyOf(mLatencies, samples);
+      Arrays.sort(sorted);
+      return sorted[(int) Math.ceil(samples * 0.95) - 1];
+    }
+
+    /**
+     * Return the longest a retry may wait
+     * @param retry - int, 1 for the first retry
+     * @return long milliseconds
+     */
+    public long getBackoffCeilingMillis(final int retry){
+      final int doublings = Math.min(retry - 1, 30);
+      return Math.min(mMaxBackoffMillis, mBaseBackoffMillis << doublings);
+    }
+
+    /**
+     * Return a summary of the retries and hedges made
+     * @return String
+     */
+    public synchronized String describe(){
+      return mName + ": " + mRetries + " retries, " + mHedges + " hedged requests, " + mHedgeWins + " won by the hedge";
+    }
+
+    synchronized void recordLatency(final long millis){
+      mLatencies[mLatencyCount % LATENCY_WINDOW] = millis;
+      mLatencyCount++;
+    }
+
+    synchronized void recordRetry(){
+      mRetries++;
+    }
+
+    synchronized void recordHedge(){
+      mHedges++;
+    }
+
+    synchronized void recordHedgeWin(){
+      mHedgeWins++;
+    }
+  }
+
+  private final ScheduledExecutorService mTimer;
+
+  private final Random mRandom;
+
+  /**
+   * @param timer - ScheduledExecutorService running backoff and hedge timers
+   * @param random - Random used for jitter
+   */
+  public RequestExecutor(@NonNull final ScheduledExecutorService timer, @NonNull final Random random){
+    mTimer = timer;
+    mRandom = random;
+  }
+
+  /**
+   * Run a request under an operation's policy
+   * @param operation - Operation the request belongs to
+   * @param request - Request to run
+   * @param callback - Callback given the first result, or the last
+   *                 error once every attempt has failed
+   * @return Cancellable stopping every copy and pending retry
+   */
+  @NonNull public <T> Cancellable execute(@NonNull final Operation operation, @NonNull final Request<T> request,
+      @NonNull final Callback<T> callback){
+    final Execution<T> execution = new Execution<>(operation, request, callback);
+    execution.startAttempt();
+    return execution;
+  }
+
+  /**
+   * The copies and timers of one call to execute
+   */
+  private class Execution<T> implements Cancellable {
+    private final Operation mOperation;
+    private final Request<T> mRequest;
+    private final Callback<T> mCallback;
+    // Copies running for the current attempt
+    private final List<Cancellable> mRunning = new ArrayList<>();
+    // Kept apart so arming one never cancels the other
+    private ScheduledFuture<?> mRetryTask = null;
+    private ScheduledFuture<?> mHedgeTask = null;
+    private int mAttempt = 0;
+    private int mFailedCopies = 0;
+    private boolean mDone = false;
+
+    Execution(final Operation operation, final Request<T> request, final Callback<T> callback){
+      mOperation = operation;
+      mRequest = request;
+      mCallback = callback;
+    }
+
+    void startAttempt(){
+      final int attempt;
+      synchronized (this){
+        if (mDone){
+          return;
+        }
+        mAttempt++;
+        mFailedCopies = 0;
+        attempt = mAttempt;
+      }
+      startCopy(attempt, false);
+      if (mOperation.isHedged()){
+        synchronized (this){
+          // The copy may already have answered or failed inside start
+          if (mDone || attempt != mAttempt || mFailedCopies > 0){
+            return;
+          }
+          mHedgeTask = mTimer.schedule(new Runnable() {
+            @Override public void run() {
+              hedge(attempt);
+            }
+          }, mOperation.getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    private void hedge(final int attempt){
+      synchronized (this){
+        if (mDone || attempt != mAttempt || mRunning.size() != 1 || mFailedCopies > 0){
+          return;
+        }
+      }
+      mOperation.recordHedge();
+      startCopy(attempt, true);
+    }
+
+    private void startCopy(final int attempt, final boolean hedge){
+      final long start = System.nanoTime();
+      // The copy's Cancellable, and whether it has answered
+      final Cancellable[] self = new Cancellable[1];
+      final boolean[] finished = { false };
+      final Callback<T> copyCallback = new Callback<T>() {
+        @Override public void onResult(final T result) {
+          final List<Cancellable> others;
+          synchronized (Execution.this){
+            finished[0] = true;
+            if (mDone){
+              return;
+            }
+            mDone = true;
+            others = takeRunning(self[0]);
+            cancelTimers();
+          }
+          for (final Cancellable other : others){
+            other.cancel();
+          }
+          mOperation.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+          if (hedge){
+            mOperation.recordHedgeWin();
+          }
+          mCallback.onResult(result);
+        }
+
+        @Override public void onError(final Exception e) {
+          synchronized (Execution.this){
+            finished[0] = true;
+          }
+          copyFailed(attempt, self[0], e);
+        }
+      };
+      final Cancellable cancellable;
+      try {
+        cancellable = mRequest.start(copyCallback);
+      } catch (final RuntimeException e){
+        copyCallback.onError(e);
+        return;
+      }
+      synchronized (this){
+        self[0] = cancellable;
+        if (finished[0]){
+          return;
+        }
+        if (!mDone && attempt == mAttempt){
+          mRunning.add(cancellable);
+          return;
+        }
+      }
+      // Another copy answered, or the execution was cancelled, while this one started
+      cancellable.cancel();
+    }
+
+    private void copyFailed(final int attempt, final Cancellable copy, final Exception e){
+      final boolean retry;
+      synchronized (this){
+        if (mDone || attempt != mAttempt){
+          return;
+        }
+        mRunning.remove(copy);
+        mFailedCopies++;
+        // Wait for a copy that's still running
+        if (!mRunning.isEmpty()){
+          return;
+        }
+        retry = mAttempt < mOperation.getMaxAttempts();
+        if (!retry){
+          mDone = true;
+        }
+        cancelTimers();
+      }
+      if (!retry){
+        mCallback.onError(e);
+        return;
+      }
+      mOperation.recordRetry();
+      final long ceiling = mOperation.getBackoffCeilingMillis(attempt);
+      final long delay;
+      synchronized (mRandom){
+        delay = ceiling > 0 ? (long) (mRandom.nextDouble() * ceiling) : 0;
+      }
+      synchronized (this){
+        if (mDone){
+          return;
+        }
+        mRetryTask = mTimer.schedule(new Runnable() {
+          @Override public void run() {
+            startAttempt();
+          }
+        }, delay, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    @Override public void cancel() {
+      final List<Cancellable> running;
+      synchronized (this){
+        if (mDone){
+          return;
+        }
+        mDone = true;
+        running = takeRunning(null);
+        cancelTimers();
+      }
+      for (final Cancellable copy : running){
+        copy.cancel();
+      }
+    }
+
+    // Must hold the lock
+    private void cancelTimers(){
+      if (mRetryTask != null){
+        mRetryTask.cancel(false);
+        mRetryTask = null;
+      }
+      if (mHedgeTask != null){
+        mHedgeTask.cancel(false);
+        mHedgeTask = null;
+      }
+    }
+
+    // Must hold the lock
+    private List<Cancellable> takeRunning(final Cancellable except){
+      final List<Cancellable> running = new ArrayList<>();
+      for (final Cancellable copy : mRunning){
+        if (copy != except){
+          running.add(copy);
+        }
+      }
+      mRunning.clear();
+      return running;
+    }
+  }
+}
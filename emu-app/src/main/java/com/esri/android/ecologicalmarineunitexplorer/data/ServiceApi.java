@@ -44,7 +44,7 @@ public interface ServiceApi {
   }
 
   interface ColumnProfileCallback{
-    void onProfileLoaded(WaterProfile profile);
+    void onProfileLoaded(DepthProfile profile);
   }
 
   interface GeocodingCallback{
@@ -54,4 +54,12 @@ public interface ServiceApi {
   interface EMUByDepthCallback{
     void onPolygonsRetrieved( FeatureLayer layer);
   }
+  interface TransectCallback{
+    void onColumnsLoaded(List<WaterColumn> columns, double transectLength);
+    void onTransectComplete(int columnCount, double transectLength);
+  }
+  interface ComparisonCallback{
+    void onColumnLoaded(int index, PinnedColumn column);
+    void onComparisonComplete(List<PinnedColumn> columns);
+  }
 }
@@ -0,0 +1,179 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.esri.android.ecologicalmarineunitexplorer.util.StartupTimeline;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Starts a set of independent warm up loads at the same time and
+ * notifies a listener once, when all of them have finished or when
+ * the caller stops waiting, whichever comes first.  Loads still
+ * running when the caller stops waiting carry on in the background.
+ * Each milestone is recorded in a StartupTimeline.
+ */
+public class StartupPrewarmer {
+
+  /**
+   * A load to warm up.  The task must call done exactly
+   * once when it has finished, successfully or not.
+   */
+  public interface Task {
+    void run(Runnable done);
+  }
+
+  /**
+   * Notified once when warm up is over
+   */
+  public interface Listener {
+    /**
+     * @param timeline - StartupTimeline with the milestones reached so far
+     * @param allReady - true if every task finished before the caller stopped waiting
+     */
+    void onPrewarmComplete(StartupTimeline timeline, boolean allReady);
+  }
+
+  private static final String TAG = StartupPrewarmer.class.getSimpleName();
+
+  private final StartupTimeline mTimeline;
+
+  private final Map<String, Task> mTasks = new LinkedHashMap<>();
+
+  private final Set<String> mReady = new HashSet<>();
+
+  private Listener mListener = null;
+
+  private boolean mStarted = false;
+
+  private boolean mNotified = false;
+
+  public StartupPrewarmer(@NonNull final StartupTimeline timeline){
+    mTimeline = timeline;
+  }
+
+  /**
+   * Add a task to run when warm up starts
+   * @param name - String naming the task in the timeline
+   * @param task - Task
+   * @return this StartupPrewarmer
+   */
+  public synchronized StartupPrewarmer add(@NonNull final String name, @NonNull final Task task){
+    if (mStarted){
+      throw new IllegalStateException("Tasks can't be added once warm up has started");
+    }
+    mTasks.put(name, task);
+    return this;
+  }
+
+  /**
+   * Run every task.  The listener is called straight away if there are no tasks.
+   * @param listener - Listener notified when warm up is over
+   */
+  public void start(@NonNull final Listener listener){
+    final List<Map.Entry<String, Task>> tasks;
+    synchronized (this){
+      if (mStarted){
+        throw new IllegalStateException("Warm up has already started");
+      }
+      mStarted = true;
+      mListener = listener;
+      tasks = new ArrayList<>(mTasks.entrySet());
+    }
+    mTimeline.mark("prewarm started");
+    for (final Map.Entry<String, Task> entry : tasks){
+      final String name = entry.getKey();
+      try {
+        entry.getValue().run(new Runnable() {
+          @Override public void run() {
+            taskDone(name);
+          }
+        });
+      } catch (final RuntimeException e){
+        Log.e(TAG, "Warm up of " + name + " failed " + e.getMessage());
+        taskDone(name);
+      }
+    }
+    checkComplete();
+  }
+
+  /**
+   * Stop waiting for the remaining tasks.  The listener is notified
+   * now unless it already has been.
+   */
+  public void stopWaiting(){
+    final Listener listener;
+    synchronized (this){
+      if (!mStarted || mNotified){
+        return;
+      }
+      mNotified = true;
+      listener = mListener;
+    }
+    mTimeline.mark("prewarm stopped waiting");
+    listener.onPrewarmComplete(mTimeline, false);
+  }
+
+  /**
+   * Return whether the named task has finished
+   * @param name - String
+   * @return boolean
+   */
+  public synchronized boolean isReady(@NonNull final String name){
+    return mReady.contains(name);
+  }
+
+  private void taskDone(final String name){
+    synchronized (this){
+      if (!mReady.add(name)){
+        return;
+      }
+    }
+    mTimeline.mark(name + " ready");
+    checkComplete();
+  }
+
+  private void checkComplete(){
+    final Listener listener;
+    synchronized (this){
+      if (mNotified || mReady.size() < mTasks.size()){
+        return;
+      }
+      mNotified = true;
+      listener = mListener;
+    }
+    mTimeline.mark("prewarm complete");
+    listener.onPrewarmComplete(mTimeline, true);
+  }
+}
@@ -0,0 +1,400 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A read only store of water profiles for regularly visited stations,
+ * memory mapped from a file so opening a profile involves no parsing
+ * and values are read straight from the mapped pages.
+ *
+ * File layout, big endian:
+ * header   magic 'EMUS', version, station count, record count (4 ints)
+ * index    per station, sorted by key: location key (long),
+ *          first record (int), record count (int)
+ * records  RECORD_SIZE bytes per measurement: depth, temperature,
+ *          salinity, dissolved oxygen, silicate, phosphate and nitrate
+ *          as floats (NaN when missing), then the EMU as a short
+ *
+ * Stations are keyed on the location of their water column
+ * quantized to 0.00001 degrees.
+ */
+public class StationProfileStore {
+
+  /**
+   * A station location and its profile, used when writing a store
+   */
+  public static class StationEntry {
+    private final double mLongitude;
+    private final double mLatitude;
+    private final WaterProfile mProfile;
+
+    public StationEntry(final double longitude, final double latitude, @NonNull final WaterProfile profile){
+      mLongitude = longitude;
+      mLatitude = latitude;
+      mProfile = profile;
+    }
+
+    public double getLongitude() {
+      return mLongitude;
+    }
+
+    public double getLatitude() {
+      return mLatitude;
+    }
+
+    @NonNull public WaterProfile getProfile() {
+      return mProfile;
+    }
+  }
+
+  /**
+   * A profile whose values are read directly from the mapped file
+   */
+  public static class StationProfile implements DepthProfile {
+    private final ByteBuffer mBuffer;
+    private final int mFirstOffset;
+    private final int mCount;
+    private final double mLongitude;
+    private final double mLatitude;
+
+    private StationProfile(final ByteBuffer buffer, final int firstOffset, final int count, final double longitude, final double latitude){
+      mBuffer = buffer;
+      mFirstOffset = firstOffset;
+      mCount = count;
+      mLongitude = longitude;
+      mLatitude = latitude;
+    }
+
+    @Override public int measurementCount() {
+      return mCount;
+    }
+
+    public double getLongitude() {
+      return mLongitude;
+    }
+
+    public double getLatitude() {
+      return mLatitude;
+    }
+
+    /**
+     * Return the depth of a measurement without allocating
+     * @param index - int from 0 to measurementCount() - 1, in WaterProfile order
+     * @return double
+     */
+    public double getDepth(final int index){
+      return mBuffer.getFloat(offsetOf(index));
+    }
+
+    /**
+     * Return a property value of a measurement without allocating
+     * @param index - int from 0 to measurementCount() - 1, in WaterProfile order
+     * @param property - String property name as used by Measurement.getValueForProperty
+     * @return double, NaN if the value is missing or the property unknown
+     */
+    public double getValue(final int index, @NonNull final String property){
+      final int field = fieldFor(property);
+      return field < 0 ? Double.NaN : mBuffer.getFloat(offsetOf(index) + field * 4);
+    }
+
+    /**
+     * Return the EMU of a measurement
+     * @param index - int from 0 to measurementCount() - 1, in WaterProfile order
+     * @return int
+     */
+    public int getEmu(final int index){
+      return mBuffer.getShort(offsetOf(index) + 28);
+    }
+
+    @Override public Map<Double, Double> getMeasurementsForProperty(final String property) {
+      final Map<Double, Double> measurementsByDepth = new TreeMap<>();
+      for (int i = 0; i < mCount; i++){
+        final double value = getValue(i, property);
+        if (!Double.isNaN(value)){
+          measurementsByDepth.put(getDepth(i), value);
+        }
+      }
+      return measurementsByDepth;
+    }
+
+    /**
+     * Copy the profile onto the heap
+     * @return WaterProfile
+     */
+    @NonNull public WaterProfile toWaterProfile(){
+      final WaterProfile profile = new WaterProfile();
+      for (int i = 0; i < mCount; i++){
+        final int offset = offsetOf(i);
+        final Measurement m = new Measurement();
+        m.setDepth((double) mBuffer.getFloat(offset));
+        m.setTemperature(valueAt(offset + 4));
+        m.setSalinity(valueAt(offset + 8));
+        m.setDissolvedOxygen(valueAt(offset + 12));
+        m.setSilicate(valueAt(offset + 16));
+        m.setPhosphate(valueAt(offset + 20));
+        m.setNitrate(valueAt(offset + 24));
+        m.setEmu(mBuffer.getShort(offset + 28));
+        profile.addMeasurement(m);
+      }
+      return profile;
+    }
+
+    private Double valueAt(final int offset){
+      final float value = mBuffer.getFloat(offset);
+      return Float.isNaN(value) ? null : (double) value;
+    }
+
+    private int offsetOf(final int index){
+      if (index < 0 || index >= mCount){
+        throw new IndexOutOfBoundsException("Measurement " + index + " of " + mCount);
+      }
+      return mFirstOffset + index * RECORD_SIZE;
+    }
+
+    private static int fieldFor(final String property){
+      switch (property){
+        case "TEMPERATURE":
+          return 1;
+        case "SALINITY":
+          return 2;
+        case "DISSOLVED_OXYGEN":
+          return 3;
+        case "SILICATE":
+          return 4;
+        case "PHOSPHATE":
+          return 5;
+        case "NITRATE":
+          return 6;
+        default:
+          return -1;
+      }
+    }
+  }
+
+  public static final int RECORD_SIZE = 32;
+
+  private static final int MAGIC = 0x454D5553; // EMUS
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int INDEX_ENTRY_SIZE = 16;
+
+  private final ByteBuffer mBuffer;
+  private final int mStationCount;
+  private final int mRecordsOffset;
+
+  private StationProfileStore(final ByteBuffer buffer) throws IOException {
+    mBuffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC){
+      throw new IOException("Not a station profile store");
+    }
+    if (buffer.getInt(4) != VERSION){
+      throw new IOException("Unsupported station profile store version " + buffer.getInt(4));
+    }
+    mStationCount = buffer.getInt(8);
+    final int recordCount = buffer.getInt(12);
+    mRecordsOffset = HEADER_SIZE + mStationCount * INDEX_ENTRY_SIZE;
+    if (mStationCount < 0 || recordCount < 0 ||
+        (long) mRecordsOffset + (long) recordCount * RECORD_SIZE != buffer.capacity()){
+      throw new IOException("Station profile store is truncated or corrupt");
+    }
+    for (int i = 0; i < mStationCount; i++){
+      final int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+      final int first = buffer.getInt(entry + 8);
+      final int count = buffer.getInt(entry + 12);
+      if (first < 0 || count < 0 || (long) first + count > recordCount){
+        throw new IOException("Station " + i + " refers to records outside the store");
+      }
+    }
+  }
+
+  /**
+   * Memory map a store written by write()
+   * @param file - File
+   * @return StationProfileStore
+   * @throws IOException if the file can't be read or isn't a valid store
+   */
+  @NonNull public static StationProfileStore open(@NonNull final File file) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      final FileChannel channel = randomAccessFile.getChannel();
+      // The mapping stays valid after the channel is closed
+      return new StationProfileStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * Write a store of station profiles, replacing any existing file.
+   * The file is written alongside and renamed into place so a store
+   * that's already mapped is never seen half written.
+   * @param file - File to write
+   * @param stations - Collection<StationEntry>
+   * @throws IOException if the file can't be written
+   */
+  public static void write(@NonNull final File file, @NonNull final Collection<StationEntry> stations) throws IOException {
+    final List<StationEntry> sorted = new ArrayList<>(stations);
+    Collections.sort(sorted, new Comparator<StationEntry>() {
+      @Override public int compare(final StationEntry a, final StationEntry b) {
+        final long keyA = ColumnKey.of(a.getLongitude(), a.getLatitude());
+        final long keyB = ColumnKey.of(b.getLongitude(), b.getLatitude());
+        return keyA < keyB ? -1 : (keyA == keyB ? 0 : 1);
+      }
+    });
+    int recordCount = 0;
+    for (final StationEntry station : sorted){
+      recordCount += station.getProfile().measurementCount();
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sorted.size() * INDEX_ENTRY_SIZE + recordCount * RECORD_SIZE);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(sorted.size()).putInt(recordCount);
+    int first = 0;
+    for (final StationEntry station : sorted){
+      final int count = station.getProfile().measurementCount();
+      buffer.putLong(ColumnKey.of(station.getLongitude(), station.getLatitude())).putInt(first).putInt(count);
+      first += count;
+    }
+    for (final StationEntry station : sorted){
+      for (final Measurement m : station.getProfile().getMeasurements()){
+        buffer.putFloat(m.getDepth().floatValue());
+        putValue(buffer, m.getTemperature());
+        putValue(buffer, m.getSalinity());
+        putValue(buffer, m.getDissolvedOxygen());
+        putValue(buffer, m.getSilicate());
+        putValue(buffer, m.getPhosphate());
+        putValue(buffer, m.getNitrate());
+        buffer.putShort((short) m.getEmu());
+        buffer.putShort((short) 0);
+      }
+    }
+
+    final File temp = new File(file.getPath() + ".tmp");
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(temp, "rw");
+    try {
+      randomAccessFile.setLength(0);
+      buffer.flip();
+      final FileChannel channel = randomAccessFile.getChannel();
+      while (buffer.hasRemaining()){
+        channel.write(buffer);
+      }
+      channel.force(true);
+    } finally {
+      randomAccessFile.close();
+    }
+    if (!temp.renameTo(file)){
+      throw new IOException("Unable to replace " + file);
+    }
+  }
+
+  /**
+   * Return the number of stations in the store
+   * @return int
+   */
+  public int size(){
+    return mStationCount;
+  }
+
+  /**
+   * Return the profile of the station closest to the location
+   * @param longitude - double
+   * @param latitude - double
+   * @param tolerance - double, the largest distance in degrees of
+   *                  longitude or latitude to accept a station
+   * @return StationProfile or null if no station is close enough
+   */
+  @Nullable public StationProfile find(final double longitude, final double latitude, final double tolerance){
+    final long lowKey = ColumnKey.of(longitude - tolerance, -90);
+    final long highKey = ColumnKey.of(longitude + tolerance, 90);
+    int best = -1;
+    double bestDistance = Double.MAX_VALUE;
+    for (int i = lowerBound(lowKey); i < mStationCount && keyAt(i) <= highKey; i++){
+      final double dx = ColumnKey.longitudeOf(keyAt(i)) - longitude;
+      final double dy = ColumnKey.latitudeOf(keyAt(i)) - latitude;
+      if (Math.abs(dx) <= tolerance && Math.abs(dy) <= tolerance && dx * dx + dy * dy < bestDistance){
+        best = i;
+        bestDistance = dx * dx + dy * dy;
+      }
+    }
+    return best < 0 ? null : stationAt(best);
+  }
+
+  /**
+   * Copy every station onto the heap, e.g. to write an updated store
+   * @return List<StationEntry>
+   */
+  @NonNull public List<StationEntry> readAll(){
+    final List<StationEntry> stations = new ArrayList<>(mStationCount);
+    for (int i = 0; i < mStationCount; i++){
+      final StationProfile profile = stationAt(i);
+      stations.add(new StationEntry(profile.getLongitude(), profile.getLatitude(), profile.toWaterProfile()));
+    }
+    return stations;
+  }
+
+  private StationProfile stationAt(final int index){
+    final int entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+    final long key = mBuffer.getLong(entry);
+    return new StationProfile(mBuffer, mRecordsOffset + mBuffer.getInt(entry + 8) * RECORD_SIZE,
+        mBuffer.getInt(entry + 12), ColumnKey.longitudeOf(key), ColumnKey.latitudeOf(key));
+  }
+
+  private long keyAt(final int index){
+    return mBuffer.getLong(HEADER_SIZE + index * INDEX_ENTRY_SIZE);
+  }
+
+  private int lowerBound(final long key){
+    int low = 0;
+    int high = mStationCount;
+    while (low < high){
+      final int mid = (low + high) >>> 1;
+      if (keyAt(mid) < key){
+        low = mid + 1;
+      }else{
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static void putValue(final ByteBuffer buffer, @Nullable final Double value){
+    buffer.putFloat(value == null ? Float.NaN : value.floatValue());
+  }
+}
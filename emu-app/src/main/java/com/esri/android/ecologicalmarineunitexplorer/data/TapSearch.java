@@ -0,0 +1,129 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans the areas searched for the water column nearest a tapped
+ * location.  The first search covers the smallest square certain to
+ * hold a point of a regular mesh with the spacing expected there, and
+ * each further search doubles the square, up to a limit, so a wider
+ * area is only queried when nothing was found.
+ *
+ * The expected spacing starts at the nominal spacing of the mesh and
+ * is then learnt for each region from how far the columns found there
+ * were from the tapped locations.  For a tap at random within a regular
+ * mesh the nearest point is, on average, a third of the spacing away
+ * along the larger axis, and sparse areas near coasts soon start wider.
+ * All sizes are in WGS84 degrees.
+ */
+public class TapSearch {
+
+  // Weight of each new observation in a region's spacing
+  private static final double LEARNING_RATE = 0.25;
+
+  private final double mMeshSpacing;
+  private final double mMinHalfWidth;
+  private final double mMaxHalfWidth;
+  private final WorldGrid mRegions;
+  private final Map<Integer, Double> mSpacings = new HashMap<>();
+
+  /**
+   * @param meshSpacing - double, the nominal distance between mesh points
+   * @param maxHalfWidth - double, half the width of the largest area searched
+   * @param regionSize - double, width of the regions spacing is learnt for.
+   *                   Must divide 180 evenly.
+   */
+  public TapSearch(final double meshSpacing, final double maxHalfWidth, final double regionSize){
+    if (meshSpacing <= 0 || maxHalfWidth < meshSpacing / 2){
+      throw new IllegalArgumentException("The largest search must hold a mesh point");
+    }
+    mMeshSpacing = meshSpacing;
+    // Even a denser mesh is searched at least this wide
+    mMinHalfWidth = meshSpacing / 8;
+    mMaxHalfWidth = maxHalfWidth;
+    mRegions = new WorldGrid(regionSize);
+  }
+
+  /**
+   * Return half the width of each square to search, smallest first
+   * @param longitude - double of the tapped location
+   * @param latitude - double of the tapped location
+   * @return double[] in ascending order, the last being the largest search
+   */
+  @NonNull public double[] halfWidths(final double longitude, final double latitude){
+    final List<Double> widths = new ArrayList<>();
+    double halfWidth = Math.max(mMinHalfWidth, Math.min(mMaxHalfWidth, getSpacing(longitude, latitude) / 2));
+    while (halfWidth < mMaxHalfWidth){
+      widths.add(halfWidth);
+      halfWidth = halfWidth * 2;
+    }
+    widths.add(mMaxHalfWidth);
+    final double[] halfWidths = new double[widths.size()];
+    for (int i = 0; i < halfWidths.length; i++){
+      halfWidths[i] = widths.get(i);
+    }
+    return halfWidths;
+  }
+
+  /**
+   * Learn from the column found for a tapped location
+   * @param longitude - double of the tapped location
+   * @param latitude - double of the tapped location
+   * @param columnLongitude - double of the column found
+   * @param columnLatitude - double of the column found
+   */
+  public synchronized void recordHit(final double longitude, final double latitude,
+      final double columnLongitude, final double columnLatitude){
+    double dx = Math.abs(columnLongitude - longitude) % 360;
+    if (dx > 180){
+      dx = 360 - dx;
+    }
+    final double distance = Math.max(dx, Math.abs(columnLatitude - latitude));
+    final double observed = Math.min(distance * 3, mMaxHalfWidth * 2);
+    final int region = mRegions.cellContaining(longitude, latitude);
+    final Double spacing = mSpacings.get(region);
+    final double current = spacing != null ? spacing : mMeshSpacing;
+    mSpacings.put(region, current + (observed - current) * LEARNING_RATE);
+  }
+
+  /**
+   * Return the spacing expected around a location
+   * @param longitude - double
+   * @param latitude - double
+   * @return double, the nominal spacing until a column has been found in the region
+   */
+  public synchronized double getSpacing(final double longitude, final double latitude){
+    final Double spacing = mSpacings.get(mRegions.cellContaining(longitude, latitude));
+    return spacing != null ? spacing : mMeshSpacing;
+  }
+}
@@ -0,0 +1,144 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A line drawn across the ocean described by its vertices in
+ * decimal degrees.  Used to place water columns found along the
+ * line at their distance from its start.
+ */
+public class Transect {
+
+  private static final double EARTH_RADIUS_KM = 6371.0088;
+
+  private final double[] mLongitudes;
+  private final double[] mLatitudes;
+
+  // Distance in km from the first vertex to each vertex
+  private final double[] mCumulativeKm;
+
+  /**
+   * @param longitudes - vertex longitudes in decimal degrees
+   * @param latitudes - vertex latitudes in decimal degrees
+   */
+  public Transect(@NonNull final double[] longitudes, @NonNull final double[] latitudes){
+    if (longitudes.length != latitudes.length || longitudes.length < 2){
+      throw new IllegalArgumentException("A transect needs at least two vertices");
+    }
+    mLongitudes = longitudes.clone();
+    mLatitudes = latitudes.clone();
+    mCumulativeKm = new double[longitudes.length];
+    for (int i = 1; i < longitudes.length; i++){
+      mCumulativeKm[i] = mCumulativeKm[i - 1] + haversineKm(mLongitudes[i - 1], mLatitudes[i - 1], mLongitudes[i], mLatitudes[i]);
+    }
+  }
+
+  /**
+   * Return the length of the transect
+   * @return double representing kilometers
+   */
+  public double getLength(){
+    return mCumulativeKm[mCumulativeKm.length - 1];
+  }
+
+  /**
+   * Return the distance from the start of the transect to the
+   * point on the transect closest to the given location.
+   * @param longitude - decimal degrees
+   * @param latitude - decimal degrees
+   * @return double representing kilometers
+   */
+  public double distanceAlong(final double longitude, final double latitude){
+    return closest(longitude, latitude)[0];
+  }
+
+  /**
+   * Return the shortest distance from the given location to the transect
+   * @param longitude - decimal degrees
+   * @param latitude - decimal degrees
+   * @return double representing kilometers
+   */
+  public double distanceFrom(final double longitude, final double latitude){
+    return closest(longitude, latitude)[1];
+  }
+
+  /**
+   * Find the closest point on the transect.  Each segment is treated as
+   * a straight line in a local equirectangular projection, which is
+   * plenty for segments drawn by hand on a map.
+   * @return double[] with distance along and distance from the transect in km
+   */
+  private double[] closest(final double longitude, final double latitude){
+    double bestAlong = 0;
+    double bestFrom = Double.MAX_VALUE;
+    for (int i = 1; i < mLongitudes.length; i++){
+      final double meanLatitude = Math.toRadians((mLatitudes[i - 1] + mLatitudes[i]) / 2);
+      final double kmPerDegreeX = Math.toRadians(EARTH_RADIUS_KM) * Math.cos(meanLatitude);
+      final double kmPerDegreeY = Math.toRadians(EARTH_RADIUS_KM);
+      final double bx = wrap(mLongitudes[i] - mLongitudes[i - 1]) * kmPerDegreeX;
+      final double by = (mLatitudes[i] - mLatitudes[i - 1]) * kmPerDegreeY;
+      final double px = wrap(longitude - mLongitudes[i - 1]) * kmPerDegreeX;
+      final double py = (latitude - mLatitudes[i - 1]) * kmPerDegreeY;
+      // Segment runs from the origin to (bx, by)
+      final double lengthSquared = bx * bx + by * by;
+      double t = lengthSquared == 0 ? 0 : (px * bx + py * by) / lengthSquared;
+      t = Math.max(0, Math.min(1, t));
+      final double dx = px - t * bx;
+      final double dy = py - t * by;
+      final double from = Math.sqrt(dx * dx + dy * dy);
+      if (from < bestFrom){
+        bestFrom = from;
+        bestAlong = mCumulativeKm[i - 1] + t * (mCumulativeKm[i] - mCumulativeKm[i - 1]);
+      }
+    }
+    return new double[]{bestAlong, bestFrom};
+  }
+
+  /**
+   * Keep longitude differences in [-180, 180] so segments
+   * crossing the antimeridian measure correctly.
+   */
+  private static double wrap(final double degrees){
+    double d = degrees;
+    while (d > 180){
+      d -= 360;
+    }
+    while (d < -180){
+      d += 360;
+    }
+    return d;
+  }
+
+  private static double haversineKm(final double lon1, final double lat1, final double lon2, final double lat2){
+    final double dLat = Math.toRadians(lat2 - lat1);
+    final double dLon = Math.toRadians(wrap(lon2 - lon1));
+    final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+        Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+}
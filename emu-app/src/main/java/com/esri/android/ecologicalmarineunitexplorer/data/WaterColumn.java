@@ -29,31 +29,97 @@ import android.support.annotation.NonNull;
 
 import com.esri.arcgisruntime.geometry.Point;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
- * A Model object encapsulating a collection of EMUObservations for a specific location
+ * A Model object encapsulating a collection of EMUObservations for a specific location.
+ * Observations are kept in a sorted array, in EMUObservation order, with at
+ * most one observation for each top.
  */
 
 public class WaterColumn implements  Comparable<WaterColumn> {
-  @NonNull private final Set<EMUObservation> emuSet;
+  private static final int INITIAL_CAPACITY = 8;
+
+  private EMUObservation[] observations;
+  private int count;
+  @NonNull private final Set<EMUObservation> emuSet = new AbstractSet<EMUObservation>() {
+    @Override public Iterator<EMUObservation> iterator() {
+      return new Iterator<EMUObservation>() {
+        private int index = 0;
+
+        @Override public boolean hasNext() {
+          return index < count;
+        }
+
+        @Override public EMUObservation next() {
+          if (index >= count){
+            throw new NoSuchElementException();
+          }
+          return observations[index++];
+        }
+
+        @Override public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override public int size() {
+      return count;
+    }
+  };
   private double distanceFrom = 0;
   private Point location;
 
   public WaterColumn(){
-    emuSet = new TreeSet<>();
+    observations = new EMUObservation[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Create a column from observations that are already sorted
+   * and have no two with the same top
+   * @param location - Point of the column
+   * @param sorted - EMUObservation[], used without copying
+   * @param count - int number of observations in the array to use
+   */
+  WaterColumn(final Point location, @NonNull final EMUObservation[] sorted, final int count){
+    this.location = location;
+    this.observations = sorted;
+    this.count = count;
   }
 
+  /**
+   * Return the observations in order.  The set can't be modified;
+   * use addObservation instead.
+   * @return Set<EMUObservation>
+   */
   @NonNull public Set<EMUObservation> getEmuSet() {
     return emuSet;
   }
 
+  /**
+   * Add an observation in order, ignoring it if the column
+   * already has one with the same top
+   * @param observation - EMUObservation
+   */
   public void addObservation(final EMUObservation observation){
-    emuSet.add(observation);
+    final int index = Arrays.binarySearch(observations, 0, count, observation);
+    if (index >= 0){
+      return;
+    }
+    final int insertAt = -(index + 1);
+    if (count == observations.length){
+      observations = Arrays.copyOf(observations, Math.max(INITIAL_CAPACITY, count * 2));
+    }
+    System.arraycopy(observations, insertAt, observations, insertAt + 1, count - insertAt);
+    observations[insertAt] = observation;
+    count++;
   }
 
 
@@ -89,6 +155,10 @@ public class WaterColumn implements  Comparable<WaterColumn> {
     this.distanceFrom = distanceFrom;
   }
 
+  public double getDistanceFrom() {
+    return distanceFrom;
+  }
+
   public Point getLocation() {
     return location;
   }
@@ -25,6 +25,7 @@
 package com.esri.android.ecologicalmarineunitexplorer.data;
 
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -34,7 +35,7 @@ import java.util.TreeSet;
  * An object representing a collection of Measurements for a
  * specific location in the ocean
  */
-public class WaterProfile {
+public class WaterProfile implements DepthProfile {
 
 
   private Set<Measurement> mMeasurementSet ;
@@ -54,18 +55,29 @@ public class WaterProfile {
    * @param property
    * @return A map of measurements
    */
-  public Map<Double,Double> getMeasurementsForProperty(String property){
+  @Override public Map<Double,Double> getMeasurementsForProperty(String property){
     Map<Double,Double> measurementsByDepth = new TreeMap<>();
     for (Measurement measurement : mMeasurementSet){
-      measurementsByDepth.put(measurement.getDepth(), measurement.getValueForProperty(property));
+      Double value = measurement.getValueForProperty(property);
+      if (value != null){
+        measurementsByDepth.put(measurement.getDepth(), value);
+      }
     }
     return measurementsByDepth;
   }
+  /**
+   * Return all measurements, ordered by depth
+   * @return Set<Measurement>
+   */
+  public Set<Measurement> getMeasurements(){
+    return Collections.unmodifiableSet(mMeasurementSet);
+  }
+
   /**
    * Return measurement count
    * @return int representing count of measurements
    */
-  public int measurementCount(){
+  @Override public int measurementCount(){
     return mMeasurementSet.size();
   }
 }
@@ -0,0 +1,212 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Divides the world into fixed cells of equal size in WGS84 degrees.
+ * Cells are numbered row by row starting at the south west corner and
+ * are used as stable cache keys for data loaded by map extent.
+ */
+public class WorldGrid {
+
+  /**
+   * A rectangle of whole cells that can be fetched with a single query
+   */
+  public static class Block {
+    private final WorldGrid mGrid;
+    private final int mFirstColumn;
+    private final int mLastColumn;
+    private final int mFirstRow;
+    private final int mLastRow;
+
+    private Block(final WorldGrid grid, final int firstColumn, final int lastColumn, final int firstRow, final int lastRow){
+      mGrid = grid;
+      mFirstColumn = firstColumn;
+      mLastColumn = lastColumn;
+      mFirstRow = firstRow;
+      mLastRow = lastRow;
+    }
+
+    /**
+     * Return the cells covered by the block
+     * @return List<Integer>
+     */
+    @NonNull public List<Integer> getCells(){
+      final List<Integer> cells = new ArrayList<>();
+      for (int row = mFirstRow; row <= mLastRow; row++){
+        for (int column = mFirstColumn; column <= mLastColumn; column++){
+          cells.add(mGrid.cellAt(column, row));
+        }
+      }
+      return cells;
+    }
+
+    /**
+     * Return the block's extent as {xmin, ymin, xmax, ymax} in degrees
+     * @return double[]
+     */
+    @NonNull public double[] getBounds(){
+      final double size = mGrid.mCellSize;
+      return new double[]{ -180 + mFirstColumn * size, -90 + mFirstRow * size,
+          -180 + (mLastColumn + 1) * size, -90 + (mLastRow + 1) * size };
+    }
+  }
+
+  private final double mCellSize;
+  private final int mColumnCount;
+  private final int mRowCount;
+
+  /**
+   * @param cellSize - width and height of a cell in degrees.  Must divide 180 evenly.
+   */
+  public WorldGrid(final double cellSize){
+    final double rows = 180 / cellSize;
+    if (cellSize <= 0 || rows != Math.rint(rows)){
+      throw new IllegalArgumentException("Cell size must divide 180 degrees evenly");
+    }
+    mCellSize = cellSize;
+    mRowCount = (int) rows;
+    mColumnCount = mRowCount * 2;
+  }
+
+  public int getCellCount(){
+    return mColumnCount * mRowCount;
+  }
+
+  /**
+   * Return the cell at the column and row
+   * @param column - int from 0 at -180 degrees
+   * @param row - int from 0 at -90 degrees
+   * @return int
+   */
+  public int cellAt(final int column, final int row){
+    return row * mColumnCount + column;
+  }
+
+  /**
+   * Return the cell containing a location.  Longitudes outside
+   * -180..180 are wrapped around.
+   * @param longitude - double in degrees
+   * @param latitude - double in degrees
+   * @return int
+   */
+  public int cellContaining(final double longitude, final double latitude){
+    final int row = clampRow((int) Math.floor((latitude + 90) / mCellSize));
+    final int column = (int) Math.floor((longitude + 180) / mCellSize);
+    return cellAt((column % mColumnCount + mColumnCount) % mColumnCount, row);
+  }
+
+  /**
+   * Return the cells intersecting an extent given in degrees.  Longitudes
+   * outside -180..180, as produced by a wrapped map, are wrapped around.
+   * @param xmin - western longitude
+   * @param ymin - southern latitude
+   * @param xmax - eastern longitude
+   * @param ymax - northern latitude
+   * @return Set<Integer> of cells, in ascending order
+   */
+  @NonNull public Set<Integer> cellsIntersecting(final double xmin, final double ymin, final double xmax, final double ymax){
+    final Set<Integer> cells = new TreeSet<>();
+    final int firstRow = clampRow((int) Math.floor((ymin + 90) / mCellSize));
+    final int lastRow = clampRow((int) Math.ceil((ymax + 90) / mCellSize) - 1);
+    int firstColumn = 0;
+    int columnSpan = mColumnCount;
+    if (xmax - xmin < 360){
+      firstColumn = (int) Math.floor((xmin + 180) / mCellSize);
+      final int lastColumn = Math.max(firstColumn, (int) Math.ceil((xmax + 180) / mCellSize) - 1);
+      columnSpan = Math.min(mColumnCount, lastColumn - firstColumn + 1);
+    }
+    for (int row = firstRow; row <= lastRow; row++){
+      for (int i = 0; i < columnSpan; i++){
+        final int column = ((firstColumn + i) % mColumnCount + mColumnCount) % mColumnCount;
+        cells.add(cellAt(column, row));
+      }
+    }
+    return cells;
+  }
+
+  /**
+   * Return every cell in the world
+   * @return Set<Integer>
+   */
+  @NonNull public Set<Integer> allCells(){
+    return cellsIntersecting(-180, -90, 180, 90);
+  }
+
+  /**
+   * Merge cells into as few rectangular blocks as possible by joining
+   * neighbouring cells in a row, then stacking rows with the same span.
+   * @param cells - Collection<Integer> of cells to merge
+   * @return List<Block>
+   */
+  @NonNull public List<Block> blocksFor(@NonNull final Collection<Integer> cells){
+    final boolean[] wanted = new boolean[getCellCount()];
+    for (final Integer cell : cells){
+      wanted[cell] = true;
+    }
+    final List<Block> blocks = new ArrayList<>();
+    final List<Block> previousRow = new ArrayList<>();
+    for (int row = 0; row < mRowCount; row++){
+      final List<Block> currentRow = new ArrayList<>();
+      int column = 0;
+      while (column < mColumnCount){
+        if (!wanted[cellAt(column, row)]){
+          column++;
+          continue;
+        }
+        final int start = column;
+        while (column < mColumnCount && wanted[cellAt(column, row)]){
+          column++;
+        }
+        Block block = new Block(this, start, column - 1, row, row);
+        for (final Block above : previousRow){
+          if (above.mFirstColumn == start && above.mLastColumn == column - 1){
+            blocks.remove(above);
+            block = new Block(this, start, column - 1, above.mFirstRow, row);
+            break;
+          }
+        }
+        currentRow.add(block);
+        blocks.add(block);
+      }
+      previousRow.clear();
+      previousRow.addAll(currentRow);
+    }
+    return blocks;
+  }
+
+  private int clampRow(final int row){
+    return Math.max(0, Math.min(mRowCount - 1, row));
+  }
+}
@@ -28,12 +28,16 @@ package com.esri.android.ecologicalmarineunitexplorer.map;
 import com.esri.android.ecologicalmarineunitexplorer.BasePresenter;
 import com.esri.android.ecologicalmarineunitexplorer.BaseView;
 import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.Polygon;
+import com.esri.arcgisruntime.geometry.Polyline;
 import com.esri.arcgisruntime.geometry.SpatialReference;
 import com.esri.arcgisruntime.layers.Layer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 
+import java.util.List;
+
 /**
  * This is the contract between the Presenter and View components of the MVP pattern.
  * It defines methods to display the map and EMU features.
@@ -80,11 +84,10 @@ public interface MapContract {
     void showClickedLocation(Point point);
 
     /**
-     * Show a progress bar with given message and title
+     * Show an inline loading indicator that leaves the view usable
      * @param message - String
-     * @param title - String
      */
-    void showProgressBar(String message, String title);
+    void showProgressBar(String message);
 
     /**
      * Hide progress bar
@@ -108,6 +111,18 @@ public interface MapContract {
      */
     SpatialReference getSpatialReference();
 
+    /**
+     * Return the extent of the map currently on screen
+     * @return - Envelope or null if the map hasn't drawn yet
+     */
+    Envelope getVisibleExtent();
+
+    /**
+     * Return the current scale of the map
+     * @return - double, e.g. 25000000 for 1:25,000,000
+     */
+    double getMapScale();
+
     /**
      * Show snackbar
      */
@@ -117,9 +132,26 @@ public interface MapContract {
      * Callback to activity
      */
     void onNoEmusFound();
+
+    /**
+     * Draw the transect in the map, or remove it if null
+     * @param line - Polyline
+     */
+    void showTransect(Polyline line);
+
+    /**
+     * Show the section of water columns along the transect
+     * @param line - Polyline
+     */
+    void showTransectSection(Polyline line);
   }
   interface Presenter extends BasePresenter {
 
+    /**
+     * Stop waiting for whatever is loading and ignore its results
+     */
+    void cancelLoading();
+
     /**
      * When a user clicks a location in the map, show the progress bar and
      * create a buffered polygon around the point and query for EMU data.
@@ -149,11 +181,48 @@ public interface MapContract {
      */
     void geocodeAddress(String addresss);
 
+    /**
+     * Return names of bundled marine places and stations
+     * matching what the user has typed so far.
+     * @param prefix - The string entered into the search view
+     * @return - List<String> of place names, empty if none match
+     */
+    List<String> suggestPlaces(String prefix);
+
+    /**
+     * Begin drawing a transect.  Subsequent map taps
+     * add vertices instead of selecting a location.
+     */
+    void startTransect();
+
+    /**
+     * Return true while a transect is being drawn
+     * @return boolean
+     */
+    boolean isDrawingTransect();
+
+    /**
+     * Add a vertex to the transect being drawn
+     * @param point - Point
+     */
+    void addTransectPoint(Point point);
+
+    /**
+     * Finish drawing and show the water columns along the transect
+     */
+    void finishTransect();
+
     /**
      * Determine what expression to apply in the definition expression
      * for retrieving polygons at a certain depth
      * @param depth - Integer
      */
     void retrieveEMUPolygonByDepth(Integer depth);
+
+    /**
+     * Load any polygons for the current depth
+     * that fall within the new map extent
+     */
+    void mapExtentChanged();
   }
 }
@@ -24,7 +24,6 @@
 
 package com.esri.android.ecologicalmarineunitexplorer.map;
 
-import android.app.ProgressDialog;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
@@ -32,6 +31,7 @@ import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
+import android.support.v4.content.ContextCompat;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
@@ -42,7 +42,10 @@ import android.widget.Toast;
 import com.esri.android.ecologicalmarineunitexplorer.MainActivity;
 import com.esri.android.ecologicalmarineunitexplorer.R;
 import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.android.ecologicalmarineunitexplorer.util.LoadingBar;
+import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.Point;
+import com.esri.arcgisruntime.geometry.Polyline;
 import com.esri.arcgisruntime.geometry.SpatialReference;
 import com.esri.arcgisruntime.layers.Layer;
 import com.esri.arcgisruntime.loadable.LoadStatus;
@@ -54,16 +57,20 @@ import com.esri.arcgisruntime.mapping.view.DrawStatusChangedListener;
 import com.esri.arcgisruntime.mapping.view.Graphic;
 import com.esri.arcgisruntime.mapping.view.GraphicsOverlay;
 import com.esri.arcgisruntime.mapping.view.MapView;
+import com.esri.arcgisruntime.mapping.view.NavigationChangedEvent;
+import com.esri.arcgisruntime.mapping.view.NavigationChangedListener;
 import com.esri.arcgisruntime.symbology.PictureMarkerSymbol;
+import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 
 
 public class MapFragment extends Fragment implements MapContract.View {
 
   private GraphicsOverlay mGraphicOverlay = null;
+  private GraphicsOverlay mTransectOverlay = null;
   private MapView mMapView = null;
   private View mRoot = null;
   private MapContract.Presenter mPresenter = null;
-  private ProgressDialog mProgressDialog = null;
+  private LoadingBar mLoadingBar = null;
   private Point mSelectedPoint = null;
   private ArcGISMap mMap = null;
 
@@ -108,6 +115,13 @@ public class MapFragment extends Fragment implements MapContract.View {
       }
     });
 
+    // Loading is shown inline so the map can still be panned or tapped elsewhere
+    mLoadingBar = new LoadingBar(getActivity().findViewById(R.id.mapLoadingBar), new View.OnClickListener() {
+      @Override public void onClick(final View v) {
+        mPresenter.cancelLoading();
+      }
+    });
+
     mPresenter.start();
     return null;
   }
@@ -156,6 +170,16 @@ public class MapFragment extends Fragment implements MapContract.View {
       }
     });
 
+    // Once the user stops panning or zooming, load
+    // polygons for any newly visible part of the map
+    mMapView.addNavigationChangedListener(new NavigationChangedListener() {
+      @Override public void navigationChanged(final NavigationChangedEvent navigationChangedEvent) {
+        if (!navigationChangedEvent.isNavigating()){
+          mPresenter.mapExtentChanged();
+        }
+      }
+    });
+
     // When map's layout is changed, re-center map on selected point
     mMapView.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
       @Override public void onLayoutChange(final View v, final int left, final int top, final int right, final int bottom, final int oldLeft, final int oldTop,
@@ -198,6 +222,26 @@ public class MapFragment extends Fragment implements MapContract.View {
   }
 
 
+  /**
+   * Get the extent of the map currently on screen
+   * @return Envelope
+   */
+  @Override public Envelope getVisibleExtent() {
+    Envelope extent = null;
+    if (mMapView != null && mMapView.getVisibleArea() != null){
+      extent = mMapView.getVisibleArea().getExtent();
+    }
+    return extent;
+  }
+
+  /**
+   * Get the current scale of the map
+   * @return double
+   */
+  @Override public double getMapScale() {
+    return mMapView != null ? mMapView.getMapScale() : Double.NaN;
+  }
+
   /**
    * Add an operational layer to the map
    * @param layer - A Layer to add
@@ -286,18 +330,13 @@ public class MapFragment extends Fragment implements MapContract.View {
   }
 
   /**
-   * Display progress bar with given message and title
+   * Show the inline loading indicator with given message
    * @param message - String representing message to display
-   * @param title - String progress window title
    */
-  @Override public void showProgressBar(final String message, final String title) {
-    if (mProgressDialog == null){
-      mProgressDialog = new ProgressDialog(getActivity());
+  @Override public void showProgressBar(final String message) {
+    if (mLoadingBar != null){
+      mLoadingBar.show(message);
     }
-    mProgressDialog.dismiss();
-    mProgressDialog.setTitle(title);
-    mProgressDialog.setMessage(message);
-    mProgressDialog.show();
   }
 
 
@@ -316,10 +355,37 @@ public class MapFragment extends Fragment implements MapContract.View {
   }
 
   /**
-   * Hide progress bar
+   * Draw the transect in the map, or remove it if null
+   * @param line - Polyline
+   */
+  @Override public void showTransect(final Polyline line) {
+    if (mTransectOverlay == null){
+      mTransectOverlay = new GraphicsOverlay();
+      mMapView.getGraphicsOverlays().add(mTransectOverlay);
+    }
+    mTransectOverlay.getGraphics().clear();
+    if (line != null){
+      final SimpleLineSymbol lineSymbol = new SimpleLineSymbol(SimpleLineSymbol.Style.SOLID,
+          ContextCompat.getColor(getActivity(), R.color.colorAccent), 3);
+      mTransectOverlay.getGraphics().add(new Graphic(line, lineSymbol));
+    }
+  }
+
+  /**
+   * Delegate showing of the transect section to activity
+   * @param line - Polyline
+   */
+  @Override public void showTransectSection(final Polyline line) {
+    ((MainActivity) getActivity()).showTransect(line);
+  }
+
+  /**
+   * Hide the loading indicator
    */
   @Override public void hideProgressBar() {
-    mProgressDialog.dismiss();
+    if (mLoadingBar != null){
+      mLoadingBar.hide();
+    }
   }
 
 
@@ -340,9 +406,23 @@ public class MapFragment extends Fragment implements MapContract.View {
       super.onSingleTapConfirmed(motionEvent);
       final android.graphics.Point mapPoint = new android.graphics.Point((int) motionEvent.getX(),
           (int) motionEvent.getY());
-      mPresenter.setSelectedPoint(getScreenToLocation(mapPoint));
+      if (mPresenter.isDrawingTransect()){
+        mPresenter.addTransectPoint(getScreenToLocation(mapPoint));
+      }else{
+        mPresenter.setSelectedPoint(getScreenToLocation(mapPoint));
+      }
       return true;
     }
+
+    @Override
+    public boolean onDoubleTap(final MotionEvent motionEvent) {
+      // Double tap finishes a transect rather than zooming in
+      if (mPresenter.isDrawingTransect()){
+        mPresenter.finishTransect();
+        return true;
+      }
+      return super.onDoubleTap(motionEvent);
+    }
   }
 
 }
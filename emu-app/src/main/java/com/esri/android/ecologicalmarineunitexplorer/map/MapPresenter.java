@@ -29,20 +29,29 @@ import android.support.annotation.NonNull;
 import android.util.Log;
 
 import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
+import com.esri.android.ecologicalmarineunitexplorer.data.Gazetteer;
+import com.esri.android.ecologicalmarineunitexplorer.data.LatestRequest;
 import com.esri.android.ecologicalmarineunitexplorer.data.ServiceApi;
+import com.esri.android.ecologicalmarineunitexplorer.data.TapSearch;
 import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
 import com.esri.arcgisruntime.geometry.Envelope;
 import com.esri.arcgisruntime.geometry.GeometryEngine;
 import com.esri.arcgisruntime.geometry.Point;
 import com.esri.arcgisruntime.geometry.Polygon;
-import com.esri.arcgisruntime.geometry.PolygonBuilder;
+import com.esri.arcgisruntime.geometry.Polyline;
+import com.esri.arcgisruntime.geometry.PolylineBuilder;
+import com.esri.arcgisruntime.geometry.SpatialReference;
+import com.esri.arcgisruntime.geometry.SpatialReferences;
 import com.esri.arcgisruntime.layers.ArcGISTiledLayer;
 import com.esri.arcgisruntime.layers.FeatureLayer;
 import com.esri.arcgisruntime.mapping.ArcGISMap;
 import com.esri.arcgisruntime.mapping.Basemap;
 import com.esri.arcgisruntime.tasks.geocode.GeocodeResult;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -57,10 +66,37 @@ public class MapPresenter implements MapContract.Presenter {
   private DataManager mDataManager;
 
   private final String NO_EMU_FOUND = "Please select an ocean location";
+
   private final String NO_LOCATION_FOUND = "No location found for ";
+  private final String STALE_COLUMN = "Service unavailable, showing a nearby water column loaded earlier";
+
+  private final static int MAX_SUGGESTIONS = 8;
+
+  private final String TRANSECT_INSTRUCTIONS = "Tap to add points to the transect, double tap to finish";
+
+  private PolylineBuilder mTransectBuilder = null;
 
   private ArcGISTiledLayer mSurfaceLayer = null;
 
+  private int mCurrentDepth = 1;
+
+  // Depth layers are created per level of detail as each scale is first shown
+  private final Set<FeatureLayer> mDepthLayersOnMap = new HashSet<>();
+
+  // The location summary being fetched for the last place tapped
+  private final LatestRequest mSelection = new LatestRequest();
+
+  // Plans the areas searched around each tap, learning the mesh spacing as it goes
+  private final TapSearch mTapSearch = new TapSearch(MESH_SPACING_DEGREES, MAX_SEARCH_DEGREES, SEARCH_REGION_DEGREES);
+
+  // The point mesh is laid out every quarter degree
+  private final static double MESH_SPACING_DEGREES = 0.25;
+
+  // Half the width of the widest area searched around a tap
+  private final static double MAX_SEARCH_DEGREES = 2;
+
+  private final static double SEARCH_REGION_DEGREES = 10;
+
 
   public MapPresenter(@NonNull final MapContract.View mapView, @NonNull final DataManager dataManager){
     mMapView = checkNotNull(mapView, "map view cannot be null");
@@ -75,10 +111,9 @@ public class MapPresenter implements MapContract.Presenter {
    * adding the tiled layer for the EMU polygons
    */
   @Override public void start() {
-    // Show a dialog while the map loads
-    String DIALOG_TITLE = "EMU Map Loading";
-    String DIALOG_MESSAGE = "Rounding up the EMUs...";
-    mMapView.showProgressBar(DIALOG_MESSAGE, DIALOG_TITLE);
+    // Show progress while the map loads
+    String LOADING_MESSAGE = "Rounding up the EMUs...";
+    mMapView.showProgressBar(LOADING_MESSAGE);
     int ZOOM_LEVEL = 1;
     final ArcGISMap map =  new ArcGISMap(Basemap.Type.OCEANS, 0, 0, ZOOM_LEVEL);
     mMapView.setUpMap(map);
@@ -94,35 +129,83 @@ public class MapPresenter implements MapContract.Presenter {
   /**
    * When a user clicks a location in the map, show the progress bar and
    * create a buffered polygon around the point and query for EMU data.
+   * Tapping somewhere else before the query returns replaces it.
    * @param point - A geolocation representing the
    *              place a user clicked on the map
    */
   @Override public void setSelectedPoint(final Point point) {
-
-    mMapView.showProgressBar("Fetching details about the location...", "Preparing Location Summary");
+    final int request = mSelection.start();
+    mMapView.showProgressBar("Fetching details about the location...");
     mMapView.showClickedLocation(point);
-    double BUFFER_SIZE = 32000;
-    final Polygon polygon = getBufferPolygonForPoint(point, BUFFER_SIZE);
-    final PolygonBuilder builder = new PolygonBuilder(polygon);
-    final Envelope envelope = builder.getExtent();
+    final Point location = (Point) GeometryEngine.project(point, SpatialReferences.getWgs84());
+    searchForColumn(point, location, mTapSearch.halfWidths(location.getX(), location.getY()), 0, request);
+  }
+
+  /**
+   * Search the next square around the tapped location, widening the
+   * search while nothing is found
+   * @param point - Point tapped in the map
+   * @param location - the tapped Point in WGS84
+   * @param halfWidths - double[] of square sizes from TapSearch, in degrees
+   * @param ring - int index of the square to search
+   * @param request - int identifying the selection
+   */
+  private void searchForColumn(final Point point, final Point location, final double[] halfWidths, final int ring,
+      final int request){
+    final double halfWidth = halfWidths[ring];
+    final Envelope envelope = new Envelope(location.getX() - halfWidth, location.getY() - halfWidth,
+        location.getX() + halfWidth, location.getY() + halfWidth, SpatialReferences.getWgs84());
 
     mDataManager.queryForEmuAtLocation(envelope, new ServiceApi.SummaryCallback() {
       @Override public void onWaterColumnsLoaded(final WaterColumn column) {
-
+        if (column == null && ring + 1 < halfWidths.length && mSelection.isCurrent(request)){
+          searchForColumn(point, location, halfWidths, ring + 1, request);
+          return;
+        }
+        // The user tapped elsewhere or cancelled while this was loading
+        if (!mSelection.finish(request)){
+          return;
+        }
         mMapView.hideProgressBar();
         if (column == null){
           mMapView.showMessage(NO_EMU_FOUND);
           mMapView.onNoEmusFound();
         }else{
+          final Point columnLocation = column.getLocation();
+          mTapSearch.recordHit(location.getX(), location.getY(), columnLocation.getX(), columnLocation.getY());
+          Log.i("MapPresenter", "Water column found within " + halfWidth + " degrees after " + (ring + 1) + " searches");
           mMapView.setSelectedPoint(point);
           mMapView.setViewpoint();
           mMapView.showClickedLocation(point);
           mMapView.showSummary(column);
+          // Held from an earlier tap because the service couldn't be reached
+          if (mDataManager.isCurrentWaterColumnStale()){
+            mMapView.showMessage(STALE_COLUMN);
+          }
         }
       }
     });
   }
 
+  /**
+   * Stop waiting for the location summary.  The map
+   * carries on loading in the background.
+   */
+  @Override public void cancelLoading() {
+    mSelection.cancel();
+    mMapView.hideProgressBar();
+  }
+
+  /**
+   * Hide the progress shown while the map loads, leaving it
+   * up if a location summary is still being fetched
+   */
+  private void hideProgressUnlessSelecting(){
+    if (!mSelection.isPending()){
+      mMapView.hideProgressBar();
+    }
+  }
+
   /**
    * Create a polygon representing a buffered region around a
    * a given point
@@ -139,19 +222,30 @@ public class MapPresenter implements MapContract.Presenter {
    * Once map has been loaded, hide the progress bar
    */
   @Override public void mapLoaded() {
-
-    mMapView.hideProgressBar();
+    hideProgressUnlessSelecting();
     mMapView.showSnackbar();
   }
 
   /**
-   * Geocode the given string and search for EMUs.
+   * Geocode the given string and search for EMUs.  Marine place names
+   * and stations in the bundled gazetteer are resolved locally, the
+   * online locator is only used when there's no match.
    * @param addresss - The string entered into the search view
    */
   @Override public void geocodeAddress(final String addresss) {
-    mDataManager.queryForAddress(addresss, mMapView.getSpatialReference(),  new ServiceApi.GeocodingCallback() {
+    final SpatialReference sr = mMapView.getSpatialReference();
+    final Gazetteer gazetteer = mDataManager.getGazetteer();
+    if (gazetteer != null && sr != null){
+      final Gazetteer.Place place = gazetteer.find(addresss);
+      if (place != null){
+        final Point location = new Point(place.getLongitude(), place.getLatitude(), SpatialReferences.getWgs84());
+        setSelectedPoint((Point) GeometryEngine.project(location, sr));
+        return;
+      }
+    }
+    mDataManager.queryForAddress(addresss, sr,  new ServiceApi.GeocodingCallback() {
       @Override public void onGeocodeResult(final List<GeocodeResult> results) {
-        if (results == null){
+        if (results == null || results.isEmpty()){
           mMapView.showMessage(NO_LOCATION_FOUND + addresss);
         }else{
           final GeocodeResult result = results.get(0);
@@ -161,6 +255,69 @@ public class MapPresenter implements MapContract.Presenter {
     });
   }
 
+  /**
+   * Return names of bundled marine places and stations
+   * matching what the user has typed so far.
+   * @param prefix - The string entered into the search view
+   * @return - List<String> of place names, empty if none match or the
+   * gazetteer is still being read
+   */
+  @Override public List<String> suggestPlaces(final String prefix) {
+    final List<String> names = new ArrayList<>();
+    final Gazetteer gazetteer = mDataManager.getGazetteer();
+    if (gazetteer != null){
+      for (final Gazetteer.Place place : gazetteer.suggest(prefix, MAX_SUGGESTIONS)){
+        names.add(place.getName());
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Begin drawing a transect.  Subsequent map taps
+   * add vertices instead of selecting a location.
+   */
+  @Override public void startTransect() {
+    mTransectBuilder = new PolylineBuilder(mMapView.getSpatialReference());
+    mMapView.showTransect(null);
+    mMapView.showMessage(TRANSECT_INSTRUCTIONS);
+  }
+
+  /**
+   * Return true while a transect is being drawn
+   * @return boolean
+   */
+  @Override public boolean isDrawingTransect() {
+    return mTransectBuilder != null;
+  }
+
+  /**
+   * Add a vertex to the transect being drawn
+   * @param point - Point
+   */
+  @Override public void addTransectPoint(final Point point) {
+    if (mTransectBuilder != null){
+      mTransectBuilder.addPoint(point);
+      mMapView.showTransect(mTransectBuilder.toGeometry());
+    }
+  }
+
+  /**
+   * Finish drawing and show the water columns along the transect
+   */
+  @Override public void finishTransect() {
+    if (mTransectBuilder == null){
+      return;
+    }
+    final Polyline line = mTransectBuilder.toGeometry();
+    if (line.getParts().isEmpty() || line.getParts().get(0).getPointCount() < 2){
+      mMapView.showMessage(TRANSECT_INSTRUCTIONS);
+      return;
+    }
+    mTransectBuilder = null;
+    mMapView.showTransectSection(line);
+  }
+
   /**
    * Determine what expression to apply in the definition expression
    * for retrieving polygons at a certain depth
@@ -196,13 +353,35 @@ public class MapPresenter implements MapContract.Presenter {
     }else{
       mSurfaceLayer.setVisible(false);
     }
-    mDataManager.manageEmuPolygonsByDepth(depth, new ServiceApi.EMUByDepthCallback() {
+    if (depth == mCurrentDepth){
+      return;
+    }
+    mCurrentDepth = depth;
+    loadPolygonsInView();
+  }
+
+  /**
+   * Load any polygons for the current depth in the newly visible extent
+   */
+  @Override public void mapExtentChanged() {
+    if (mCurrentDepth != 1){
+      loadPolygonsInView();
+    }
+  }
+
+  /**
+   * Show polygons for the current depth, downloading
+   * those in the visible extent not already cached
+   */
+  private void loadPolygonsInView(){
+    mDataManager.manageEmuPolygonsByDepth(mCurrentDepth, mMapView.getVisibleExtent(), mMapView.getMapScale(), new ServiceApi.EMUByDepthCallback() {
       @Override public void onPolygonsRetrieved(final FeatureLayer layer) {
 
         if (layer == null){
           Log.i("MapPresenter", "*****Return layer is null!");
           mMapView.showMessage("Unable to display EMU polygons");
         }else{
+          addDepthLayer(layer);
           layer.setVisible(true);
         }
       }
@@ -211,16 +390,23 @@ public class MapPresenter implements MapContract.Presenter {
 
   /**
    * Cache the first depth level below the ocean surface.
-   * This is run only once.
+   * This is run only once.  The coarsest level of detail's layer
+   * is added now and the others as their scales are first shown.
    */
   private void cacheInitialDepthLayer(){
     mDataManager.queryEmuByDepth(10, new ServiceApi.EMUByDepthCallback() {
       @Override public void onPolygonsRetrieved(final FeatureLayer layer) {
         if (layer != null){
-          mMapView.addLayer(layer);
+          addDepthLayer(layer);
         }
-        mMapView.hideProgressBar();
+        hideProgressUnlessSelecting();
       }
     });
   }
+
+  private void addDepthLayer(final FeatureLayer layer){
+    if (mDepthLayersOnMap.add(layer)){
+      mMapView.addLayer(layer);
+    }
+  }
 }
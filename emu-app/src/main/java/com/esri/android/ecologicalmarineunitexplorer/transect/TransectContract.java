@@ -0,0 +1,86 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.transect;
+
+import com.esri.android.ecologicalmarineunitexplorer.BasePresenter;
+import com.esri.android.ecologicalmarineunitexplorer.BaseView;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+
+import java.util.List;
+
+/**
+ * This is the contract between the Presenter and View
+ * components of the MVP pattern. It defines methods to
+ * display a depth versus distance section of the water
+ * columns found along a line drawn in the map.
+ */
+public interface TransectContract {
+  interface View extends BaseView<Presenter> {
+
+    /**
+     * Add water columns to the section
+     * @param columns - List<WaterColumn> each with its distance along the transect set
+     * @param transectLength - double representing length of transect in km
+     */
+    void showColumns(List<WaterColumn> columns, double transectLength);
+
+    /**
+     * Show summary text for the transect
+     * @param columnCount - int representing number of water columns found
+     * @param transectLength - double representing length of transect in km
+     */
+    void showTransectSummary(int columnCount, double transectLength);
+
+    /**
+     * Show a message
+     * @param message - String
+     */
+    void showMessage(String message);
+
+    /**
+     * Show an inline loading indicator that leaves the view usable
+     * @param message - String
+     */
+    void showProgressBar(String message);
+
+    /**
+     * Hide the progress bar
+     */
+    void hideProgressBar();
+  }
+
+  interface Presenter extends BasePresenter {
+
+    /**
+     * Stop waiting for whatever is loading and ignore its results
+     */
+    void cancelLoading();
+
+    /**
+     * Retrieve the water columns along the transect
+     */
+    void loadTransect();
+  }
+}
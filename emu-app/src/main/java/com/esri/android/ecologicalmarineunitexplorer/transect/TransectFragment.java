@@ -0,0 +1,125 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.transect;
+
+import android.os.Bundle;
+import android.support.annotation.Nullable;
+import android.support.v4.app.Fragment;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.esri.android.ecologicalmarineunitexplorer.R;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.android.ecologicalmarineunitexplorer.util.LoadingBar;
+
+import java.util.List;
+
+/**
+ * This fragment shows a depth versus distance section of the
+ * water columns found along a line drawn in the map.
+ * It's the View in the MVP pattern and the concrete implementation
+ * of the TransectContract.View interface.
+ */
+public class TransectFragment extends Fragment implements TransectContract.View {
+
+  private TransectContract.Presenter mPresenter = null;
+  private LoadingBar mLoadingBar = null;
+  private TransectSectionView mSectionView = null;
+  private TextView mTxtSummary = null;
+
+  public static TransectFragment newInstance() {
+    return new TransectFragment();
+  }
+
+  /**
+   * Inflate the section view
+   * @param layoutInflater LayoutInflater
+   * @param container ViewGroup
+   * @param savedInstance Bundle
+   * @return View
+   */
+  @Override
+  @Nullable
+  public View onCreateView(final LayoutInflater layoutInflater, final ViewGroup container,
+      final Bundle savedInstance){
+    super.onCreateView(layoutInflater, container, savedInstance);
+    final View view = layoutInflater.inflate(R.layout.transect, container, false);
+    mSectionView = (TransectSectionView) view.findViewById(R.id.transectSection);
+    mTxtSummary = (TextView) view.findViewById(R.id.txtTransectSummary);
+    mLoadingBar = new LoadingBar(view.findViewById(R.id.loadingBar), new View.OnClickListener() {
+      @Override public void onClick(final View v) {
+        mPresenter.cancelLoading();
+      }
+    });
+    return view;
+  }
+
+  @Override
+  public void onResume(){
+    super.onResume();
+    mPresenter.start();
+  }
+
+  /**
+   * Add water columns to the section
+   * @param columns - List<WaterColumn>
+   * @param transectLength - double representing km
+   */
+  @Override public void showColumns(final List<WaterColumn> columns, final double transectLength) {
+    mSectionView.addColumns(columns, transectLength);
+  }
+
+  /**
+   * Show the number of columns and length of the transect
+   * @param columnCount - int
+   * @param transectLength - double representing km
+   */
+  @Override public void showTransectSummary(final int columnCount, final double transectLength) {
+    mTxtSummary.setText(getString(R.string.transect_summary, columnCount, Math.round(transectLength)));
+  }
+
+  @Override public void showMessage(final String message) {
+    Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+  }
+
+  @Override public void showProgressBar(final String message) {
+    if (mLoadingBar != null){
+      mLoadingBar.show(message);
+    }
+  }
+
+  @Override public void hideProgressBar() {
+    if (mLoadingBar != null){
+      mLoadingBar.hide();
+    }
+  }
+
+  @Override public void setPresenter(final TransectContract.Presenter presenter) {
+    mPresenter = presenter;
+  }
+}
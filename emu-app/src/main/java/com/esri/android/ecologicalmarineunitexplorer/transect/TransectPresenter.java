@@ -0,0 +1,107 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.transect;
+
+import android.support.annotation.NonNull;
+
+import com.esri.android.ecologicalmarineunitexplorer.data.DataManager;
+import com.esri.android.ecologicalmarineunitexplorer.data.LatestRequest;
+import com.esri.android.ecologicalmarineunitexplorer.data.ServiceApi;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.arcgisruntime.geometry.Polyline;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * This is the concrete implementation of the Presenter defined in the TransectContract.
+ * It encapsulates business logic and drives the behavior of the View.
+ */
+public class TransectPresenter implements TransectContract.Presenter {
+
+  private final Polyline mTransect;
+  private final TransectContract.View mView;
+  private final DataManager mDataManager;
+  private boolean mLoaded = false;
+  private final LatestRequest mRequest = new LatestRequest();
+
+  public TransectPresenter(@NonNull final Polyline transect, @NonNull final TransectContract.View view, @NonNull final DataManager dataManager){
+    mTransect = checkNotNull(transect);
+    mView = checkNotNull(view);
+    mDataManager = checkNotNull(dataManager);
+    mView.setPresenter(this);
+  }
+
+  /**
+   * Start by retrieving water columns along the
+   * transect.  This is only done once.
+   */
+  @Override public void start() {
+    if (!mLoaded){
+      mLoaded = true;
+      loadTransect();
+    }
+  }
+
+  /**
+   * Retrieve the water columns along the transect
+   * and add them to the view as they're processed.
+   */
+  @Override public void loadTransect() {
+    final int request = mRequest.start();
+    mView.showProgressBar("Fetching water columns along the line...");
+    mDataManager.queryForEmuAlongTransect(mTransect, new ServiceApi.TransectCallback() {
+      @Override public void onColumnsLoaded(final List<WaterColumn> columns, final double transectLength) {
+        if (!mRequest.isCurrent(request)){
+          return;
+        }
+        // Show the section as soon as the first columns arrive
+        mView.hideProgressBar();
+        mView.showColumns(columns, transectLength);
+      }
+
+      @Override public void onTransectComplete(final int columnCount, final double transectLength) {
+        if (!mRequest.finish(request)){
+          return;
+        }
+        mView.hideProgressBar();
+        if (columnCount == 0){
+          mView.showMessage("No EMU data found along the transect");
+        }
+        mView.showTransectSummary(columnCount, transectLength);
+      }
+    });
+  }
+
+  /**
+   * Stop adding columns to the section, keeping
+   * those already drawn
+   */
+  @Override public void cancelLoading() {
+    mRequest.cancel();
+    mView.hideProgressBar();
+  }
+}
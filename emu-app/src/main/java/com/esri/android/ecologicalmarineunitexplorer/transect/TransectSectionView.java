@@ -0,0 +1,139 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.transect;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.esri.android.ecologicalmarineunitexplorer.data.EMUObservation;
+import com.esri.android.ecologicalmarineunitexplorer.data.WaterColumn;
+import com.esri.android.ecologicalmarineunitexplorer.util.EmuHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Draws water columns side by side at their distance along a transect,
+ * with depth increasing downwards and each EMU layer in its color.
+ * Columns can be added in batches as they arrive.
+ */
+public class TransectSectionView extends View {
+
+  private final List<WaterColumn> mColumns = new ArrayList<>();
+  private final Paint mLayerPaint = new Paint();
+  private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private double mLength = 0;
+  private int mMaxDepth = 0;
+
+  public TransectSectionView(final Context context, final AttributeSet attrs, final int defStyle) {
+    super(context, attrs, defStyle);
+    init();
+  }
+
+  public TransectSectionView(final Context context, final AttributeSet attrs) {
+    super(context, attrs);
+    init();
+  }
+
+  public TransectSectionView(final Context context) {
+    super(context);
+    init();
+  }
+
+  private void init(){
+    mLayerPaint.setStyle(Paint.Style.FILL);
+    mTextPaint.setColor(Color.DKGRAY);
+    mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, getResources().getDisplayMetrics()));
+  }
+
+  /**
+   * Add columns to the section and redraw
+   * @param columns - Collection<WaterColumn> with distance along the transect set
+   * @param length - double representing the length of the transect in km
+   */
+  public void addColumns(final Collection<WaterColumn> columns, final double length){
+    mLength = length;
+    mColumns.addAll(columns);
+    Collections.sort(mColumns);
+    for (final WaterColumn column : columns){
+      mMaxDepth = Math.max(mMaxDepth, column.getDepth());
+    }
+    invalidate();
+  }
+
+  /**
+   * Remove all columns from the section
+   */
+  public void clear(){
+    mColumns.clear();
+    mMaxDepth = 0;
+    invalidate();
+  }
+
+  @Override
+  protected void onDraw(final Canvas canvas) {
+    super.onDraw(canvas);
+    if (mColumns.isEmpty() || mLength <= 0 || mMaxDepth <= 0){
+      return;
+    }
+    final float textHeight = mTextPaint.getTextSize();
+    final float left = getPaddingLeft();
+    final float top = getPaddingTop();
+    final float width = getWidth() - getPaddingLeft() - getPaddingRight();
+    final float height = getHeight() - getPaddingTop() - getPaddingBottom() - textHeight * 2;
+    final float xScale = (float) (width / mLength);
+    final float yScale = height / mMaxDepth;
+
+    final int count = mColumns.size();
+    for (int i = 0; i < count; i++){
+      final WaterColumn column = mColumns.get(i);
+      final double distance = column.getDistanceFrom();
+      // Each column reaches halfway to its neighbors
+      final double start = i == 0 ? 0 : (mColumns.get(i - 1).getDistanceFrom() + distance) / 2;
+      final double end = i == count - 1 ? mLength : (mColumns.get(i + 1).getDistanceFrom() + distance) / 2;
+      final float x0 = left + (float) start * xScale;
+      final float x1 = Math.max(x0 + 1, left + (float) end * xScale);
+      for (final EMUObservation observation : column.getEmuSet()){
+        final float layerTop = Math.abs(observation.getTop());
+        mLayerPaint.setColor(Color.parseColor(EmuHelper.getColorForEMUCluster(observation.getEmu().getName())));
+        canvas.drawRect(x0, top + layerTop * yScale, x1, top + (layerTop + observation.getThickness()) * yScale, mLayerPaint);
+      }
+    }
+
+    // Label the depth and distance extents
+    final float baseline = top + height + textHeight * 1.5f;
+    canvas.drawText("0 km", left, baseline, mTextPaint);
+    final String lengthLabel = Math.round(mLength) + " km";
+    canvas.drawText(lengthLabel, left + width - mTextPaint.measureText(lengthLabel), baseline, mTextPaint);
+    canvas.drawText(mMaxDepth + " m", left, top + height - textHeight / 2, mTextPaint);
+  }
+}
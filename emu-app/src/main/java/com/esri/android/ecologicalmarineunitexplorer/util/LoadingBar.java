@@ -0,0 +1,91 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.esri.android.ecologicalmarineunitexplorer.R;
+
+/**
+ * A non-modal loading indicator shown inline above the content it
+ * refers to, inflated from R.layout.loading_bar.  Unlike a progress
+ * dialog it leaves the rest of the screen usable and offers a cancel
+ * button.  It only appears if loading takes longer than a moment, so
+ * results served from a cache don't flash it on screen.
+ */
+public class LoadingBar {
+
+  private static final long SHOW_DELAY_MILLIS = 300;
+
+  private final View mView;
+  private final TextView mTxtMessage;
+
+  private final Runnable mShow = new Runnable() {
+    @Override public void run() {
+      mView.setVisibility(View.VISIBLE);
+    }
+  };
+
+  /**
+   * @param view - View inflated from R.layout.loading_bar
+   * @param onCancel - View.OnClickListener for the cancel button, null to hide the button
+   */
+  public LoadingBar(@NonNull final View view, @Nullable final View.OnClickListener onCancel){
+    mView = view;
+    mTxtMessage = (TextView) view.findViewById(R.id.txtLoadingMessage);
+    final Button cancel = (Button) view.findViewById(R.id.btnCancelLoading);
+    if (onCancel != null){
+      cancel.setOnClickListener(onCancel);
+    }else{
+      cancel.setVisibility(View.GONE);
+    }
+    mView.setVisibility(View.GONE);
+  }
+
+  /**
+   * Show the indicator with a message
+   * @param message - String describing what's loading
+   */
+  public void show(final String message){
+    mTxtMessage.setText(message);
+    if (mView.getVisibility() != View.VISIBLE){
+      mView.removeCallbacks(mShow);
+      mView.postDelayed(mShow, SHOW_DELAY_MILLIS);
+    }
+  }
+
+  /**
+   * Hide the indicator
+   */
+  public void hide(){
+    mView.removeCallbacks(mShow);
+    mView.setVisibility(View.GONE);
+  }
+}
@@ -0,0 +1,133 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records named milestones during application start up, each
+ * stamped with the milliseconds elapsed since the timeline began,
+ * so slow cold loads show up in the log.
+ */
+public class StartupTimeline {
+
+  /**
+   * Milestone marked just before the main activity first draws
+   */
+  public static final String FIRST_FRAME = "first frame";
+
+  /**
+   * A milestone and when it was reached
+   */
+  public static class Event {
+    private final String mName;
+    private final long mElapsedMillis;
+
+    Event(@NonNull final String name, final long elapsedMillis){
+      mName = name;
+      mElapsedMillis = elapsedMillis;
+    }
+
+    @NonNull public String getName() {
+      return mName;
+    }
+
+    public long getElapsedMillis() {
+      return mElapsedMillis;
+    }
+  }
+
+  private final long mStartNanos;
+
+  private final List<Event> mEvents = new ArrayList<>();
+
+  public StartupTimeline(){
+    this(System.nanoTime());
+  }
+
+  /**
+   * Begin a timeline at a given instant
+   * @param startNanos - long value of System.nanoTime() when start up began
+   */
+  public StartupTimeline(final long startNanos){
+    mStartNanos = startNanos;
+  }
+
+  /**
+   * Record that a milestone has been reached.  Safe to
+   * call from any thread.
+   * @param name - String describing the milestone
+   * @return long milliseconds elapsed since the timeline began
+   */
+  public long mark(@NonNull final String name){
+    final long elapsed = (System.nanoTime() - mStartNanos) / 1000000;
+    synchronized (mEvents){
+      mEvents.add(new Event(name, elapsed));
+    }
+    return elapsed;
+  }
+
+  /**
+   * Return the milestones recorded so far in the order they were reached
+   * @return List<Event>
+   */
+  @NonNull public List<Event> getEvents(){
+    synchronized (mEvents){
+      return Collections.unmodifiableList(new ArrayList<>(mEvents));
+    }
+  }
+
+  /**
+   * Return the time a milestone was first reached
+   * @param name - String
+   * @return long milliseconds since the timeline began, or -1 if it hasn't been reached
+   */
+  public long getElapsedMillis(@NonNull final String name){
+    for (final Event event : getEvents()){
+      if (event.getName().equals(name)){
+        return event.getElapsedMillis();
+      }
+    }
+    return -1;
+  }
+
+  @Override public String toString() {
+    final StringBuilder builder = new StringBuilder("StartupTimeline{");
+    final List<Event> events = getEvents();
+    for (int i = 0; i < events.size(); i++){
+      if (i > 0){
+        builder.append(", ");
+      }
+      builder.append(String.format(Locale.US, "%s=%dms", events.get(i).getName(), events.get(i).getElapsedMillis()));
+    }
+    return builder.append('}').toString();
+  }
+}
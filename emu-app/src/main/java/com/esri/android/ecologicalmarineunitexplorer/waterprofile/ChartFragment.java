@@ -27,6 +27,7 @@ import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
@@ -35,6 +36,9 @@ import com.github.mikephil.charting.charts.CombinedChart;
 import com.github.mikephil.charting.components.Description;
 import com.github.mikephil.charting.components.XAxis;
 import com.github.mikephil.charting.data.CombinedData;
+import com.github.mikephil.charting.interfaces.datasets.IScatterDataSet;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
 
 /**
  * Displays individual scatter chart for a particular physical property.
@@ -74,11 +78,25 @@ public class ChartFragment extends Fragment {
   }
 
   /**
-   * Set the data for the chart
+   * Set the data for the chart, redrawing it if
+   * the chart view has already been created
    * @param data - CombinedData item used by the chart
    */
   public void setChartData(final CombinedData data) {
+    if (data == mData){
+      return;
+    }
     mData = data;
+    if (mChart != null && mData != null){
+      mChart.fitScreen();
+      showChart();
+    }
+  }
+
+  @Override public void onDestroyView() {
+    super.onDestroyView();
+    mChart = null;
+    mTxtXAxisTitle = null;
   }
 
   /**
@@ -105,6 +123,45 @@ public class ChartFragment extends Fragment {
     mChart.getLegend().setEnabled(false);
 
     mChart.invalidate();
+
+    // Thin out the measurements once the chart's height is known
+    // and bring them back as the chart is zoomed in
+    mChart.post(new Runnable() {
+      @Override public void run() {
+        updatePointBudget();
+      }
+    });
+    mChart.setOnChartGestureListener(new OnChartGestureListener() {
+      @Override public void onChartGestureStart(final MotionEvent me, final ChartTouchListener.ChartGesture lastPerformedGesture) {
+      }
+
+      @Override public void onChartGestureEnd(final MotionEvent me, final ChartTouchListener.ChartGesture lastPerformedGesture) {
+        // Only rebuild once a pinch or double tap has finished
+        if (lastPerformedGesture != ChartTouchListener.ChartGesture.DRAG
+            && lastPerformedGesture != ChartTouchListener.ChartGesture.FLING){
+          updatePointBudget();
+        }
+      }
+
+      @Override public void onChartLongPressed(final MotionEvent me) {
+      }
+
+      @Override public void onChartDoubleTapped(final MotionEvent me) {
+      }
+
+      @Override public void onChartSingleTapped(final MotionEvent me) {
+      }
+
+      @Override public void onChartFling(final MotionEvent me1, final MotionEvent me2, final float velocityX, final float velocityY) {
+      }
+
+      @Override public void onChartScale(final MotionEvent me, final float scaleX, final float scaleY) {
+      }
+
+      @Override public void onChartTranslate(final MotionEvent me, final float dX, final float dY) {
+      }
+    });
+
     if (property.equalsIgnoreCase("TEMPERATURE")){
       property = property + " \u2103";
     }else if (property.equalsIgnoreCase("SALINITY")){
@@ -114,4 +171,27 @@ public class ChartFragment extends Fragment {
     }
     mTxtXAxisTitle.setText(property);
   }
+
+  /**
+   * Limit the plotted measurements to what fits in the
+   * chart's height at its current zoom
+   */
+  private void updatePointBudget(){
+    if (mChart == null || mData == null || mData.getScatterData() == null){
+      return;
+    }
+    final int budget = WaterProfilePresenter.getPointBudget(mChart.getViewPortHandler().contentHeight(),
+        mChart.getViewPortHandler().getScaleY());
+    boolean changed = false;
+    for (final IScatterDataSet set : mData.getScatterData().getDataSets()){
+      if (set instanceof ProfileScatterDataSet){
+        changed = ((ProfileScatterDataSet) set).setPointBudget(budget) || changed;
+      }
+    }
+    if (changed){
+      mData.notifyDataChanged();
+      mChart.notifyDataSetChanged();
+      mChart.invalidate();
+    }
+  }
 }
@@ -0,0 +1,101 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.waterprofile;
+
+import android.support.annotation.NonNull;
+
+import com.esri.android.ecologicalmarineunitexplorer.data.ProfileDownsampler;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.ScatterDataSet;
+import com.github.mikephil.charting.utils.EntryXComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A scatter data set for a depth profile that only plots as many
+ * points as the chart has room for.  It keeps every measurement so
+ * the points dropped at full scale come back as the chart is zoomed in.
+ */
+public class ProfileScatterDataSet extends ScatterDataSet {
+
+  // Every measurement in depth order, y being depth
+  private final List<Entry> mDepthOrdered;
+  private final double[] mDepths;
+  private final double[] mValues;
+  private int mPointBudget = Integer.MAX_VALUE;
+
+  /**
+   * @param depthOrdered - List<Entry> with x the measured value and y the depth, in depth order
+   * @param label - String
+   */
+  public ProfileScatterDataSet(@NonNull final List<Entry> depthOrdered, final String label){
+    super(sortByValue(depthOrdered), label);
+    mDepthOrdered = new ArrayList<>(depthOrdered);
+    mDepths = new double[mDepthOrdered.size()];
+    mValues = new double[mDepthOrdered.size()];
+    for (int i = 0; i < mDepthOrdered.size(); i++){
+      mDepths[i] = mDepthOrdered.get(i).getY();
+      mValues[i] = mDepthOrdered.get(i).getX();
+    }
+  }
+
+  /**
+   * Plot no more than the given number of points
+   * @param pointBudget - int maximum number of points to draw
+   * @return boolean, true if the plotted points changed
+   */
+  public boolean setPointBudget(final int pointBudget){
+    final int budget = Math.min(Math.max(pointBudget, 3), mDepthOrdered.size());
+    if (budget == Math.min(mPointBudget, mDepthOrdered.size())){
+      return false;
+    }
+    mPointBudget = budget;
+    final int[] selected = ProfileDownsampler.select(mDepths, mValues, budget);
+    final List<Entry> entries = new ArrayList<>(selected.length);
+    for (final int index : selected){
+      entries.add(mDepthOrdered.get(index));
+    }
+    setValues(sortByValue(entries));
+    return true;
+  }
+
+  /**
+   * Return the total number of measurements, plotted or not
+   * @return int
+   */
+  public int getMeasurementCount(){
+    return mDepthOrdered.size();
+  }
+
+  // The chart looks entries up by x, so they must be ordered by value
+  private static List<Entry> sortByValue(final List<Entry> entries){
+    final List<Entry> sorted = new ArrayList<>(entries);
+    Collections.sort(sorted, new EntryXComparator());
+    return sorted;
+  }
+}
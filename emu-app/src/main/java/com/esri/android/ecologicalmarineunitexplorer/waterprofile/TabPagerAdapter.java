@@ -26,34 +26,71 @@ package com.esri.android.ecologicalmarineunitexplorer.waterprofile;
 
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
-import android.support.v4.app.FragmentStatePagerAdapter;
+import android.support.v4.app.FragmentPagerAdapter;
+import android.view.ViewGroup;
 import com.github.mikephil.charting.data.CombinedData;
 
 import java.util.ArrayList;
 import java.util.List;
 /**
- * The view holder for managing tabs of scatter line charts
+ * The view holder for managing tabs of scatter line charts.
+ * Each chart fragment is created once and kept; refreshing the
+ * adapter hands new data to the existing charts rather than
+ * replacing them.
  */
-public class TabPagerAdapter extends FragmentStatePagerAdapter {
+public class TabPagerAdapter extends FragmentPagerAdapter {
+
+  public static final int PAGE_COUNT = 6;
 
   private List<CombinedData> mChartDataList = new ArrayList<>();
 
+  // Charts created or restored by the fragment manager, by position
+  private final ChartFragment[] mChartFragments = new ChartFragment[PAGE_COUNT];
+
   @Override public Fragment getItem(final int position) {
     ChartFragment chartFragment = new ChartFragment( );
     chartFragment.setChartData(mChartDataList.get(position));
     return chartFragment;
   }
 
+  /**
+   * Remember each chart, including ones the fragment manager
+   * restored without calling getItem
+   * @param container - ViewGroup
+   * @param position - int
+   * @return Object, the ChartFragment for the position
+   */
+  @Override public Object instantiateItem(final ViewGroup container, final int position) {
+    final ChartFragment chartFragment = (ChartFragment) super.instantiateItem(container, position);
+    mChartFragments[position] = chartFragment;
+    chartFragment.setChartData(mChartDataList.get(position));
+    return chartFragment;
+  }
+
   public TabPagerAdapter(final FragmentManager fm, final List<CombinedData> data) {
     super(fm);
     mChartDataList = data;
   }
+
+  /**
+   * Replace the data shown in each chart.  Charts that
+   * already exist redraw in place.
+   * @param data - List<CombinedData>, one per page
+   */
+  public void setChartData(final List<CombinedData> data) {
+    mChartDataList = data;
+    for (int i = 0; i < mChartFragments.length; i++){
+      if (mChartFragments[i] != null){
+        mChartFragments[i].setChartData(data.get(i));
+      }
+    }
+  }
+
   @Override
   public int getCount() {
-    return 6;
+    return PAGE_COUNT;
 
   }
-
   @Override
   public CharSequence getPageTitle(final int position) {
     super.getPageTitle(position);
@@ -82,8 +119,4 @@ public class TabPagerAdapter extends FragmentStatePagerAdapter {
     }
     return title;
   }
-  @Override public int getItemPosition(Object o){
-    return POSITION_NONE;
-  }
-
 }
@@ -40,10 +40,11 @@ public interface WaterProfileContract {
   interface View extends BaseView<Presenter> {
     void showWaterProfiles( List<CombinedData> dataList);
     void showMessage(String message);
-    void showProgressBar(String message, String title);
+    void showProgressBar(String message);
     void hideProgressBar();
   }
   interface Presenter extends BasePresenter {
     void getWaterProfiles(Point point);
+    void cancelLoading();
   }
 }
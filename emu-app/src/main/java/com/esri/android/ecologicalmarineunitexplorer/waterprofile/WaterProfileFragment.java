@@ -33,7 +33,6 @@
 
 package com.esri.android.ecologicalmarineunitexplorer.waterprofile;
 
-import android.app.ProgressDialog;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -44,6 +43,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Toast;
 import com.esri.android.ecologicalmarineunitexplorer.R;
+import com.esri.android.ecologicalmarineunitexplorer.util.LoadingBar;
 import com.github.mikephil.charting.data.CombinedData;
 import com.github.mikephil.charting.utils.Utils;
 
@@ -52,7 +52,7 @@ import java.util.List;
 public class WaterProfileFragment extends Fragment implements WaterProfileContract.View {
 
   private WaterProfileContract.Presenter mPresenter;
-  private ProgressDialog mProgressDialog;
+  private LoadingBar mLoadingBar = null;
 
   private ViewPager mViewPager;
 
@@ -83,8 +83,14 @@ public class WaterProfileFragment extends Fragment implements WaterProfileContra
   public View onCreateView(final LayoutInflater layoutInflater, final ViewGroup container,
       final Bundle savedInstance){
     super.onCreateView(layoutInflater, container, savedInstance);
-    mViewPager = (ViewPager) layoutInflater.inflate(R.layout.water_profile_view_pager,container,false) ;
-    return  mViewPager;
+    final View view = layoutInflater.inflate(R.layout.water_profile_view_pager,container,false) ;
+    mViewPager = (ViewPager) view.findViewById(R.id.viewPager);
+    mLoadingBar = new LoadingBar(view.findViewById(R.id.loadingBar), new View.OnClickListener() {
+      @Override public void onClick(final View v) {
+        mPresenter.cancelLoading();
+      }
+    });
+    return view;
   }
 
   /**
@@ -98,9 +104,16 @@ public class WaterProfileFragment extends Fragment implements WaterProfileContra
     // USE A NEW INSTANCE OF THE FRAGMENT MANAGER rather than
     // using the fragment manager belonging to the activity.
     //
+    // Reuse the existing charts when refreshing
+    final TabPagerAdapter current = (TabPagerAdapter) mViewPager.getAdapter();
+    if (current != null){
+      current.setChartData(dataList);
+      return;
+    }
     TabPagerAdapter adapter = new TabPagerAdapter(getChildFragmentManager(), dataList);
+    // Keep every chart alive so swiping never re-inflates one
+    mViewPager.setOffscreenPageLimit(TabPagerAdapter.PAGE_COUNT - 1);
     mViewPager.setAdapter(adapter);
-    mViewPager.getAdapter().notifyDataSetChanged();
 
   }
 
@@ -108,13 +121,10 @@ public class WaterProfileFragment extends Fragment implements WaterProfileContra
     Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
   }
 
-  @Override public void showProgressBar(final String message, final String title) {
-    if (mProgressDialog == null){
-      mProgressDialog = new ProgressDialog(getActivity());
+  @Override public void showProgressBar(final String message) {
+    if (mLoadingBar != null){
+      mLoadingBar.show(message);
     }
-    mProgressDialog.setTitle(title);
-    mProgressDialog.setMessage(message);
-    mProgressDialog.show();
   }
 
   @Override
@@ -123,7 +133,9 @@ public class WaterProfileFragment extends Fragment implements WaterProfileContra
     mPresenter.start();
   }
   @Override public void hideProgressBar() {
-    mProgressDialog.dismiss();
+    if (mLoadingBar != null){
+      mLoadingBar.hide();
+    }
   }
 
   @Override public void setPresenter(final WaterProfileContract.Presenter presenter) {
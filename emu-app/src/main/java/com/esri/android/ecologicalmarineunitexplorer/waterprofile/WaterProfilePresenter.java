@@ -50,8 +50,15 @@ public class WaterProfilePresenter implements WaterProfileContract.Presenter {
   private final WaterProfileContract.View mView;
   private final DataManager mDataManager;
   private final Map<String, ScatterData> mChartData = new HashMap<>();
+  private final LatestRequest mRequest = new LatestRequest();
   private final String TAG = WaterProfilePresenter.class.getSimpleName();
 
+  // Diameter in pixels of each plotted measurement
+  static final float SCATTER_SHAPE_SIZE = 20f;
+
+  // Points closer than this many pixels apart mostly overdraw each other
+  private static final float MIN_POINT_SPACING = SCATTER_SHAPE_SIZE / 2;
+
   public WaterProfilePresenter(@NonNull Point p, @NonNull WaterProfileContract.View view, @NonNull DataManager dataManager) {
     mColumnLocation = p;
     mView = view;
@@ -61,9 +68,14 @@ public class WaterProfilePresenter implements WaterProfileContract.Presenter {
 
 
   @Override public void getWaterProfiles(Point point) {
-    mView.showProgressBar("Building scatter plots", "Preparing Water Profile");
+    final int request = mRequest.start();
+    mView.showProgressBar("Building scatter plots");
     mDataManager.queryForEmuColumnProfile(mColumnLocation, new ServiceApi.ColumnProfileCallback() {
-      @Override public void onProfileLoaded(WaterProfile waterProfile) {
+      @Override public void onProfileLoaded(DepthProfile waterProfile) {
+        if (!mRequest.finish(request)){
+          // Cancelled, keep showing whatever charts are already there
+          return;
+        }
         if (waterProfile.measurementCount() > 0){
 
           List<CombinedData> combinedDataList = new ArrayList<CombinedData>();
@@ -85,7 +97,7 @@ public class WaterProfilePresenter implements WaterProfileContract.Presenter {
     });
   }
 
-  private CombinedData buildCombinedData(WaterProfile waterProfile, String property){
+  private CombinedData buildCombinedData(DepthProfile waterProfile, String property){
     CombinedData data = new CombinedData();
     ScatterData scatterData = buildScatterDataForProperty(waterProfile, property);
     data.setData(scatterData);
@@ -98,11 +110,31 @@ public class WaterProfilePresenter implements WaterProfileContract.Presenter {
     getWaterProfiles(mColumnLocation);
 
   }
-  private ScatterData buildScatterDataForProperty(WaterProfile profile, String property){
+
+  /**
+   * Stop waiting for the profile
+   */
+  @Override public void cancelLoading() {
+    mRequest.cancel();
+    mView.hideProgressBar();
+  }
+  /**
+   * Return how many points can be drawn in a chart without
+   * them piling on top of each other
+   * @param chartHeight - float representing pixel height of the chart's content area
+   * @param scaleY - float representing the chart's vertical zoom, 1 when not zoomed
+   * @return int
+   */
+  static int getPointBudget(float chartHeight, float scaleY){
+    return (int) (chartHeight * Math.max(scaleY, 1f) / MIN_POINT_SPACING);
+  }
+
+  private ScatterData buildScatterDataForProperty(DepthProfile profile, String property){
     ScatterData data = new ScatterData();
 
     if (profile != null){
-      // Get all the measurements for the property
+      // Get all the measurements for the property, ordered by depth
+      // so the chart can downsample them to fit its height
       Map<Double,Double> propertyMeasurementByDepth = profile.getMeasurementsForProperty(property);
       ArrayList<Entry> entries = new ArrayList<>();
       Set<Double> depths = propertyMeasurementByDepth.keySet();
@@ -111,12 +143,11 @@ public class WaterProfilePresenter implements WaterProfileContract.Presenter {
         float x = (float) propertyMeasurementByDepth.get(depth).doubleValue();
         entries.add(new Entry(x, y));
       }
-      Collections.sort(entries, new EntryXComparator());
 
-      ScatterDataSet set = new ScatterDataSet(entries, property);
+      ProfileScatterDataSet set = new ProfileScatterDataSet(entries, property);
       set.setColor(Color.BLACK);
       set.setScatterShape(ScatterChart.ScatterShape.CIRCLE);
-      set.setScatterShapeSize(20f);
+      set.setScatterShapeSize(SCATTER_SHAPE_SIZE);
       set.setDrawValues(false);
       data.addDataSet(set);
     }else{
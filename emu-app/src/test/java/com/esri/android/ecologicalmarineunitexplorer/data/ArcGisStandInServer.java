@@ -0,0 +1,445 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the ArcGIS REST services the app uses, so data
+ * paths can be exercised and timed offline.  Responses are recorded
+ * against a path under /arcgis/rest/services and a format, the f
+ * parameter, and replayed for any request to that path: layer and
+ * service descriptions, FeatureServer and MapServer queries, the
+ * summary table and the geocoder alike.  A path can instead be
+ * answered by a Responder that computes each response from the
+ * request, e.g. to serve a generated dataset too large to record.
+ *
+ * Every response can be slowed by a fixed latency with seeded jitter
+ * and a bandwidth cap, and requests can be failed on demand or at
+ * random, so resilience and performance are measured reproducibly.
+ * Requests are answered concurrently.
+ */
+final class ArcGisStandInServer {
+
+  static final String SERVICES = "/arcgis/rest/services/";
+
+  // Recordings bundled with the tests, laid out like the service paths
+  static final String RECORDINGS = "/arcgis";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  static final String JSON = "application/json; charset=utf-8";
+  static final String PBF = "application/x-protobuf";
+
+  // Slices a capped response is written in, per second
+  private static final int BANDWIDTH_SLICES = 20;
+
+  /**
+   * A recorded or computed response
+   */
+  static final class Response {
+    final int mStatus;
+    final String mContentType;
+    final byte[] mBody;
+
+    Response(final int status, final String contentType, final byte[] body){
+      mStatus = status;
+      mContentType = contentType;
+      mBody = body;
+    }
+  }
+
+  /**
+   * Computes the response to a request instead of replaying a recording
+   */
+  interface Responder {
+    /**
+     * @param format - String f parameter
+     * @param parameters - Map<String,String> of the query and form parameters
+     * @return Response or null to fall back to any recording
+     */
+    Response respond(String format, Map<String, String> parameters);
+  }
+
+  private final HttpServer mServer;
+  private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+  private final Map<String, Response> mResponses = new ConcurrentHashMap<>();
+  private final Map<String, Responder> mResponders = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicInteger> mPathCounts = new ConcurrentHashMap<>();
+  private final AtomicInteger mRequestCount = new AtomicInteger();
+  private volatile Map<String, String> mLastRequest = new HashMap<>();
+
+  // Shaping, guarded by the lock
+  private final Random mRandom;
+  private long mLatencyMillis = 0;
+  private long mJitterMillis = 0;
+  private int mBytesPerSecond = 0;
+  private double mFailureRate = 0;
+  private int mFailureStatus = 500;
+  private final Deque<Long> mDelays = new ArrayDeque<>();
+  private int mFailures = 0;
+
+  /**
+   * @param seed - long seeding the latency jitter and random failures
+   * @throws IOException if no local port can be bound
+   */
+  ArcGisStandInServer(final long seed) throws IOException {
+    mRandom = new Random(seed);
+    mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    mServer.createContext("/", new HttpHandler() {
+      @Override public void handle(final HttpExchange exchange) throws IOException {
+        respond(exchange);
+      }
+    });
+    mServer.setExecutor(mExecutor);
+    mServer.start();
+  }
+
+  /**
+   * Return the URL of a service, layer or operation
+   * @param servicePath - String relative to /arcgis/rest/services, e.g. "EMU_Point_Mesh/MapServer/0"
+   * @return String
+   */
+  String getUrl(final String servicePath){
+    return "http://127.0.0.1:" + mServer.getAddress().getPort() + SERVICES + servicePath;
+  }
+
+  /**
+   * Replay a response for requests to the path in the format
+   * @param servicePath - String relative to /arcgis/rest/services
+   * @param format - String f parameter, "json" or "pbf"
+   * @param contentType - String
+   * @param body - byte[]
+   */
+  void record(final String servicePath, final String format, final String contentType, final byte[] body){
+    mResponses.put(key(SERVICES + servicePath, format), new Response(200, contentType, body));
+  }
+
+  void recordJson(final String servicePath, final String json){
+    record(servicePath, "json", JSON, json.getBytes(UTF_8));
+  }
+
+  void recordPbf(final String servicePath, final byte[] pbf){
+    record(servicePath, "pbf", PBF, pbf);
+  }
+
+  /**
+   * Answer every request to the path with a Responder, ahead of any recording
+   * @param servicePath - String relative to /arcgis/rest/services
+   * @param responder - Responder
+   */
+  void answer(final String servicePath, final Responder responder){
+    mResponders.put(SERVICES + servicePath, responder);
+  }
+
+  /**
+   * Stop replaying a response, so requests get the service's error instead
+   * @param servicePath - String relative to /arcgis/rest/services
+   * @param format - String f parameter
+   */
+  void forget(final String servicePath, final String format){
+    mResponses.remove(key(SERVICES + servicePath, format));
+  }
+
+  /**
+   * Record every .json and .pbf file under a directory laid out like the
+   * service paths, e.g. World/GeocodeServer/findAddressCandidates.json
+   * @param directory - File
+   * @return int number of responses recorded
+   * @throws IOException if a file can't be read
+   */
+  int recordAll(final File directory) throws IOException {
+    return recordAll(directory, "");
+  }
+
+  /**
+   * Record the responses bundled with the tests
+   * @return int number of responses recorded
+   * @throws IOException if the recordings can't be found or read
+   */
+  int recordBundled() throws IOException {
+    final URL url = ArcGisStandInServer.class.getResource(RECORDINGS);
+    if (url == null){
+      throw new IOException("No recordings found at " + RECORDINGS);
+    }
+    try {
+      return recordAll(new File(url.toURI()));
+    } catch (final URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Wait before answering every request
+   * @param millis - long fixed latency
+   * @param jitterMillis - long, up to this much is added at random
+   */
+  synchronized void setLatency(final long millis, final long jitterMillis){
+    mLatencyMillis = millis;
+    mJitterMillis = jitterMillis;
+  }
+
+  /**
+   * Cap the rate responses are written at
+   * @param bytesPerSecond - int, 0 for no cap
+   */
+  synchronized void setBandwidth(final int bytesPerSecond){
+    mBytesPerSecond = bytesPerSecond;
+  }
+
+  /**
+   * Fail a fraction of requests at random
+   * @param rate - double between 0 and 1
+   * @param status - int HTTP status of the failures
+   */
+  synchronized void setFailureRate(final double rate, final int status){
+    mFailureRate = rate;
+    mFailureStatus = status;
+  }
+
+  /**
+   * Hold back the responses to the next requests, on top of any latency
+   * @param millis - long delay for each request, in arrival order
+   */
+  synchronized void delayNext(final long... millis){
+    for (final long delay : millis){
+      mDelays.add(delay);
+    }
+  }
+
+  /**
+   * Fail the next requests
+   * @param count - int number of requests to fail
+   * @param status - int HTTP status of the failures
+   */
+  synchronized void failNext(final int count, final int status){
+    mFailures = count;
+    mFailureStatus = status;
+  }
+
+  /**
+   * Return the number of requests received
+   * @return int
+   */
+  int getRequestCount(){
+    return mRequestCount.get();
+  }
+
+  /**
+   * Return the number of requests received for a path
+   * @param servicePath - String relative to /arcgis/rest/services
+   * @return int
+   */
+  int getRequestCount(final String servicePath){
+    final AtomicInteger count = mPathCounts.get(SERVICES + servicePath);
+    return count != null ? count.get() : 0;
+  }
+
+  /**
+   * Return the parameters of the last request received
+   * @return Map<String,String>
+   */
+  Map<String, String> getLastRequest(){
+    return mLastRequest;
+  }
+
+  void stop(){
+    mServer.stop(0);
+    mExecutor.shutdownNow();
+  }
+
+  private int recordAll(final File directory, final String prefix) throws IOException {
+    int recorded = 0;
+    final File[] files = directory.listFiles();
+    if (files == null){
+      return 0;
+    }
+    for (final File file : files){
+      final String name = file.getName();
+      if (file.isDirectory()){
+        recorded = recorded + recordAll(file, prefix + name + "/");
+      }else if (name.endsWith(".json")){
+        record(prefix + name.substring(0, name.length() - 5), "json", JSON, read(file));
+        recorded++;
+      }else if (name.endsWith(".pbf")){
+        record(prefix + name.substring(0, name.length() - 4), "pbf", PBF, read(file));
+        recorded++;
+      }
+    }
+    return recorded;
+  }
+
+  private void respond(final HttpExchange exchange) throws IOException {
+    final Map<String, String> parameters = parse(readBody(exchange.getRequestBody()));
+    final String query = exchange.getRequestURI().getRawQuery();
+    if (query != null){
+      parameters.putAll(parse(query));
+    }
+    String path = exchange.getRequestURI().getPath();
+    if (path.length() > 1 && path.endsWith("/")){
+      path = path.substring(0, path.length() - 1);
+    }
+    mLastRequest = parameters;
+    mRequestCount.incrementAndGet();
+    mPathCounts.putIfAbsent(path, new AtomicInteger());
+    mPathCounts.get(path).incrementAndGet();
+
+    final long delay;
+    final boolean fail;
+    final int failureStatus;
+    final int bytesPerSecond;
+    synchronized (this){
+      final Long extra = mDelays.poll();
+      delay = mLatencyMillis + (mJitterMillis > 0 ? (long) (mRandom.nextDouble() * mJitterMillis) : 0)
+          + (extra != null ? extra : 0);
+      if (mFailures > 0){
+        mFailures--;
+        fail = true;
+      }else{
+        fail = mFailureRate > 0 && mRandom.nextDouble() < mFailureRate;
+      }
+      failureStatus = mFailureStatus;
+      bytesPerSecond = mBytesPerSecond;
+    }
+    if (delay > 0){
+      try {
+        Thread.sleep(delay);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    final String format = parameters.containsKey("f") ? parameters.get("f") : "json";
+    final Responder responder = mResponders.get(path);
+    final Response computed = fail || responder == null ? null : responder.respond(format, parameters);
+    final Response response;
+    if (fail){
+      response = error(failureStatus, failureStatus, "Injected failure");
+    }else if (computed != null){
+      response = computed;
+    }else if (mResponses.containsKey(key(path, format))){
+      response = mResponses.get(key(path, format));
+    }else if ("pbf".equals(format) && mResponses.containsKey(key(path, "json"))){
+      // Services without protocol buffer support answer with a JSON error
+      response = error(200, 400, "Invalid format");
+    }else{
+      response = error(200, 404, "Requested path " + path + " not found");
+    }
+    write(exchange, response, bytesPerSecond);
+  }
+
+  private static void write(final HttpExchange exchange, final Response response, final int bytesPerSecond)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", response.mContentType);
+    exchange.sendResponseHeaders(response.mStatus, response.mBody.length);
+    final OutputStream output = exchange.getResponseBody();
+    try {
+      if (bytesPerSecond <= 0){
+        output.write(response.mBody);
+        return;
+      }
+      final int slice = Math.max(1, bytesPerSecond / BANDWIDTH_SLICES);
+      for (int offset = 0; offset < response.mBody.length; offset += slice){
+        output.write(response.mBody, offset, Math.min(slice, response.mBody.length - offset));
+        output.flush();
+        Thread.sleep(1000 / BANDWIDTH_SLICES);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      output.close();
+    }
+  }
+
+  // ArcGIS reports most errors as JSON with an HTTP status of 200
+  static Response error(final int httpStatus, final int code, final String message){
+    final String json = "{\"error\":{\"code\":" + code + ",\"message\":\"" + message + "\",\"details\":[]}}";
+    return new Response(httpStatus, JSON, json.getBytes(UTF_8));
+  }
+
+  private static String key(final String path, final String format){
+    return path + "?f=" + format;
+  }
+
+  private static byte[] read(final File file) throws IOException {
+    final InputStream input = new FileInputStream(file);
+    try {
+      return readBytes(input);
+    } finally {
+      input.close();
+    }
+  }
+
+  private static byte[] readBytes(final InputStream input) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int read;
+    while ((read = input.read(buffer)) > 0){
+      bytes.write(buffer, 0, read);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static String readBody(final InputStream input) throws IOException {
+    return new String(readBytes(input), UTF_8);
+  }
+
+  private static Map<String, String> parse(final String form) throws IOException {
+    final Map<String, String> parameters = new HashMap<>();
+    for (final String pair : form.split("&")){
+      final int equals = pair.indexOf('=');
+      if (equals > 0){
+        parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+      }
+    }
+    return parameters;
+  }
+}
@@ -0,0 +1,140 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays the bundled recordings and checks latency, bandwidth
+ * and error injection shape the responses.
+ */
+public class ArcGisStandInServerTest {
+
+  private static final String ENVELOPE = "{\"xmin\":-71,\"ymin\":42,\"xmax\":-70,\"ymax\":43,\"spatialReference\":{\"wkid\":4326}}";
+
+  private static final PbfFeatureReader.RowDecoder<Double> DEPTHS = new PbfFeatureReader.RowDecoder<Double>() {
+    @Override public Double decode(final PbfFeatureReader.Row row) {
+      return row.getDouble("UnitTop");
+    }
+  };
+
+  private ArcGisStandInServer mServer;
+
+  @Before
+  public void startServer() throws Exception {
+    mServer = new ArcGisStandInServer(11);
+    assertEquals(10, mServer.recordBundled());
+  }
+
+  @After
+  public void stopServer() {
+    mServer.stop();
+  }
+
+  @Test
+  public void recordedResponsesAreReplayedByPath() throws Exception {
+    final Map<String, Object> summary = JsonParser.getJson(mServer.getUrl("EMU_Summary_Table/FeatureServer/0/query")
+        + "?where=1%3D1&outFields=*&f=json");
+    assertEquals(3, ((List<?>) summary.get("features")).size());
+
+    final Map<String, Object> layer = JsonParser.getJson(mServer.getUrl("EMU_Point_Mesh_Cluster/MapServer/0") + "?f=json");
+    assertEquals("EMU_Point_Mesh_Cluster", layer.get("name"));
+
+    final Map<String, Object> candidates = JsonParser.getJson(mServer.getUrl("World/GeocodeServer/findAddressCandidates")
+        + "?SingleLine=gulf+of+maine&f=json");
+    assertEquals("Gulf of Maine", ((Map<?, ?>) ((List<?>) candidates.get("candidates")).get(0)).get("address"));
+    assertEquals("gulf of maine", mServer.getLastRequest().get("SingleLine"));
+
+    final Map<String, Object> missing = JsonParser.getJson(mServer.getUrl("Unknown/MapServer/0/query") + "?f=json");
+    assertEquals(404.0, ((Number) ((Map<?, ?>) missing.get("error")).get("code")).doubleValue(), 0);
+    assertEquals(1, mServer.getRequestCount("EMU_Summary_Table/FeatureServer/0/query"));
+    assertEquals(4, mServer.getRequestCount());
+  }
+
+  @Test(expected = PbfQuery.UnsupportedFormatException.class)
+  public void pbfQueryOfJsonOnlyRecordingIsUnsupported() throws Exception {
+    new PbfQuery(mServer.getUrl("EMU_Point_Mesh/MapServer/0")).fetch(ENVELOPE, "esriGeometryEnvelope",
+        Arrays.asList("UnitTop"), 0, 1000, DEPTHS, new ArrayList<Double>());
+  }
+
+  @Test
+  public void latencyAndBandwidthSlowResponses() throws Exception {
+    final List<Object[]> rows = PbfFixtures.profileRows(400);
+    final byte[] pbf = PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, rows, false, false);
+    mServer.recordPbf("EMU_Point_Mesh/MapServer/0/query", pbf);
+    final PbfQuery query = new PbfQuery(mServer.getUrl("EMU_Point_Mesh/MapServer/0"));
+
+    mServer.setLatency(300, 100);
+    long start = System.nanoTime();
+    final List<Double> depths = new ArrayList<>();
+    query.fetch(ENVELOPE, "esriGeometryEnvelope", Arrays.asList("UnitTop"), 0, 1000, DEPTHS, depths);
+    assertEquals(rows.size(), depths.size());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 300);
+
+    // Half a second's worth of data at the capped rate
+    mServer.setLatency(0, 0);
+    mServer.setBandwidth(pbf.length * 2);
+    start = System.nanoTime();
+    query.fetch(ENVELOPE, "esriGeometryEnvelope", Arrays.asList("UnitTop"), 0, 1000, DEPTHS, new ArrayList<Double>());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 450);
+  }
+
+  @Test
+  public void injectedFailuresPrecedeRecordedResponse() throws Exception {
+    final String url = mServer.getUrl("EMU_Summary_Table/FeatureServer/0/query") + "?f=json";
+    mServer.failNext(2, 503);
+    assertEquals(503, status(url));
+    assertEquals(503, status(url));
+    assertEquals(200, status(url));
+
+    mServer.setFailureRate(1, 500);
+    assertEquals(500, status(url));
+    mServer.setFailureRate(0, 500);
+    assertEquals(200, status(url));
+  }
+
+  private static int status(final String url) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    try {
+      return connection.getResponseCode();
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that BoundedFetcher never runs more than its limit
+ * of fetches at once and reports every key exactly once.
+ */
+public class BoundedFetcherTest {
+
+  @Test
+  public void onlyMaxConcurrentFetchesRunAtOnce() {
+    final HeldFetch fetch = new HeldFetch();
+    final RecordingListener listener = new RecordingListener();
+    new BoundedFetcher<>(fetch, 3).fetchAll(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), listener);
+
+    assertEquals(Arrays.asList(1, 2, 3), fetch.started);
+
+    // Finishing a fetch frees its slot for the next key
+    fetch.complete(1, "two");
+    assertEquals(Arrays.asList(1, 2, 3, 4), fetch.started);
+    assertEquals(3, fetch.running());
+
+    while (fetch.running() > 0){
+      fetch.complete(fetch.done.indexOf(false), "x");
+      assertTrue(fetch.running() <= 3);
+    }
+    assertEquals(8, fetch.started.size());
+    assertEquals(8, listener.fetched.size());
+    assertEquals(1, listener.allFetched);
+  }
+
+  @Test
+  public void failedAndThrowingFetchesStillComplete() {
+    final BoundedFetcher.Fetch<Integer, String> fetch = new BoundedFetcher.Fetch<Integer, String>() {
+      @Override public void fetch(final Integer key, final BoundedFetcher.Callback<String> callback) {
+        if (key == 2){
+          throw new IllegalStateException("offline");
+        }
+        callback.onResult(key == 3 ? null : String.valueOf(key));
+        // Late duplicate callbacks are ignored
+        callback.onResult("again");
+      }
+    };
+    final RecordingListener listener = new RecordingListener();
+    new BoundedFetcher<>(fetch, 2).fetchAll(Arrays.asList(1, 2, 3, 4), listener);
+
+    assertEquals(Arrays.asList("1", null, null, "4"), listener.fetched);
+    assertEquals(1, listener.allFetched);
+  }
+
+  @Test
+  public void emptyBatchCompletesImmediately() {
+    final RecordingListener listener = new RecordingListener();
+    new BoundedFetcher<>(new HeldFetch(), 2).fetchAll(Collections.<Integer>emptyList(), listener);
+    assertEquals(1, listener.allFetched);
+  }
+
+  private static class HeldFetch implements BoundedFetcher.Fetch<Integer, String> {
+    final List<Integer> started = new ArrayList<>();
+    final List<BoundedFetcher.Callback<String>> callbacks = new ArrayList<>();
+    final List<Boolean> done = new ArrayList<>();
+
+    @Override public void fetch(final Integer key, final BoundedFetcher.Callback<String> callback) {
+      started.add(key);
+      callbacks.add(callback);
+      done.add(false);
+    }
+
+    void complete(final int index, final String value) {
+      done.set(index, true);
+      callbacks.get(index).onResult(value);
+    }
+
+    int running() {
+      int running = 0;
+      for (final Boolean finished : done){
+        if (!finished){
+          running++;
+        }
+      }
+      return running;
+    }
+  }
+
+  private static class RecordingListener implements BoundedFetcher.Listener<Integer, String> {
+    final List<String> fetched = new ArrayList<>();
+    int allFetched = 0;
+
+    @Override public void onFetched(final Integer key, final String value) {
+      fetched.add(value);
+    }
+
+    @Override public void onAllFetched() {
+      allFetched++;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Walks a CircuitBreaker through its states with a controllable clock.
+ */
+public class CircuitBreakerTest {
+
+  private long mNow;
+  private final List<CircuitBreaker.Transition> mReported = new ArrayList<>();
+  private CircuitBreaker mBreaker;
+
+  @Before
+  public void setUp() {
+    mNow = 1000;
+    mReported.clear();
+    mBreaker = new CircuitBreaker("mesh", 3, 500, new CircuitBreaker.Clock() {
+      @Override public long nowMillis() {
+        return mNow;
+      }
+    });
+    mBreaker.setListener(new CircuitBreaker.Listener() {
+      @Override public void onStateChanged(final CircuitBreaker breaker, final CircuitBreaker.Transition transition) {
+        mReported.add(transition);
+      }
+    });
+  }
+
+  @Test
+  public void opensAfterConsecutiveFailures() {
+    mBreaker.recordFailure();
+    mBreaker.recordFailure();
+    mBreaker.recordSuccess();
+    mBreaker.recordFailure();
+    mBreaker.recordFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, mBreaker.getState());
+    assertTrue(mBreaker.allowRequest());
+
+    mBreaker.recordFailure();
+    assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+    assertTrue(mBreaker.isTripped());
+    assertFalse(mBreaker.allowRequest());
+    assertEquals(1, mReported.size());
+  }
+
+  @Test
+  public void probeAfterOpenIntervalCloses() {
+    trip();
+    mNow += 499;
+    assertFalse(mBreaker.allowRequest());
+
+    mNow += 1;
+    assertTrue(mBreaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, mBreaker.getState());
+    // Only the probe goes through while half open
+    assertFalse(mBreaker.allowRequest());
+
+    mBreaker.recordSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, mBreaker.getState());
+    assertTrue(mBreaker.allowRequest());
+
+    assertEquals(3, mReported.size());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, mReported.get(1).getTo());
+    assertEquals(CircuitBreaker.State.CLOSED, mReported.get(2).getTo());
+    assertEquals(500, mReported.get(2).getElapsedMillis());
+    assertEquals(mReported, mBreaker.getTransitions());
+  }
+
+  @Test
+  public void failedProbeReopens() {
+    trip();
+    mNow += 500;
+    assertTrue(mBreaker.allowRequest());
+    mBreaker.recordFailure();
+    assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+
+    // The open interval starts again from the failed probe
+    mNow += 499;
+    assertFalse(mBreaker.allowRequest());
+    mNow += 1;
+    assertTrue(mBreaker.allowRequest());
+  }
+
+  @Test
+  public void probeThatNeverReportsIsReplaced() {
+    trip();
+    mNow += 500;
+    assertTrue(mBreaker.allowRequest());
+    mNow += 500;
+    assertTrue(mBreaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, mBreaker.getState());
+  }
+
+  @Test
+  public void describeCountsTripsAndRefusals() {
+    trip();
+    mBreaker.allowRequest();
+    mBreaker.allowRequest();
+    assertEquals("mesh: open, 3 consecutive failures, opened 1 times, 2 requests refused, last change closed to open at 0 ms",
+        mBreaker.describe());
+  }
+
+  private void trip(){
+    for (int i = 0; i < 3; i++){
+      mBreaker.recordFailure();
+    }
+    assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+  }
+}
@@ -0,0 +1,104 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the chart details built for the EMUs of a water column.
+ */
+public class ColumnDetailsTest {
+
+  private static final float DELTA = 0.0001f;
+
+  @Test
+  public void everyEmuInTheColumnHasADetail() {
+    final WaterColumn column = EmuCodecFixtures.columns(1, 12).get(0);
+    final EmuSummary summary = new EmuSummary(EmuCodecFixtures.stats());
+    final ColumnDetails details = ColumnDetails.build(column, summary);
+
+    assertTrue(details.isFor(column));
+    assertFalse(details.isFor(EmuCodecFixtures.columns(1, 12).get(0)));
+    int emus = 0;
+    for (int emu = 1; emu <= 37; emu++){
+      final List<EMUObservation> observations = column.getEMUObservations(emu);
+      if (observations.isEmpty()){
+        assertNull(details.getDetail(emu));
+        continue;
+      }
+      emus++;
+      final EMUObservation first = observations.get(0);
+      final EmuDetail detail = details.getDetail(emu);
+      assertEquals(emu, detail.getEmuName());
+      assertEquals(first.getTemperature(), detail.getLocationValue(EmuDetail.TEMPERATURE), DELTA);
+
+      final EmuDetail.Candle candle = detail.getCandle(EmuDetail.SALINITY);
+      final EMUStat stat = summary.getStat(emu);
+      assertEquals(stat.getSalinity_min(), candle.getEmuLow(), DELTA);
+      assertEquals(stat.getSalinity_max(), candle.getEmuHigh(), DELTA);
+      assertEquals(summary.getMinSalinity(), candle.getOceanLow(), DELTA);
+      assertEquals(summary.getMaxSalinity(), candle.getOceanHigh(), DELTA);
+      assertEquals(first.getSalinity(), candle.getLocationValue(), DELTA);
+    }
+    assertEquals(emus, details.size());
+  }
+
+  @Test
+  public void missingValuesHaveNoCandle() {
+    final EMUObservation observation = new EMUObservation();
+    final EMU emu = new EMU();
+    emu.setName(4);
+    observation.setEmu(emu);
+    observation.setTemperature(12.5);
+    observation.setSalinity(35d);
+    final EMUStat stat = new EMUStat();
+    stat.setEmu_name(4);
+    stat.setTemp_min(10d);
+    stat.setTemp_max(15d);
+    stat.setTemp_mean(12d);
+    final EmuDetail detail = EmuDetail.create(observation, stat, new EmuSummary(Collections.singletonList(stat)));
+
+    assertNotNull(detail.getCandle(EmuDetail.TEMPERATURE));
+    // No statistics for salinity, no observation of nitrate
+    assertNull(detail.getCandle(EmuDetail.SALINITY));
+    assertNull(detail.getCandle(EmuDetail.NITRATE));
+    assertEquals(35d, detail.getLocationValue(EmuDetail.SALINITY), DELTA);
+    assertEquals(0d, detail.getLocationValue(EmuDetail.NITRATE), DELTA);
+  }
+
+  @Test
+  public void emusWithoutStatisticsAreLeftOut() {
+    final WaterColumn column = EmuCodecFixtures.columns(1, 6).get(0);
+    final ColumnDetails details = ColumnDetails.build(column, new EmuSummary(Collections.<EMUStat>emptyList()));
+    assertEquals(0, details.size());
+  }
+}
@@ -0,0 +1,143 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.esri.arcgisruntime.geometry.Point;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares ColumnGrouper with the Guava Multimaps grouping DataManager
+ * used before, for the observations of a long transect.  Both must
+ * group the same way; the timing comparison depends on the machine,
+ * so it's ignored by default and run by hand.
+ */
+public class ColumnGrouperBenchmarkTest {
+
+  private static final int COLUMNS = 2000;
+  private static final int LAYERS = 10;
+  private static final int WARM_UP = 50;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  public void groupingMatchesGuava() {
+    final List<EMUObservation> observations = transectObservations();
+    final List<WaterColumn> columns = ColumnGrouper.group(observations);
+    final Map<Point, WaterColumn> guava = groupWithGuava(observations);
+    assertEquals(COLUMNS, columns.size());
+    assertEquals(guava.size(), columns.size());
+    int guavaObservations = 0;
+    for (final WaterColumn column : guava.values()){
+      guavaObservations += column.getEmuSet().size();
+    }
+    int grouperObservations = 0;
+    for (final WaterColumn column : columns){
+      assertEquals(LAYERS, column.getEmuSet().size());
+      grouperObservations += column.getEmuSet().size();
+    }
+    assertEquals(guavaObservations, grouperObservations);
+  }
+
+  @Ignore("Benchmark, timings depend on the machine")
+  @Test
+  public void groupingIsFasterThanGuava() {
+    final List<EMUObservation> observations = transectObservations();
+
+    int check = 0;
+    for (int i = 0; i < WARM_UP; i++){
+      check += ColumnGrouper.group(observations).size();
+      check += groupWithGuava(observations).size();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += ColumnGrouper.group(observations).size();
+    }
+    final double grouperMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += groupWithGuava(observations).size();
+    }
+    final double guavaMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    assertEquals((WARM_UP + ITERATIONS) * 2 * COLUMNS, check);
+    assertTrue(String.format("group %d observations into %d columns: column keys %.1f us, guava multimap %.1f us",
+        observations.size(), COLUMNS, grouperMicros, guavaMicros), grouperMicros < guavaMicros);
+  }
+
+  private static List<EMUObservation> transectObservations(){
+    final List<EMUObservation> observations = new ArrayList<>();
+    final Random random = new Random(11);
+    for (int c = 0; c < COLUMNS; c++){
+      final double x = -170 + c * 0.1;
+      final double y = 10 + random.nextInt(20) * 0.25;
+      for (int layer = 0; layer < LAYERS; layer++){
+        // Separate Point instances, as each feature has its own
+        observations.add(ColumnGrouperTest.observation(x, y, 1 + random.nextInt(37), -layer * 50));
+      }
+    }
+    Collections.shuffle(observations, random);
+    return observations;
+  }
+
+  // The grouping DataManager used before ColumnGrouper
+  private static Map<Point, WaterColumn> groupWithGuava(final Collection<EMUObservation> emuObservations){
+    final Map<Point, WaterColumn> waterColumnMap = new HashMap<>();
+    final ImmutableSet<EMUObservation> immutableSet = ImmutableSet.copyOf(emuObservations);
+    final Function<EMUObservation, Point> locationFunction = new Function<EMUObservation, Point>() {
+      @Override public Point apply(final EMUObservation observation) {
+        return observation.getLocation();
+      }
+    };
+    final ImmutableListMultimap<Point, EMUObservation> observationsByLocation = Multimaps.index(immutableSet, locationFunction);
+    final ImmutableMap<Point, Collection<EMUObservation>> map = observationsByLocation.asMap();
+    for (final Point p : map.keySet()){
+      final WaterColumn waterColumn = new WaterColumn();
+      waterColumn.setLocation(p);
+      for (final EMUObservation o : map.get(p)){
+        waterColumn.addObservation(o);
+      }
+      waterColumnMap.put(p, waterColumn);
+    }
+    return waterColumnMap;
+  }
+}
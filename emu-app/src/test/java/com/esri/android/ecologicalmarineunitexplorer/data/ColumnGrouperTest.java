@@ -0,0 +1,136 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.esri.arcgisruntime.geometry.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks grouping observations into ordered water columns.
+ */
+public class ColumnGrouperTest {
+
+  static EMUObservation observation(final double x, final double y, final int emu, final int top){
+    final EMUObservation observation = new EMUObservation();
+    final EMU e = new EMU();
+    e.setName(emu);
+    observation.setEmu(e);
+    observation.setLocation(new Point(x, y));
+    observation.setTop(top);
+    observation.setThickness(10);
+    return observation;
+  }
+
+  private static int[] tops(final WaterColumn column){
+    final int[] tops = new int[column.getEmuSet().size()];
+    int i = 0;
+    for (final EMUObservation observation : column.getEmuSet()){
+      tops[i++] = observation.getTop();
+    }
+    return tops;
+  }
+
+  @Test
+  public void groupsByLocationInFirstSeenOrder() {
+    final List<EMUObservation> observations = Arrays.asList(
+        observation(10.5, -20.25, 1, -10), observation(-3, 4, 2, 0),
+        observation(10.5, -20.25, 3, 0), observation(10.5, -20.25, 4, -30),
+        observation(-3, 4, 5, -50));
+    final List<WaterColumn> columns = ColumnGrouper.group(observations);
+
+    assertEquals(2, columns.size());
+    assertEquals(new Point(10.5, -20.25), columns.get(0).getLocation());
+    assertEquals(new Point(-3, 4), columns.get(1).getLocation());
+    // Ordered as WaterColumn.addObservation orders them
+    assertArrayEquals(new int[]{ 0, -10, -30 }, tops(columns.get(0)));
+    assertArrayEquals(new int[]{ 0, -50 }, tops(columns.get(1)));
+    assertEquals(30, columns.get(0).getDepth());
+  }
+
+  @Test
+  public void matchesColumnsBuiltOneObservationAtATime() {
+    final List<EMUObservation> observations = new ArrayList<>();
+    for (int layer = 0; layer < 12; layer++){
+      for (int c = 0; c < 40; c++){
+        observations.add(observation(c * 0.25, c % 7, layer, -layer * (c % 3 + 1)));
+      }
+    }
+    Collections.shuffle(observations, new java.util.Random(7));
+    for (final WaterColumn grouped : ColumnGrouper.group(observations)){
+      final WaterColumn expected = new WaterColumn();
+      for (final EMUObservation observation : observations){
+        if (observation.getLocation().equals(grouped.getLocation())){
+          expected.addObservation(observation);
+        }
+      }
+      assertArrayEquals(tops(expected), tops(grouped));
+    }
+  }
+
+  @Test
+  public void keepsFirstObservationForRepeatedTop() {
+    final EMUObservation first = observation(1, 1, 7, -20);
+    final EMUObservation repeat = observation(1, 1, 8, -20);
+    final WaterColumn column = ColumnGrouper.group(Arrays.asList(first, repeat)).get(0);
+    assertEquals(1, column.getEmuSet().size());
+    assertSame(first, column.getEmuSet().iterator().next());
+
+    final WaterColumn added = new WaterColumn();
+    added.addObservation(first);
+    added.addObservation(repeat);
+    assertEquals(1, added.getEmuSet().size());
+    assertSame(first, added.getEmuSet().iterator().next());
+  }
+
+  @Test
+  public void nearlyEqualLocationsShareAColumn() {
+    final List<WaterColumn> columns = ColumnGrouper.group(Arrays.asList(
+        observation(-45.123456, 12.5, 1, 0), observation(-45.1234561, 12.5, 2, -5)));
+    assertEquals(1, columns.size());
+    assertEquals(2, columns.get(0).getEmuSet().size());
+  }
+
+  @Test
+  public void emptyInputGivesNoColumns() {
+    assertTrue(ColumnGrouper.group(Collections.<EMUObservation>emptyList()).isEmpty());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void emuSetIsReadOnly() {
+    final Iterator<EMUObservation> iterator = ColumnGrouper.group(Collections.singletonList(observation(0, 0, 1, 0)))
+        .get(0).getEmuSet().iterator();
+    iterator.next();
+    iterator.remove();
+  }
+}
@@ -0,0 +1,188 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.esri.arcgisruntime.geometry.Point;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks profiles are fetched once per column and shared with later requests.
+ */
+public class ColumnPrefetcherTest {
+
+  private final Map<Point, List<BoundedFetcher.Callback<DepthProfile>>> mRunning = new HashMap<>();
+  private int mFetches;
+  private ColumnPrefetcher mPrefetcher;
+
+  @Before
+  public void setUp() {
+    mFetches = 0;
+    mRunning.clear();
+    mPrefetcher = new ColumnPrefetcher(new ColumnPrefetcher.ProfileSource() {
+      @Override public void fetch(final Point location, final BoundedFetcher.Callback<DepthProfile> callback) {
+        mFetches++;
+        if (!mRunning.containsKey(location)){
+          mRunning.put(location, new ArrayList<BoundedFetcher.Callback<DepthProfile>>());
+        }
+        mRunning.get(location).add(callback);
+      }
+    }, 2);
+  }
+
+  private static WaterColumn column(final double x, final double y){
+    final WaterColumn column = new WaterColumn();
+    column.setLocation(new Point(x, y));
+    return column;
+  }
+
+  private static WaterProfile profile(final int measurements){
+    final WaterProfile profile = new WaterProfile();
+    for (int i = 0; i < measurements; i++){
+      final Measurement measurement = new Measurement();
+      measurement.setDepth((double) i);
+      measurement.setTemperature(10d);
+      profile.addMeasurement(measurement);
+    }
+    return profile;
+  }
+
+  private void finish(final Point location, final DepthProfile profile){
+    for (final BoundedFetcher.Callback<DepthProfile> callback : mRunning.remove(location)){
+      callback.onResult(profile);
+    }
+  }
+
+  private static class Result implements BoundedFetcher.Callback<DepthProfile> {
+    int calls;
+    DepthProfile profile;
+
+    @Override public void onResult(final DepthProfile value) {
+      calls++;
+      profile = value;
+    }
+  }
+
+  @Test
+  public void requestWaitsForPrefetchUnderway() {
+    final WaterColumn column = column(-30, 10);
+    mPrefetcher.prefetch(column);
+    mPrefetcher.prefetch(column(-30, 10));
+    assertEquals(1, mFetches);
+    assertSame(column, mPrefetcher.getColumn(new Point(-30, 10)));
+
+    final Result result = new Result();
+    assertTrue(mPrefetcher.getProfile(new Point(-30, 10), result));
+    assertEquals(0, result.calls);
+
+    final WaterProfile profile = profile(3);
+    finish(column.getLocation(), profile);
+    assertEquals(1, result.calls);
+    assertSame(profile, result.profile);
+
+    // Now held, so answered straight away
+    final Result later = new Result();
+    assertTrue(mPrefetcher.getProfile(new Point(-30, 10), later));
+    assertSame(profile, later.profile);
+    assertEquals(1, mFetches);
+  }
+
+  @Test
+  public void unknownLocationIsNotAnswered() {
+    final Result result = new Result();
+    assertFalse(mPrefetcher.getProfile(new Point(5, 5), result));
+    assertNull(mPrefetcher.getColumn(new Point(5, 5)));
+    assertEquals(0, result.calls);
+  }
+
+  @Test
+  public void failedFetchIsNotKept() {
+    final WaterColumn column = column(1, 2);
+    mPrefetcher.prefetch(column);
+    final Result result = new Result();
+    mPrefetcher.getProfile(column.getLocation(), result);
+    finish(column.getLocation(), null);
+    assertEquals(1, result.calls);
+    assertNull(result.profile);
+
+    // The column stays, its profile is fetched again next time
+    assertSame(column, mPrefetcher.getColumn(column.getLocation()));
+    assertFalse(mPrefetcher.getProfile(column.getLocation(), new Result()));
+    mPrefetcher.prefetch(column);
+    assertEquals(2, mFetches);
+  }
+
+  @Test
+  public void emptyProfileIsPassedOnButNotKept() {
+    final WaterColumn column = column(1, 2);
+    mPrefetcher.prefetch(column);
+    final Result result = new Result();
+    mPrefetcher.getProfile(column.getLocation(), result);
+    finish(column.getLocation(), profile(0));
+    assertEquals(0, result.profile.measurementCount());
+    assertFalse(mPrefetcher.getProfile(column.getLocation(), new Result()));
+  }
+
+  @Test
+  public void leastRecentlyUsedColumnIsDropped() {
+    final WaterColumn a = column(1, 1);
+    final WaterColumn b = column(2, 2);
+    final WaterColumn c = column(3, 3);
+    mPrefetcher.prefetch(a);
+    mPrefetcher.prefetch(b);
+    mPrefetcher.getColumn(a.getLocation());
+    mPrefetcher.prefetch(c);
+    assertEquals(2, mPrefetcher.size());
+    assertNull(mPrefetcher.getColumn(b.getLocation()));
+    assertSame(a, mPrefetcher.getColumn(a.getLocation()));
+
+    // A fetch finishing after its column was dropped still answers its waiters
+    final Result result = new Result();
+    mPrefetcher.getProfile(c.getLocation(), result);
+    finish(b.getLocation(), profile(2));
+    finish(c.getLocation(), profile(4));
+    assertEquals(4, result.profile.measurementCount());
+  }
+
+  @Test
+  public void findColumnReturnsHeldColumnClosestToCenter() {
+    final WaterColumn near = column(10.1, 20.1);
+    final WaterColumn far = column(10.4, 20.4);
+    mPrefetcher.prefetch(far);
+    mPrefetcher.prefetch(near);
+    assertSame(near, mPrefetcher.findColumn(9.5, 19.5, 10.5, 20.5));
+    assertSame(far, mPrefetcher.findColumn(10.3, 20.3, 10.5, 20.5));
+    assertNull(mPrefetcher.findColumn(11, 21, 12, 22));
+  }
+}
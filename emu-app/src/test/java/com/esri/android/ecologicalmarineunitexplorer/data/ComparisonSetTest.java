@@ -0,0 +1,167 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.esri.arcgisruntime.geometry.Point;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises ComparisonSet against a stand-in column source
+ * that holds on to requests until the test completes them.
+ */
+public class ComparisonSetTest {
+
+  private StandInSource mSource;
+  private ComparisonSet mSet;
+
+  @Before
+  public void setUp() {
+    mSource = new StandInSource();
+    mSet = new ComparisonSet(mSource, 2, ComparisonSet.MAX_PINNED + 1);
+  }
+
+  @Test
+  public void pinsAreLimitedAndUnique() {
+    for (int i = 0; i < ComparisonSet.MAX_PINNED; i++){
+      assertTrue(mSet.pin(column(i, i)));
+    }
+    assertFalse(mSet.pin(column(100, 10)));
+    assertEquals(ComparisonSet.MAX_PINNED, mSet.size());
+
+    mSet.unpin(new Point(0, 0));
+    assertFalse(mSet.pin(column(1, 1)));
+    assertTrue(mSet.pin(column(100, 10)));
+    assertEquals(new Point(100, 10), mSet.getPinned().get(ComparisonSet.MAX_PINNED - 1));
+  }
+
+  @Test
+  public void missingProfilesAreFetchedWithBoundedConcurrency() {
+    for (int i = 0; i < 5; i++){
+      mSet.pin(column(i, i));
+    }
+    final RecordingListener listener = new RecordingListener();
+    mSet.load(listener);
+    assertEquals(2, mSource.requests.size());
+
+    while (listener.complete == null){
+      final int next = mSource.completed;
+      final PinnedColumn known = mSource.known.get(next);
+      mSource.complete(next, new PinnedColumn(known.getLocation(), known.getWaterColumn(), new WaterProfile()));
+      assertTrue(mSource.requests.size() - mSource.completed <= 2);
+    }
+    assertEquals(5, mSource.requests.size());
+    assertEquals(5, listener.loaded.size());
+    assertEquals(5, listener.complete.size());
+    // Pinning kept the water column so only the profile was missing
+    assertNotNull(mSource.known.get(0).getWaterColumn());
+
+    // Everything is cached now so loading again fetches nothing
+    final RecordingListener again = new RecordingListener();
+    mSet.load(again);
+    assertEquals(5, mSource.requests.size());
+    assertEquals(5, again.loaded.size());
+    assertNotNull(again.complete);
+  }
+
+  @Test
+  public void leastRecentlyUsedColumnIsEvicted() {
+    // Fill the cache, which holds one more column than the pin limit
+    for (int i = 0; i <= ComparisonSet.MAX_PINNED; i++){
+      mSet.pin(column(i, i));
+      mSet.clear();
+    }
+    // Touch the first column so the second becomes the eldest
+    mSet.pin(column(0, 0));
+    mSet.clear();
+    mSet.pin(column(100, 10));
+    mSet.clear();
+
+    final WaterColumn first = column(0, 0);
+    mSet.pin(first);
+    assertNotSame(first, mSet.getColumns().get(0).getWaterColumn());
+    mSet.clear();
+
+    final WaterColumn second = column(1, 1);
+    mSet.pin(second);
+    assertSame(second, mSet.getColumns().get(0).getWaterColumn());
+  }
+
+  @Test
+  public void failedFetchKeepsWhatWasKnown() {
+    mSet.pin(column(5, 5));
+    final RecordingListener listener = new RecordingListener();
+    mSet.load(listener);
+    mSource.complete(0, null);
+
+    assertEquals(1, listener.complete.size());
+    assertNotNull(listener.complete.get(0).getWaterColumn());
+    assertNull(listener.complete.get(0).getProfile());
+  }
+
+  private static WaterColumn column(final double x, final double y) {
+    final WaterColumn column = new WaterColumn();
+    column.setLocation(new Point(x, y));
+    return column;
+  }
+
+  private static class StandInSource implements ComparisonSet.ColumnSource {
+    final List<Point> requests = new ArrayList<>();
+    final List<PinnedColumn> known = new ArrayList<>();
+    final List<BoundedFetcher.Callback<PinnedColumn>> callbacks = new ArrayList<>();
+    int completed = 0;
+
+    @Override public void fetch(final Point location, final PinnedColumn knownColumn,
+        final BoundedFetcher.Callback<PinnedColumn> callback) {
+      requests.add(location);
+      known.add(knownColumn);
+      callbacks.add(callback);
+    }
+
+    void complete(final int index, final PinnedColumn column) {
+      completed++;
+      callbacks.get(index).onResult(column);
+    }
+  }
+
+  private static class RecordingListener implements ComparisonSet.Listener {
+    final List<PinnedColumn> loaded = new ArrayList<>();
+    List<PinnedColumn> complete = null;
+
+    @Override public void onColumnLoaded(final int index, final PinnedColumn column) {
+      loaded.add(column);
+    }
+
+    @Override public void onComparisonLoaded(final List<PinnedColumn> columns) {
+      complete = columns;
+    }
+  }
+}
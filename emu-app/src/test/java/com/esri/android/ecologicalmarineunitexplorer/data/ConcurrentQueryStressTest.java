@@ -0,0 +1,272 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs many queries at once against a fake feature source that answers
+ * on a pool of threads after a random delay, the way the ArcGIS Runtime
+ * completes queries, and checks the pieces the DataManager relies on
+ * to share state between those threads.
+ */
+public class ConcurrentQueryStressTest {
+
+  private static final int PAGE_SIZE = 100;
+
+  private static final long TIMEOUT_SECONDS = 60;
+
+  @Test
+  public void concurrentPagedQueriesDeliverEveryFeatureInOrder() throws Exception {
+    final FakeFeatureSource source = new FakeFeatureSource(0);
+    final int queryCount = 200;
+    final Random random = new Random(7);
+    final CountDownLatch finished = new CountDownLatch(queryCount);
+    final AtomicInteger mismatches = new AtomicInteger();
+    try {
+      for (int q = 0; q < queryCount; q++){
+        final int total = random.nextInt(2500);
+        // Not synchronized: pages are handed over one at a time
+        final List<Integer> received = new ArrayList<>();
+        new PagedLoader<>(source.forQuery(total), PAGE_SIZE, 100, new PagedLoader.Listener<Integer>() {
+          @Override public void onPage(final List<Integer> items, final int pageIndex) {
+            received.addAll(items);
+          }
+
+          @Override public void onComplete(final int totalCount) {
+            if (totalCount != total || received.size() != total){
+              mismatches.incrementAndGet();
+            }
+            for (int i = 0; i < received.size(); i++){
+              if (received.get(i) != i){
+                mismatches.incrementAndGet();
+                break;
+              }
+            }
+            finished.countDown();
+          }
+
+          @Override public void onError(final Exception e, final int loadedCount) {
+            mismatches.incrementAndGet();
+            finished.countDown();
+          }
+        }).start();
+      }
+      assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    } finally {
+      source.shutdown();
+    }
+    assertEquals(0, mismatches.get());
+  }
+
+  @Test
+  public void overlappingDepthRequestsDownloadEachCellOnce() throws Exception {
+    final int cellCount = new WorldGrid(30).getCellCount();
+    final DownloadTracker tracker = new DownloadTracker();
+    final FakeFeatureSource source = new FakeFeatureSource(0.2);
+    final AtomicIntegerArray downloads = new AtomicIntegerArray(cellCount);
+    final Set<Integer> inFlight = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    final AtomicInteger overlaps = new AtomicInteger();
+    final ExecutorService callers = Executors.newFixedThreadPool(16);
+    try {
+      // Failed cells are released, so keep asking until every cell is down
+      for (int round = 0; round < 20 && countDownloaded(tracker, cellCount) < cellCount; round++){
+        final int requestCount = 64;
+        final CountDownLatch finished = new CountDownLatch(requestCount);
+        for (int r = 0; r < requestCount; r++){
+          final Random random = new Random(round * 1000 + r);
+          callers.execute(new Runnable() {
+            @Override public void run() {
+              final List<Integer> wanted = new ArrayList<>();
+              final int first = random.nextInt(cellCount);
+              for (int i = 0; i < 24; i++){
+                wanted.add((first + i) % cellCount);
+              }
+              final Collection<Integer> claimed = tracker.claim(wanted);
+              if (claimed.isEmpty()){
+                finished.countDown();
+                return;
+              }
+              for (final Integer key : claimed){
+                if (!inFlight.add(key)){
+                  overlaps.incrementAndGet();
+                }
+              }
+              new PagedLoader<>(source.forQuery(150), PAGE_SIZE, 10, new PagedLoader.Listener<Integer>() {
+                @Override public void onPage(final List<Integer> items, final int pageIndex) {
+                }
+
+                @Override public void onComplete(final int totalCount) {
+                  inFlight.removeAll(claimed);
+                  for (final Integer key : claimed){
+                    downloads.incrementAndGet(key);
+                  }
+                  tracker.complete(claimed);
+                  finished.countDown();
+                }
+
+                @Override public void onError(final Exception e, final int loadedCount) {
+                  inFlight.removeAll(claimed);
+                  tracker.release(claimed);
+                  finished.countDown();
+                }
+              }).start();
+            }
+          });
+        }
+        assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      }
+    } finally {
+      callers.shutdown();
+      source.shutdown();
+    }
+    assertEquals(0, overlaps.get());
+    for (int key = 0; key < cellCount; key++){
+      assertEquals("cell " + key, 1, downloads.get(key));
+      assertTrue(tracker.isDownloaded(key));
+    }
+  }
+
+  @Test
+  public void summarySnapshotsAreNeverSeenHalfBuilt() throws Exception {
+    final AtomicReference<EmuSummary> published = new AtomicReference<>(summaryForGeneration(0));
+    final AtomicInteger torn = new AtomicInteger();
+    final int readerCount = 8;
+    final CountDownLatch finished = new CountDownLatch(readerCount + 1);
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+
+    new Thread(new Runnable() {
+      @Override public void run() {
+        for (int generation = 1; System.nanoTime() < deadline; generation++){
+          published.set(summaryForGeneration(generation));
+        }
+        finished.countDown();
+      }
+    }).start();
+    for (int i = 0; i < readerCount; i++){
+      new Thread(new Runnable() {
+        @Override public void run() {
+          while (System.nanoTime() < deadline){
+            // Read the reference once and use that snapshot throughout
+            final EmuSummary summary = published.get();
+            final double generation = summary.getMaxTemperature();
+            if (summary.getMinTemperature() != generation || summary.getStat(37).getTemp_max() != generation
+                || summary.size() != 37){
+              torn.incrementAndGet();
+            }
+          }
+          finished.countDown();
+        }
+      }).start();
+    }
+    assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(0, torn.get());
+  }
+
+  private static int countDownloaded(final DownloadTracker tracker, final int cellCount){
+    int count = 0;
+    for (int key = 0; key < cellCount; key++){
+      if (tracker.isDownloaded(key)){
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static EmuSummary summaryForGeneration(final int generation){
+    final List<EMUStat> stats = new ArrayList<>();
+    for (int emu = 1; emu <= 37; emu++){
+      final EMUStat stat = new EMUStat();
+      stat.setEmu_name(emu);
+      stat.setTemp_min((double) generation);
+      stat.setTemp_max((double) generation);
+      stats.add(stat);
+    }
+    return new EmuSummary(stats);
+  }
+
+  /**
+   * Answers page requests on a pool of threads after a short random
+   * delay.  Features are the integers 0 to total - 1.
+   */
+  private static class FakeFeatureSource {
+    private final ExecutorService mPool = Executors.newFixedThreadPool(8);
+    private final double mFailureRate;
+    private final AtomicInteger mRequests = new AtomicInteger();
+
+    FakeFeatureSource(final double failureRate){
+      mFailureRate = failureRate;
+    }
+
+    PagedLoader.PageSource<Integer> forQuery(final int total){
+      return new PagedLoader.PageSource<Integer>() {
+        @Override public void fetch(final int offset, final int count, final PagedLoader.PageCallback<Integer> callback) {
+          final Random random = new Random(mRequests.incrementAndGet());
+          mPool.execute(new Runnable() {
+            @Override public void run() {
+              try {
+                Thread.sleep(random.nextInt(3));
+              } catch (final InterruptedException e){
+                Thread.currentThread().interrupt();
+              }
+              if (random.nextDouble() < mFailureRate){
+                callback.onError(new Exception("Injected failure"));
+                return;
+              }
+              final int end = Math.min(total, offset + count);
+              final List<Integer> page = new ArrayList<>();
+              for (int i = offset; i < end; i++){
+                page.add(i);
+              }
+              callback.onPage(page, end < total);
+            }
+          });
+        }
+      };
+    }
+
+    void shutdown(){
+      mPool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares EmuCodec payload size and encode/decode throughput with the
+ * same models written as feature attribute JSON, the form the services
+ * return.  Timings depend on the machine, so the throughput comparison
+ * is ignored by default and run by hand.
+ */
+public class EmuCodecBenchmarkTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int WARM_UP = 200;
+  private static final int ITERATIONS = 1000;
+
+  @Test
+  public void waterColumnsAreMuchSmallerThanJson() throws Exception {
+    final List<WaterColumn> columns = EmuCodecFixtures.columns(200, 8);
+    final byte[] json = columnsToJson(columns).getBytes(UTF_8);
+    final byte[] quantized = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeWaterColumns(columns);
+    final byte[] float32 = new EmuCodec(EmuCodec.ValueEncoding.FLOAT32).encodeWaterColumns(columns);
+    final String sizes = sizes("water columns", json.length, quantized.length, float32.length);
+    assertTrue(sizes, quantized.length * 5 < json.length);
+    assertTrue(sizes, float32.length * 3 < json.length);
+  }
+
+  @Test
+  public void profileIsMuchSmallerThanJson() throws Exception {
+    final WaterProfile profile = EmuCodecFixtures.profile(200);
+    final byte[] json = profileToJson(profile).getBytes(UTF_8);
+    final byte[] quantized = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeWaterProfile(profile);
+    final byte[] float32 = new EmuCodec(EmuCodec.ValueEncoding.FLOAT32).encodeWaterProfile(profile);
+    assertTrue(sizes("water profile", json.length, quantized.length, float32.length), quantized.length * 4 < json.length);
+  }
+
+  @Test
+  public void statsAreMuchSmallerThanJson() throws Exception {
+    final List<EMUStat> stats = EmuCodecFixtures.stats();
+    final StringBuilder builder = new StringBuilder("[");
+    for (final EMUStat stat : stats){
+      builder.append(builder.length() > 1 ? "," : "").append("{\"Cluster37\":").append(stat.getEmu_name())
+          .append(",\"MIN_temp\":").append(stat.getTemp_min()).append(",\"MAX_temp\":").append(stat.getTemp_max())
+          .append(",\"MEAN_temp\":").append(stat.getTemp_mean()).append(",\"MIN_salinity\":").append(stat.getSalinity_min())
+          .append(",\"MAX_salinity\":").append(stat.getSalinity_max()).append(",\"MEAN_salinity\":").append(stat.getSalinity_mean())
+          .append(",\"MIN_dissO2\":").append(stat.getDisso2_min()).append(",\"MAX_dissO2\":").append(stat.getDisso2_max())
+          .append(",\"MEAN_dissO2\":").append(stat.getDisso2_mean()).append(",\"MIN_phosphate\":").append(stat.getPhosphate_min())
+          .append(",\"MAX_phosphate\":").append(stat.getPhosphate_max()).append(",\"MEAN_phosphate\":").append(stat.getPhosphate_mean())
+          .append(",\"MIN_silicate\":").append(stat.getSilicate_min()).append(",\"MAX_silicate\":").append(stat.getSilicate_max())
+          .append(",\"MEAN_silicate\":").append(stat.getSilicate_mean()).append(",\"MIN_nitrate\":").append(stat.getNitrate_min())
+          .append(",\"MAX_nitrate\":").append(stat.getNitrate_max()).append(",\"MEAN_nitrate\":").append(stat.getNitrate_mean())
+          .append('}');
+    }
+    builder.append(']');
+    final int json = builder.toString().getBytes(UTF_8).length;
+    final int quantized = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeEmuStats(stats).length;
+    final int float32 = new EmuCodec(EmuCodec.ValueEncoding.FLOAT32).encodeEmuStats(stats).length;
+    assertTrue(sizes("emu stats", json, quantized, float32), quantized * 4 < json);
+  }
+
+  @Test
+  public void decodingMatchesParsingJson() throws Exception {
+    final WaterProfile profile = EmuCodecFixtures.profile(200);
+    final WaterProfile binary = EmuCodec.decodeWaterProfile(new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeWaterProfile(profile));
+    final WaterProfile json = profileFromJson(profileToJson(profile));
+    assertEquals(200, binary.measurementCount());
+    assertEquals(json.measurementCount(), binary.measurementCount());
+    // Both are ordered by depth
+    final Iterator<Measurement> fromJson = json.getMeasurements().iterator();
+    for (final Measurement decoded : binary.getMeasurements()){
+      final Measurement expected = fromJson.next();
+      assertEquals(expected.getEmu(), decoded.getEmu());
+      assertQuantized("depth", expected.getDepth(), decoded.getDepth());
+      assertQuantized("temperature", expected.getTemperature(), decoded.getTemperature());
+      assertQuantized("salinity", expected.getSalinity(), decoded.getSalinity());
+      assertQuantized("dissolved oxygen", expected.getDissolvedOxygen(), decoded.getDissolvedOxygen());
+      assertQuantized("silicate", expected.getSilicate(), decoded.getSilicate());
+      assertQuantized("phosphate", expected.getPhosphate(), decoded.getPhosphate());
+      assertQuantized("nitrate", expected.getNitrate(), decoded.getNitrate());
+    }
+  }
+
+  // Quantizing rounds to the nearest step and keeps missing values missing
+  private static void assertQuantized(final String property, final Double expected, final Double actual){
+    if (expected == null){
+      assertNull(property, actual);
+    } else {
+      assertNotNull(property, actual);
+      assertEquals(property, expected, actual, 0.5 / EmuCodec.QUANTIZED_SCALE + 1e-9);
+    }
+  }
+
+  @Ignore("Benchmark, timings depend on the machine")
+  @Test
+  public void decodingIsFasterThanParsingJson() throws Exception {
+    final WaterProfile profile = EmuCodecFixtures.profile(200);
+    final String json = profileToJson(profile);
+    final EmuCodec codec = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED);
+    final byte[] binary = codec.encodeWaterProfile(profile);
+
+    int check = 0;
+    for (int i = 0; i < WARM_UP; i++){
+      check += EmuCodec.decodeWaterProfile(binary).measurementCount();
+      check += profileFromJson(json).measurementCount();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += codec.encodeWaterProfile(profile).length;
+    }
+    final double encodeMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += profileToJson(profile).length();
+    }
+    final double jsonEncodeMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += EmuCodec.decodeWaterProfile(binary).measurementCount();
+    }
+    final double decodeMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += profileFromJson(json).measurementCount();
+    }
+    final double jsonDecodeMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    assertTrue(check > 0);
+    assertTrue(String.format("water profile (200 measurements) encode: binary %.1f us, json %.1f us; decode: binary %.1f us, json %.1f us",
+        encodeMicros, jsonEncodeMicros, decodeMicros, jsonDecodeMicros), decodeMicros < jsonDecodeMicros);
+  }
+
+  private static String sizes(final String name, final int json, final int quantized, final int float32){
+    return String.format("%s: json %d bytes, quantized %d bytes, float32 %d bytes", name, json, quantized, float32);
+  }
+
+  private static String columnsToJson(final List<WaterColumn> columns){
+    final StringBuilder builder = new StringBuilder("[");
+    for (final WaterColumn column : columns){
+      for (final EMUObservation o : column.getEmuSet()){
+        final EMU emu = o.getEmu();
+        builder.append(builder.length() > 1 ? "," : "").append("{\"Cluster37\":").append(emu.getName())
+            .append(",\"Name_2015\":\"").append(emu.getPhysicalSummary()).append(", ").append(emu.getNutrientSummary())
+            .append("\",\"Geo_base\":\"").append(emu.getGeomorphologyBase())
+            .append("\",\"Geo_features\":\"").append(emu.getGeomorphologyFeatures())
+            .append("\",\"UnitTop\":").append(o.getTop()).append(",\"ThickPos\":").append(o.getThickness())
+            .append(",\"temp\":").append(o.getTemperature()).append(",\"salinity\":").append(o.getSalinity())
+            .append(",\"dissO2\":").append(o.getOxygen()).append(",\"phosphate\":").append(o.getPhosphate())
+            .append(",\"silicate\":").append(o.getSilicate()).append(",\"nitrate\":").append(o.getNitrate())
+            .append('}');
+      }
+    }
+    return builder.append(']').toString();
+  }
+
+  private static String profileToJson(final WaterProfile profile){
+    final StringBuilder builder = new StringBuilder("[");
+    for (final Measurement m : profile.getMeasurements()){
+      builder.append(builder.length() > 1 ? "," : "").append("{\"Cluster37\":").append(m.getEmu())
+          .append(",\"UnitTop\":").append(m.getDepth()).append(",\"temp\":").append(m.getTemperature())
+          .append(",\"salinity\":").append(m.getSalinity()).append(",\"dissO2\":").append(m.getDissolvedOxygen())
+          .append(",\"silicate\":").append(m.getSilicate()).append(",\"phosphate\":").append(m.getPhosphate())
+          .append(",\"nitrate\":").append(m.getNitrate()).append('}');
+    }
+    return builder.append(']').toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static WaterProfile profileFromJson(final String json){
+    final WaterProfile profile = new WaterProfile();
+    for (final Object item : (List<Object>) new JsonParser(json).parseValue()){
+      final Map<String, Object> map = (Map<String, Object>) item;
+      final Measurement m = new Measurement();
+      m.setEmu(((Double) map.get("Cluster37")).intValue());
+      m.setDepth((Double) map.get("UnitTop"));
+      m.setTemperature((Double) map.get("temp"));
+      m.setSalinity((Double) map.get("salinity"));
+      m.setDissolvedOxygen((Double) map.get("dissO2"));
+      m.setSilicate((Double) map.get("silicate"));
+      m.setPhosphate((Double) map.get("phosphate"));
+      m.setNitrate((Double) map.get("nitrate"));
+      profile.addMeasurement(m);
+    }
+    return profile;
+  }
+}
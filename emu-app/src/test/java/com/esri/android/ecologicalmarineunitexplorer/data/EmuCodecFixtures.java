@@ -0,0 +1,126 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds repeatable EMU models for codec tests and benchmarks.
+ * Values carry at most three decimal places, like the service data.
+ */
+final class EmuCodecFixtures {
+
+  private EmuCodecFixtures(){}
+
+  static WaterProfile profile(final int measurements){
+    final Random random = new Random(measurements);
+    final WaterProfile profile = new WaterProfile();
+    for (int i = 0; i < measurements; i++){
+      final Measurement m = new Measurement();
+      m.setEmu(1 + random.nextInt(37));
+      m.setDepth((double) (i * 5));
+      m.setTemperature(round(28 - i * 0.3 + random.nextDouble()));
+      m.setSalinity(round(34 + random.nextDouble() * 2));
+      m.setDissolvedOxygen(round(2 + random.nextDouble() * 5));
+      m.setSilicate(round(random.nextDouble() * 80));
+      m.setPhosphate(round(random.nextDouble() * 3));
+      profile.addMeasurement(m);
+    }
+    return profile;
+  }
+
+  static List<EMUStat> stats(){
+    final Random random = new Random(37);
+    final List<EMUStat> stats = new ArrayList<>();
+    for (int emu = 1; emu <= 37; emu++){
+      final EMUStat stat = new EMUStat();
+      stat.setEmu_name(emu);
+      stat.setTemp_min(round(-2 + random.nextDouble() * 10));
+      stat.setTemp_max(round(15 + random.nextDouble() * 15));
+      stat.setTemp_mean(round(8 + random.nextDouble() * 8));
+      stat.setSalinity_min(round(30 + random.nextDouble() * 3));
+      stat.setSalinity_max(round(35 + random.nextDouble() * 3));
+      stat.setSalinity_mean(round(33 + random.nextDouble() * 3));
+      stat.setDisso2_min(round(random.nextDouble() * 2));
+      stat.setDisso2_max(round(6 + random.nextDouble() * 3));
+      stat.setDisso2_mean(round(3 + random.nextDouble() * 3));
+      stat.setPhosphate_min(round(random.nextDouble()));
+      stat.setPhosphate_max(round(2 + random.nextDouble()));
+      stat.setPhosphate_mean(round(1 + random.nextDouble()));
+      stat.setSilicate_min(round(random.nextDouble() * 5));
+      stat.setSilicate_max(round(60 + random.nextDouble() * 60));
+      stat.setSilicate_mean(round(20 + random.nextDouble() * 20));
+      stat.setNitrate_min(round(random.nextDouble() * 2));
+      stat.setNitrate_max(round(30 + random.nextDouble() * 10));
+      stat.setNitrate_mean(round(10 + random.nextDouble() * 10));
+      stats.add(stat);
+    }
+    return stats;
+  }
+
+  static List<WaterColumn> columns(final int count, final int layers){
+    final Random random = new Random(count * 31 + layers);
+    final EMU[] emus = new EMU[37];
+    for (int i = 0; i < emus.length; i++){
+      final EMU emu = new EMU();
+      emu.setName(i + 1);
+      emu.setPhysicalSummary("Moderate, cool, normal salinity");
+      emu.setNutrientSummary("Moderate oxygen, low nitrate, low phosphate, low silicate");
+      emu.setGeomorphologyBase("Abyssal plain");
+      emu.setGeomorphologyFeatures("Seamount, Ridge");
+      emus[i] = emu;
+    }
+    final List<WaterColumn> columns = new ArrayList<>();
+    for (int c = 0; c < count; c++){
+      final WaterColumn column = new WaterColumn();
+      int top = 0;
+      for (int l = 0; l < layers; l++){
+        final EMUObservation observation = new EMUObservation();
+        // Neighbouring columns tend to share a handful of EMUs
+        observation.setEmu(emus[random.nextInt(8)]);
+        final int thickness = 5 + random.nextInt(500);
+        observation.setTop(top);
+        observation.setThickness(thickness);
+        top = top + thickness;
+        observation.setTemperature(round(25 - l * 3 + random.nextDouble()));
+        observation.setSalinity(round(34 + random.nextDouble()));
+        observation.setOxygen(round(2 + random.nextDouble() * 5));
+        observation.setPhosphate(round(random.nextDouble() * 3));
+        observation.setSilicate(round(random.nextDouble() * 80));
+        observation.setNitrate(l == 0 ? null : round(random.nextDouble() * 30));
+        column.addObservation(observation);
+      }
+      columns.add(column);
+    }
+    return columns;
+  }
+
+  private static double round(final double value){
+    return Math.round(value * 1000) / 1000d;
+  }
+}
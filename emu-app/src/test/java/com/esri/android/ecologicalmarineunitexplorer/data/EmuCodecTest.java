@@ -0,0 +1,177 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips models through EmuCodec.  Water columns are built without
+ * a location because creating a Point needs the ArcGIS native libraries.
+ */
+public class EmuCodecTest {
+
+  @Test
+  public void profileRoundTripsQuantized() throws IOException {
+    final WaterProfile profile = EmuCodecFixtures.profile(50);
+    final byte[] bytes = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeWaterProfile(profile);
+    final WaterProfile decoded = EmuCodec.decodeWaterProfile(bytes);
+
+    assertEquals(profile.measurementCount(), decoded.measurementCount());
+    final Iterator<Measurement> expected = profile.getMeasurements().iterator();
+    for (final Measurement actual : decoded.getMeasurements()){
+      final Measurement m = expected.next();
+      assertEquals(m.getEmu(), actual.getEmu());
+      assertEquals(m.getDepth(), actual.getDepth());
+      assertEquals(m.getTemperature(), actual.getTemperature());
+      assertEquals(m.getSalinity(), actual.getSalinity());
+      assertEquals(m.getDissolvedOxygen(), actual.getDissolvedOxygen());
+      assertEquals(m.getSilicate(), actual.getSilicate());
+      assertEquals(m.getPhosphate(), actual.getPhosphate());
+      assertNull(actual.getNitrate());
+    }
+  }
+
+  @Test
+  public void profileRoundTripsAsFloat32() throws IOException {
+    final WaterProfile profile = EmuCodecFixtures.profile(20);
+    final byte[] bytes = new EmuCodec(EmuCodec.ValueEncoding.FLOAT32).encodeWaterProfile(profile);
+    final WaterProfile decoded = EmuCodec.decodeWaterProfile(bytes);
+
+    final Iterator<Measurement> expected = profile.getMeasurements().iterator();
+    for (final Measurement actual : decoded.getMeasurements()){
+      final Measurement m = expected.next();
+      assertEquals(m.getDepth(), actual.getDepth(), 1e-3);
+      assertEquals(m.getTemperature(), actual.getTemperature(), 1e-5);
+      assertEquals(m.getSalinity(), actual.getSalinity(), 1e-5);
+    }
+  }
+
+  @Test
+  public void statsRoundTripWithMissingValues() throws IOException {
+    final List<EMUStat> stats = EmuCodecFixtures.stats();
+    stats.get(3).setNitrate_mean(null);
+    final byte[] bytes = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeEmuStats(stats);
+    final List<EMUStat> decoded = EmuCodec.decodeEmuStats(bytes);
+
+    assertEquals(stats.size(), decoded.size());
+    for (int i = 0; i < stats.size(); i++){
+      assertEquals(stats.get(i).toString(), decoded.get(i).toString());
+      assertEquals(stats.get(i).getEmu_name(), decoded.get(i).getEmu_name());
+    }
+    assertNull(decoded.get(3).getNitrate_mean());
+  }
+
+  @Test
+  public void waterColumnsShareEmuDictionary() throws IOException {
+    final List<WaterColumn> columns = EmuCodecFixtures.columns(10, 6);
+    final EmuCodec codec = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED);
+    final byte[] bytes = codec.encodeWaterColumns(columns);
+    final List<WaterColumn> decoded = EmuCodec.decodeWaterColumns(bytes);
+
+    assertEquals(columns.size(), decoded.size());
+    for (int c = 0; c < columns.size(); c++){
+      final Iterator<EMUObservation> expected = columns.get(c).getEmuSet().iterator();
+      assertEquals(columns.get(c).getEmuSet().size(), decoded.get(c).getEmuSet().size());
+      for (final EMUObservation actual : decoded.get(c).getEmuSet()){
+        final EMUObservation o = expected.next();
+        assertEquals(o.getEmu().getName(), actual.getEmu().getName());
+        assertEquals(o.getEmu().getPhysicalSummary(), actual.getEmu().getPhysicalSummary());
+        assertEquals(o.getEmu().getGeomorphologyFeatures(), actual.getEmu().getGeomorphologyFeatures());
+        assertEquals(o.getTop(), actual.getTop());
+        assertEquals(o.getThickness(), actual.getThickness());
+        assertEquals(o.getTemperature(), actual.getTemperature());
+        assertEquals(o.getNitrate(), actual.getNitrate());
+        assertNull(actual.getLocation());
+      }
+    }
+
+    // The summaries are written once per EMU, not once per observation,
+    // and observations of the same EMU share one decoded instance
+    final EMUObservation first = decoded.get(0).getEmuSet().iterator().next();
+    for (final WaterColumn column : decoded){
+      for (final EMUObservation observation : column.getEmuSet()){
+        if (observation.getEmu().getName().equals(first.getEmu().getName())){
+          assertSame(first.getEmu(), observation.getEmu());
+        }
+      }
+    }
+    final List<WaterColumn> single = EmuCodecFixtures.columns(1, 6);
+    final int perColumn = codec.encodeWaterColumns(single).length;
+    assertTrue(bytes.length < perColumn * columns.size() / 2);
+  }
+
+  @Test
+  public void emptyCollectionsRoundTrip() throws IOException {
+    final EmuCodec codec = new EmuCodec(EmuCodec.ValueEncoding.FLOAT32);
+    assertTrue(EmuCodec.decodeWaterColumns(codec.encodeWaterColumns(new ArrayList<WaterColumn>())).isEmpty());
+    assertTrue(EmuCodec.decodeEmuStats(codec.encodeEmuStats(new ArrayList<EMUStat>())).isEmpty());
+    assertEquals(0, EmuCodec.decodeWaterProfile(codec.encodeWaterProfile(new WaterProfile())).measurementCount());
+  }
+
+  @Test
+  public void wrongPayloadTypeIsRejected() {
+    final byte[] bytes = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeEmuStats(EmuCodecFixtures.stats());
+    try {
+      EmuCodec.decodeWaterProfile(bytes);
+      fail("Expected IOException");
+    } catch (final IOException e) {
+      assertTrue(e.getMessage().contains("type"));
+    }
+  }
+
+  @Test
+  public void newerVersionIsRejected() {
+    final byte[] bytes = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeEmuStats(EmuCodecFixtures.stats());
+    bytes[3] = (byte) (EmuCodec.VERSION + 1);
+    try {
+      EmuCodec.decodeEmuStats(bytes);
+      fail("Expected IOException");
+    } catch (final IOException e) {
+      assertTrue(e.getMessage().contains("version"));
+    }
+  }
+
+  @Test
+  public void truncatedPayloadFailsCleanly() {
+    final byte[] bytes = new EmuCodec(EmuCodec.ValueEncoding.QUANTIZED).encodeWaterProfile(EmuCodecFixtures.profile(30));
+    for (int length = 0; length < bytes.length; length++){
+      try {
+        EmuCodec.decodeWaterProfile(Arrays.copyOf(bytes, length));
+        fail("Expected IOException for length " + length);
+      } catch (final IOException e) {
+        // expected
+      }
+    }
+  }
+}
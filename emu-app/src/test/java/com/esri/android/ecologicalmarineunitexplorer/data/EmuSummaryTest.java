@@ -0,0 +1,74 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the ranges precomputed by EmuSummary.
+ */
+public class EmuSummaryTest {
+
+  @Test
+  public void rangesCoverEveryEmu() {
+    final List<EMUStat> stats = EmuCodecFixtures.stats();
+    final EmuSummary summary = new EmuSummary(stats);
+
+    double maxTemperature = Double.NEGATIVE_INFINITY;
+    double minSilicate = Double.POSITIVE_INFINITY;
+    for (final EMUStat stat : stats){
+      maxTemperature = Math.max(maxTemperature, stat.getTemp_max());
+      minSilicate = Math.min(minSilicate, stat.getSilicate_min());
+    }
+    assertEquals(37, summary.size());
+    assertEquals(maxTemperature, summary.getMaxTemperature(), 0);
+    assertEquals(minSilicate, summary.getMinSilicate(), 0);
+    assertSame(stats.get(4), summary.getStat(5));
+    assertNull(summary.getStat(99));
+  }
+
+  @Test
+  public void missingValuesAreSkipped() {
+    final List<EMUStat> stats = EmuCodecFixtures.stats();
+    stats.get(0).setNitrate_max(null);
+    stats.get(1).setNitrate_max(1000d);
+    final EmuSummary summary = new EmuSummary(stats);
+    assertEquals(1000d, summary.getMaxNitrate(), 0);
+  }
+
+  @Test
+  public void emptySummaryHasNoRanges() {
+    final EmuSummary summary = new EmuSummary(Collections.<EMUStat>emptyList());
+    assertEquals(0, summary.size());
+    assertNull(summary.getMinTemperature());
+    assertNull(summary.getMaxOxygen());
+  }
+}
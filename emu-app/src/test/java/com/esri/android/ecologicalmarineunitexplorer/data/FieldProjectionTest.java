@@ -0,0 +1,91 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the size estimates for projected queries and the totals kept per query type.
+ */
+public class FieldProjectionTest {
+
+  private static Map<String, Integer> schema(){
+    final Map<String, Integer> widths = new HashMap<>();
+    widths.put("OBJECTID", 11);
+    widths.put("Cluster37", 11);
+    widths.put("UnitTop", 11);
+    widths.put("EMU_Name", 102);
+    widths.put("temp", 20);
+    return widths;
+  }
+
+  @Test
+  public void projectionCountsOnlyRequestedFields() {
+    final FieldProjection preview = new FieldProjection("preview", Arrays.asList("Cluster37", "UnitTop"), false);
+    // Name, value and four characters of punctuation per attribute
+    assertEquals((9 + 11 + 4) + (7 + 11 + 4), preview.estimateFeatureBytes(schema(), 44));
+  }
+
+  @Test
+  public void geometryIsCountedOnlyWhenReturned() {
+    final FieldProjection withGeometry = new FieldProjection("a", Arrays.asList("temp"), true);
+    final FieldProjection withoutGeometry = new FieldProjection("b", Arrays.asList("temp"), false);
+    assertEquals(44, withGeometry.estimateFeatureBytes(schema(), 44) - withoutGeometry.estimateFeatureBytes(schema(), 44));
+  }
+
+  @Test
+  public void unknownFieldsAreIgnored() {
+    final FieldProjection projection = new FieldProjection("a", Arrays.asList("temp", "missing"), false);
+    assertEquals(4 + 20 + 4, projection.estimateFeatureBytes(schema(), 0));
+  }
+
+  @Test
+  public void projectionIsNeverLargerThanWholeFeature() {
+    final FieldProjection all = new FieldProjection("all", schema().keySet(), true);
+    assertEquals(FieldProjection.estimateAllFieldsBytes(schema(), 44), all.estimateFeatureBytes(schema(), 44));
+  }
+
+  @Test
+  public void ledgerTotalsEachQueryType() {
+    final ProjectionLedger ledger = new ProjectionLedger();
+    ledger.record("preview", 10, 50, 200);
+    ledger.record("preview", 5, 50, 200);
+    ledger.record("profile", 3, 100, 100);
+
+    assertEquals(15, ledger.getFeatureCount("preview"));
+    assertEquals(750, ledger.getBytesFetched("preview"));
+    assertEquals(2250, ledger.getBytesSaved("preview"));
+    assertEquals(0, ledger.getBytesSaved("profile"));
+    assertEquals(0, ledger.getFeatureCount("summary"));
+    assertTrue(ledger.describe("preview").startsWith("preview: 15 features"));
+  }
+}
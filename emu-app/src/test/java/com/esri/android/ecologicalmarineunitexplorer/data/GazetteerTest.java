@@ -0,0 +1,131 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks lookups against the gazetteer bundled in res/raw.
+ */
+public class GazetteerTest {
+
+  private Gazetteer mGazetteer;
+
+  @Before
+  public void setUp() throws Exception {
+    File file = new File("src/main/res/raw/marine_gazetteer.txt");
+    if (!file.exists()){
+      file = new File("emu-app/src/main/res/raw/marine_gazetteer.txt");
+    }
+    mGazetteer = Gazetteer.read(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+  }
+
+  @Test
+  public void exactMatchIgnoresCaseAndPunctuation() {
+    final Gazetteer.Place place = mGazetteer.find("  gulf of st lawrence ");
+    assertNotNull(place);
+    assertEquals("Gulf of St. Lawrence", place.getName());
+    assertEquals("gulf", place.getType());
+  }
+
+  @Test
+  public void aliasesResolveToStations() {
+    final Gazetteer.Place bats = mGazetteer.find("BATS");
+    assertNotNull(bats);
+    assertEquals("station", bats.getType());
+    assertEquals(31.67, bats.getLatitude(), 1e-6);
+    assertNotNull(mGazetteer.find("Challenger Deep"));
+  }
+
+  @Test
+  public void stationsAreListedByType() {
+    final List<Gazetteer.Place> stations = mGazetteer.getPlacesOfType("station");
+    assertFalse(stations.isEmpty());
+    for (final Gazetteer.Place place : stations){
+      assertEquals("station", place.getType());
+    }
+    assertTrue(mGazetteer.getPlacesOfType("no such type").isEmpty());
+  }
+
+  @Test
+  public void unknownPlaceHasNoMatch() {
+    assertNull(mGazetteer.find("Redlands"));
+    assertTrue(mGazetteer.suggest("zzz", 8).isEmpty());
+    assertTrue(mGazetteer.suggest("", 8).isEmpty());
+  }
+
+  @Test
+  public void suggestionsListNamePrefixesFirst() {
+    final List<Gazetteer.Place> places = mGazetteer.suggest("Gulf", 20);
+    assertTrue(places.size() > 5);
+    for (final Gazetteer.Place place : places){
+      if (!place.getName().startsWith("Gulf")){
+        // Persian Gulf matches on a word, so must come after all leading matches
+        assertEquals("Persian Gulf", place.getName());
+        assertEquals(place, places.get(places.size() - 1));
+      }
+    }
+  }
+
+  @Test
+  public void suggestionsMatchInnerWords() {
+    final List<Gazetteer.Place> places = mGazetteer.suggest("main", 8);
+    assertEquals(1, places.size());
+    assertEquals("Gulf of Maine", places.get(0).getName());
+    assertEquals(3, mGazetteer.suggest("sea", 3).size());
+  }
+
+  @Test
+  public void malformedLinesAreSkipped() throws Exception {
+    final Gazetteer gazetteer = Gazetteer.read(new StringReader(
+        "# comment\nNo Coordinates|sea\nBad Latitude|north|10|sea\nIrish Sea|53.5|-5.0|sea\n"));
+    assertEquals(1, gazetteer.size());
+    assertNotNull(gazetteer.find("irish sea"));
+  }
+
+  @Ignore("Benchmark, timings depend on the machine")
+  @Test
+  public void prefixLookupIsFast() {
+    final String[] prefixes = {"g", "gu", "gul", "s", "st", "str", "b", "ba", "stat"};
+    final int iterations = 10000;
+    final long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++){
+      mGazetteer.suggest(prefixes[i % prefixes.length], 8);
+    }
+    final double microsPerLookup = (System.nanoTime() - start) / 1000.0 / iterations;
+    assertTrue("Gazetteer suggest: " + microsPerLookup + " us per lookup", microsPerLookup < 1000);
+  }
+}
@@ -0,0 +1,134 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises the GeocodeCache against a local stand-in locator
+ * that holds on to requests until the test completes them.
+ */
+public class GeocodeCacheTest {
+
+  private StandInLocator mLocator;
+  private GeocodeCache<String> mCache;
+
+  @Before
+  public void setUp() {
+    mLocator = new StandInLocator();
+    mCache = new GeocodeCache<>(mLocator, 2);
+  }
+
+  @Test
+  public void repeatedQueryIsServedFromCache() {
+    final RecordingCallback first = new RecordingCallback();
+    mCache.find("Gulf of Maine", first);
+    mLocator.complete(0, Collections.singletonList("gulf"));
+
+    final RecordingCallback second = new RecordingCallback();
+    mCache.find("  gulf   OF maine ", second);
+
+    assertEquals(1, mLocator.queries.size());
+    assertEquals(Collections.singletonList("gulf"), second.results);
+  }
+
+  @Test
+  public void concurrentIdenticalQueriesShareOneRequest() {
+    final RecordingCallback first = new RecordingCallback();
+    final RecordingCallback second = new RecordingCallback();
+    mCache.find("Sargasso Sea", first);
+    mCache.find("sargasso sea", second);
+
+    assertEquals(1, mLocator.queries.size());
+    assertNull(first.results);
+
+    mLocator.complete(0, Collections.singletonList("sargasso"));
+    assertEquals(1, first.calls);
+    assertEquals(1, second.calls);
+    assertSame(first.results, second.results);
+  }
+
+  @Test
+  public void failuresAreNotCached() {
+    final RecordingCallback first = new RecordingCallback();
+    mCache.find("Drake Passage", first);
+    mLocator.complete(0, null);
+    assertEquals(1, first.calls);
+    assertNull(first.results);
+
+    mCache.find("Drake Passage", new RecordingCallback());
+    assertEquals(2, mLocator.queries.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvicted() {
+    mCache.find("a", new RecordingCallback());
+    mLocator.complete(0, Collections.singletonList("a"));
+    mCache.find("b", new RecordingCallback());
+    mLocator.complete(1, Collections.singletonList("b"));
+
+    // Touch "a" so "b" becomes the eldest entry
+    mCache.find("a", new RecordingCallback());
+    mCache.find("c", new RecordingCallback());
+    mLocator.complete(2, Collections.singletonList("c"));
+    assertEquals(2, mCache.size());
+
+    mCache.find("a", new RecordingCallback());
+    assertEquals(3, mLocator.queries.size());
+    mCache.find("b", new RecordingCallback());
+    assertEquals(4, mLocator.queries.size());
+  }
+
+  private static class StandInLocator implements GeocodeCache.Locator<String> {
+    final List<String> queries = new ArrayList<>();
+    final List<GeocodeCache.Callback<String>> callbacks = new ArrayList<>();
+
+    @Override public void geocode(final String query, final GeocodeCache.Callback<String> callback) {
+      queries.add(query);
+      callbacks.add(callback);
+    }
+
+    void complete(final int index, final List<String> results) {
+      callbacks.get(index).onResults(results);
+    }
+  }
+
+  private static class RecordingCallback implements GeocodeCache.Callback<String> {
+    List<String> results;
+    int calls;
+
+    @Override public void onResults(final List<String> results) {
+      this.results = results;
+      calls++;
+    }
+  }
+}
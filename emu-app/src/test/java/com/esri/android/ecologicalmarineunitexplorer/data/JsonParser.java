@@ -0,0 +1,132 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON to parse the benchmark payloads and recorded
+ * service responses, which have no whitespace
+ */
+final class JsonParser {
+  private final String mText;
+  private int mPosition = 0;
+
+  JsonParser(final String text){
+    mText = text;
+  }
+
+  /**
+   * Fetch a URL, usually from the stand-in server, and parse the JSON object it answers with
+   * @param url - String
+   * @return Map<String, Object>
+   * @throws IOException if the request fails
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> getJson(final String url) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    try {
+      final InputStream input = connection.getInputStream();
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) > 0){
+        bytes.write(buffer, 0, read);
+      }
+      input.close();
+      return (Map<String, Object>) new JsonParser(new String(bytes.toByteArray(), "UTF-8")).parseValue();
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  Object parseValue(){
+    final char c = mText.charAt(mPosition);
+    if (c == '{'){
+      mPosition++;
+      final Map<String, Object> map = new LinkedHashMap<>();
+      while (mText.charAt(mPosition) != '}'){
+        final String key = parseString();
+        mPosition++; // colon
+        map.put(key, parseValue());
+        if (mText.charAt(mPosition) == ','){
+          mPosition++;
+        }
+      }
+      mPosition++;
+      return map;
+    }
+    if (c == '['){
+      mPosition++;
+      final List<Object> list = new ArrayList<>();
+      while (mText.charAt(mPosition) != ']'){
+        list.add(parseValue());
+        if (mText.charAt(mPosition) == ','){
+          mPosition++;
+        }
+      }
+      mPosition++;
+      return list;
+    }
+    if (c == '"'){
+      return parseString();
+    }
+    if (mText.startsWith("null", mPosition)){
+      mPosition += 4;
+      return null;
+    }
+    if (mText.startsWith("true", mPosition)){
+      mPosition += 4;
+      return Boolean.TRUE;
+    }
+    if (mText.startsWith("false", mPosition)){
+      mPosition += 5;
+      return Boolean.FALSE;
+    }
+    final int start = mPosition;
+    while (mPosition < mText.length() && "+-.eE0123456789".indexOf(mText.charAt(mPosition)) >= 0){
+      mPosition++;
+    }
+    return Double.parseDouble(mText.substring(start, mPosition));
+  }
+
+  private String parseString(){
+    final int start = ++mPosition;
+    while (mText.charAt(mPosition) != '"'){
+      mPosition++;
+    }
+    return mText.substring(start, mPosition++);
+  }
+}
@@ -0,0 +1,72 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that only the latest, uncancelled request is allowed to finish.
+ */
+public class LatestRequestTest {
+
+  @Test
+  public void newerRequestSupersedesOlder() {
+    final LatestRequest latest = new LatestRequest();
+    final int first = latest.start();
+    final int second = latest.start();
+
+    // The first tap's result arrives after the second tap
+    assertFalse(latest.finish(first));
+    assertTrue(latest.isPending());
+    assertTrue(latest.finish(second));
+    assertFalse(latest.isPending());
+  }
+
+  @Test
+  public void requestOnlyFinishesOnce() {
+    final LatestRequest latest = new LatestRequest();
+    final int request = latest.start();
+    assertTrue(latest.isCurrent(request));
+    assertTrue(latest.finish(request));
+    assertFalse(latest.isCurrent(request));
+    assertFalse(latest.finish(request));
+  }
+
+  @Test
+  public void cancelledRequestIsIgnored() {
+    final LatestRequest latest = new LatestRequest();
+    final int request = latest.start();
+    latest.cancel();
+    assertFalse(latest.isPending());
+    assertFalse(latest.isCurrent(request));
+    assertFalse(latest.finish(request));
+
+    // Cancelling doesn't stop later requests
+    assertTrue(latest.finish(latest.start()));
+  }
+}
@@ -0,0 +1,108 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises LazyHolder's creation on first use, once only.
+ */
+public class LazyHolderTest {
+
+  @Test
+  public void valueIsCreatedOnFirstUseOnly() {
+    final AtomicInteger created = new AtomicInteger();
+    final LazyHolder<Object> holder = new CountingHolder(created);
+    assertFalse(holder.isCreated());
+    assertEquals(0, created.get());
+
+    final Object first = holder.get();
+    assertTrue(holder.isCreated());
+    assertSame(first, holder.get());
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  public void concurrentFirstCallsShareOneInstance() throws Exception {
+    final AtomicInteger created = new AtomicInteger();
+    final LazyHolder<Object> holder = new CountingHolder(created);
+    final int threadCount = 16;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(threadCount);
+    final Object[] seen = new Object[threadCount];
+    for (int i = 0; i < threadCount; i++){
+      final int index = i;
+      new Thread(new Runnable() {
+        @Override public void run() {
+          try {
+            start.await();
+            seen[index] = holder.get();
+          } catch (final InterruptedException e){
+            Thread.currentThread().interrupt();
+          } finally {
+            finished.countDown();
+          }
+        }
+      }).start();
+    }
+    start.countDown();
+    finished.await();
+
+    assertEquals(1, created.get());
+    for (final Object value : seen){
+      assertSame(seen[0], value);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void nullValuesAreRejected() {
+    new LazyHolder<Object>() {
+      @Override protected Object create() {
+        return null;
+      }
+    }.get();
+  }
+
+  private static class CountingHolder extends LazyHolder<Object> {
+    private final AtomicInteger mCreated;
+
+    CountingHolder(final AtomicInteger created){
+      mCreated = created;
+    }
+
+    @Override protected Object create() {
+      mCreated.incrementAndGet();
+      // Widen the window for racing threads
+      Thread.yield();
+      return new Object();
+    }
+  }
+}
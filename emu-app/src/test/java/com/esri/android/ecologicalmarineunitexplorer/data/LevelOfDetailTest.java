@@ -0,0 +1,72 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that LevelOfDetail scale ranges cover every scale without gaps.
+ */
+public class LevelOfDetailTest {
+
+  @Test
+  public void worldViewUsesCoarsestLevel() {
+    // Roughly the scale of zoom level 1
+    assertEquals(0, LevelOfDetail.forScale(295000000));
+  }
+
+  @Test
+  public void unknownScaleUsesCoarsestLevel() {
+    assertEquals(0, LevelOfDetail.forScale(Double.NaN));
+    assertEquals(0, LevelOfDetail.forScale(0));
+  }
+
+  @Test
+  public void selectedLocationScaleUsesMiddleLevel() {
+    assertEquals(1, LevelOfDetail.forScale(25000000));
+  }
+
+  @Test
+  public void closeZoomUsesFullResolution() {
+    final int last = LevelOfDetail.getLevelCount() - 1;
+    assertEquals(last, LevelOfDetail.forScale(500000));
+    assertEquals(0, LevelOfDetail.getToleranceMeters(last), 0);
+  }
+
+  @Test
+  public void scaleRangesMeetWithoutGaps() {
+    assertEquals(0, LevelOfDetail.getMinScale(0), 0);
+    assertEquals(0, LevelOfDetail.getMaxScale(LevelOfDetail.getLevelCount() - 1), 0);
+    for (int level = 1; level < LevelOfDetail.getLevelCount(); level++){
+      assertEquals(LevelOfDetail.getMaxScale(level - 1), LevelOfDetail.getMinScale(level), 0);
+      assertTrue(LevelOfDetail.getToleranceMeters(level) < LevelOfDetail.getToleranceMeters(level - 1));
+      // A scale on the boundary belongs to exactly one level
+      assertEquals(level - 1, LevelOfDetail.forScale(LevelOfDetail.getMinScale(level)));
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises PagedLoader against an in-memory page source.
+ */
+public class PagedLoaderTest {
+
+  @Test
+  public void pagesAreDeliveredInOrderUntilNoMore() {
+    final ListSource source = new ListSource(25);
+    final RecordingListener listener = new RecordingListener();
+    new PagedLoader<>(source, 10, 100, listener).start();
+
+    assertEquals(3, listener.pageSizes.size());
+    assertEquals(Integer.valueOf(10), listener.pageSizes.get(0));
+    assertEquals(Integer.valueOf(5), listener.pageSizes.get(2));
+    assertEquals(Integer.valueOf(20), listener.firstItems.get(2));
+    assertEquals(25, listener.total);
+    assertNull(listener.error);
+  }
+
+  @Test
+  public void exactMultipleNeedsNoEmptyPage() {
+    final ListSource source = new ListSource(20);
+    final RecordingListener listener = new RecordingListener();
+    new PagedLoader<>(source, 10, 100, listener).start();
+
+    assertEquals(2, source.requests);
+    assertEquals(2, listener.pageSizes.size());
+    assertEquals(20, listener.total);
+  }
+
+  @Test
+  public void serviceLimitBelowPageSizeKeepsPaging() {
+    final ListSource source = new ListSource(25);
+    source.maxRecordCount = 4;
+    final RecordingListener listener = new RecordingListener();
+    new PagedLoader<>(source, 10, 100, listener).start();
+
+    assertEquals(7, listener.pageSizes.size());
+    assertEquals(Integer.valueOf(4), listener.pageSizes.get(0));
+    assertEquals(Integer.valueOf(24), listener.firstItems.get(6));
+    assertEquals(25, listener.total);
+    assertNull(listener.error);
+  }
+
+  @Test
+  public void pageLimitReportsTruncation() {
+    final ListSource source = new ListSource(1000);
+    final RecordingListener listener = new RecordingListener();
+    new PagedLoader<>(source, 10, 3, listener).start();
+
+    assertEquals(3, source.requests);
+    assertEquals(-1, listener.total);
+    assertTrue(listener.error instanceof PagedLoader.TruncatedException);
+    assertEquals(30, listener.loadedAtError);
+  }
+
+  @Test
+  public void emptyPageEndsPagingWhateverTheSourceSays() {
+    final ListSource source = new ListSource(10);
+    source.alwaysMore = true;
+    final RecordingListener listener = new RecordingListener();
+    new PagedLoader<>(source, 10, 100, listener).start();
+
+    assertEquals(2, source.requests);
+    assertEquals(10, listener.total);
+  }
+
+  @Test
+  public void errorReportsItemsAlreadyLoaded() {
+    final ListSource source = new ListSource(100);
+    source.failAtOffset = 20;
+    final RecordingListener listener = new RecordingListener();
+    new PagedLoader<>(source, 10, 100, listener).start();
+
+    assertNotNull(listener.error);
+    assertEquals(20, listener.loadedAtError);
+    assertEquals(-1, listener.total);
+  }
+
+  @Test
+  public void cancelStopsFurtherPages() {
+    final ListSource source = new ListSource(100);
+    final RecordingListener listener = new RecordingListener();
+    final PagedLoader<Integer> loader = new PagedLoader<>(source, 10, 100, listener);
+    listener.cancelAfterFirst = loader;
+    loader.start();
+
+    assertEquals(1, listener.pageSizes.size());
+    assertEquals(-1, listener.total);
+    assertTrue(loader.isCancelled());
+  }
+
+  private static class ListSource implements PagedLoader.PageSource<Integer> {
+    final int size;
+    int requests = 0;
+    int failAtOffset = -1;
+    int maxRecordCount = Integer.MAX_VALUE;
+    boolean alwaysMore = false;
+
+    ListSource(final int size) {
+      this.size = size;
+    }
+
+    @Override public void fetch(final int offset, final int count, final PagedLoader.PageCallback<Integer> callback) {
+      requests++;
+      if (offset == failAtOffset){
+        callback.onError(new Exception("injected"));
+        return;
+      }
+      final int end = Math.min(size, offset + Math.min(count, maxRecordCount));
+      final List<Integer> page = new ArrayList<>();
+      for (int i = offset; i < end; i++){
+        page.add(i);
+      }
+      callback.onPage(page, alwaysMore || end < size);
+    }
+  }
+
+  private static class RecordingListener implements PagedLoader.Listener<Integer> {
+    final List<Integer> pageSizes = new ArrayList<>();
+    final List<Integer> firstItems = new ArrayList<>();
+    int total = -1;
+    Exception error;
+    int loadedAtError = -1;
+    PagedLoader<Integer> cancelAfterFirst;
+
+    @Override public void onPage(final List<Integer> items, final int pageIndex) {
+      pageSizes.add(items.size());
+      firstItems.add(items.get(0));
+      if (cancelAfterFirst != null){
+        cancelAfterFirst.cancel();
+      }
+    }
+
+    @Override public void onComplete(final int totalCount) {
+      total = totalCount;
+    }
+
+    @Override public void onError(final Exception e, final int loadedCount) {
+      error = e;
+      loadedAtError = loadedCount;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks decoding of protocol buffer query responses into rows.
+ */
+public class PbfFeatureReaderTest {
+
+  private static final PbfFeatureReader.RowDecoder<Object[]> PROFILE_ROWS = new PbfFeatureReader.RowDecoder<Object[]>() {
+    @Override public Object[] decode(final PbfFeatureReader.Row row) {
+      final Object[] values = new Object[PbfFixtures.PROFILE_FIELDS.size()];
+      for (int i = 0; i < values.length; i++){
+        values[i] = row.getDouble(PbfFixtures.PROFILE_FIELDS.get(i));
+      }
+      return values;
+    }
+  };
+
+  private static List<Object[]> read(final byte[] pbf) throws IOException {
+    final List<Object[]> rows = new ArrayList<>();
+    PbfFeatureReader.read(new ByteArrayInputStream(pbf), PROFILE_ROWS, rows);
+    return rows;
+  }
+
+  @Test
+  public void decodesEveryAttributeAndSkipsGeometry() throws Exception {
+    final List<Object[]> expected = PbfFixtures.profileRows(50);
+    final List<Object[]> rows = read(PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, expected, false, true));
+    assertEquals(expected.size(), rows.size());
+    for (int r = 0; r < rows.size(); r++){
+      for (int i = 0; i < expected.get(r).length; i++){
+        final Object value = expected.get(r)[i];
+        if (value == null){
+          assertNull(rows.get(r)[i]);
+        }else{
+          assertEquals(((Number) value).doubleValue(), (Double) rows.get(r)[i], 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void missingValuesAreAbsent() throws Exception {
+    final List<String> fields = Arrays.asList("Cluster37", "nitrate");
+    final List<Object[]> rows = Collections.singletonList(new Object[]{ 12, null });
+    final List<PbfFeatureReader.Row> seen = new ArrayList<>();
+    final List<Double> values = new ArrayList<>();
+    PbfFeatureReader.read(new ByteArrayInputStream(PbfFixtures.pbf(fields, rows, false, false)),
+        new PbfFeatureReader.RowDecoder<Double>() {
+          @Override public Double decode(final PbfFeatureReader.Row row) {
+            seen.add(row);
+            assertTrue(row.has("Cluster37"));
+            assertFalse(row.has("nitrate"));
+            assertFalse(row.has("notAField"));
+            assertNull(row.getDouble("nitrate"));
+            assertEquals("", row.getText("nitrate"));
+            return row.getNumber("nitrate", -1);
+          }
+        }, values);
+    assertEquals(1, seen.size());
+    assertEquals(-1, values.get(0), 0);
+  }
+
+  @Test
+  public void decodesEachValueType() throws Exception {
+    final List<String> fields = Arrays.asList("name", "small", "large", "single", "flag");
+    final String name = "Moderate, cool, normal salinity, low oxygen, low nitrate, low phosphate, low silicate";
+    final List<Object[]> rows = Collections.singletonList(new Object[]{ name, -42, 123456789012L, 1.5f, true });
+    final List<String> decoded = new ArrayList<>();
+    PbfFeatureReader.read(new ByteArrayInputStream(PbfFixtures.pbf(fields, rows, false, true)),
+        new PbfFeatureReader.RowDecoder<String>() {
+          @Override public String decode(final PbfFeatureReader.Row row) {
+            assertEquals(-42, row.getNumber("small", 0), 0);
+            assertEquals(123456789012d, row.getNumber("large", 0), 0);
+            assertEquals(1.5, row.getNumber("single", 0), 0);
+            assertEquals(1, row.getNumber("flag", 0), 0);
+            // Text isn't a number
+            assertNull(row.getDouble("name"));
+            return row.getText("name");
+          }
+        }, decoded);
+    assertEquals(Collections.singletonList(name), decoded);
+  }
+
+  @Test
+  public void reportsExceededTransferLimit() throws Exception {
+    final List<Object[]> rows = PbfFixtures.profileRows(3);
+    final List<Object[]> decoded = new ArrayList<>();
+    assertTrue(PbfFeatureReader.read(new ByteArrayInputStream(PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, rows, true, false)),
+        PROFILE_ROWS, decoded));
+    assertFalse(PbfFeatureReader.read(new ByteArrayInputStream(PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, rows, false, false)),
+        PROFILE_ROWS, decoded));
+    assertEquals(6, decoded.size());
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedResponseFails() throws Exception {
+    final byte[] pbf = PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, PbfFixtures.profileRows(20), false, false);
+    read(Arrays.copyOf(pbf, pbf.length - 30));
+  }
+
+  @Test(expected = IOException.class)
+  public void jsonResponseFails() throws Exception {
+    read("{\"error\":{\"code\":400,\"message\":\"Invalid format\"}}".getBytes(Charset.forName("UTF-8")));
+  }
+}
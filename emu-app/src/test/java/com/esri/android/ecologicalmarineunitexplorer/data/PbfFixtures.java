@@ -0,0 +1,224 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds feature service query responses in both the protocol buffer
+ * (FeatureCollectionPBuffer) and JSON formats for reader tests,
+ * the stand-in server and benchmarks.
+ */
+final class PbfFixtures {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  static final List<String> PROFILE_FIELDS = Arrays.asList("OBJECTID", "Cluster37", "UnitTop", "temp", "salinity",
+      "dissO2", "silicate", "nitrate", "phosphate");
+
+  private PbfFixtures(){}
+
+  /**
+   * Rows of mesh point attributes for a profile, in PROFILE_FIELDS order
+   * @param measurements - int
+   * @return List<Object[]>
+   */
+  static List<Object[]> profileRows(final int measurements){
+    final List<Object[]> rows = new ArrayList<>();
+    int id = 1;
+    for (final Measurement m : EmuCodecFixtures.profile(measurements).getMeasurements()){
+      rows.add(new Object[]{ id++, m.getEmu(), m.getDepth(), m.getTemperature(), m.getSalinity(),
+          m.getDissolvedOxygen(), m.getSilicate(), m.getNitrate(), m.getPhosphate() });
+    }
+    return rows;
+  }
+
+  /**
+   * Encode a query response as FeatureCollectionPBuffer
+   * @param fields - List<String> field names
+   * @param rows - List<Object[]> of String, Integer, Long, Float, Double, Boolean or null values
+   * @param exceeded - boolean, the exceededTransferLimit flag
+   * @param extras - boolean, add geometry and other parts a reader should skip
+   * @return byte[]
+   */
+  static byte[] pbf(final List<String> fields, final List<Object[]> rows, final boolean exceeded, final boolean extras){
+    final Writer result = new Writer();
+    if (extras){
+      result.string(1, "OBJECTID");
+      result.varint(7, 0);
+      result.message(8, new Writer().varint(1, 4326));
+      result.message(12, new Writer().varint(1, 1).message(2, new Writer().fixed64(1, 0.0001).fixed64(2, 0.0001)));
+    }
+    if (exceeded){
+      result.varint(9, 1);
+    }
+    for (final String field : fields){
+      result.message(13, new Writer().string(1, field).varint(2, 6).string(3, field));
+    }
+    for (final Object[] row : rows){
+      final Writer feature = new Writer();
+      for (final Object value : row){
+        feature.message(1, value(value));
+      }
+      if (extras){
+        feature.message(2, new Writer().packed(2, 2, 1).packed(3, 2000, 4000, -7, 3));
+      }
+      result.message(15, feature);
+    }
+    final Writer collection = new Writer();
+    collection.string(1, "1.0");
+    collection.message(2, new Writer().message(1, result));
+    return collection.toByteArray();
+  }
+
+  /**
+   * Encode a query response as ArcGIS JSON, the way the services
+   * write it, with no whitespace
+   * @param fields - List<String> field names
+   * @param rows - List<Object[]> of values
+   * @return String
+   */
+  static String json(final List<String> fields, final List<Object[]> rows){
+    final StringBuilder builder = new StringBuilder("{\"objectIdFieldName\":\"OBJECTID\",\"fields\":[");
+    for (int i = 0; i < fields.size(); i++){
+      builder.append(i > 0 ? "," : "").append("{\"name\":\"").append(fields.get(i)).append("\",\"type\":\"esriFieldTypeDouble\"}");
+    }
+    builder.append("],\"features\":[");
+    for (int r = 0; r < rows.size(); r++){
+      builder.append(r > 0 ? "," : "").append("{\"attributes\":{");
+      final Object[] row = rows.get(r);
+      for (int i = 0; i < fields.size(); i++){
+        builder.append(i > 0 ? "," : "").append('"').append(fields.get(i)).append("\":");
+        final Object value = row[i];
+        if (value instanceof String){
+          builder.append('"').append(value).append('"');
+        }else{
+          builder.append(value);
+        }
+      }
+      builder.append("}}");
+    }
+    return builder.append("]}").toString();
+  }
+
+  private static Writer value(final Object value){
+    final Writer writer = new Writer();
+    if (value instanceof String){
+      writer.string(1, (String) value);
+    }else if (value instanceof Float){
+      writer.fixed32(2, (Float) value);
+    }else if (value instanceof Double){
+      writer.fixed64(3, (Double) value);
+    }else if (value instanceof Integer){
+      writer.zigzag(4, (Integer) value);
+    }else if (value instanceof Long){
+      writer.varint(6, (Long) value);
+    }else if (value instanceof Boolean){
+      writer.varint(9, (Boolean) value ? 1 : 0);
+    }
+    return writer;
+  }
+
+  /**
+   * Writes protocol buffer fields
+   */
+  static final class Writer {
+    private final ByteArrayOutputStream mBytes = new ByteArrayOutputStream();
+
+    Writer varint(final int field, final long value){
+      tag(field, PbfReader.VARINT);
+      raw(value);
+      return this;
+    }
+
+    Writer zigzag(final int field, final long value){
+      return varint(field, (value << 1) ^ (value >> 63));
+    }
+
+    Writer fixed64(final int field, final double value){
+      tag(field, PbfReader.FIXED64);
+      final long bits = Double.doubleToLongBits(value);
+      for (int shift = 0; shift < 64; shift += 8){
+        mBytes.write((int) (bits >>> shift) & 0xff);
+      }
+      return this;
+    }
+
+    Writer fixed32(final int field, final float value){
+      tag(field, PbfReader.FIXED32);
+      final int bits = Float.floatToIntBits(value);
+      for (int shift = 0; shift < 32; shift += 8){
+        mBytes.write((bits >>> shift) & 0xff);
+      }
+      return this;
+    }
+
+    Writer string(final int field, final String value){
+      return bytes(field, value.getBytes(UTF_8));
+    }
+
+    Writer message(final int field, final Writer message){
+      return bytes(field, message.toByteArray());
+    }
+
+    Writer packed(final int field, final long... values){
+      final Writer packed = new Writer();
+      for (final long value : values){
+        packed.raw((value << 1) ^ (value >> 63));
+      }
+      return bytes(field, packed.toByteArray());
+    }
+
+    byte[] toByteArray(){
+      return mBytes.toByteArray();
+    }
+
+    private Writer bytes(final int field, final byte[] bytes){
+      tag(field, PbfReader.LENGTH_DELIMITED);
+      raw(bytes.length);
+      mBytes.write(bytes, 0, bytes.length);
+      return this;
+    }
+
+    private void tag(final int field, final int wireType){
+      raw((field << 3) | wireType);
+    }
+
+    private void raw(final long value){
+      long remaining = value;
+      while ((remaining & ~0x7fL) != 0){
+        mBytes.write((int) ((remaining & 0x7f) | 0x80));
+        remaining = remaining >>> 7;
+      }
+      mBytes.write((int) remaining);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the protocol buffer query path with the JSON path for a
+ * page of mesh point features, both decoding from memory and fetching
+ * from the ArcGIS stand-in server.  The JSON path parses each feature
+ * into an attribute map and converts values to strings and back, as
+ * the runtime Features and extractValueFromMap do.  Timings depend
+ * on the machine, so those comparisons are ignored by default and run
+ * by hand.
+ */
+public class PbfQueryBenchmarkTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int FEATURES = 1000;
+  private static final int WARM_UP = 50;
+  private static final int ITERATIONS = 200;
+  private static final int HTTP_ITERATIONS = 50;
+
+  private static final String LAYER = "Mesh/MapServer/0";
+
+  private static final String ENVELOPE = "{\"xmin\":-10,\"ymin\":20,\"xmax\":-9,\"ymax\":21,\"spatialReference\":{\"wkid\":4326}}";
+
+  private static final PbfFeatureReader.RowDecoder<Measurement> MEASUREMENT_ROWS = new PbfFeatureReader.RowDecoder<Measurement>() {
+    @Override public Measurement decode(final PbfFeatureReader.Row row) {
+      final Measurement m = new Measurement();
+      m.setEmu((int) row.getNumber("Cluster37", 0));
+      m.setDepth(row.getNumber("UnitTop", 0));
+      m.setTemperature(row.getNumber("temp", 0));
+      m.setSalinity(row.getNumber("salinity", 0));
+      m.setDissolvedOxygen(row.getNumber("dissO2", 0));
+      m.setSilicate(row.getNumber("silicate", 0));
+      m.setNitrate(row.getNumber("nitrate", 0));
+      m.setPhosphate(row.getNumber("phosphate", 0));
+      return m;
+    }
+  };
+
+  private final List<Object[]> mRows = PbfFixtures.profileRows(FEATURES);
+  private final byte[] mPbf = PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, mRows, false, false);
+  private final String mJson = PbfFixtures.json(PbfFixtures.PROFILE_FIELDS, mRows);
+
+  @Test
+  public void pbfIsSmallerThanJson() {
+    final int json = mJson.getBytes(UTF_8).length;
+    assertTrue(String.format("mesh point page (%d features): json %d bytes, pbf %d bytes",
+        FEATURES, json, mPbf.length), mPbf.length < json);
+  }
+
+  @Test
+  public void pbfDecodesSameMeasurementsAsJson() throws Exception {
+    final List<Measurement> pbf = decodePbf(new ByteArrayInputStream(mPbf));
+    final List<Measurement> json = decodeJson(mJson);
+    assertEquals(FEATURES, pbf.size());
+    assertEquals(json.size(), pbf.size());
+    for (int i = 0; i < FEATURES; i++){
+      assertEquals(json.get(i).getEmu(), pbf.get(i).getEmu());
+      assertEquals(json.get(i).getDepth(), pbf.get(i).getDepth(), 0.001);
+      assertEquals(json.get(i).getTemperature(), pbf.get(i).getTemperature(), 0.001);
+      assertEquals(json.get(i).getPhosphate(), pbf.get(i).getPhosphate(), 0.001);
+    }
+  }
+
+  @Ignore("Benchmark, timings depend on the machine")
+  @Test
+  public void pbfDecodesFasterThanJson() throws Exception {
+    int check = 0;
+    for (int i = 0; i < WARM_UP; i++){
+      check += decodePbf(new ByteArrayInputStream(mPbf)).size();
+      check += decodeJson(mJson).size();
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += decodePbf(new ByteArrayInputStream(mPbf)).size();
+    }
+    final double pbfMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++){
+      check += decodeJson(mJson).size();
+    }
+    final double jsonMicros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+    assertTrue(check > 0);
+    assertTrue(String.format("mesh point page (%d features) decode: pbf %.1f us, json %.1f us",
+        FEATURES, pbfMicros, jsonMicros), pbfMicros < jsonMicros);
+  }
+
+  @Ignore("Benchmark, timings depend on the machine")
+  @Test
+  public void fetchThroughputFromStandInServer() throws Exception {
+    final ArcGisStandInServer server = new ArcGisStandInServer(0);
+    server.recordPbf(LAYER + "/query", mPbf);
+    server.recordJson(LAYER + "/query", mJson);
+    try {
+      final PbfQuery query = new PbfQuery(server.getUrl(LAYER));
+      final List<String> outFields = PbfFixtures.PROFILE_FIELDS;
+      int check = 0;
+      for (int i = 0; i < WARM_UP; i++){
+        check += fetchPbf(query, outFields).size();
+        check += fetchJson(server.getUrl(LAYER)).size();
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < HTTP_ITERATIONS; i++){
+        check += fetchPbf(query, outFields).size();
+      }
+      final double pbfMillis = (System.nanoTime() - start) / 1000000.0 / HTTP_ITERATIONS;
+
+      start = System.nanoTime();
+      for (int i = 0; i < HTTP_ITERATIONS; i++){
+        check += fetchJson(server.getUrl(LAYER)).size();
+      }
+      final double jsonMillis = (System.nanoTime() - start) / 1000000.0 / HTTP_ITERATIONS;
+
+      assertEquals((WARM_UP + HTTP_ITERATIONS) * 2 * FEATURES, check);
+      assertTrue(String.format("mesh point page (%d features) fetch and decode over local http: pbf %.2f ms, json %.2f ms",
+          FEATURES, pbfMillis, jsonMillis), pbfMillis < jsonMillis);
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static List<Measurement> fetchPbf(final PbfQuery query, final List<String> outFields) throws Exception {
+    final List<Measurement> measurements = new ArrayList<>();
+    query.fetch(ENVELOPE, "esriGeometryEnvelope", outFields, 0, FEATURES, MEASUREMENT_ROWS, measurements);
+    return measurements;
+  }
+
+  private static List<Measurement> fetchJson(final String layerUrl) throws Exception {
+    return decodeFeatures(JsonParser.getJson(layerUrl + "/query?f=json"));
+  }
+
+  private static List<Measurement> decodePbf(final InputStream input) throws Exception {
+    final List<Measurement> measurements = new ArrayList<>();
+    PbfFeatureReader.read(input, MEASUREMENT_ROWS, measurements);
+    return measurements;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Measurement> decodeJson(final String json){
+    return decodeFeatures((Map<String, Object>) new JsonParser(json).parseValue());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Measurement> decodeFeatures(final Map<String, Object> response){
+    final List<Measurement> measurements = new ArrayList<>();
+    for (final Object feature : (List<Object>) response.get("features")){
+      final Map<String, Object> attributes = (Map<String, Object>) ((Map<String, Object>) feature).get("attributes");
+      final Measurement m = new Measurement();
+      m.setEmu((int) Double.parseDouble(text("Cluster37", attributes)));
+      m.setDepth(Double.parseDouble(text("UnitTop", attributes)));
+      m.setTemperature(number("temp", attributes));
+      m.setSalinity(number("salinity", attributes));
+      m.setDissolvedOxygen(number("dissO2", attributes));
+      m.setSilicate(number("silicate", attributes));
+      m.setNitrate(number("nitrate", attributes));
+      m.setPhosphate(number("phosphate", attributes));
+      measurements.add(m);
+    }
+    return measurements;
+  }
+
+  // As extractValueFromMap does
+  private static String text(final String field, final Map<String, Object> attributes){
+    final Object value = attributes.get(field);
+    return value != null ? value.toString() : "";
+  }
+
+  private static double number(final String field, final Map<String, Object> attributes){
+    try {
+      return Double.parseDouble(text(field, attributes));
+    } catch (final NumberFormatException e){
+      return 0d;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs protocol buffer queries against the ArcGIS stand-in server.
+ */
+public class PbfQueryTest {
+
+  private static final String LAYER = "Mesh/MapServer/0";
+
+  private static final String QUERY = LAYER + "/query";
+
+  private static final String ENVELOPE = "{\"xmin\":-10,\"ymin\":20,\"xmax\":-9,\"ymax\":21,\"spatialReference\":{\"wkid\":4326}}";
+
+  private static final PbfFeatureReader.RowDecoder<Double> DEPTHS = new PbfFeatureReader.RowDecoder<Double>() {
+    @Override public Double decode(final PbfFeatureReader.Row row) {
+      return row.getDouble("UnitTop");
+    }
+  };
+
+  private final List<Object[]> mRows = PbfFixtures.profileRows(120);
+  private final byte[] mPbf = PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, mRows, false, false);
+  private ArcGisStandInServer mServer;
+
+  @Before
+  public void startServer() throws Exception {
+    mServer = new ArcGisStandInServer(0);
+    mServer.recordPbf(QUERY, mPbf);
+    mServer.recordJson(QUERY, PbfFixtures.json(PbfFixtures.PROFILE_FIELDS, mRows));
+  }
+
+  @After
+  public void stopServer() {
+    mServer.stop();
+  }
+
+  @Test
+  public void queriesWithProjectionAndDecodes() throws Exception {
+    final List<Double> depths = new ArrayList<>();
+    final PbfQuery.Result result = new PbfQuery(mServer.getUrl(LAYER)).fetch(ENVELOPE, "esriGeometryEnvelope",
+        Arrays.asList("Cluster37", "UnitTop"), 1000, 500, DEPTHS, depths);
+
+    assertEquals(mPbf.length, result.getByteCount());
+    assertFalse(result.exceededTransferLimit());
+    assertEquals(mRows.size(), depths.size());
+    assertEquals(((Number) mRows.get(7)[2]).doubleValue(), depths.get(7), 0);
+
+    final Map<String, String> request = mServer.getLastRequest();
+    assertEquals("pbf", request.get("f"));
+    assertEquals(ENVELOPE, request.get("geometry"));
+    assertEquals("esriGeometryEnvelope", request.get("geometryType"));
+    assertEquals("Cluster37,UnitTop", request.get("outFields"));
+    assertEquals("false", request.get("returnGeometry"));
+    assertEquals("1000", request.get("resultOffset"));
+    assertEquals("500", request.get("resultRecordCount"));
+    assertNull(request.get("orderByFields"));
+  }
+
+  @Test
+  public void sendsOrderByFields() throws Exception {
+    new PbfQuery(mServer.getUrl(LAYER)).fetch(ENVELOPE, "esriGeometryEnvelope", Arrays.asList("UnitTop"),
+        Arrays.asList("POINT_X", "POINT_Y", "UnitTop"), 0, 1000, DEPTHS, new ArrayList<Double>());
+
+    assertEquals("POINT_X ASC,POINT_Y ASC,UnitTop ASC", mServer.getLastRequest().get("orderByFields"));
+  }
+
+  @Test
+  public void reportsExceededTransferLimit() throws Exception {
+    mServer.recordPbf(QUERY, PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, mRows, true, false));
+    final List<Double> depths = new ArrayList<>();
+    final PbfQuery.Result result = new PbfQuery(mServer.getUrl(LAYER)).fetch(ENVELOPE, "esriGeometryEnvelope",
+        Arrays.asList("UnitTop"), 0, 1000, DEPTHS, depths);
+
+    assertTrue(result.exceededTransferLimit());
+    assertEquals(mRows.size(), depths.size());
+  }
+
+  @Test(expected = PbfQuery.UnsupportedFormatException.class)
+  public void jsonAnswerIsUnsupportedFormat() throws Exception {
+    mServer.forget(QUERY, "pbf");
+    new PbfQuery(mServer.getUrl(LAYER) + "/").fetch(ENVELOPE, "esriGeometryEnvelope",
+        Arrays.asList("UnitTop"), 0, 1000, DEPTHS, new ArrayList<Double>());
+  }
+
+  @Test
+  public void otherJsonErrorsAreRetryable() throws Exception {
+    mServer.answer(QUERY, new ArcGisStandInServer.Responder() {
+      @Override public ArcGisStandInServer.Response respond(final String format, final Map<String, String> parameters) {
+        return ArcGisStandInServer.error(200, 500, "Unable to complete operation.");
+      }
+    });
+    try {
+      new PbfQuery(mServer.getUrl(LAYER)).fetch(ENVELOPE, "esriGeometryEnvelope",
+          Arrays.asList("UnitTop"), 0, 1000, DEPTHS, new ArrayList<Double>());
+      fail("Expected an IOException");
+    } catch (final PbfQuery.UnsupportedFormatException e) {
+      fail("A server error isn't a missing format");
+    } catch (final IOException e) {
+      assertTrue(e.getMessage().contains("Unable to complete operation"));
+    }
+  }
+
+  @Test
+  public void supportedFormatsAreReadFromLayerDescription() throws Exception {
+    mServer.recordJson("Pbf/MapServer/0", "{\"id\":0,\"supportedQueryFormats\":\"JSON, geoJSON, PBF\"}");
+    mServer.recordJson("Json/MapServer/0", "{\"id\":0,\"supportedQueryFormats\":\"JSON, AMF\"}");
+    assertTrue(new PbfQuery(mServer.getUrl("Pbf/MapServer/0")).supportsPbf());
+    assertFalse(new PbfQuery(mServer.getUrl("Json/MapServer/0")).supportsPbf());
+    assertEquals("json", mServer.getLastRequest().get("f"));
+  }
+
+  @Test(expected = IOException.class)
+  public void layerDescriptionErrorIsReported() throws Exception {
+    new PbfQuery(mServer.getUrl("Missing/MapServer/0")).supportsPbf();
+  }
+
+  @Test
+  public void onlyInvalidFormatErrorsMeanNoPbf() {
+    assertTrue(PbfQuery.isFormatError("{\"error\":{\"code\":400,\"message\":\"Invalid format\",\"details\":[]}}"));
+    assertFalse(PbfQuery.isFormatError("{\"error\":{\"code\":500,\"message\":\"Unable to complete operation.\"}}"));
+    assertFalse(PbfQuery.isFormatError("{\"error\":{\"code\":400,\"message\":\"Invalid query parameters\"}}"));
+    assertEquals("504 Timed out", PbfQuery.describeError("{\"error\":{\"code\":504,\"message\":\"Timed out\"}}"));
+  }
+}
@@ -0,0 +1,89 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the points ProfileDownsampler keeps from depth ordered series.
+ */
+public class ProfileDownsamplerTest {
+
+  @Test
+  public void shortSeriesAreKeptWhole() {
+    final double[] depths = {0, 5, 10};
+    final double[] values = {20, 18, 12};
+    assertArrayEquals(new int[]{0, 1, 2}, ProfileDownsampler.select(depths, values, 100));
+    assertArrayEquals(new int[]{0, 1, 2}, ProfileDownsampler.select(depths, values, 3));
+  }
+
+  @Test
+  public void endsAreKeptAndIndicesAscend() {
+    final double[] depths = new double[1000];
+    final double[] values = new double[1000];
+    final Random random = new Random(7);
+    for (int i = 0; i < depths.length; i++){
+      depths[i] = i * 5;
+      values[i] = 25 - i * 0.02 + random.nextDouble();
+    }
+    final int[] selected = ProfileDownsampler.select(depths, values, 50);
+    assertEquals(50, selected.length);
+    assertEquals(0, selected[0]);
+    assertEquals(999, selected[49]);
+    for (int i = 1; i < selected.length; i++){
+      assertTrue(selected[i] > selected[i - 1]);
+    }
+  }
+
+  @Test
+  public void sharpChangesSurvive() {
+    // A flat mixed layer with a single spike standing in for a thermocline
+    final double[] depths = new double[500];
+    final double[] values = new double[500];
+    for (int i = 0; i < depths.length; i++){
+      depths[i] = i;
+      values[i] = 10;
+    }
+    values[237] = 30;
+    final int[] selected = ProfileDownsampler.select(depths, values, 20);
+    boolean keptSpike = false;
+    for (final int index : selected){
+      keptSpike = keptSpike || index == 237;
+    }
+    assertTrue(keptSpike);
+  }
+
+  @Test
+  public void tinyThresholdKeepsOnlyTheEnds() {
+    final double[] depths = {0, 1, 2, 3, 4};
+    final double[] values = {1, 2, 3, 4, 5};
+    assertArrayEquals(new int[]{0, 4}, ProfileDownsampler.select(depths, values, 2));
+  }
+}
@@ -0,0 +1,274 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises RequestExecutor's retries, backoff and hedging with scripted
+ * requests and against the ArcGIS stand-in server.
+ */
+public class RequestExecutorTest {
+
+  private static final String LAYER = "Mesh/MapServer/0";
+
+  private static final String ENVELOPE = "{\"xmin\":-10,\"ymin\":20,\"xmax\":-9,\"ymax\":21,\"spatialReference\":{\"wkid\":4326}}";
+
+  private static final PbfFeatureReader.RowDecoder<Double> DEPTHS = new PbfFeatureReader.RowDecoder<Double>() {
+    @Override public Double decode(final PbfFeatureReader.Row row) {
+      return row.getDouble("UnitTop");
+    }
+  };
+
+  private ScheduledExecutorService mTimer;
+  private RequestExecutor mExecutor;
+
+  @Before
+  public void createExecutor() {
+    mTimer = Executors.newSingleThreadScheduledExecutor();
+    mExecutor = new RequestExecutor(mTimer, new Random(7));
+  }
+
+  @After
+  public void stopTimer() {
+    mTimer.shutdownNow();
+  }
+
+  @Test
+  public void retriesUntilSuccess() throws Exception {
+    final ScriptedRequest request = new ScriptedRequest(2);
+    final Result<String> result = new Result<>();
+    mExecutor.execute(new RequestExecutor.Operation("test", 3, 10, 20, false, 0), request, result);
+
+    assertTrue(result.await());
+    assertEquals("answer 3", result.value);
+    assertNull(result.error);
+    assertEquals(3, request.starts.get());
+  }
+
+  @Test
+  public void hedgedOperationRetriesFailuresInsideStart() throws Exception {
+    final ScriptedRequest request = new ScriptedRequest(2);
+    final Result<String> result = new Result<>();
+    // Each retry is still waiting on its backoff when start returns
+    final RequestExecutor.Operation operation = new RequestExecutor.Operation("profile", 3, 100, 100, true, 1000);
+    mExecutor.execute(operation, request, result);
+
+    assertTrue(result.await());
+    assertEquals("answer 3", result.value);
+    assertEquals(3, request.starts.get());
+    assertEquals("profile: 2 retries, 0 hedged requests, 0 won by the hedge", operation.describe());
+  }
+
+  @Test
+  public void givesUpAfterMaxAttempts() throws Exception {
+    final ScriptedRequest request = new ScriptedRequest(10);
+    final Result<String> result = new Result<>();
+    final RequestExecutor.Operation operation = new RequestExecutor.Operation("test", 3, 10, 20, false, 0);
+    mExecutor.execute(operation, request, result);
+
+    assertTrue(result.await());
+    assertNull(result.value);
+    assertEquals("failure 3", result.error.getMessage());
+    assertEquals(3, request.starts.get());
+    assertEquals("test: 2 retries, 0 hedged requests, 0 won by the hedge", operation.describe());
+  }
+
+  @Test
+  public void backoffCeilingDoublesUpToMaximum() {
+    final RequestExecutor.Operation operation = new RequestExecutor.Operation("test", 6, 100, 1000, false, 0);
+    final List<Long> ceilings = new ArrayList<>();
+    for (int retry = 1; retry <= 5; retry++){
+      ceilings.add(operation.getBackoffCeilingMillis(retry));
+    }
+    assertEquals(Arrays.asList(100L, 200L, 400L, 800L, 1000L), ceilings);
+  }
+
+  @Test
+  public void hedgeDelayIsDefaultUntilEnoughLatenciesThen95thPercentile() {
+    final RequestExecutor.Operation operation = new RequestExecutor.Operation("test", 1, 0, 0, true, 1500);
+    for (long millis = 1; millis <= 9; millis++){
+      operation.recordLatency(millis);
+    }
+    assertEquals(1500, operation.getHedgeDelayMillis());
+    for (long millis = 10; millis <= 50; millis++){
+      operation.recordLatency(millis);
+    }
+    assertEquals(48, operation.getHedgeDelayMillis());
+  }
+
+  @Test
+  public void cancelStopsRetries() throws Exception {
+    final ScriptedRequest request = new ScriptedRequest(10);
+    final Result<String> result = new Result<>();
+    final RequestExecutor.Cancellable execution =
+        mExecutor.execute(new RequestExecutor.Operation("test", 5, 200, 200, false, 0), request, result);
+    execution.cancel();
+    Thread.sleep(300);
+
+    assertEquals(1, request.starts.get());
+    assertFalse(result.await(0));
+  }
+
+  @Test
+  public void slowQueryIsHedged() throws Exception {
+    final List<Object[]> rows = PbfFixtures.profileRows(50);
+    final ArcGisStandInServer server = new ArcGisStandInServer(0);
+    server.recordPbf(LAYER + "/query", PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, rows, false, false));
+    try {
+      server.delayNext(3000);
+      final RequestExecutor.Operation operation = new RequestExecutor.Operation("profile", 1, 0, 0, true, 200);
+      final Result<List<Double>> result = new Result<>();
+      final long start = System.nanoTime();
+      mExecutor.execute(operation, new QueryRequest(server.getUrl(LAYER)), result);
+
+      assertTrue(result.await());
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+      assertEquals(rows.size(), result.value.size());
+      assertEquals(2, server.getRequestCount());
+      assertEquals("profile: 0 retries, 1 hedged requests, 1 won by the hedge", operation.describe());
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void serverErrorIsRetried() throws Exception {
+    final List<Object[]> rows = PbfFixtures.profileRows(20);
+    final ArcGisStandInServer server = new ArcGisStandInServer(0);
+    server.recordPbf(LAYER + "/query", PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, rows, false, false));
+    try {
+      server.failNext(1, 500);
+      final Result<List<Double>> result = new Result<>();
+      mExecutor.execute(new RequestExecutor.Operation("profile", 3, 10, 20, false, 0),
+          new QueryRequest(server.getUrl(LAYER)), result);
+
+      assertTrue(result.await());
+      assertNull(result.error);
+      assertEquals(rows.size(), result.value.size());
+      assertEquals(2, server.getRequestCount());
+    } finally {
+      server.stop();
+    }
+  }
+
+  /**
+   * Fails the given number of times, then answers
+   */
+  private static class ScriptedRequest implements RequestExecutor.Request<String> {
+    final AtomicInteger starts = new AtomicInteger();
+    private final int mFailures;
+
+    ScriptedRequest(final int failures){
+      mFailures = failures;
+    }
+
+    @Override public RequestExecutor.Cancellable start(final RequestExecutor.Callback<String> callback) {
+      final int start = starts.incrementAndGet();
+      if (start <= mFailures){
+        callback.onError(new IOException("failure " + start));
+      }else{
+        callback.onResult("answer " + start);
+      }
+      return new RequestExecutor.Cancellable() {
+        @Override public void cancel() {
+        }
+      };
+    }
+  }
+
+  /**
+   * Runs a PbfQuery on its own thread
+   */
+  private static class QueryRequest implements RequestExecutor.Request<List<Double>> {
+    private final String mLayerUrl;
+
+    QueryRequest(final String layerUrl){
+      mLayerUrl = layerUrl;
+    }
+
+    @Override public RequestExecutor.Cancellable start(final RequestExecutor.Callback<List<Double>> callback) {
+      final PbfQuery query = new PbfQuery(mLayerUrl);
+      new Thread(new Runnable() {
+        @Override public void run() {
+          final List<Double> depths = new ArrayList<>();
+          try {
+            query.fetch(ENVELOPE, "esriGeometryEnvelope", Arrays.asList("UnitTop"), 0, 1000, DEPTHS, depths);
+          } catch (final IOException e) {
+            callback.onError(e);
+            return;
+          }
+          callback.onResult(depths);
+        }
+      }).start();
+      return new RequestExecutor.Cancellable() {
+        @Override public void cancel() {
+          query.cancel();
+        }
+      };
+    }
+  }
+
+  private static class Result<T> implements RequestExecutor.Callback<T> {
+    private final CountDownLatch mDone = new CountDownLatch(1);
+    volatile T value;
+    volatile Exception error;
+
+    @Override public void onResult(final T result) {
+      value = result;
+      mDone.countDown();
+    }
+
+    @Override public void onError(final Exception e) {
+      error = e;
+      mDone.countDown();
+    }
+
+    boolean await() throws InterruptedException {
+      return await(5000);
+    }
+
+    boolean await(final long millis) throws InterruptedException {
+      return mDone.await(millis, TimeUnit.MILLISECONDS);
+    }
+  }
+}
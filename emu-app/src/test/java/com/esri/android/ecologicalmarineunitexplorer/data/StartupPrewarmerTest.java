@@ -0,0 +1,143 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.esri.android.ecologicalmarineunitexplorer.util.StartupTimeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises StartupPrewarmer with tasks completed by hand.
+ */
+public class StartupPrewarmerTest {
+
+  @Test
+  public void listenerWaitsForEveryTask() {
+    final HeldTask stats = new HeldTask();
+    final HeldTask locator = new HeldTask();
+    final RecordingListener listener = new RecordingListener();
+    final StartupPrewarmer prewarmer = new StartupPrewarmer(new StartupTimeline())
+        .add("stats", stats)
+        .add("locator", locator);
+    prewarmer.start(listener);
+
+    // Both tasks start before either finishes
+    assertNotNull(stats.done);
+    assertNotNull(locator.done);
+    assertEquals(0, listener.calls);
+
+    locator.done.run();
+    assertTrue(prewarmer.isReady("locator"));
+    assertFalse(prewarmer.isReady("stats"));
+    assertEquals(0, listener.calls);
+
+    stats.done.run();
+    assertEquals(1, listener.calls);
+    assertTrue(listener.allReady);
+    assertTrue(listener.timeline.getElapsedMillis("stats ready") >= 0);
+    assertTrue(listener.timeline.getElapsedMillis("prewarm complete") >= 0);
+  }
+
+  @Test
+  public void stopWaitingNotifiesOnceAndLateTasksAreRecorded() {
+    final HeldTask polygons = new HeldTask();
+    final RecordingListener listener = new RecordingListener();
+    final StartupTimeline timeline = new StartupTimeline();
+    final StartupPrewarmer prewarmer = new StartupPrewarmer(timeline).add("polygons", polygons);
+    prewarmer.start(listener);
+
+    prewarmer.stopWaiting();
+    assertEquals(1, listener.calls);
+    assertFalse(listener.allReady);
+
+    polygons.done.run();
+    polygons.done.run();
+    prewarmer.stopWaiting();
+    assertEquals(1, listener.calls);
+    assertTrue(timeline.getElapsedMillis("polygons ready") >= 0);
+    assertEquals(-1, timeline.getElapsedMillis("prewarm complete"));
+  }
+
+  @Test
+  public void failingAndSynchronousTasksDontBlockCompletion() {
+    final RecordingListener listener = new RecordingListener();
+    new StartupPrewarmer(new StartupTimeline())
+        .add("cached", new StartupPrewarmer.Task() {
+          @Override public void run(final Runnable done) {
+            done.run();
+          }
+        })
+        .add("broken", new StartupPrewarmer.Task() {
+          @Override public void run(final Runnable done) {
+            throw new IllegalStateException("no context");
+          }
+        })
+        .start(listener);
+
+    assertEquals(1, listener.calls);
+    assertTrue(listener.allReady);
+  }
+
+  @Test
+  public void timelineListsEventsInOrder() {
+    final StartupTimeline timeline = new StartupTimeline(System.nanoTime() - 5000000L);
+    assertTrue(timeline.mark("first") >= 5);
+    timeline.mark("second");
+
+    final List<String> names = new ArrayList<>();
+    for (final StartupTimeline.Event event : timeline.getEvents()){
+      names.add(event.getName());
+    }
+    assertEquals("first", names.get(0));
+    assertEquals("second", names.get(1));
+    assertTrue(timeline.toString().contains("second="));
+  }
+
+  private static class HeldTask implements StartupPrewarmer.Task {
+    Runnable done;
+
+    @Override public void run(final Runnable done) {
+      this.done = done;
+    }
+  }
+
+  private static class RecordingListener implements StartupPrewarmer.Listener {
+    int calls;
+    boolean allReady;
+    StartupTimeline timeline;
+
+    @Override public void onPrewarmComplete(final StartupTimeline timeline, final boolean allReady) {
+      calls++;
+      this.allReady = allReady;
+      this.timeline = timeline;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes station profile stores to a temporary file and reads them back.
+ */
+public class StationProfileStoreTest {
+
+  private File mFile;
+
+  @Before
+  public void setUp() throws IOException {
+    mFile = File.createTempFile("stations", ".bin");
+  }
+
+  @After
+  public void tearDown() {
+    mFile.delete();
+  }
+
+  @Test
+  public void findsStationsByLocation() throws IOException {
+    StationProfileStore.write(mFile, stations());
+    final StationProfileStore store = StationProfileStore.open(mFile);
+
+    assertEquals(3, store.size());
+    final StationProfileStore.StationProfile bats = store.find(-64.17, 31.67, 0.001);
+    assertNotNull(bats);
+    assertEquals(40, bats.measurementCount());
+    assertEquals(-64.17, bats.getLongitude(), 1e-5);
+
+    // Nearby but not on the station
+    assertNotNull(store.find(-64.2, 31.7, 0.05));
+    assertNull(store.find(-64.2, 31.7, 0.01));
+    assertNull(store.find(10, 10, 1));
+  }
+
+  @Test
+  public void nearestStationWins() throws IOException {
+    final List<StationProfileStore.StationEntry> stations = new ArrayList<>();
+    stations.add(new StationProfileStore.StationEntry(0, 0, EmuCodecFixtures.profile(5)));
+    stations.add(new StationProfileStore.StationEntry(0.3, 0.3, EmuCodecFixtures.profile(7)));
+    StationProfileStore.write(mFile, stations);
+
+    final StationProfileStore.StationProfile profile = StationProfileStore.open(mFile).find(0.2, 0.25, 1);
+    assertNotNull(profile);
+    assertEquals(7, profile.measurementCount());
+  }
+
+  @Test
+  public void valuesMatchTheOriginalProfile() throws IOException {
+    final WaterProfile original = EmuCodecFixtures.profile(40);
+    final List<StationProfileStore.StationEntry> stations = new ArrayList<>();
+    stations.add(new StationProfileStore.StationEntry(-158, 22.75, original));
+    StationProfileStore.write(mFile, stations);
+    final StationProfileStore.StationProfile stored = StationProfileStore.open(mFile).find(-158, 22.75, 0.001);
+
+    final Map<Double, Double> expected = original.getMeasurementsForProperty("SALINITY");
+    final Map<Double, Double> actual = stored.getMeasurementsForProperty("SALINITY");
+    assertEquals(expected.size(), actual.size());
+    for (final Map.Entry<Double, Double> entry : expected.entrySet()){
+      assertEquals(entry.getValue(), actual.get(entry.getKey()), 1e-4);
+    }
+    // Nitrate isn't set in the fixture so nothing is returned for it
+    assertTrue(stored.getMeasurementsForProperty("NITRATE").isEmpty());
+    assertTrue(Double.isNaN(stored.getValue(0, "NITRATE")));
+
+    final Iterator<Measurement> iterator = original.getMeasurements().iterator();
+    for (int i = 0; i < stored.measurementCount(); i++){
+      final Measurement m = iterator.next();
+      assertEquals(m.getDepth(), stored.getDepth(i), 0);
+      assertEquals(m.getTemperature(), stored.getValue(i, "TEMPERATURE"), 1e-4);
+      assertEquals(m.getEmu(), stored.getEmu(i));
+    }
+  }
+
+  @Test
+  public void readAllSupportsRewriting() throws IOException {
+    StationProfileStore.write(mFile, stations());
+    final List<StationProfileStore.StationEntry> entries = StationProfileStore.open(mFile).readAll();
+    entries.add(new StationProfileStore.StationEntry(-145, 50, EmuCodecFixtures.profile(12)));
+    StationProfileStore.write(mFile, entries);
+
+    final StationProfileStore store = StationProfileStore.open(mFile);
+    assertEquals(4, store.size());
+    assertEquals(12, store.find(-145, 50, 0.001).measurementCount());
+    assertEquals(40, store.find(-64.17, 31.67, 0.001).measurementCount());
+  }
+
+  @Test
+  public void emptyStoreFindsNothing() throws IOException {
+    StationProfileStore.write(mFile, new ArrayList<StationProfileStore.StationEntry>());
+    final StationProfileStore store = StationProfileStore.open(mFile);
+    assertEquals(0, store.size());
+    assertNull(store.find(0, 0, 180));
+  }
+
+  @Test
+  public void corruptFileIsRejected() throws IOException {
+    StationProfileStore.write(mFile, stations());
+    final long length = mFile.length();
+    final FileOutputStream out = new FileOutputStream(mFile, true);
+    out.write(new byte[]{1, 2, 3});
+    out.close();
+    assertEquals(length + 3, mFile.length());
+    try {
+      StationProfileStore.open(mFile);
+      fail("Expected IOException");
+    } catch (final IOException e) {
+      // expected
+    }
+  }
+
+  private static List<StationProfileStore.StationEntry> stations(){
+    final List<StationProfileStore.StationEntry> stations = new ArrayList<>();
+    stations.add(new StationProfileStore.StationEntry(-64.17, 31.67, EmuCodecFixtures.profile(40)));
+    stations.add(new StationProfileStore.StationEntry(-158.0, 22.75, EmuCodecFixtures.profile(30)));
+    stations.add(new StationProfileStore.StationEntry(-64.67, 10.5, EmuCodecFixtures.profile(20)));
+    return stations;
+  }
+}
@@ -0,0 +1,986 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import com.esri.arcgisruntime.geometry.Point;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A seeded, deterministic stand-in for the global EMU dataset, sized
+ * anywhere from a thousand to a million mesh points, for load and
+ * scale tests.  Mesh points lie on a regular grid over the ocean of a
+ * synthetic world whose coastlines and seafloor come from smooth
+ * seeded noise.  Each point has a stack of EMU layers from the
+ * surface to the seafloor, chosen from 37 archetypes by latitude band
+ * and depth zone, with chemistry drawn within each archetype's range,
+ * so the summary table, clusters, profiles and depth polygons all
+ * agree with each other.
+ *
+ * Nothing is held per point: a point's layers are computed from the
+ * seed and the point's id when asked for, so a million point world
+ * costs no more memory than a thousand point one.  The dataset can be
+ * written out as recordings or served by an ArcGisStandInServer,
+ * which then answers queries by geometry and page.
+ */
+final class SyntheticEmuDataset {
+
+  static final int EMU_COUNT = 37;
+
+  static final List<String> CLUSTER_FIELDS = Arrays.asList("OBJECTID", "Cluster37", "EMU_Name", "GeomorphologyBase",
+      "GeomorphologyFeatures", "UnitTop", "ThicknessPos", "POINT_X", "POINT_Y", "temp", "salinity", "dissO2",
+      "phosphate", "silicate", "nitrate");
+
+  static final List<String> POLYGON_FIELDS = Arrays.asList("OBJECTID", "Cluster37", "Depth", "Name_2016");
+
+  // EMU properties in the order they're held
+  static final String[] PROPERTIES = {"temp", "salinity", "dissO2", "phosphate", "silicate", "nitrate"};
+
+  static final List<String> SUMMARY_FIELDS = summaryFields();
+
+  static final String CLUSTER_QUERY = "EMU_Point_Mesh_Cluster/MapServer/0/query";
+  static final String MESH_QUERY = "EMU_Point_Mesh/MapServer/0/query";
+  static final String SUMMARY_QUERY = "EMU_Summary_Table/FeatureServer/0/query";
+  static final String POLYGON_QUERY = "Global_EMUs_2017_1_25/FeatureServer/0/query";
+
+  // Rows per page when a query doesn't ask for fewer, as the services allow
+  static final int MAX_RECORD_COUNT = 1000;
+
+  // The depths profiles are sampled at, in meters, like the World Ocean Atlas levels
+  static final int[] STANDARD_DEPTHS = standardDepths();
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final double MAX_LATITUDE = 80;
+  private static final double OCEAN_FRACTION = 0.71;
+  private static final int MIN_DEPTH = 40;
+  private static final int MAX_DEPTH = 6000;
+  // Bottoms of the surface and intermediate zones, in meters
+  private static final int SURFACE_BOTTOM = 200;
+  private static final int INTERMEDIATE_BOTTOM = 1000;
+  private static final int ZONES = 3;
+  // Latitude bands from the equator poleward, 15 degrees wide but the last
+  private static final int BANDS = 5;
+  private static final int WAVES = 6;
+  // Random locations the land threshold is estimated from
+  private static final int SAMPLES = 4096;
+  // Mesh cells along each side of a depth polygon
+  private static final int POLYGON_CELLS = 4;
+  private static final double EARTH_RADIUS = 6378137;
+
+  private static final String[] ZONE_NAMES = {"Shallow", "Intermediate", "Deep"};
+  private static final String[] FEATURES = {"Seamounts", "Ridges", "Canyons", "Sills", "Basins"};
+
+  private static final Pattern DEPTH_WHERE = Pattern.compile("Depth\\s*=\\s*(\\d+)");
+
+  // Typical property values by depth zone, then latitude band, in PROPERTIES order
+  private static final double[][][] TYPICAL = {
+      {
+          {27, 34.8, 4.5, 0.2, 2, 0.5},
+          {22, 36.2, 5.0, 0.1, 1, 0.2},
+          {15, 35.0, 5.8, 0.5, 4, 4},
+          {8, 34.0, 6.8, 1.0, 10, 12},
+          {1, 33.5, 7.8, 1.5, 30, 20}},
+      {
+          {8, 34.8, 1.5, 2.4, 30, 32},
+          {9, 35.0, 3.0, 1.6, 15, 22},
+          {7, 34.6, 4.0, 1.8, 25, 26},
+          {4, 34.3, 4.5, 2.2, 40, 30},
+          {1, 34.5, 6.5, 1.8, 40, 28}},
+      {
+          {2.2, 34.7, 4.2, 2.3, 110, 32},
+          {2.5, 34.7, 4.8, 2.1, 80, 30},
+          {2.3, 34.7, 5.2, 2.2, 100, 32},
+          {1.5, 34.7, 5.8, 2.3, 120, 33},
+          {0, 34.7, 6.5, 2.1, 110, 31}}};
+
+  // Half the range of each property within an EMU, by depth zone
+  private static final double[][] SPREAD = {
+      {2.5, 0.6, 0.8, 0.3, 3, 3},
+      {1.5, 0.3, 1.0, 0.4, 10, 5},
+      {0.8, 0.1, 0.6, 0.3, 20, 4}};
+
+  // Lowest plausible value of each property
+  private static final double[] FLOOR = {-1.8, 30, 0.1, 0.01, 0.1, 0.01};
+
+  /**
+   * Called for each mesh point in a region
+   */
+  interface PointVisitor {
+    void visit(int id, double x, double y);
+  }
+
+  /**
+   * One EMU in a point's stack
+   */
+  static final class Layer {
+    final int mEmu;
+    // Negative, like UnitTop
+    final int mTop;
+    final int mThickness;
+    // In PROPERTIES order
+    final double[] mValues;
+
+    Layer(final int emu, final int top, final int thickness, final double[] values){
+      mEmu = emu;
+      mTop = top;
+      mThickness = thickness;
+      mValues = values;
+    }
+  }
+
+  /**
+   * A depth slice polygon, one cell of a grid coarser than the mesh
+   */
+  static final class Polygon {
+    final int mId;
+    final int mEmu;
+    final int mDepth;
+    final double mXmin;
+    final double mYmin;
+    final double mXmax;
+    final double mYmax;
+
+    Polygon(final int id, final int emu, final int depth, final double xmin, final double ymin, final double xmax,
+        final double ymax){
+      mId = id;
+      mEmu = emu;
+      mDepth = depth;
+      mXmin = xmin;
+      mYmin = ymin;
+      mXmax = xmax;
+      mYmax = ymax;
+    }
+  }
+
+  /**
+   * The range of each property an EMU's layers are drawn from
+   */
+  private static final class Archetype {
+    private final int mEmu;
+    private final int mZone;
+    private final double[] mMin = new double[PROPERTIES.length];
+    private final double[] mMax = new double[PROPERTIES.length];
+    private final double[] mMean = new double[PROPERTIES.length];
+    private final String mName;
+
+    Archetype(final int emu, final int zone, final int band, final Random random){
+      mEmu = emu;
+      mZone = zone;
+      for (int p = 0; p < PROPERTIES.length; p++){
+        final double spread = SPREAD[zone][p] * (0.6 + 0.8 * random.nextDouble());
+        final double mean = Math.max(FLOOR[p], TYPICAL[zone][band][p] + (random.nextDouble() * 2 - 1) * SPREAD[zone][p] / 2);
+        mMin[p] = round(Math.max(FLOOR[p], mean - spread));
+        mMax[p] = round(mean + spread);
+        mMean[p] = round(mean);
+      }
+      mName = ZONE_NAMES[zone] + ", "
+          + describe(mMean[0], new double[]{2, 6, 12, 20, 25},
+              "Very Cold", "Cold", "Cool", "Moderate", "Warm", "Very Warm") + ", "
+          + describe(mMean[1], new double[]{34, 35.5}, "Low Salinity", "Normal Salinity", "High Salinity") + ", "
+          + describe(mMean[2], new double[]{2, 5}, "Low Oxygen", "Moderate Oxygen", "High Oxygen") + ", "
+          + describe(mMean[5], new double[]{5, 20}, "Low Nitrate", "Medium Nitrate", "High Nitrate") + ", "
+          + describe(mMean[3], new double[]{0.5, 1.5}, "Low Phosphate", "Medium Phosphate", "High Phosphate") + ", "
+          + describe(mMean[4], new double[]{10, 50}, "Low Silicate", "Medium Silicate", "High Silicate");
+    }
+
+    double[] draw(final Random random){
+      final double[] values = new double[PROPERTIES.length];
+      for (int p = 0; p < values.length; p++){
+        values[p] = round(mMin[p] + random.nextDouble() * (mMax[p] - mMin[p]));
+      }
+      return values;
+    }
+
+    double clamp(final int property, final double value){
+      return Math.min(mMax[property], Math.max(mMin[property], value));
+    }
+  }
+
+  private final long mSeed;
+  private final double[][] mLandWaves;
+  // Noise choosing between the EMUs of each latitude band and depth zone
+  private final double[][][] mEmuWaves;
+  private final Archetype[] mArchetypes;
+  // EMUs by latitude band and depth zone, index zone * BANDS + band
+  private final int[][] mCellEmus;
+  private final double mThreshold;
+  private final double mLowest;
+  private final double mSpacing;
+  private final int mColumns;
+  private final int mRows;
+  // The land field is separable, so it's the sum over waves of a column term times a row term
+  private final double[][] mColumnTerms;
+  private final double[][] mRowTerms;
+  private final int mPointCount;
+
+  /**
+   * @param seed - long, the same seed always generates the same dataset
+   * @param targetPoints - int, roughly how many mesh points the ocean should hold
+   */
+  SyntheticEmuDataset(final long seed, final int targetPoints){
+    mSeed = seed;
+    final Random random = new Random(seed);
+    mLandWaves = waves(random);
+    mEmuWaves = new double[ZONES * BANDS][][];
+    for (int i = 0; i < mEmuWaves.length; i++){
+      mEmuWaves[i] = waves(random);
+    }
+
+    // Each cell gets EMUs cell + 1 and cell + 16, and the first seven a third, 31 to 37
+    mArchetypes = new Archetype[EMU_COUNT];
+    final List<List<Integer>> cellEmus = new ArrayList<>();
+    for (int cell = 0; cell < ZONES * BANDS; cell++){
+      cellEmus.add(new ArrayList<Integer>());
+    }
+    for (int emu = 1; emu <= EMU_COUNT; emu++){
+      final int cell = emu <= 2 * ZONES * BANDS ? (emu - 1) % (ZONES * BANDS) : emu - 2 * ZONES * BANDS - 1;
+      mArchetypes[emu - 1] = new Archetype(emu, cell / BANDS, cell % BANDS, random);
+      cellEmus.get(cell).add(emu);
+    }
+    mCellEmus = new int[cellEmus.size()][];
+    for (int cell = 0; cell < mCellEmus.length; cell++){
+      mCellEmus[cell] = new int[cellEmus.get(cell).size()];
+      for (int i = 0; i < mCellEmus[cell].length; i++){
+        mCellEmus[cell][i] = cellEmus.get(cell).get(i);
+      }
+    }
+
+    // Land is wherever the field is in its highest 29%
+    final double[] samples = new double[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++){
+      samples[i] = noise(mLandWaves, random.nextDouble() * 360 - 180,
+          random.nextDouble() * 2 * MAX_LATITUDE - MAX_LATITUDE);
+    }
+    Arrays.sort(samples);
+    mThreshold = samples[(int) (SAMPLES * OCEAN_FRACTION)];
+    mLowest = samples[0];
+
+    // Enough cells for the target once land is left out
+    final double spacing = Math.sqrt(360 * 2 * MAX_LATITUDE * OCEAN_FRACTION / Math.max(1, targetPoints));
+    mColumns = Math.max(1, (int) Math.round(360 / spacing));
+    mSpacing = 360.0 / mColumns;
+    mRows = Math.max(1, (int) (2 * MAX_LATITUDE / mSpacing));
+
+    mColumnTerms = new double[WAVES][mColumns];
+    mRowTerms = new double[WAVES][mRows];
+    final double total = amplitude(mLandWaves);
+    for (int w = 0; w < WAVES; w++){
+      final double[] wave = mLandWaves[w];
+      for (int c = 0; c < mColumns; c++){
+        mColumnTerms[w][c] = wave[4] / total * Math.sin(wave[0] * Math.toRadians(longitude(c)) + wave[1]);
+      }
+      for (int r = 0; r < mRows; r++){
+        mRowTerms[w][r] = Math.sin(wave[2] * Math.toRadians(latitude(r)) + wave[3]);
+      }
+    }
+    int count = 0;
+    for (int r = 0; r < mRows; r++){
+      for (int c = 0; c < mColumns; c++){
+        if (isOcean(r, c)){
+          count++;
+        }
+      }
+    }
+    mPointCount = count;
+  }
+
+  /**
+   * Return the number of mesh points, all of them in the ocean
+   * @return int
+   */
+  int getPointCount(){
+    return mPointCount;
+  }
+
+  /**
+   * Return the distance between neighboring mesh points
+   * @return double degrees
+   */
+  double getSpacing(){
+    return mSpacing;
+  }
+
+  /**
+   * Visit every mesh point within the bounds, row by row from the south
+   * @param xmin - double minimum longitude
+   * @param ymin - double minimum latitude
+   * @param xmax - double maximum longitude
+   * @param ymax - double maximum latitude
+   * @param visitor - PointVisitor
+   */
+  void forEachPoint(final double xmin, final double ymin, final double xmax, final double ymax,
+      final PointVisitor visitor){
+    final int firstColumn = Math.max(0, (int) Math.ceil((xmin + 180) / mSpacing - 0.5));
+    final int lastColumn = Math.min(mColumns - 1, (int) Math.floor((xmax + 180) / mSpacing - 0.5));
+    final int firstRow = Math.max(0, (int) Math.ceil((ymin + MAX_LATITUDE) / mSpacing - 0.5));
+    final int lastRow = Math.min(mRows - 1, (int) Math.floor((ymax + MAX_LATITUDE) / mSpacing - 0.5));
+    for (int r = firstRow; r <= lastRow; r++){
+      for (int c = firstColumn; c <= lastColumn; c++){
+        if (isOcean(r, c)){
+          visitor.visit(r * mColumns + c, longitude(c), latitude(r));
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the mesh point in the grid cell holding a location
+   * @param x - double longitude
+   * @param y - double latitude
+   * @return int id or -1 if the cell is land or off the grid
+   */
+  int pointAt(final double x, final double y){
+    final int c = (int) Math.floor((x + 180) / mSpacing);
+    final int r = (int) Math.floor((y + MAX_LATITUDE) / mSpacing);
+    if (c < 0 || c >= mColumns || r < 0 || r >= mRows || !isOcean(r, c)){
+      return -1;
+    }
+    return r * mColumns + c;
+  }
+
+  /**
+   * Return the location of a mesh point
+   * @param id - int
+   * @return Point in WGS84
+   */
+  Point location(final int id){
+    return new Point(longitude(id % mColumns), latitude(id / mColumns));
+  }
+
+  /**
+   * Return the depth of the seafloor under a mesh point
+   * @param id - int
+   * @return int meters
+   */
+  int seafloor(final int id){
+    final double g = Math.min(1, Math.max(0, (mThreshold - land(id / mColumns, id % mColumns)) / (mThreshold - mLowest)));
+    return MIN_DEPTH + (int) Math.round((MAX_DEPTH - MIN_DEPTH) * Math.pow(g, 0.7));
+  }
+
+  /**
+   * Return the EMU layers of a mesh point from the surface down.  The
+   * tops are negative and the thicknesses add up to the seafloor depth.
+   * @param id - int
+   * @return List<Layer>
+   */
+  List<Layer> layers(final int id){
+    final double x = longitude(id % mColumns);
+    final double y = latitude(id / mColumns);
+    final int seafloor = seafloor(id);
+    final Random random = random(id);
+    final int band = Math.min(BANDS - 1, (int) (Math.abs(y) / 15));
+    final int[] bottoms = {SURFACE_BOTTOM - 40 + random.nextInt(81), INTERMEDIATE_BOTTOM - 150 + random.nextInt(301),
+        seafloor};
+    final List<Layer> layers = new ArrayList<>();
+    int depth = 0;
+    for (int zone = 0; zone < ZONES && depth < seafloor; zone++){
+      final int bottom = Math.min(bottoms[zone], seafloor);
+      if (bottom <= depth){
+        continue;
+      }
+      // One or two layers per zone
+      final int split = bottom - depth > 20 && random.nextBoolean()
+          ? depth + (int) ((bottom - depth) * (0.3 + 0.4 * random.nextDouble())) : bottom;
+      final int[] ends = split < bottom ? new int[]{split, bottom} : new int[]{bottom};
+      for (int i = 0; i < ends.length; i++){
+        final int cell = zone * BANDS + band;
+        final double choice = noise(mEmuWaves[cell], x, y + 7 * i) + (random.nextDouble() - 0.5) * 0.3;
+        final int[] emus = mCellEmus[cell];
+        final int emu = emus[Math.min(emus.length - 1, (int) ((choice + 1) / 2 * emus.length))];
+        final Archetype archetype = mArchetypes[emu - 1];
+        final Layer previous = layers.isEmpty() ? null : layers.get(layers.size() - 1);
+        if (previous != null && previous.mEmu == emu){
+          // Neighboring layers of one EMU are a single layer
+          layers.set(layers.size() - 1, new Layer(emu, previous.mTop, ends[i] + previous.mTop, previous.mValues));
+        }else{
+          layers.add(new Layer(emu, -depth, ends[i] - depth, archetype.draw(random)));
+        }
+        depth = ends[i];
+      }
+    }
+    return layers;
+  }
+
+  /**
+   * Return the name of an EMU, physical descriptors then nutrient ones
+   * @param emu - int from 1 to 37
+   * @return String of seven comma separated descriptors
+   */
+  String name(final int emu){
+    return mArchetypes[emu - 1].mName;
+  }
+
+  /**
+   * Return rows for the mesh cluster layer within the bounds
+   * @param xmin - double minimum longitude
+   * @param ymin - double minimum latitude
+   * @param xmax - double maximum longitude
+   * @param ymax - double maximum latitude
+   * @return List<Object[]> in CLUSTER_FIELDS order, one row per layer
+   */
+  List<Object[]> clusterRows(final double xmin, final double ymin, final double xmax, final double ymax){
+    final List<Object[]> rows = new ArrayList<>();
+    forEachPoint(xmin, ymin, xmax, ymax, new PointVisitor() {
+      @Override public void visit(final int id, final double x, final double y) {
+        final int seafloor = seafloor(id);
+        final String base = seafloor <= SURFACE_BOTTOM ? "Shelf" : seafloor <= 2500 ? "Slope" : "Abyss";
+        final Random random = random(~id);
+        final String features = random.nextInt(5) < 3 ? "None" : FEATURES[random.nextInt(FEATURES.length)];
+        final List<Layer> layers = layers(id);
+        for (int i = 0; i < layers.size(); i++){
+          final Layer layer = layers.get(i);
+          rows.add(new Object[]{ id * 8 + i + 1, layer.mEmu, name(layer.mEmu), base, features, layer.mTop,
+              layer.mThickness, x, y, layer.mValues[0], layer.mValues[1], layer.mValues[2], layer.mValues[3],
+              layer.mValues[4], layer.mValues[5] });
+        }
+      }
+    });
+    return rows;
+  }
+
+  /**
+   * Return observations for the mesh cluster layer within the bounds,
+   * built the way DataManager builds them from query results
+   * @param xmin - double minimum longitude
+   * @param ymin - double minimum latitude
+   * @param xmax - double maximum longitude
+   * @param ymax - double maximum latitude
+   * @return List<EMUObservation>
+   */
+  List<EMUObservation> observations(final double xmin, final double ymin, final double xmax, final double ymax){
+    final List<EMUObservation> observations = new ArrayList<>();
+    for (final Object[] row : clusterRows(xmin, ymin, xmax, ymax)){
+      final EMU emu = new EMU();
+      emu.setName((Integer) row[1]);
+      final String[] parts = ((String) row[2]).split(", ");
+      emu.setPhysicalSummary(parts[0] + ", " + parts[1] + ", " + parts[2]);
+      emu.setNutrientSummary(parts[3] + ", " + parts[4] + ", " + parts[5] + ", " + parts[6]);
+      emu.setGeomorphologyBase((String) row[3]);
+      emu.setGeomorphologyFeatures((String) row[4]);
+      final EMUObservation observation = new EMUObservation();
+      observation.setEmu(emu);
+      observation.setTop((Integer) row[5]);
+      observation.setThickness((Integer) row[6]);
+      observation.setLocation(new Point((Double) row[7], (Double) row[8]));
+      observation.setTemperature((Double) row[9]);
+      observation.setSalinity((Double) row[10]);
+      observation.setOxygen((Double) row[11]);
+      observation.setPhosphate((Double) row[12]);
+      observation.setSilicate((Double) row[13]);
+      observation.setNitrate((Double) row[14]);
+      observations.add(observation);
+    }
+    return observations;
+  }
+
+  /**
+   * Return the point mesh rows of a mesh point's profile, one per
+   * standard depth above the seafloor.  Values change gradually toward
+   * the next layer's but stay within the range of their own EMU.
+   * @param id - int
+   * @return List<Object[]> in PbfFixtures.PROFILE_FIELDS order
+   */
+  List<Object[]> profileRows(final int id){
+    final List<Layer> layers = layers(id);
+    final int seafloor = seafloor(id);
+    final List<Object[]> rows = new ArrayList<>();
+    int index = 0;
+    for (int i = 0; i < STANDARD_DEPTHS.length && STANDARD_DEPTHS[i] < seafloor; i++){
+      final int depth = STANDARD_DEPTHS[i];
+      while (depth >= -layers.get(index).mTop + layers.get(index).mThickness){
+        index++;
+      }
+      final Layer layer = layers.get(index);
+      final Layer next = index + 1 < layers.size() ? layers.get(index + 1) : layer;
+      final double fraction = (depth + layer.mTop) / (double) layer.mThickness;
+      final Archetype archetype = mArchetypes[layer.mEmu - 1];
+      final double[] values = new double[PROPERTIES.length];
+      for (int p = 0; p < values.length; p++){
+        values[p] = round(archetype.clamp(p, layer.mValues[p] + (next.mValues[p] - layer.mValues[p]) * fraction / 2));
+      }
+      rows.add(new Object[]{ id * 128 + i + 1, layer.mEmu, -(double) depth, values[0], values[1], values[2],
+          values[4], values[5], values[3] });
+    }
+    return rows;
+  }
+
+  /**
+   * Return the summary table, one row per EMU
+   * @return List<Object[]> in SUMMARY_FIELDS order
+   */
+  List<Object[]> summaryRows(){
+    final List<Object[]> rows = new ArrayList<>();
+    for (final Archetype archetype : mArchetypes){
+      final Object[] row = new Object[SUMMARY_FIELDS.size()];
+      row[0] = archetype.mEmu;
+      row[1] = archetype.mEmu;
+      for (int p = 0; p < PROPERTIES.length; p++){
+        row[2 + p * 3] = archetype.mMin[p];
+        row[3 + p * 3] = archetype.mMax[p];
+        row[4 + p * 3] = archetype.mMean[p];
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * Return the summary statistics, as DataManager reads them from the summary table
+   * @return List<EMUStat>, one per EMU
+   */
+  List<EMUStat> stats(){
+    final List<EMUStat> stats = new ArrayList<>();
+    for (final Archetype archetype : mArchetypes){
+      final EMUStat stat = new EMUStat();
+      stat.setEmu_name(archetype.mEmu);
+      stat.setTemp_min(archetype.mMin[0]);
+      stat.setTemp_max(archetype.mMax[0]);
+      stat.setTemp_mean(archetype.mMean[0]);
+      stat.setSalinity_min(archetype.mMin[1]);
+      stat.setSalinity_max(archetype.mMax[1]);
+      stat.setSalinity_mean(archetype.mMean[1]);
+      stat.setDisso2_min(archetype.mMin[2]);
+      stat.setDisso2_max(archetype.mMax[2]);
+      stat.setDisso2_mean(archetype.mMean[2]);
+      stat.setPhosphate_min(archetype.mMin[3]);
+      stat.setPhosphate_max(archetype.mMax[3]);
+      stat.setPhosphate_mean(archetype.mMean[3]);
+      stat.setSilicate_min(archetype.mMin[4]);
+      stat.setSilicate_max(archetype.mMax[4]);
+      stat.setSilicate_mean(archetype.mMean[4]);
+      stat.setNitrate_min(archetype.mMin[5]);
+      stat.setNitrate_max(archetype.mMax[5]);
+      stat.setNitrate_mean(archetype.mMean[5]);
+      stats.add(stat);
+    }
+    return stats;
+  }
+
+  /**
+   * Return the polygons of the EMUs at a depth within the bounds.  Each
+   * polygon takes the EMU at its center point, and polygons centered on
+   * land or above a shallower seafloor are left out.
+   * @param depth - int meters
+   * @param xmin - double minimum longitude
+   * @param ymin - double minimum latitude
+   * @param xmax - double maximum longitude
+   * @param ymax - double maximum latitude
+   * @return List<Polygon>
+   */
+  List<Polygon> polygons(final int depth, final double xmin, final double ymin, final double xmax,
+      final double ymax){
+    final double size = POLYGON_CELLS * mSpacing;
+    final int blockColumns = (mColumns + POLYGON_CELLS - 1) / POLYGON_CELLS;
+    final int blockRows = (mRows + POLYGON_CELLS - 1) / POLYGON_CELLS;
+    final List<Polygon> polygons = new ArrayList<>();
+    for (int br = Math.max(0, (int) Math.floor((ymin + MAX_LATITUDE) / size));
+        br < blockRows && br * size - MAX_LATITUDE <= ymax; br++){
+      for (int bc = Math.max(0, (int) Math.floor((xmin + 180) / size));
+          bc < blockColumns && bc * size - 180 <= xmax; bc++){
+        final int r = Math.min(mRows - 1, br * POLYGON_CELLS + POLYGON_CELLS / 2);
+        final int c = Math.min(mColumns - 1, bc * POLYGON_CELLS + POLYGON_CELLS / 2);
+        final int id = r * mColumns + c;
+        if (!isOcean(r, c) || seafloor(id) <= depth){
+          continue;
+        }
+        for (final Layer layer : layers(id)){
+          if (depth < -layer.mTop + layer.mThickness){
+            polygons.add(new Polygon(br * blockColumns + bc + 1, layer.mEmu, depth, bc * size - 180,
+                br * size - MAX_LATITUDE, Math.min(180, (bc + 1) * size - 180),
+                Math.min(mRows * mSpacing, (br + 1) * size) - MAX_LATITUDE));
+            break;
+          }
+        }
+      }
+    }
+    return polygons;
+  }
+
+  /**
+   * Answer the mesh cluster, point mesh, summary table and depth polygon
+   * queries from this dataset.  Queries are answered by geometry, in
+   * WGS84 or Web Mercator, and page, and mesh queries in either format.
+   * @param server - ArcGisStandInServer
+   */
+  void serve(final ArcGisStandInServer server){
+    server.answer(CLUSTER_QUERY, new ArcGisStandInServer.Responder() {
+      @Override public ArcGisStandInServer.Response respond(final String format, final Map<String, String> parameters) {
+        final double[] b = bounds(parameters.get("geometry"));
+        return page(format, CLUSTER_FIELDS, clusterRows(b[0], b[1], b[2], b[3]), parameters, true);
+      }
+    });
+    server.answer(MESH_QUERY, new ArcGisStandInServer.Responder() {
+      @Override public ArcGisStandInServer.Response respond(final String format, final Map<String, String> parameters) {
+        final double[] b = bounds(parameters.get("geometry"));
+        final List<Object[]> rows = new ArrayList<>();
+        if (b[0] == b[2] && b[1] == b[3]){
+          final int id = pointAt(b[0], b[1]);
+          if (id >= 0){
+            rows.addAll(profileRows(id));
+          }
+        }else{
+          forEachPoint(b[0], b[1], b[2], b[3], new PointVisitor() {
+            @Override public void visit(final int id, final double x, final double y) {
+              rows.addAll(profileRows(id));
+            }
+          });
+        }
+        return page(format, PbfFixtures.PROFILE_FIELDS, rows, parameters, true);
+      }
+    });
+    server.answer(SUMMARY_QUERY, new ArcGisStandInServer.Responder() {
+      @Override public ArcGisStandInServer.Response respond(final String format, final Map<String, String> parameters) {
+        return page(format, SUMMARY_FIELDS, summaryRows(), parameters, false);
+      }
+    });
+    server.answer(POLYGON_QUERY, new ArcGisStandInServer.Responder() {
+      @Override public ArcGisStandInServer.Response respond(final String format, final Map<String, String> parameters) {
+        if ("pbf".equals(format)){
+          return ArcGisStandInServer.error(200, 400, "Invalid format");
+        }
+        final String where = parameters.get("where");
+        final Matcher matcher = DEPTH_WHERE.matcher(where != null ? where : "");
+        final double[] b = bounds(parameters.get("geometry"));
+        final List<Polygon> polygons = polygons(matcher.find() ? Integer.parseInt(matcher.group(1)) : 1,
+            b[0], b[1], b[2], b[3]);
+        final int offset = Math.min(polygons.size(), intParameter(parameters, "resultOffset", 0));
+        final int end = Math.min(polygons.size(), offset + pageSize(parameters));
+        return new ArcGisStandInServer.Response(200, ArcGisStandInServer.JSON,
+            polygonJson(polygons.subList(offset, end), end < polygons.size()).getBytes(UTF_8));
+      }
+    });
+  }
+
+  /**
+   * Write the dataset within the bounds as recordings laid out like the
+   * service paths, for ArcGisStandInServer.recordAll: the mesh clusters
+   * and the profile of the point nearest the center in both formats,
+   * the summary table, and the polygons one meter down.
+   * @param directory - File
+   * @param xmin - double minimum longitude
+   * @param ymin - double minimum latitude
+   * @param xmax - double maximum longitude
+   * @param ymax - double maximum latitude
+   * @return int number of files written
+   * @throws IOException if a file can't be written
+   */
+  int writeRecordings(final File directory, final double xmin, final double ymin, final double xmax,
+      final double ymax) throws IOException {
+    final List<Object[]> clusters = clusterRows(xmin, ymin, xmax, ymax);
+    write(new File(directory, CLUSTER_QUERY + ".json"), PbfFixtures.json(CLUSTER_FIELDS, clusters).getBytes(UTF_8));
+    write(new File(directory, CLUSTER_QUERY + ".pbf"), PbfFixtures.pbf(CLUSTER_FIELDS, clusters, false, false));
+    int written = 2;
+
+    final double centerX = (xmin + xmax) / 2;
+    final double centerY = (ymin + ymax) / 2;
+    final int[] nearest = {-1};
+    final double[] nearestDistance = {Double.MAX_VALUE};
+    forEachPoint(xmin, ymin, xmax, ymax, new PointVisitor() {
+      @Override public void visit(final int id, final double x, final double y) {
+        final double distance = (x - centerX) * (x - centerX) + (y - centerY) * (y - centerY);
+        if (distance < nearestDistance[0]){
+          nearestDistance[0] = distance;
+          nearest[0] = id;
+        }
+      }
+    });
+    if (nearest[0] >= 0){
+      final List<Object[]> profile = profileRows(nearest[0]);
+      write(new File(directory, MESH_QUERY + ".json"), PbfFixtures.json(PbfFixtures.PROFILE_FIELDS, profile).getBytes(UTF_8));
+      write(new File(directory, MESH_QUERY + ".pbf"), PbfFixtures.pbf(PbfFixtures.PROFILE_FIELDS, profile, false, false));
+      written += 2;
+    }
+
+    write(new File(directory, SUMMARY_QUERY + ".json"), PbfFixtures.json(SUMMARY_FIELDS, summaryRows()).getBytes(UTF_8));
+    write(new File(directory, POLYGON_QUERY + ".json"),
+        polygonJson(polygons(1, xmin, ymin, xmax, ymax), false).getBytes(UTF_8));
+    return written + 2;
+  }
+
+  private boolean isOcean(final int row, final int column){
+    return land(row, column) <= mThreshold;
+  }
+
+  private double land(final int row, final int column){
+    double value = 0;
+    for (int w = 0; w < WAVES; w++){
+      value += mColumnTerms[w][column] * mRowTerms[w][row];
+    }
+    return value;
+  }
+
+  private double longitude(final int column){
+    return -180 + (column + 0.5) * mSpacing;
+  }
+
+  private double latitude(final int row){
+    return -MAX_LATITUDE + (row + 0.5) * mSpacing;
+  }
+
+  private Random random(final int id){
+    return new Random(mSeed ^ (id * 0x9E3779B97F4A7C15L));
+  }
+
+  private static ArcGisStandInServer.Response page(final String format, final List<String> fields,
+      final List<Object[]> rows, final Map<String, String> parameters, final boolean pbf){
+    final int offset = Math.min(rows.size(), intParameter(parameters, "resultOffset", 0));
+    final int end = Math.min(rows.size(), offset + pageSize(parameters));
+    final boolean exceeded = end < rows.size();
+
+    // Only the fields asked for, in the order asked
+    final String outFields = parameters.get("outFields");
+    final List<String> projected = new ArrayList<>();
+    final List<Integer> indexes = new ArrayList<>();
+    if (outFields == null || outFields.trim().equals("*")){
+      projected.addAll(fields);
+      for (int i = 0; i < fields.size(); i++){
+        indexes.add(i);
+      }
+    }else{
+      for (final String field : outFields.split(",")){
+        final int index = fields.indexOf(field.trim());
+        if (index >= 0){
+          projected.add(field.trim());
+          indexes.add(index);
+        }
+      }
+    }
+    final List<Object[]> page = new ArrayList<>(end - offset);
+    for (final Object[] row : rows.subList(offset, end)){
+      final Object[] values = new Object[indexes.size()];
+      for (int i = 0; i < values.length; i++){
+        values[i] = row[indexes.get(i)];
+      }
+      page.add(values);
+    }
+
+    if ("pbf".equals(format)){
+      return pbf ? new ArcGisStandInServer.Response(200, ArcGisStandInServer.PBF,
+          PbfFixtures.pbf(projected, page, exceeded, false)) : ArcGisStandInServer.error(200, 400, "Invalid format");
+    }
+    String json = PbfFixtures.json(projected, page);
+    if (exceeded){
+      json = json.substring(0, json.length() - 1) + ",\"exceededTransferLimit\":true}";
+    }
+    return new ArcGisStandInServer.Response(200, ArcGisStandInServer.JSON, json.getBytes(UTF_8));
+  }
+
+  private static int pageSize(final Map<String, String> parameters){
+    return Math.min(MAX_RECORD_COUNT, intParameter(parameters, "resultRecordCount", MAX_RECORD_COUNT));
+  }
+
+  private static int intParameter(final Map<String, String> parameters, final String name, final int fallback){
+    final String value = parameters.get(name);
+    if (value == null || value.isEmpty()){
+      return fallback;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (final NumberFormatException e){
+      return fallback;
+    }
+  }
+
+  /**
+   * Return the WGS84 bounds of a query geometry
+   * @param geometryJson - String, an envelope, point, polyline, polygon or multipoint, or null
+   * @return double[] of xmin, ymin, xmax and ymax, the whole world if there's no geometry
+   */
+  static double[] bounds(final String geometryJson){
+    if (geometryJson == null || geometryJson.isEmpty()){
+      return new double[]{-180, -90, 180, 90};
+    }
+    final Map<?, ?> geometry = (Map<?, ?>) new JsonParser(geometryJson).parseValue();
+    final double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    if (geometry.containsKey("xmin")){
+      extend(bounds, number(geometry.get("xmin")), number(geometry.get("ymin")));
+      extend(bounds, number(geometry.get("xmax")), number(geometry.get("ymax")));
+    }else if (geometry.containsKey("x")){
+      extend(bounds, number(geometry.get("x")), number(geometry.get("y")));
+    }else{
+      for (final String key : new String[]{"rings", "paths", "points"}){
+        if (geometry.containsKey(key)){
+          extend(bounds, geometry.get(key));
+        }
+      }
+    }
+    final Map<?, ?> spatialReference = (Map<?, ?>) geometry.get("spatialReference");
+    final int wkid = spatialReference != null && spatialReference.get("wkid") != null
+        ? (int) number(spatialReference.get("wkid")) : 4326;
+    if (wkid == 102100 || wkid == 3857 || wkid == 102113){
+      for (int i = 0; i < 4; i += 2){
+        bounds[i] = Math.toDegrees(bounds[i] / EARTH_RADIUS);
+        bounds[i + 1] = Math.toDegrees(2 * Math.atan(Math.exp(bounds[i + 1] / EARTH_RADIUS)) - Math.PI / 2);
+      }
+    }
+    return bounds;
+  }
+
+  // Nested coordinate arrays, down to [x, y] pairs
+  private static void extend(final double[] bounds, final Object coordinates){
+    final List<?> list = (List<?>) coordinates;
+    if (!list.isEmpty() && list.get(0) instanceof Number){
+      extend(bounds, number(list.get(0)), number(list.get(1)));
+      return;
+    }
+    for (final Object item : list){
+      extend(bounds, item);
+    }
+  }
+
+  private static void extend(final double[] bounds, final double x, final double y){
+    bounds[0] = Math.min(bounds[0], x);
+    bounds[1] = Math.min(bounds[1], y);
+    bounds[2] = Math.max(bounds[2], x);
+    bounds[3] = Math.max(bounds[3], y);
+  }
+
+  private static double number(final Object value){
+    return ((Number) value).doubleValue();
+  }
+
+  private static String polygonJson(final List<Polygon> polygons, final boolean exceeded){
+    final StringBuilder builder = new StringBuilder("{\"objectIdFieldName\":\"OBJECTID\",")
+        .append("\"geometryType\":\"esriGeometryPolygon\",\"spatialReference\":{\"wkid\":4326,\"latestWkid\":4326},")
+        .append("\"fields\":[{\"name\":\"OBJECTID\",\"type\":\"esriFieldTypeOID\"},")
+        .append("{\"name\":\"Cluster37\",\"type\":\"esriFieldTypeInteger\"},")
+        .append("{\"name\":\"Depth\",\"type\":\"esriFieldTypeInteger\"},")
+        .append("{\"name\":\"Name_2016\",\"type\":\"esriFieldTypeString\"}],\"features\":[");
+    for (int i = 0; i < polygons.size(); i++){
+      final Polygon polygon = polygons.get(i);
+      builder.append(i > 0 ? "," : "").append("{\"attributes\":{\"OBJECTID\":").append(polygon.mId)
+          .append(",\"Cluster37\":").append(polygon.mEmu)
+          .append(",\"Depth\":").append(polygon.mDepth)
+          .append(",\"Name_2016\":\"EMU_").append(polygon.mEmu)
+          .append("\"},\"geometry\":{\"rings\":[[")
+          .append('[').append(polygon.mXmin).append(',').append(polygon.mYmin).append("],")
+          .append('[').append(polygon.mXmin).append(',').append(polygon.mYmax).append("],")
+          .append('[').append(polygon.mXmax).append(',').append(polygon.mYmax).append("],")
+          .append('[').append(polygon.mXmax).append(',').append(polygon.mYmin).append("],")
+          .append('[').append(polygon.mXmin).append(',').append(polygon.mYmin).append("]]]}}");
+    }
+    builder.append(']');
+    if (exceeded){
+      builder.append(",\"exceededTransferLimit\":true");
+    }
+    return builder.append('}').toString();
+  }
+
+  private static void write(final File file, final byte[] bytes) throws IOException {
+    final File parent = file.getParentFile();
+    if (!parent.isDirectory() && !parent.mkdirs()){
+      throw new IOException("Can't create " + parent);
+    }
+    final OutputStream output = new FileOutputStream(file);
+    try {
+      output.write(bytes);
+    } finally {
+      output.close();
+    }
+  }
+
+  // Waves of frequency, phase and amplitude, whole numbers of cycles around the globe so the field wraps
+  private static double[][] waves(final Random random){
+    final double[][] waves = new double[WAVES][];
+    for (int w = 0; w < WAVES; w++){
+      waves[w] = new double[]{1 + random.nextInt(6), random.nextDouble() * 2 * Math.PI,
+          1 + random.nextInt(6), random.nextDouble() * 2 * Math.PI, 1.0 / (w + 1)};
+    }
+    return waves;
+  }
+
+  private static double amplitude(final double[][] waves){
+    double total = 0;
+    for (final double[] wave : waves){
+      total += wave[4];
+    }
+    return total;
+  }
+
+  // Between -1 and 1
+  private static double noise(final double[][] waves, final double x, final double y){
+    final double lon = Math.toRadians(x);
+    final double lat = Math.toRadians(y);
+    double value = 0;
+    for (final double[] wave : waves){
+      value += wave[4] * Math.sin(wave[0] * lon + wave[1]) * Math.sin(wave[2] * lat + wave[3]);
+    }
+    return value / amplitude(waves);
+  }
+
+  private static String describe(final double value, final double[] thresholds, final String... labels){
+    int i = 0;
+    while (i < thresholds.length && value >= thresholds[i]){
+      i++;
+    }
+    return labels[i];
+  }
+
+  private static double round(final double value){
+    return Math.round(value * 100) / 100.0;
+  }
+
+  private static List<String> summaryFields(){
+    final List<String> fields = new ArrayList<>(Arrays.asList("OBJECTID", "Cluster37"));
+    for (final String property : PROPERTIES){
+      fields.add("MIN_" + property);
+      fields.add("MAX_" + property);
+      fields.add("MEAN_" + property);
+    }
+    return Collections.unmodifiableList(fields);
+  }
+
+  private static int[] standardDepths(){
+    final int[] depths = new int[102];
+    int i = 0;
+    for (int depth = 0; depth <= 100; depth += 5){
+      depths[i++] = depth;
+    }
+    for (int depth = 125; depth <= 500; depth += 25){
+      depths[i++] = depth;
+    }
+    for (int depth = 550; depth <= 2000; depth += 50){
+      depths[i++] = depth;
+    }
+    for (int depth = 2100; depth <= 5500; depth += 100){
+      depths[i++] = depth;
+    }
+    return depths;
+  }
+}
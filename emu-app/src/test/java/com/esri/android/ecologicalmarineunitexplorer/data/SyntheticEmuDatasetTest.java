@@ -0,0 +1,251 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the synthetic dataset is deterministic, scales with its
+ * target and is consistent with itself, and that the stand-in
+ * server pages through it the way the services would.
+ */
+public class SyntheticEmuDatasetTest {
+
+  // The North Atlantic, east of Newfoundland
+  private static final double XMIN = -50;
+  private static final double YMIN = 35;
+  private static final double XMAX = -30;
+  private static final double YMAX = 50;
+
+  private static final PbfFeatureReader.RowDecoder<Integer> EMUS = new PbfFeatureReader.RowDecoder<Integer>() {
+    @Override public Integer decode(final PbfFeatureReader.Row row) {
+      return (int) row.getNumber("Cluster37", 0);
+    }
+  };
+
+  @Test
+  public void sameSeedGeneratesSameDataset() {
+    final SyntheticEmuDataset first = new SyntheticEmuDataset(7, 20000);
+    final SyntheticEmuDataset second = new SyntheticEmuDataset(7, 20000);
+    assertEquals(first.getPointCount(), second.getPointCount());
+    assertRowsEqual(first.summaryRows(), second.summaryRows());
+    assertRowsEqual(first.clusterRows(XMIN, YMIN, XMAX, YMAX), second.clusterRows(XMIN, YMIN, XMAX, YMAX));
+
+    final SyntheticEmuDataset other = new SyntheticEmuDataset(8, 20000);
+    assertFalse(Arrays.deepEquals(first.summaryRows().toArray(), other.summaryRows().toArray()));
+  }
+
+  @Test
+  public void pointCountScalesWithTarget() {
+    assertPointCountNear(1000);
+    assertPointCountNear(100000);
+  }
+
+  @Test
+  @Ignore("Scale test, builds a world of a million points")
+  public void pointCountScalesToMillionPoints() {
+    assertPointCountNear(1000000);
+  }
+
+  @Test
+  public void layersFillEachColumnWithinEmuRanges() {
+    final SyntheticEmuDataset dataset = new SyntheticEmuDataset(5, 1000);
+    final EmuSummary summary = new EmuSummary(dataset.stats());
+    assertEquals(SyntheticEmuDataset.EMU_COUNT, summary.size());
+    assertEquals(SyntheticEmuDataset.EMU_COUNT, dataset.summaryRows().size());
+    dataset.forEachPoint(-180, -90, 180, 90, new SyntheticEmuDataset.PointVisitor() {
+      @Override public void visit(final int id, final double x, final double y) {
+        int depth = 0;
+        int previous = 0;
+        for (final SyntheticEmuDataset.Layer layer : dataset.layers(id)){
+          assertEquals(-depth, layer.mTop);
+          assertTrue(layer.mThickness > 0);
+          assertTrue(layer.mEmu != previous);
+          final EMUStat stat = summary.getStat(layer.mEmu);
+          assertWithin(stat.getTemp_min(), stat.getTemp_max(), layer.mValues[0]);
+          assertWithin(stat.getSalinity_min(), stat.getSalinity_max(), layer.mValues[1]);
+          assertWithin(stat.getDisso2_min(), stat.getDisso2_max(), layer.mValues[2]);
+          assertWithin(stat.getPhosphate_min(), stat.getPhosphate_max(), layer.mValues[3]);
+          assertWithin(stat.getSilicate_min(), stat.getSilicate_max(), layer.mValues[4]);
+          assertWithin(stat.getNitrate_min(), stat.getNitrate_max(), layer.mValues[5]);
+          assertEquals(7, dataset.name(layer.mEmu).split(",").length);
+          depth += layer.mThickness;
+          previous = layer.mEmu;
+        }
+        assertEquals(dataset.seafloor(id), depth);
+      }
+    });
+  }
+
+  @Test
+  public void profilesDescendWithinEmuRanges() {
+    final SyntheticEmuDataset dataset = new SyntheticEmuDataset(5, 1000);
+    final EmuSummary summary = new EmuSummary(dataset.stats());
+    dataset.forEachPoint(-180, -90, 180, 90, new SyntheticEmuDataset.PointVisitor() {
+      @Override public void visit(final int id, final double x, final double y) {
+        final List<Object[]> rows = dataset.profileRows(id);
+        assertFalse(rows.isEmpty());
+        double previous = 1;
+        for (final Object[] row : rows){
+          final double depth = (Double) row[2];
+          assertTrue(depth < previous && -depth < dataset.seafloor(id));
+          final EMUStat stat = summary.getStat((Integer) row[1]);
+          assertWithin(stat.getTemp_min(), stat.getTemp_max(), (Double) row[3]);
+          assertWithin(stat.getSilicate_min(), stat.getSilicate_max(), (Double) row[6]);
+          assertWithin(stat.getPhosphate_min(), stat.getPhosphate_max(), (Double) row[8]);
+          previous = depth;
+        }
+      }
+    });
+  }
+
+  @Test
+  public void observationsGroupIntoWaterColumns() {
+    assertObservationsGroup(new SyntheticEmuDataset(11, 100000), 100);
+  }
+
+  @Test
+  @Ignore("Scale test, groups the North Atlantic of a million point world")
+  public void observationsGroupIntoWaterColumnsAtMillionPoints() {
+    assertObservationsGroup(new SyntheticEmuDataset(11, 1000000), 1000);
+  }
+
+  @Test
+  public void standInServesPagedQueries() throws Exception {
+    final SyntheticEmuDataset dataset = new SyntheticEmuDataset(13, 100000);
+    final ArcGisStandInServer server = new ArcGisStandInServer(13);
+    try {
+      dataset.serve(server);
+      final String envelope = "{\"xmin\":" + XMIN + ",\"ymin\":" + YMIN + ",\"xmax\":" + XMAX + ",\"ymax\":" + YMAX
+          + ",\"spatialReference\":{\"wkid\":4326}}";
+      final PbfQuery query = new PbfQuery(server.getUrl("EMU_Point_Mesh_Cluster/MapServer/0"));
+      final List<Integer> emus = new ArrayList<>();
+      int pages = 0;
+      PbfQuery.Result result;
+      do {
+        result = query.fetch(envelope, "esriGeometryEnvelope", Arrays.asList("Cluster37", "UnitTop"), emus.size(),
+            SyntheticEmuDataset.MAX_RECORD_COUNT, EMUS, emus);
+        pages++;
+      } while (result.exceededTransferLimit());
+      final List<Object[]> rows = dataset.clusterRows(XMIN, YMIN, XMAX, YMAX);
+      assertEquals(rows.size(), emus.size());
+      assertEquals((rows.size() + SyntheticEmuDataset.MAX_RECORD_COUNT - 1) / SyntheticEmuDataset.MAX_RECORD_COUNT, pages);
+      for (int i = 0; i < rows.size(); i++){
+        assertEquals(rows.get(i)[1], emus.get(i));
+      }
+
+      final Map<String, Object> summary = JsonParser.getJson(server.getUrl(SyntheticEmuDataset.SUMMARY_QUERY)
+          + "?where=1%3D1&outFields=*&f=json");
+      assertEquals(SyntheticEmuDataset.EMU_COUNT, ((List<?>) summary.get("features")).size());
+
+      final Map<String, Object> polygons = JsonParser.getJson(server.getUrl(SyntheticEmuDataset.POLYGON_QUERY)
+          + "?where=" + URLEncoder.encode(" Depth = 10", "UTF-8") + "&geometry=" + URLEncoder.encode(envelope, "UTF-8")
+          + "&outFields=*&f=json");
+      final List<?> features = (List<?>) polygons.get("features");
+      assertEquals(dataset.polygons(10, XMIN, YMIN, XMAX, YMAX).size(), features.size());
+      assertTrue(((Map<?, ?>) features.get(0)).containsKey("geometry"));
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void recordingsReplayThroughStandIn() throws Exception {
+    final SyntheticEmuDataset dataset = new SyntheticEmuDataset(17, 1000);
+    final File directory = File.createTempFile("synthetic", "");
+    assertTrue(directory.delete() && directory.mkdir());
+    final ArcGisStandInServer server = new ArcGisStandInServer(17);
+    try {
+      assertEquals(6, dataset.writeRecordings(directory, -180, -90, 180, 90));
+      assertEquals(6, server.recordAll(directory));
+      final Map<String, Object> clusters = JsonParser.getJson(server.getUrl(SyntheticEmuDataset.CLUSTER_QUERY) + "?f=json");
+      assertEquals(dataset.clusterRows(-180, -90, 180, 90).size(), ((List<?>) clusters.get("features")).size());
+    } finally {
+      server.stop();
+      delete(directory);
+    }
+  }
+
+  private static void assertPointCountNear(final int target){
+    final SyntheticEmuDataset dataset = new SyntheticEmuDataset(3, target);
+    assertEquals(target, dataset.getPointCount(), target * 0.15);
+    final int[] visited = {0};
+    dataset.forEachPoint(-180, -90, 180, 90, new SyntheticEmuDataset.PointVisitor() {
+      @Override public void visit(final int id, final double x, final double y) {
+        visited[0]++;
+      }
+    });
+    assertEquals(dataset.getPointCount(), visited[0]);
+  }
+
+  private static void assertObservationsGroup(final SyntheticEmuDataset dataset, final int minColumns){
+    final List<EMUObservation> observations = dataset.observations(XMIN, YMIN, XMAX, YMAX);
+    final List<WaterColumn> columns = ColumnGrouper.group(observations);
+    final List<Integer> ids = new ArrayList<>();
+    dataset.forEachPoint(XMIN, YMIN, XMAX, YMAX, new SyntheticEmuDataset.PointVisitor() {
+      @Override public void visit(final int id, final double x, final double y) {
+        ids.add(id);
+      }
+    });
+    assertTrue(ids.size() > minColumns);
+    assertEquals(ids.size(), columns.size());
+    for (int i = 0; i < columns.size(); i++){
+      assertEquals(dataset.seafloor(ids.get(i)), columns.get(i).getDepth());
+      assertEquals(0, columns.get(i).getEmuSet().iterator().next().getTop());
+    }
+  }
+
+  private static void assertWithin(final double min, final double max, final double value){
+    assertTrue(value + " outside " + min + " to " + max, value >= min && value <= max);
+  }
+
+  private static void assertRowsEqual(final List<Object[]> expected, final List<Object[]> actual){
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++){
+      assertTrue(Arrays.equals(expected.get(i), actual.get(i)));
+    }
+  }
+
+  private static void delete(final File file){
+    final File[] children = file.listFiles();
+    if (children != null){
+      for (final File child : children){
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,87 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the search areas planned around a tap and how spacing is learnt per region.
+ */
+public class TapSearchTest {
+
+  private static final double DELTA = 1e-9;
+
+  private final TapSearch mSearch = new TapSearch(0.25, 2, 10);
+
+  @Test
+  public void firstSearchHoldsAMeshPointAndEachAfterDoubles() {
+    assertArrayEquals(new double[]{ 0.125, 0.25, 0.5, 1, 2 }, mSearch.halfWidths(-40, 30), DELTA);
+  }
+
+  @Test
+  public void sparseRegionStartsWider() {
+    for (int i = 0; i < 20; i++){
+      // Columns found about a degree from each tap near a coast
+      mSearch.recordHit(-72.2, 41.3, -73.2, 41.5);
+    }
+    final double[] halfWidths = mSearch.halfWidths(-72, 41);
+    assertEquals(1.5, halfWidths[0], 0.01);
+    assertEquals(2, halfWidths[halfWidths.length - 1], DELTA);
+
+    // Other regions are unaffected
+    assertEquals(0.25, mSearch.getSpacing(20, -30), DELTA);
+    assertEquals(0.125, mSearch.halfWidths(20, -30)[0], DELTA);
+  }
+
+  @Test
+  public void denseRegionStartsNarrowerDownToALimit() {
+    for (int i = 0; i < 50; i++){
+      mSearch.recordHit(10, 10, 10.001, 10);
+    }
+    assertEquals(0.25 / 8, mSearch.halfWidths(10, 10)[0], DELTA);
+  }
+
+  @Test
+  public void spacingAveragesNearestDistances() {
+    mSearch.recordHit(0.05, 0.05, 0.1, 0.0);
+    // A quarter of the way from 0.25 towards 3 x 0.05
+    assertEquals(0.225, mSearch.getSpacing(0, 0), DELTA);
+  }
+
+  @Test
+  public void distanceWrapsAroundTheAntimeridian() {
+    mSearch.recordHit(179.95, 0, -179.95, 0);
+    assertEquals(0.25 + (0.3 - 0.25) * 0.25, mSearch.getSpacing(179, 0), DELTA);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void widestSearchMustHoldAMeshPoint() {
+    new TapSearch(1, 0.25, 10);
+  }
+}
@@ -0,0 +1,72 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks distances measured along and across a Transect.
+ */
+public class TransectTest {
+
+  // One degree of latitude or of longitude at the equator
+  private static final double KM_PER_DEGREE = 111.195;
+
+  @Test
+  public void lengthSumsSegments() {
+    final Transect transect = new Transect(new double[]{0, 1, 1}, new double[]{0, 0, 1});
+    assertEquals(2 * KM_PER_DEGREE, transect.getLength(), 0.5);
+  }
+
+  @Test
+  public void distanceAlongProjectsOntoNearestSegment() {
+    final Transect transect = new Transect(new double[]{0, 1, 1}, new double[]{0, 0, 1});
+    assertEquals(0.5 * KM_PER_DEGREE, transect.distanceAlong(0.5, 0.1), 0.5);
+    assertEquals(1.5 * KM_PER_DEGREE, transect.distanceAlong(1.2, 0.5), 0.5);
+    assertEquals(0.2 * KM_PER_DEGREE, transect.distanceFrom(1.2, 0.5), 0.5);
+  }
+
+  @Test
+  public void pointsBeyondTheEndsClampToTheEnds() {
+    final Transect transect = new Transect(new double[]{0, 1}, new double[]{0, 0});
+    assertEquals(0, transect.distanceAlong(-1, 0), 1e-9);
+    assertEquals(transect.getLength(), transect.distanceAlong(3, 0), 1e-9);
+  }
+
+  @Test
+  public void segmentsMayCrossTheAntimeridian() {
+    final Transect transect = new Transect(new double[]{179.5, -179.5}, new double[]{0, 0});
+    assertEquals(KM_PER_DEGREE, transect.getLength(), 0.5);
+    assertEquals(0.5 * KM_PER_DEGREE, transect.distanceAlong(180, 0), 0.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void singleVertexIsRejected() {
+    new Transect(new double[]{0}, new double[]{0});
+  }
+}
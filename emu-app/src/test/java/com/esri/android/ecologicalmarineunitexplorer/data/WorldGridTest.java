@@ -0,0 +1,122 @@
+/* Copyright 2017 Esri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For additional information, contact:
+ * Environmental Systems Research Institute, Inc.
+ * Attn: Contracts Dept
+ * 380 New York Street
+ * Redlands, California, USA 92373
+ *
+ * email: contracts@esri.com
+ *
+ */
+
+
+package com.esri.android.ecologicalmarineunitexplorer.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how WorldGrid maps extents to cells and merges cells into blocks.
+ */
+public class WorldGridTest {
+
+  private final WorldGrid mGrid = new WorldGrid(30);
+
+  @Test
+  public void gridHasSeventyTwoCells() {
+    assertEquals(72, mGrid.getCellCount());
+    assertEquals(72, mGrid.allCells().size());
+  }
+
+  @Test
+  public void smallExtentFallsInOneCell() {
+    final Set<Integer> cells = mGrid.cellsIntersecting(-70, 40, -65, 44);
+    assertEquals(1, cells.size());
+    // Column 3 (-90..-60), row 4 (30..60)
+    assertTrue(cells.contains(mGrid.cellAt(3, 4)));
+  }
+
+  @Test
+  public void extentOnCellEdgeDoesNotSpillOver() {
+    final Set<Integer> cells = mGrid.cellsIntersecting(0, 0, 30, 30);
+    assertEquals(1, cells.size());
+    assertTrue(cells.contains(mGrid.cellAt(6, 3)));
+  }
+
+  @Test
+  public void wrappedExtentCrossesAntimeridian() {
+    final Set<Integer> cells = mGrid.cellsIntersecting(170, -10, 200, 10);
+    assertTrue(cells.contains(mGrid.cellAt(11, 2)));
+    assertTrue(cells.contains(mGrid.cellAt(0, 2)));
+    assertTrue(cells.contains(mGrid.cellAt(11, 3)));
+    assertTrue(cells.contains(mGrid.cellAt(0, 3)));
+    assertEquals(4, cells.size());
+  }
+
+  @Test
+  public void extentWiderThanWorldCoversEveryColumn() {
+    final Set<Integer> cells = mGrid.cellsIntersecting(-400, -5, 400, 5);
+    assertEquals(24, cells.size());
+  }
+
+  @Test
+  public void wholeWorldMergesIntoOneBlock() {
+    final List<WorldGrid.Block> blocks = mGrid.blocksFor(mGrid.allCells());
+    assertEquals(1, blocks.size());
+    assertArrayEquals(new double[]{-180, -90, 180, 90}, blocks.get(0).getBounds(), 0);
+    assertEquals(72, blocks.get(0).getCells().size());
+  }
+
+  @Test
+  public void gapsSplitBlocks() {
+    final List<Integer> cells = new ArrayList<>(mGrid.cellsIntersecting(-60, 0, 60, 60));
+    cells.remove(Integer.valueOf(mGrid.cellAt(6, 3)));
+    final List<WorldGrid.Block> blocks = mGrid.blocksFor(cells);
+    int covered = 0;
+    for (final WorldGrid.Block block : blocks){
+      covered = covered + block.getCells().size();
+      assertFalse(block.getCells().contains(mGrid.cellAt(6, 3)));
+    }
+    assertEquals(cells.size(), covered);
+    assertEquals(3, blocks.size());
+  }
+
+  @Test
+  public void separateRowsWithSameSpanStack() {
+    final List<WorldGrid.Block> blocks = mGrid.blocksFor(Arrays.asList(mGrid.cellAt(2, 1), mGrid.cellAt(2, 2), mGrid.cellAt(2, 4)));
+    assertEquals(2, blocks.size());
+    assertArrayEquals(new double[]{-120, -60, -90, 0}, blocks.get(0).getBounds(), 0);
+  }
+
+  @Test
+  public void locationFallsInTheCellCoveringIt() {
+    assertEquals(mGrid.cellAt(3, 4), mGrid.cellContaining(-67, 42));
+    assertEquals(mGrid.cellAt(0, 2), mGrid.cellContaining(181, -10));
+    assertEquals(mGrid.cellAt(0, 5), mGrid.cellContaining(180, 90));
+    assertEquals(mGrid.cellsIntersecting(-70, 40, -65, 44).iterator().next().intValue(), mGrid.cellContaining(-67, 42));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cellSizeMustDivideWorld() {
+    new WorldGrid(7);
+  }
+}